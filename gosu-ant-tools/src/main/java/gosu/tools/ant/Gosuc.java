@@ -324,13 +324,12 @@ public class Gosuc extends GosuMatchingTask {
       log.debug("\t" + file.getAbsolutePath());
     }
     
-    for(File file : compileList) {
-      try {
-        gosuc.compile(file, driver);
-      } catch (Exception e) {
-        log.error(e.getMessage());
-        throw new BuildException(e);
-      }
+    try {
+      // compileList only holds stale sources, so no incremental index is needed here
+      gosuc.compile(compileList, driver, Runtime.getRuntime().availableProcessors(), null);
+    } catch (Exception e) {
+      log.error(e.getMessage());
+      throw new BuildException(e);
     }
 
     gosuc.unitializeGosu();
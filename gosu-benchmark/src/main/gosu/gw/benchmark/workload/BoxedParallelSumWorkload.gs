@@ -0,0 +1,12 @@
+package gw.benchmark.workload
+
+uses gw.benchmark.Workload
+uses java.lang.Integer
+
+class BoxedParallelSumWorkload implements Workload {
+  var _items = Workloads.makeItems( 1000000 )
+
+  override function run() : Object {
+    return _items.parallelReduce( 0 as Integer, \ sum : Integer, item : Item -> sum + item.Quantity, \ sum1 : Integer, sum2 : Integer -> sum1 + sum2 )
+  }
+}
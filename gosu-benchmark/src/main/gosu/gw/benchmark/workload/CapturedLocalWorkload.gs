@@ -0,0 +1,16 @@
+package gw.benchmark.workload
+
+uses gw.benchmark.Workload
+
+class CapturedLocalWorkload implements Workload {
+  var _ints = Workloads.makeInts( 1000 )
+
+  override function run() : Object {
+    var count = 0
+    for( step in 0..16 ) {
+      var limit = step
+      count += _ints.where( \ i -> i < limit ).length
+    }
+    return count
+  }
+}
@@ -0,0 +1,11 @@
+package gw.benchmark.workload
+
+uses gw.benchmark.Workload
+
+class DoubleMapWhereWorkload implements Workload {
+  var _doubles = Workloads.makeDoubles( 1000 )
+
+  override function run() : Object {
+    return _doubles.map( \ d -> d * 1.5 ).where( \ d -> d > 2.0 )
+  }
+}
@@ -0,0 +1,13 @@
+package gw.benchmark.workload
+
+uses gw.benchmark.Workload
+
+class DynamicWorkload implements Workload {
+  var _item : dynamic.Dynamic = new Item( "widget", 3 )
+
+  override function run() : Object {
+    var quantity : int = _item.Quantity
+    var description : String = _item.describe( "x" )
+    return description.length() + quantity + (_item.Name as String).length()
+  }
+}
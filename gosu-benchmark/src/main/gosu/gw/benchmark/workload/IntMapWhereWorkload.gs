@@ -0,0 +1,11 @@
+package gw.benchmark.workload
+
+uses gw.benchmark.Workload
+
+class IntMapWhereWorkload implements Workload {
+  var _ints = Workloads.makeInts( 1000 )
+
+  override function run() : Object {
+    return _ints.map( \ i -> i * 3 ).where( \ i -> i % 2 == 0 )
+  }
+}
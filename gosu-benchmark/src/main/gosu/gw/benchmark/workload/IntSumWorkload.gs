@@ -0,0 +1,11 @@
+package gw.benchmark.workload
+
+uses gw.benchmark.Workload
+
+class IntSumWorkload implements Workload {
+  var _ints = Workloads.makeInts( 1000 )
+
+  override function run() : Object {
+    return _ints.sum( \ i -> i * i )
+  }
+}
@@ -0,0 +1,22 @@
+package gw.benchmark.workload
+
+uses gw.benchmark.Workload
+
+/**
+ * Iterates the intervals of IntervalVariableWorkload through their iterators, the way interval
+ * loops were compiled before they were counted.
+ */
+class IntervalIteratorWorkload implements Workload {
+  var _outer = 0..|100
+  var _inner = (100..0).step( 1 )
+
+  override function run() : Object {
+    var sum = 0L
+    for( i in _outer iterator outerIt ) {
+      for( j in _inner iterator innerIt ) {
+        sum += i * j
+      }
+    }
+    return sum
+  }
+}
@@ -0,0 +1,18 @@
+package gw.benchmark.workload
+
+uses gw.benchmark.Workload
+
+class IntervalVariableWorkload implements Workload {
+  var _outer = 0..|100
+  var _inner = (100..0).step( 1 )
+
+  override function run() : Object {
+    var sum = 0L
+    for( i in _outer ) {
+      for( j in _inner ) {
+        sum += i * j
+      }
+    }
+    return sum
+  }
+}
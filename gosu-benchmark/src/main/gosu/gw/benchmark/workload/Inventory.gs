@@ -0,0 +1,87 @@
+package gw.benchmark.workload
+
+uses java.util.ArrayList
+uses java.util.HashMap
+uses java.util.Map
+
+/**
+ * A class of typical size and mix of constructs, compiled by CompilerBenchmark.
+ */
+class Inventory {
+  var _items = new ArrayList<Item>()
+  var _byName = new HashMap<String, Item>()
+  var _owner : String as Owner
+
+  construct( owner : String ) {
+    _owner = owner
+  }
+
+  function add( name : String, quantity : int ) : Item {
+    var item = _byName.get( name )
+    if( item == null ) {
+      item = new Item( name, quantity )
+      _items.add( item )
+      _byName.put( name, item )
+    } else {
+      item.Quantity += quantity
+    }
+    return item
+  }
+
+  function remove( name : String, quantity : int ) : boolean {
+    var item = _byName.get( name )
+    if( item == null or item.Quantity < quantity ) {
+      return false
+    }
+    item.Quantity -= quantity
+    if( item.Quantity == 0 ) {
+      _items.remove( item )
+      _byName.remove( name )
+    }
+    return true
+  }
+
+  property get TotalQuantity() : int {
+    var total = 0
+    for( item in _items ) {
+      total += item.Quantity
+    }
+    return total
+  }
+
+  property get Names() : List<String> {
+    return _items.map( \ item -> item.Name ).orderBy( \ name -> name )
+  }
+
+  function countByInitial() : Map<String, Integer> {
+    var counts = new HashMap<String, Integer>()
+    for( item in _items index i ) {
+      var initial = item.Name.substring( 0, 1 ).toUpperCase()
+      counts[initial] = (counts[initial] ?: 0) + 1
+    }
+    return counts
+  }
+
+  function lowStock( threshold : int ) : List<Item> {
+    return _items.where( \ item -> item.Quantity < threshold )
+  }
+
+  override function toString() : String {
+    var sb = new StringBuilder()
+    sb.append( "Inventory of ${_owner}:" )
+    for( item in _items ) {
+      sb.append( "\n  " ).append( item.describe( "- " ) )
+    }
+    return sb.toString()
+  }
+
+  static class Summary {
+    var _total : int as Total
+    var _distinct : int as Distinct
+
+    construct( inventory : Inventory ) {
+      _total = inventory.TotalQuantity
+      _distinct = inventory.Names.Count
+    }
+  }
+}
@@ -0,0 +1,15 @@
+package gw.benchmark.workload
+
+class Item {
+  var _name : String as Name
+  var _quantity : int as Quantity
+
+  construct( name : String, quantity : int ) {
+    _name = name
+    _quantity = quantity
+  }
+
+  function describe( prefix : String ) : String {
+    return prefix + _name + " x" + _quantity
+  }
+}
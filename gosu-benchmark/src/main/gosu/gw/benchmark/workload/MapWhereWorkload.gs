@@ -0,0 +1,11 @@
+package gw.benchmark.workload
+
+uses gw.benchmark.Workload
+
+class MapWhereWorkload implements Workload {
+  var _items = Workloads.makeItems( 1000 )
+
+  override function run() : Object {
+    return _items.where( \ item -> item.Quantity % 2 == 0 ).map( \ item -> item.Name ).Count
+  }
+}
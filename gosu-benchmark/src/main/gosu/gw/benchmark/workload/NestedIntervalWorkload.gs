@@ -0,0 +1,17 @@
+package gw.benchmark.workload
+
+uses gw.benchmark.Workload
+
+class NestedIntervalWorkload implements Workload {
+  var _n = 100
+
+  override function run() : Object {
+    var sum = 0L
+    for( i in 0..|_n ) {
+      for( j in _n..0 ) {
+        sum += i * j
+      }
+    }
+    return sum
+  }
+}
@@ -0,0 +1,17 @@
+package gw.benchmark.workload
+
+uses gw.benchmark.Workload
+
+class ReassignedLocalWorkload implements Workload {
+  var _ints = Workloads.makeInts( 1000 )
+
+  override function run() : Object {
+    var count = 0
+    var limit = 0
+    for( step in 0..16 ) {
+      limit = step
+      count += _ints.where( \ i -> i < limit ).length
+    }
+    return count
+  }
+}
@@ -0,0 +1,11 @@
+package gw.benchmark.workload
+
+uses gw.benchmark.Workload
+
+class ReportWorkload implements Workload {
+  var _items = Workloads.makeItems( 100 )
+
+  override function run() : Object {
+    return Report.renderToString( "Inventory", _items )
+  }
+}
@@ -0,0 +1,11 @@
+package gw.benchmark.workload
+
+uses gw.benchmark.Workload
+
+class SequentialSumWorkload implements Workload {
+  var _items = Workloads.makeItems( 1000000 )
+
+  override function run() : Object {
+    return _items.sum( \ item -> item.Quantity )
+  }
+}
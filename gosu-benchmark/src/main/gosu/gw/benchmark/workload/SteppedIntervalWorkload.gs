@@ -0,0 +1,17 @@
+package gw.benchmark.workload
+
+uses gw.benchmark.Workload
+
+class SteppedIntervalWorkload implements Workload {
+  var _n = 200
+
+  override function run() : Object {
+    var sum = 0L
+    for( i in (0..|_n).step( 2 ) ) {
+      for( j in (_n as long)|..0L ) {
+        sum += i * j
+      }
+    }
+    return sum
+  }
+}
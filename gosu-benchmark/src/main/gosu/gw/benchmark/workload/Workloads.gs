@@ -0,0 +1,29 @@
+package gw.benchmark.workload
+
+uses java.util.ArrayList
+
+class Workloads {
+  static function makeItems( count : int ) : List<Item> {
+    var items = new ArrayList<Item>( count )
+    for( i in 0..|count ) {
+      items.add( new Item( "item" + i, i % 17 ) )
+    }
+    return items
+  }
+
+  static function makeInts( count : int ) : int[] {
+    var ints = new int[count]
+    for( i in 0..|count ) {
+      ints[i] = i % 17
+    }
+    return ints
+  }
+
+  static function makeDoubles( count : int ) : double[] {
+    var doubles = new double[count]
+    for( i in 0..|count ) {
+      doubles[i] = (i % 17) / 4.0
+    }
+    return doubles
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.benchmark;
+
+import gw.lang.Gosu;
+import gw.lang.reflect.IType;
+import gw.lang.reflect.TypeSystem;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Shared setup for the benchmarks: initializes Gosu once per fork with the benchmark jar, and
+ * with it the workload sources under gw.benchmark.workload, on the classpath.
+ */
+final class BenchmarkSupport
+{
+  private static boolean _initialized;
+
+  private BenchmarkSupport()
+  {
+  }
+
+  static synchronized void initGosu()
+  {
+    if( !_initialized )
+    {
+      Gosu.init();
+      _initialized = true;
+    }
+  }
+
+  static IType getType( String fqn )
+  {
+    initGosu();
+    IType type = TypeSystem.getByFullName( fqn );
+    if( !type.isValid() )
+    {
+      throw new IllegalStateException( fqn + " has errors" );
+    }
+    return type;
+  }
+
+  static Workload newWorkload( String fqn )
+  {
+    return (Workload)getType( fqn ).getTypeInfo().getConstructor().getConstructor().newInstance();
+  }
+
+  static String readResource( String name )
+  {
+    try( InputStream in = BenchmarkSupport.class.getResourceAsStream( name ) )
+    {
+      if( in == null )
+      {
+        throw new IllegalStateException( "Missing resource " + name );
+      }
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buf = new byte[4096];
+      for( int read; (read = in.read( buf )) > 0; )
+      {
+        out.write( buf, 0, read );
+      }
+      return new String( out.toByteArray(), StandardCharsets.UTF_8 );
+    }
+    catch( IOException e )
+    {
+      throw new UncheckedIOException( e );
+    }
+  }
+}
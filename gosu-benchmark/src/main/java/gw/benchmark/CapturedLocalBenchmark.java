@@ -0,0 +1,54 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A loop passing a block to where() on an int[] of a thousand elements, where the block captures
+ * an effectively final local by value, against the same loop with the local reassigned, which
+ * the block captures in a one element array.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class CapturedLocalBenchmark
+{
+  private Workload _capturedLocal;
+  private Workload _reassignedLocal;
+
+  @Setup
+  public void setup()
+  {
+    _capturedLocal = BenchmarkSupport.newWorkload( "gw.benchmark.workload.CapturedLocalWorkload" );
+    _reassignedLocal = BenchmarkSupport.newWorkload( "gw.benchmark.workload.ReassignedLocalWorkload" );
+  }
+
+  @Benchmark
+  public Object capturedLocal()
+  {
+    return _capturedLocal.run();
+  }
+
+  @Benchmark
+  public Object reassignedLocal()
+  {
+    return _reassignedLocal.run();
+  }
+}
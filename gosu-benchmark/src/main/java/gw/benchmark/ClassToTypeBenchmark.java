@@ -0,0 +1,88 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.benchmark;
+
+import gw.lang.reflect.IType;
+import gw.lang.reflect.TypeSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TypeSystem.get(Class) and TypeSystem.getFromObject() for classes whose type is already
+ * resolved, as coercions, casts and dynamic calls make them.  The field read baseline is a
+ * volatile read of a field, what a resolved lookup should cost on top of its ClassValue read.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ClassToTypeBenchmark
+{
+  private volatile IType _field;
+  private Object _javaObject;
+  private Class<?> _gosuClass;
+
+  @Setup
+  public void setup()
+  {
+    BenchmarkSupport.initGosu();
+    _field = TypeSystem.get( String.class );
+    _javaObject = new TreeMap<String, String>();
+    _gosuClass = BenchmarkSupport.newWorkload( "gw.benchmark.workload.SumWorkload" ).getClass();
+    TypeSystem.get( _gosuClass );
+    TypeSystem.getFromObject( _javaObject );
+  }
+
+  @Benchmark
+  public IType fieldReadBaseline()
+  {
+    return _field;
+  }
+
+  @Benchmark
+  public IType highUsageClass()
+  {
+    return TypeSystem.get( String.class );
+  }
+
+  @Benchmark
+  public IType javaClass()
+  {
+    return TypeSystem.get( TreeMap.class );
+  }
+
+  @Benchmark
+  public IType gosuClass()
+  {
+    return TypeSystem.get( _gosuClass );
+  }
+
+  @Benchmark
+  public IType javaObject()
+  {
+    return TypeSystem.getFromObject( _javaObject );
+  }
+
+  @Benchmark
+  @Threads( 4 )
+  public IType javaObjectContended()
+  {
+    return TypeSystem.getFromObject( _javaObject );
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.benchmark;
+
+import gw.internal.gosu.ir.compiler.bytecode.IRClassCompiler;
+import gw.internal.gosu.ir.transform.GosuClassTransformer;
+import gw.internal.gosu.parser.IGosuClassInternal;
+import gw.lang.ir.IRClass;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The two halves of compiling a parsed class: transforming the parse tree to IR and emitting
+ * bytecode from the IR.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class CompilerBenchmark
+{
+  private IGosuClassInternal _gsClass;
+  private IRClass _irClass;
+
+  @Setup
+  public void setup()
+  {
+    _gsClass = (IGosuClassInternal)BenchmarkSupport.getType( "gw.benchmark.workload.Inventory" );
+    _irClass = GosuClassTransformer.compile( _gsClass );
+  }
+
+  @Benchmark
+  public IRClass transform()
+  {
+    return GosuClassTransformer.compile( _gsClass );
+  }
+
+  @Benchmark
+  public byte[] emitBytecode()
+  {
+    return IRClassCompiler.compileClass( _irClass, false );
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.benchmark;
+
+import gw.internal.gosu.runtime.GosuRuntimeMethods;
+import gw.lang.reflect.IType;
+import gw.lang.reflect.java.JavaTypes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Property and method access on a value of type dynamic.Dynamic, both through the
+ * GosuRuntimeMethods entry points and from compiled Gosu code.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class DynamicDispatchBenchmark
+{
+  private Object _item;
+  private IType _itemType;
+  private Workload _gosuDynamic;
+
+  @Setup
+  public void setup()
+  {
+    _itemType = BenchmarkSupport.getType( "gw.benchmark.workload.Item" );
+    _item = _itemType.getTypeInfo().getConstructor( JavaTypes.STRING(), JavaTypes.pINT() ).getConstructor().newInstance( "widget", 3 );
+    _gosuDynamic = BenchmarkSupport.newWorkload( "gw.benchmark.workload.DynamicWorkload" );
+  }
+
+  @Benchmark
+  public Object getProperty()
+  {
+    return GosuRuntimeMethods.getProperty( _item, _itemType, "Name" );
+  }
+
+  @Benchmark
+  public Object invokeMethod()
+  {
+    return GosuRuntimeMethods.invokeMethodInfo( _itemType, "describe", new IType[] {JavaTypes.STRING()}, _item, new Object[] {"x"} );
+  }
+
+  @Benchmark
+  public Object compiledDynamicAccess()
+  {
+    return _gosuDynamic.run();
+  }
+}
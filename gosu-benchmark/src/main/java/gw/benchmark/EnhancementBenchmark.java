@@ -0,0 +1,61 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Block-taking collection enhancements (map, where, sum, ...) called from compiled Gosu code
+ * on a list of a thousand elements.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class EnhancementBenchmark
+{
+  private Workload _mapWhere;
+  private Workload _sumBy;
+  private Workload _lazyMapWhere;
+
+  @Setup
+  public void setup()
+  {
+    _mapWhere = BenchmarkSupport.newWorkload( "gw.benchmark.workload.MapWhereWorkload" );
+    _sumBy = BenchmarkSupport.newWorkload( "gw.benchmark.workload.SumWorkload" );
+    _lazyMapWhere = BenchmarkSupport.newWorkload( "gw.benchmark.workload.LazyMapWhereWorkload" );
+  }
+
+  @Benchmark
+  public Object mapWhere()
+  {
+    return _mapWhere.run();
+  }
+
+  @Benchmark
+  public Object sum()
+  {
+    return _sumBy.run();
+  }
+
+  @Benchmark
+  public Object lazyMapWhere()
+  {
+    return _lazyMapWhere.run();
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nested for loops over integer and long intervals: literals (forward, reverse, open and stepped),
+ * which are counted without making the intervals, and interval variables, which are counted
+ * without iterators, against the same variables iterated through their iterators.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class IntervalLoopBenchmark
+{
+  private Workload _nestedLiterals;
+  private Workload _steppedLiterals;
+  private Workload _intervalVariables;
+  private Workload _intervalIterators;
+
+  @Setup
+  public void setup()
+  {
+    _nestedLiterals = BenchmarkSupport.newWorkload( "gw.benchmark.workload.NestedIntervalWorkload" );
+    _steppedLiterals = BenchmarkSupport.newWorkload( "gw.benchmark.workload.SteppedIntervalWorkload" );
+    _intervalVariables = BenchmarkSupport.newWorkload( "gw.benchmark.workload.IntervalVariableWorkload" );
+    _intervalIterators = BenchmarkSupport.newWorkload( "gw.benchmark.workload.IntervalIteratorWorkload" );
+  }
+
+  @Benchmark
+  public Object nestedLiterals()
+  {
+    return _nestedLiterals.run();
+  }
+
+  @Benchmark
+  public Object steppedLiterals()
+  {
+    return _steppedLiterals.run();
+  }
+
+  @Benchmark
+  public Object intervalVariables()
+  {
+    return _intervalVariables.run();
+  }
+
+  @Benchmark
+  public Object intervalIterators()
+  {
+    return _intervalIterators.run();
+  }
+}
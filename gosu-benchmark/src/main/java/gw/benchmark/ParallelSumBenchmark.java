@@ -0,0 +1,61 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * sum() against parallelSum() on a list of a million elements, and parallelSum() against the
+ * same sum written as a parallelReduce() with boxed Integer accumulators.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ParallelSumBenchmark
+{
+  private Workload _sequentialSum;
+  private Workload _parallelSum;
+  private Workload _boxedParallelSum;
+
+  @Setup
+  public void setup()
+  {
+    _sequentialSum = BenchmarkSupport.newWorkload( "gw.benchmark.workload.SequentialSumWorkload" );
+    _parallelSum = BenchmarkSupport.newWorkload( "gw.benchmark.workload.ParallelSumWorkload" );
+    _boxedParallelSum = BenchmarkSupport.newWorkload( "gw.benchmark.workload.BoxedParallelSumWorkload" );
+  }
+
+  @Benchmark
+  public Object sequentialSum()
+  {
+    return _sequentialSum.run();
+  }
+
+  @Benchmark
+  public Object parallelSum()
+  {
+    return _parallelSum.run();
+  }
+
+  @Benchmark
+  public Object boxedParallelSum()
+  {
+    return _boxedParallelSum.run();
+  }
+}
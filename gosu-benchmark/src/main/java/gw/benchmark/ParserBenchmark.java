@@ -0,0 +1,68 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.benchmark;
+
+import gw.internal.gosu.parser.SourceCodeTokenizer;
+import gw.lang.parser.GosuParserFactory;
+import gw.lang.parser.ParserOptions;
+import gw.lang.parser.StandardSymbolTable;
+import gw.lang.parser.exceptions.ParseResultsException;
+import gw.lang.reflect.gs.IGosuProgram;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokenizing and parsing a representative program: uses, functions, an inner class with
+ * properties, blocks, generics, loops and string templates.  Each parse is of a new throwaway
+ * program, so nothing is served from the type system's caches except the referenced types.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class ParserBenchmark
+{
+  private String _source;
+
+  @Setup
+  public void setup()
+  {
+    BenchmarkSupport.initGosu();
+    _source = BenchmarkSupport.readResource( "parse-sample.txt" );
+  }
+
+  @Benchmark
+  public int tokenize()
+  {
+    SourceCodeTokenizer tokenizer = new SourceCodeTokenizer( _source );
+    int iTokens = 0;
+    while( !tokenizer.isEOF() )
+    {
+      tokenizer.nextToken();
+      iTokens++;
+    }
+    return iTokens;
+  }
+
+  @Benchmark
+  public IGosuProgram parse() throws ParseResultsException
+  {
+    return GosuParserFactory.createProgramParser()
+      .parseExpressionOrProgram( _source, new StandardSymbolTable( true ), new ParserOptions().asThrowawayProgram() )
+      .getProgram();
+  }
+}
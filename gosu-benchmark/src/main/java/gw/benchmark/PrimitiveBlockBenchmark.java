@@ -0,0 +1,69 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Blocks over primitives (map, where, sum) on int[] and double[] arrays of a thousand elements,
+ * whose blocks are invoked without boxing, against the same map and where on a list of Integers.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class PrimitiveBlockBenchmark
+{
+  private Workload _intMapWhere;
+  private Workload _intSum;
+  private Workload _doubleMapWhere;
+  private Workload _boxedIntMapWhere;
+
+  @Setup
+  public void setup()
+  {
+    _intMapWhere = BenchmarkSupport.newWorkload( "gw.benchmark.workload.IntMapWhereWorkload" );
+    _intSum = BenchmarkSupport.newWorkload( "gw.benchmark.workload.IntSumWorkload" );
+    _doubleMapWhere = BenchmarkSupport.newWorkload( "gw.benchmark.workload.DoubleMapWhereWorkload" );
+    _boxedIntMapWhere = BenchmarkSupport.newWorkload( "gw.benchmark.workload.BoxedIntMapWhereWorkload" );
+  }
+
+  @Benchmark
+  public Object intMapWhere()
+  {
+    return _intMapWhere.run();
+  }
+
+  @Benchmark
+  public Object intSum()
+  {
+    return _intSum.run();
+  }
+
+  @Benchmark
+  public Object doubleMapWhere()
+  {
+    return _doubleMapWhere.run();
+  }
+
+  @Benchmark
+  public Object boxedIntMapWhere()
+  {
+    return _boxedIntMapWhere.run();
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.benchmark;
+
+import gw.lang.reflect.IType;
+import gw.lang.reflect.TypeSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TypeSystem.getByFullName() for types that are not loaded yet, the counterpart of
+ * {@link TypeLookupBenchmark}.  Each iteration refreshes the type system and then loads the same
+ * set of Java types once, split evenly between the threads, so every variant does the same total
+ * work and a shot is timed until its thread's share is loaded.
+ * <p>
+ * Loading a type takes the type system lock, so loads of distinct types still run one at a time:
+ * the contended variants take about as long per shot as the single threaded one, rather than a
+ * fraction of it.  That is the limit left once lookups of loaded types stopped locking.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.SingleShotTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 10 )
+@Measurement( iterations = 20 )
+@Fork( 1 )
+public class TypeLoadBenchmark
+{
+  private static final String[] TYPES = {
+    "java.util.ArrayDeque", "java.util.BitSet", "java.util.Calendar", "java.util.Currency",
+    "java.util.EnumMap", "java.util.EnumSet", "java.util.EventObject", "java.util.Formatter",
+    "java.util.GregorianCalendar", "java.util.IdentityHashMap", "java.util.LinkedHashSet", "java.util.Locale",
+    "java.util.Observable", "java.util.PriorityQueue", "java.util.Properties", "java.util.Scanner",
+    "java.util.SimpleTimeZone", "java.util.Stack", "java.util.StringJoiner", "java.util.Timer",
+    "java.util.TreeSet", "java.util.UUID", "java.util.Vector", "java.util.WeakHashMap",
+    "java.util.concurrent.ArrayBlockingQueue", "java.util.concurrent.CompletableFuture", "java.util.concurrent.ConcurrentLinkedDeque", "java.util.concurrent.ConcurrentSkipListMap",
+    "java.util.concurrent.CopyOnWriteArraySet", "java.util.concurrent.CountDownLatch", "java.util.concurrent.CyclicBarrier", "java.util.concurrent.DelayQueue",
+    "java.util.concurrent.Exchanger", "java.util.concurrent.ForkJoinTask", "java.util.concurrent.FutureTask", "java.util.concurrent.LinkedBlockingDeque",
+    "java.util.concurrent.LinkedTransferQueue", "java.util.concurrent.Phaser", "java.util.concurrent.PriorityBlockingQueue", "java.util.concurrent.Semaphore",
+    "java.util.concurrent.SynchronousQueue", "java.util.concurrent.ThreadLocalRandom", "java.util.concurrent.atomic.AtomicIntegerArray", "java.util.concurrent.atomic.DoubleAdder",
+    "java.util.concurrent.atomic.LongAccumulator", "java.util.concurrent.locks.ReentrantReadWriteLock", "java.util.concurrent.locks.StampedLock", "java.util.zip.CRC32",
+    "java.io.BufferedReader", "java.io.ByteArrayInputStream", "java.io.CharArrayWriter", "java.io.DataInputStream",
+    "java.io.LineNumberReader", "java.io.ObjectInputStream", "java.io.PipedReader", "java.io.PrintStream",
+    "java.io.PushbackReader", "java.io.RandomAccessFile", "java.io.StreamTokenizer", "java.io.StringReader",
+    "java.text.ChoiceFormat", "java.text.DecimalFormat", "java.text.MessageFormat", "java.text.SimpleDateFormat",
+  };
+
+  @Setup
+  public void setup()
+  {
+    BenchmarkSupport.initGosu();
+  }
+
+  @Setup( Level.Iteration )
+  public void unloadTypes()
+  {
+    TypeSystem.refresh( true );
+  }
+
+  /**
+   * The types a thread loads, every threadCount-th one starting at the thread's index
+   */
+  @State( Scope.Thread )
+  public static class Share
+  {
+    private final List<String> _types = new ArrayList<>();
+
+    @Setup
+    public void setup( ThreadParams threads )
+    {
+      for( int i = threads.getThreadIndex(); i < TYPES.length; i += threads.getThreadCount() )
+      {
+        _types.add( TYPES[i] );
+      }
+    }
+  }
+
+  @Benchmark
+  public void distinctTypes( Share share, Blackhole bh )
+  {
+    load( share, bh );
+  }
+
+  @Benchmark
+  @Threads( 4 )
+  public void distinctTypesContended( Share share, Blackhole bh )
+  {
+    load( share, bh );
+  }
+
+  @Benchmark
+  @Threads( Threads.MAX )
+  public void distinctTypesAllCores( Share share, Blackhole bh )
+  {
+    load( share, bh );
+  }
+
+  private static void load( Share share, Blackhole bh )
+  {
+    for( String type : share._types )
+    {
+      IType loaded = TypeSystem.getByFullName( type );
+      bh.consume( loaded );
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.benchmark;
+
+import gw.lang.reflect.IType;
+import gw.lang.reflect.TypeSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TypeSystem.getByFullName() for types that are already loaded, and for names that don't
+ * resolve to a type, the lookups resolving relative names mostly make.  The contended variants
+ * run the same lookups from four threads and from as many threads as there are cores; loaded
+ * types are looked up without the type system lock, so the average time per lookup should stay
+ * close to the single threaded one.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class TypeLookupBenchmark
+{
+  private static final String JAVA_TYPE = "java.util.ArrayList";
+  private static final String GOSU_TYPE = "gw.benchmark.workload.Inventory";
+  private static final String ARRAY_TYPE = "java.lang.String[]";
+  private static final String MISSING_TYPE = "gw.benchmark.workload.DoesNotExist";
+
+  @Setup
+  public void setup()
+  {
+    BenchmarkSupport.initGosu();
+    for( String name : new String[] {JAVA_TYPE, GOSU_TYPE, ARRAY_TYPE} )
+    {
+      TypeSystem.getByFullName( name );
+    }
+    TypeSystem.getByFullNameIfValid( MISSING_TYPE );
+  }
+
+  @Benchmark
+  public IType javaType()
+  {
+    return TypeSystem.getByFullName( JAVA_TYPE );
+  }
+
+  @Benchmark
+  public IType gosuType()
+  {
+    return TypeSystem.getByFullName( GOSU_TYPE );
+  }
+
+  @Benchmark
+  public IType arrayType()
+  {
+    return TypeSystem.getByFullName( ARRAY_TYPE );
+  }
+
+  @Benchmark
+  public IType missingType()
+  {
+    return TypeSystem.getByFullNameIfValid( MISSING_TYPE );
+  }
+
+  @Benchmark
+  @Threads( 4 )
+  public IType gosuTypeContended()
+  {
+    return TypeSystem.getByFullName( GOSU_TYPE );
+  }
+
+  @Benchmark
+  @Threads( Threads.MAX )
+  public IType gosuTypeAllCores()
+  {
+    return TypeSystem.getByFullName( GOSU_TYPE );
+  }
+
+  @Benchmark
+  @Threads( Threads.MAX )
+  public IType javaTypeAllCores()
+  {
+    return TypeSystem.getByFullName( JAVA_TYPE );
+  }
+}
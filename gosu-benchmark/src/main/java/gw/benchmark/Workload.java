@@ -0,0 +1,14 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.benchmark;
+
+/**
+ * Implemented by the Gosu workload classes so benchmarks call into Gosu code directly, not
+ * through reflection.
+ */
+public interface Workload
+{
+  Object run();
+}
@@ -0,0 +1,437 @@
+package gw.util
+
+uses java.lang.Iterable
+uses java.lang.IllegalArgumentException
+uses java.lang.UnsupportedOperationException
+uses java.util.ArrayList
+uses java.util.Collection
+uses java.util.HashSet
+uses java.util.Iterator
+uses java.util.NoSuchElementException
+uses java.util.Set
+
+/**
+ * A lazily evaluated view of an Iterable, obtained via Iterable#lazy().  The intermediate
+ * operations (where, map, flatMap, whereTypeIs, take, skip, distinct) do not copy anything;
+ * they stack up and are evaluated together, one element at a time, only when a terminal
+ * operation (toList, toSet, first, firstWhere, hasMatch, allMatch, countWhere, Count, each)
+ * is called or the view is iterated.  Terminal operations that can stop early only pull as
+ * many elements through the pipeline as they need:
+ *
+ * <pre>
+ *   var match = rows.lazy().where( \ r -> r.Active ).map( \ r -> r.Name ).firstWhere( \ n -> n.startsWith( "A" ) )
+ * </pre>
+ *
+ * The view is re-evaluated from the underlying Iterable each time a terminal operation is
+ * called.  Note this class is not a java.lang.Iterable, its lazy operators would otherwise
+ * be ambiguous with the eager ones of the Iterable enhancements.  It can be used directly
+ * in a for loop, and asIterable() adapts it where an Iterable is required.
+ *
+ *  Copyright 2014 Guidewire Software, Inc.
+ */
+class LazyIterable<T>
+{
+  var _iteratorFactory : block():Iterator<T>
+
+  /**
+   * @param iteratorFactory Produces a fresh iterator over the underlying elements each time the view is evaluated
+   */
+  construct( iteratorFactory() : Iterator<T> )
+  {
+    _iteratorFactory = iteratorFactory
+  }
+
+  function iterator() : Iterator<T>
+  {
+    return _iteratorFactory()
+  }
+
+  /**
+   * Returns this view as an Iterable, each call to iterator() re-evaluates the view
+   */
+  function asIterable() : Iterable<T>
+  {
+    var source = this
+    return new Iterable<T>()
+    {
+      override function iterator() : Iterator<T>
+      {
+        return source.iterator()
+      }
+    }
+  }
+
+  /**
+   * Lazily filters this view to the elements for which the given condition is true
+   */
+  function where( cond(elt:T):boolean ) : LazyIterable<T>
+  {
+    var source = this
+    return new LazyIterable<T>( \-> new WhereIterator<T>( source.iterator(), cond ) )
+  }
+
+  /**
+   * Lazily maps each element of this view by calling the mapper block on it
+   */
+  function map<Q>( mapper(elt:T):Q ) : LazyIterable<Q>
+  {
+    var source = this
+    return new LazyIterable<Q>( \-> new MapIterator<T, Q>( source.iterator(), mapper ) )
+  }
+
+  /**
+   * Lazily maps each element of this view to a collection and flattens the results
+   */
+  function flatMap<R>( mapper(elt:T):Collection<R> ) : LazyIterable<R>
+  {
+    var source = this
+    return new LazyIterable<R>( \-> new FlatMapIterator<T, R>( source.iterator(), mapper ) )
+  }
+
+  /**
+   * Lazily filters this view to the elements that are assignable to the given type
+   */
+  function whereTypeIs<R>( type : Type<R> ) : LazyIterable<R>
+  {
+    return where( \ elt -> type.Type.isAssignableFrom( typeof elt ) ).map( \ elt -> elt as R )
+  }
+
+  /**
+   * Lazily truncates this view to at most the given number of elements.  The underlying
+   * iterable is not iterated past the last element taken.
+   */
+  function take( count : int ) : LazyIterable<T>
+  {
+    if( count < 0 )
+    {
+      throw new IllegalArgumentException( "Negative count: " + count )
+    }
+    var source = this
+    return new LazyIterable<T>( \-> new TakeIterator<T>( source.iterator(), count ) )
+  }
+
+  /**
+   * Lazily skips the given number of elements of this view
+   */
+  function skip( count : int ) : LazyIterable<T>
+  {
+    if( count < 0 )
+    {
+      throw new IllegalArgumentException( "Negative count: " + count )
+    }
+    var source = this
+    return new LazyIterable<T>( \-> {
+      var iter = source.iterator()
+      for( i in 0..|count )
+      {
+        if( !iter.hasNext() )
+        {
+          break
+        }
+        iter.next()
+      }
+      return iter
+    } )
+  }
+
+  /**
+   * Lazily filters out elements of this view that are equal to an element already seen
+   */
+  function distinct() : LazyIterable<T>
+  {
+    var source = this
+    return new LazyIterable<T>( \-> {
+      var seen = new HashSet<T>()
+      return new WhereIterator<T>( source.iterator(), \ elt -> seen.add( elt ) )
+    } )
+  }
+
+  /**
+   * Evaluates this view into a new List
+   */
+  function toList() : List<T>
+  {
+    var list = new ArrayList<T>()
+    for( elt in this )
+    {
+      list.add( elt )
+    }
+    return list
+  }
+
+  /**
+   * Evaluates this view into a new Set
+   */
+  function toSet() : Set<T>
+  {
+    var hashSet = new HashSet<T>()
+    for( elt in this )
+    {
+      hashSet.add( elt )
+    }
+    return hashSet
+  }
+
+  /**
+   * Returns the first element of this view, or null if it is empty
+   */
+  function first() : T
+  {
+    var iter = iterator()
+    return iter.hasNext() ? iter.next() : null
+  }
+
+  /**
+   * Returns the first element of this view matching the given condition, or null if there is none
+   */
+  function firstWhere( cond(elt:T):boolean ) : T
+  {
+    for( elt in this )
+    {
+      if( cond( elt ) )
+      {
+        return elt
+      }
+    }
+    return null
+  }
+
+  /**
+   * Returns true if any element of this view matches the given condition
+   */
+  function hasMatch( cond(elt:T):boolean ) : boolean
+  {
+    for( elt in this )
+    {
+      if( cond( elt ) )
+      {
+        return true
+      }
+    }
+    return false
+  }
+
+  /**
+   * Returns true if all elements of this view match the given condition
+   */
+  function allMatch( cond(elt:T):boolean ) : boolean
+  {
+    for( elt in this )
+    {
+      if( !cond( elt ) )
+      {
+        return false
+      }
+    }
+    return true
+  }
+
+  /**
+   * Returns the number of elements of this view matching the given condition
+   */
+  function countWhere( cond(elt:T):boolean ) : int
+  {
+    var count = 0
+    for( elt in this )
+    {
+      if( cond( elt ) )
+      {
+        count++
+      }
+    }
+    return count
+  }
+
+  /**
+   * Returns the number of elements in this view
+   */
+  property get Count() : int
+  {
+    var count = 0
+    var iter = iterator()
+    while( iter.hasNext() )
+    {
+      iter.next()
+      count++
+    }
+    return count
+  }
+
+  /**
+   * Calls the given operation on each element of this view
+   */
+  function each( operation(elt:T) )
+  {
+    for( elt in this )
+    {
+      operation( elt )
+    }
+  }
+
+  /**
+   * Base class for iterators that compute their next element ahead of time
+   */
+  static abstract class LookAheadIterator<E> implements Iterator<E>
+  {
+    var _next : E
+    var _bReady : boolean
+    var _bDone : boolean
+
+    /**
+     * Computes the next element and returns true, or returns false if there are no more elements
+     */
+    abstract function computeNext() : boolean
+
+    protected function setNext( next : E )
+    {
+      _next = next
+    }
+
+    override function hasNext() : boolean
+    {
+      if( !_bReady && !_bDone )
+      {
+        if( computeNext() )
+        {
+          _bReady = true
+        }
+        else
+        {
+          _bDone = true
+        }
+      }
+      return _bReady
+    }
+
+    override function next() : E
+    {
+      if( !hasNext() )
+      {
+        throw new NoSuchElementException()
+      }
+      _bReady = false
+      var next = _next
+      _next = null
+      return next
+    }
+
+    override function remove()
+    {
+      throw new UnsupportedOperationException()
+    }
+  }
+
+  static class WhereIterator<E> extends LookAheadIterator<E>
+  {
+    var _source : Iterator<E>
+    var _cond : block(elt:E):boolean
+
+    construct( source : Iterator<E>, cond(elt:E):boolean )
+    {
+      _source = source
+      _cond = cond
+    }
+
+    override function computeNext() : boolean
+    {
+      while( _source.hasNext() )
+      {
+        var elt = _source.next()
+        if( _cond( elt ) )
+        {
+          setNext( elt )
+          return true
+        }
+      }
+      return false
+    }
+  }
+
+  static class MapIterator<E, Q> implements Iterator<Q>
+  {
+    var _source : Iterator<E>
+    var _mapper : block(elt:E):Q
+
+    construct( source : Iterator<E>, mapper(elt:E):Q )
+    {
+      _source = source
+      _mapper = mapper
+    }
+
+    override function hasNext() : boolean
+    {
+      return _source.hasNext()
+    }
+
+    override function next() : Q
+    {
+      return _mapper( _source.next() )
+    }
+
+    override function remove()
+    {
+      throw new UnsupportedOperationException()
+    }
+  }
+
+  static class FlatMapIterator<E, R> extends LookAheadIterator<R>
+  {
+    var _source : Iterator<E>
+    var _mapper : block(elt:E):Collection<R>
+    var _current : Iterator<R>
+
+    construct( source : Iterator<E>, mapper(elt:E):Collection<R> )
+    {
+      _source = source
+      _mapper = mapper
+    }
+
+    override function computeNext() : boolean
+    {
+      while( _current == null || !_current.hasNext() )
+      {
+        if( !_source.hasNext() )
+        {
+          return false
+        }
+        // Like the eager flatMap, a null collection is empty
+        var mapped = _mapper( _source.next() )
+        _current = mapped == null ? null : mapped.iterator()
+      }
+      setNext( _current.next() )
+      return true
+    }
+  }
+
+  static class TakeIterator<E> implements Iterator<E>
+  {
+    var _source : Iterator<E>
+    var _iRemaining : int
+
+    construct( source : Iterator<E>, count : int )
+    {
+      _source = source
+      _iRemaining = count
+    }
+
+    override function hasNext() : boolean
+    {
+      return _iRemaining > 0 && _source.hasNext()
+    }
+
+    override function next() : E
+    {
+      if( _iRemaining <= 0 )
+      {
+        throw new NoSuchElementException()
+      }
+      _iRemaining--
+      return _source.next()
+    }
+
+    override function remove()
+    {
+      throw new UnsupportedOperationException()
+    }
+  }
+}
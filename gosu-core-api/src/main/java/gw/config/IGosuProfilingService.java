@@ -4,6 +4,9 @@
 
 package gw.config;
 
+import gw.lang.profile.GosuProfiler;
+import gw.lang.profile.ProfilingSnapshot;
+
 /**
  * This is a interface for profiling in modules before pl.  Intially the only use is in ph, and they
  * only want to profile completed actions, so just publish the one method.
@@ -22,4 +25,12 @@ public interface IGosuProfilingService extends IService {
    * @param waitTime any wait times that were consumed during this execution
    */
   void completed(long startTime, long endTime, String path, String location, int count, long waitTime);
+
+  /**
+   * @return the per type parse/compile timings and per method invocation counts Gosu recorded so far,
+   * see {@link GosuProfiler}
+   */
+  default ProfilingSnapshot getSnapshot() {
+    return GosuProfiler.getSnapshot();
+  }
 }
\ No newline at end of file
@@ -22,13 +22,22 @@ public class JarEntryDirectoryImpl extends JarEntryResourceImpl implements IJarF
   private Map<String, IResource> _resources = new HashMap<String, IResource>();
   private List<IDirectory> _childDirs = new ArrayList<IDirectory>();
   private List<IFile> _childFiles = new ArrayList<IFile>();
+  private boolean _bLoaded;
 
   public JarEntryDirectoryImpl(String name, IJarFileDirectory parent, JarFileDirectoryImpl jarFile) {
     super(name, parent, jarFile);
   }
 
+  private void loadChildren() {
+    if (!_bLoaded) {
+      _bLoaded = true;
+      _jarFile.loadChildren(this, getEntryPath());
+    }
+  }
+
   @Override
-  public JarEntryDirectoryImpl getOrCreateDirectory(String relativeName) {
+  public synchronized JarEntryDirectoryImpl getOrCreateDirectory(String relativeName) {
+    loadChildren();
     JarEntryDirectoryImpl result = (JarEntryDirectoryImpl) _resources.get(relativeName);
     if (result == null) {
       result = new JarEntryDirectoryImpl(relativeName, this, _jarFile);
@@ -39,7 +48,8 @@ public class JarEntryDirectoryImpl extends JarEntryResourceImpl implements IJarF
   }
 
   @Override
-  public JarEntryFileImpl getOrCreateFile(String relativeName) {
+  public synchronized JarEntryFileImpl getOrCreateFile(String relativeName) {
+    loadChildren();
     JarEntryFileImpl result = (JarEntryFileImpl) _resources.get(relativeName);
     if (result == null) {
       result = new JarEntryFileImpl(relativeName, this, _jarFile);
@@ -65,7 +75,8 @@ public class JarEntryDirectoryImpl extends JarEntryResourceImpl implements IJarF
   }
 
   @Override
-  public List<? extends IDirectory> listDirs() {
+  public synchronized List<? extends IDirectory> listDirs() {
+    loadChildren();
     List<IDirectory> results = new ArrayList<IDirectory>();
     for (IDirectory child : _childDirs) {
       if (child.exists()) {
@@ -76,7 +87,8 @@ public class JarEntryDirectoryImpl extends JarEntryResourceImpl implements IJarF
   }
 
   @Override
-  public List<? extends IFile> listFiles() {
+  public synchronized List<? extends IFile> listFiles() {
+    loadChildren();
     List<IFile> results = new ArrayList<IFile>();
     for (IFile child : _childFiles) {
       if (child.exists()) {
@@ -20,10 +20,13 @@ public class JarEntryFileImpl extends JarEntryResourceImpl implements IFile {
 
   @Override
   public InputStream openInputStream() throws IOException {
-    if (_entry == null) {
+    if (_entry != null) {
+      return _jarFile.getInputStream(_entry);
+    }
+    if (!exists()) {
       throw new IOException();
     }
-    return _jarFile.getInputStream(_entry);
+    return _jarFile.getInputStream(getEntryName());
   }
 
   @Override
@@ -71,20 +71,27 @@ public abstract class JarEntryResourceImpl implements IResource {
     }
   }
 
-  private String getEntryName() {
+  String getEntryName() {
     if (_entry != null) {
       return _entry.getName();
     } else {
-      String result = _name;
-      IDirectory parent = _parent;
-      while (!(parent instanceof JarFileDirectoryImpl)) {
-        result = parent.getName() + "/" + result;
-        parent = parent.getParent();
-      }
-      return result;
+      return getEntryPath();
     }
   }
 
+  /**
+   * @return the path of the resource in the jar, e.g. "gw/lang/Gosu.class"
+   */
+  String getEntryPath() {
+    String result = _name;
+    IDirectory parent = _parent;
+    while (!(parent instanceof JarFileDirectoryImpl)) {
+      result = parent.getName() + "/" + result;
+      parent = parent.getParent();
+    }
+    return result;
+  }
+
   @Override
   public ResourcePath getPath() {
     return _parent.getPath().join(_name);
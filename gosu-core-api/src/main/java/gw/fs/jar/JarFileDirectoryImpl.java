@@ -16,7 +16,6 @@ import java.io.IOException;
 import java.io.File;
 import java.io.InputStream;
 import java.util.List;
-import java.util.Enumeration;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.ArrayList;
@@ -24,11 +23,18 @@ import java.util.jar.JarFile;
 import java.util.jar.JarEntry;
 import java.net.URI;
 
+/**
+ * A jar file as a directory.  Entries are materialized as resources a directory at a time, from
+ * the jar's {@link JarIndex}, when the directory is first navigated or listed; the jar itself is
+ * opened when an entry is first read.
+ */
 @UnstableAPI
 public class JarFileDirectoryImpl implements IJarFileDirectory {
 
   private File _file;
-  private JarFile _jarFile;
+  private volatile JarFile _jarFile;
+  private JarIndex _index;
+  private boolean _bLoaded;
   private Map<String, IResource> _resources;
   private List<IDirectory> _childDirs;
   private List<IFile> _childFiles;
@@ -38,59 +44,56 @@ public class JarFileDirectoryImpl implements IJarFileDirectory {
     _childFiles = new ArrayList<IFile>();
     _childDirs = new ArrayList<IDirectory>();
     _file = file;
+  }
 
-    if (file.exists()) {
-      try {
-        _jarFile = new JarFile(file);
-        Enumeration<JarEntry> entries = _jarFile.entries();
-        while (entries.hasMoreElements()) {
-          JarEntry e = entries.nextElement();
-          processJarEntry(e);
-        }
-      } catch (IOException e) {
-        throw new RuntimeException(e);
-      }
+  /**
+   * @return the index of the jar's entries
+   */
+  public synchronized JarIndex getIndex() {
+    if (_index == null) {
+      _index = JarIndex.get(_file);
     }
+    return _index;
   }
 
-  private void processJarEntry(JarEntry e) {
-    List<String> pathComponents = IDirectoryUtil.splitPath(e.getName());
-    if (pathComponents.isEmpty()) {
-      return;
+  public InputStream getInputStream(JarEntry entry) throws IOException {
+    return getJarFile().getInputStream(entry);
+  }
+
+  public InputStream getInputStream(String entryName) throws IOException {
+    JarFile jarFile = getJarFile();
+    JarEntry entry = jarFile == null ? null : jarFile.getJarEntry(entryName);
+    if (entry == null) {
+      throw new IOException(entryName + " not found in " + _file);
     }
-    if (pathComponents.size() == 1) {
-      String name = pathComponents.get(0);
-      if (e.isDirectory()) {
-        JarEntryDirectoryImpl resource = getOrCreateDirectory(name);
-        resource.setEntry(e);
-      } else {
-        JarEntryFileImpl resource = getOrCreateFile(name);
-        resource.setEntry(e);
-      }
-    } else {
-      JarEntryDirectoryImpl parentDirectory = getOrCreateDirectory(pathComponents.get(0));
-      for (int i = 1; i < pathComponents.size() - 1; i++) {
-        parentDirectory = parentDirectory.getOrCreateDirectory(pathComponents.get(i));
-      }
+    return jarFile.getInputStream(entry);
+  }
 
-      if (e.isDirectory()) {
-        JarEntryDirectoryImpl leafDir = parentDirectory.getOrCreateDirectory(pathComponents.get(pathComponents.size() - 1));
-        leafDir.setEntry(e);
-      } else {
-        JarEntryFileImpl leafFile = parentDirectory.getOrCreateFile(pathComponents.get(pathComponents.size() - 1));
-        leafFile.setEntry(e);
-      }
+  /**
+   * Makes resources for the entries in the directory at the path, the first time it is touched
+   */
+  void loadChildren(IJarFileDirectory dir, String path) {
+    JarIndex index = getIndex();
+    for (String name : index.getChildDirectories(path)) {
+      dir.getOrCreateDirectory(name).setExists();
+    }
+    for (String name : index.getChildFiles(path)) {
+      dir.getOrCreateFile(name).setExists();
     }
   }
 
-  public InputStream getInputStream(JarEntry entry) throws IOException {
-    return _jarFile.getInputStream(entry);
+  private void loadChildren() {
+    if (!_bLoaded) {
+      _bLoaded = true;
+      loadChildren(this, "");
+    }
   }
 
   // IJarFileDirectory methods
 
   @Override
-  public JarEntryDirectoryImpl getOrCreateDirectory(String relativeName) {
+  public synchronized JarEntryDirectoryImpl getOrCreateDirectory(String relativeName) {
+    loadChildren();
     IResource resource = _resources.get(relativeName);
     if(resource instanceof IFile){
       throw new UnsupportedOperationException("The requested resource " + relativeName + " is now being accessed as a directory, but was previously accessed as a file.");
@@ -105,7 +108,8 @@ public class JarFileDirectoryImpl implements IJarFileDirectory {
   }
 
   @Override
-  public JarEntryFileImpl getOrCreateFile(String relativeName) {
+  public synchronized JarEntryFileImpl getOrCreateFile(String relativeName) {
+    loadChildren();
     IResource resource = _resources.get(relativeName);
     if(resource instanceof IDirectory){
       throw new UnsupportedOperationException("The requested resource " + relativeName + " is now being accessed as a file, but was previously accessed as a directory.");
@@ -137,7 +141,8 @@ public class JarFileDirectoryImpl implements IJarFileDirectory {
   }
 
   @Override
-  public List<? extends IDirectory> listDirs() {
+  public synchronized List<? extends IDirectory> listDirs() {
+    loadChildren();
     List<IDirectory> results = new ArrayList<IDirectory>();
     for (IDirectory child : _childDirs) {
       if (child.exists()) {
@@ -148,7 +153,8 @@ public class JarFileDirectoryImpl implements IJarFileDirectory {
   }
 
   @Override
-  public List<? extends IFile> listFiles() {
+  public synchronized List<? extends IFile> listFiles() {
+    loadChildren();
     List<IFile> results = new ArrayList<IFile>();
     for (IFile child : _childFiles) {
       if (child.exists()) {
@@ -213,9 +219,25 @@ public class JarFileDirectoryImpl implements IJarFileDirectory {
     return _file;
   }
 
+  /**
+   * @return the jar, which is opened the first time it is asked for, or null if it doesn't exist
+   */
   public JarFile getJarFile()
   {
-    return _jarFile;
+    JarFile jarFile = _jarFile;
+    if (jarFile == null && _file.exists()) {
+      synchronized (this) {
+        jarFile = _jarFile;
+        if (jarFile == null) {
+          try {
+            _jarFile = jarFile = new JarFile(_file);
+          } catch (IOException e) {
+            throw new RuntimeException(e);
+          }
+        }
+      }
+    }
+    return jarFile;
   }
 
   @Override
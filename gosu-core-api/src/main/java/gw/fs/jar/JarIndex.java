@@ -0,0 +1,349 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.fs.jar;
+
+import gw.lang.UnstableAPI;
+import gw.util.fingerprint.FP64;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * The names of the entries in a jar file, by directory.  {@link JarFileDirectoryImpl} and the
+ * class path consult the index instead of holding a resource for every entry, so only the
+ * directories (packages) actually touched are materialized as resources, and a jar is not opened
+ * until an entry's content is read.
+ * <p>
+ * Indexes are shared by all directories over the same jar, keyed by the jar's path, size and
+ * modification time.  If an index directory is set, via the gosu.classpath.index.dir system
+ * property or {@link #setIndexDir(File)}, indexes are also kept there between runs in files
+ * that are memory-mapped and decoded a directory at a time, so on a later start a jar is not
+ * scanned at all.
+ */
+@UnstableAPI
+public class JarIndex {
+  public static final String CLASSPATH_INDEX_DIR_SYSTEM_PROP = "gosu.classpath.index.dir";
+
+  private static final int MAGIC = 0x47534a49; // GSJI
+  private static final int VERSION = 1;
+  private static final String INDEX_EXT = ".idx";
+  private static final Directory EMPTY = new Directory(new String[0], new String[0]);
+
+  private static volatile File INDEX_DIR = determineIndexDir();
+  private static final Map<File, JarIndex> INDEXES = new ConcurrentHashMap<File, JarIndex>();
+
+  private final long _length;
+  private final long _lastModified;
+  private final Map<String, Directory> _dirs;
+  private final ByteBuffer _buffer;
+  private final Map<String, Integer> _offsets;
+
+  /**
+   * @return the directory persistent indexes are kept in, or null if they are not kept
+   */
+  public static File getIndexDir() {
+    return INDEX_DIR;
+  }
+
+  public static void setIndexDir(File dir) {
+    INDEX_DIR = dir;
+  }
+
+  private static File determineIndexDir() {
+    String dir = System.getProperty(CLASSPATH_INDEX_DIR_SYSTEM_PROP);
+    return dir == null || dir.isEmpty() ? null : new File(dir);
+  }
+
+  /**
+   * @return the index of the jar file, which is read from the index directory or made by
+   *   scanning the jar if there isn't an index for the jar as it is now
+   */
+  public static JarIndex get(File jar) {
+    File key = jar.getAbsoluteFile();
+    long length = key.length();
+    long lastModified = key.lastModified();
+    JarIndex index = INDEXES.get(key);
+    if (index == null || index._length != length || index._lastModified != lastModified) {
+      index = load(key, length, lastModified);
+      INDEXES.put(key, index);
+    }
+    return index;
+  }
+
+  private JarIndex(long length, long lastModified, Map<String, Directory> dirs) {
+    _length = length;
+    _lastModified = lastModified;
+    _dirs = dirs;
+    _buffer = null;
+    _offsets = null;
+  }
+
+  private JarIndex(long length, long lastModified, ByteBuffer buffer, Map<String, Integer> offsets) {
+    _length = length;
+    _lastModified = lastModified;
+    _dirs = new ConcurrentHashMap<String, Directory>();
+    _buffer = buffer;
+    _offsets = offsets;
+  }
+
+  /**
+   * @return the paths of the jar's directories, "" for the root and e.g. "gw/lang" for a package
+   */
+  public Set<String> getDirectoryPaths() {
+    return Collections.unmodifiableSet(_offsets == null ? _dirs.keySet() : _offsets.keySet());
+  }
+
+  /**
+   * @return the names of the subdirectories of the directory, empty if it isn't in the jar
+   */
+  public String[] getChildDirectories(String path) {
+    return getDirectory(path)._childDirs;
+  }
+
+  /**
+   * @return the names of the files in the directory, empty if it isn't in the jar
+   */
+  public String[] getChildFiles(String path) {
+    return getDirectory(path)._childFiles;
+  }
+
+  private Directory getDirectory(String path) {
+    Directory dir = _dirs.get(path);
+    if (dir == null && _offsets != null) {
+      Integer offset = _offsets.get(path);
+      if (offset != null) {
+        ByteBuffer buffer = _buffer.duplicate();
+        buffer.position(offset);
+        dir = new Directory(readNames(buffer), readNames(buffer));
+        _dirs.put(path, dir);
+      }
+    }
+    return dir == null ? EMPTY : dir;
+  }
+
+  static JarIndex load(File jar, long length, long lastModified) {
+    if (!jar.isFile()) {
+      return new JarIndex(length, lastModified, Collections.<String, Directory>emptyMap());
+    }
+    File indexFile = getIndexFile(jar);
+    if (indexFile != null && indexFile.isFile()) {
+      JarIndex index = read(indexFile, jar, length, lastModified);
+      if (index != null) {
+        return index;
+      }
+    }
+    JarIndex index = scan(jar, length, lastModified);
+    if (indexFile != null) {
+      write(indexFile, jar, index);
+    }
+    return index;
+  }
+
+  private static File getIndexFile(File jar) {
+    File dir = INDEX_DIR;
+    return dir == null ? null : new File(dir, jar.getName() + "-" + new FP64(jar.getPath()).toHexString() + INDEX_EXT);
+  }
+
+  private static JarIndex scan(File jar, long length, long lastModified) {
+    Map<String, List<String>> dirs = new LinkedHashMap<String, List<String>>();
+    Map<String, List<String>> files = new HashMap<String, List<String>>();
+    dirs.put("", new ArrayList<String>());
+    try {
+      JarFile jarFile = new JarFile(jar);
+      try {
+        Enumeration<JarEntry> entries = jarFile.entries();
+        while (entries.hasMoreElements()) {
+          JarEntry e = entries.nextElement();
+          String name = e.getName();
+          if (name.endsWith("/")) {
+            addDirectory(dirs, name.substring(0, name.length() - 1));
+          } else {
+            int iSlash = name.lastIndexOf('/');
+            String parent = iSlash < 0 ? "" : name.substring(0, iSlash);
+            addDirectory(dirs, parent);
+            List<String> children = files.get(parent);
+            if (children == null) {
+              files.put(parent, children = new ArrayList<String>());
+            }
+            children.add(name.substring(iSlash + 1));
+          }
+        }
+      } finally {
+        jarFile.close();
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+
+    Map<String, Directory> index = new HashMap<String, Directory>(dirs.size() * 2);
+    for (Map.Entry<String, List<String>> entry : dirs.entrySet()) {
+      List<String> children = files.get(entry.getKey());
+      index.put(entry.getKey(), new Directory(toArray(entry.getValue()), toArray(children)));
+    }
+    return new JarIndex(length, lastModified, index);
+  }
+
+  private static void addDirectory(Map<String, List<String>> dirs, String path) {
+    // Directories are only implied by the files in them in some jars, add each ancestor too
+    if (!dirs.containsKey(path)) {
+      dirs.put(path, new ArrayList<String>());
+      int iSlash = path.lastIndexOf('/');
+      String parent = iSlash < 0 ? "" : path.substring(0, iSlash);
+      addDirectory(dirs, parent);
+      dirs.get(parent).add(path.substring(iSlash + 1));
+    }
+  }
+
+  private static String[] toArray(List<String> names) {
+    return names == null ? EMPTY._childFiles : names.toArray(new String[names.size()]);
+  }
+
+  // Index file: MAGIC, VERSION, the jar's path, size and modification time, the directory
+  // paths each with the offset of its record, then a record of child directory and file
+  // names for each directory.  Strings are a length followed by UTF-8 bytes.
+
+  private static JarIndex read(File indexFile, File jar, long length, long lastModified) {
+    try {
+      FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ);
+      MappedByteBuffer buffer;
+      try {
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      } finally {
+        channel.close();
+      }
+      if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION ||
+          !jar.getPath().equals(readString(buffer)) ||
+          buffer.getLong() != length || buffer.getLong() != lastModified) {
+        return null;
+      }
+      int iDirs = buffer.getInt();
+      Map<String, Integer> offsets = new HashMap<String, Integer>(iDirs * 2);
+      for (int i = 0; i < iDirs; i++) {
+        offsets.put(readString(buffer), buffer.getInt());
+      }
+      return new JarIndex(length, lastModified, buffer, offsets);
+    } catch (IOException | RuntimeException e) {
+      // An unreadable or truncated index is rebuilt
+      return null;
+    }
+  }
+
+  private static void write(File indexFile, File jar, JarIndex index) {
+    try {
+      indexFile.getParentFile().mkdirs();
+      // Write to a temp file and rename so JVMs can share the index directory
+      File temp = File.createTempFile(indexFile.getName(), ".tmp", indexFile.getParentFile());
+      try {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+        try {
+          byte[] path = jar.getPath().getBytes(StandardCharsets.UTF_8);
+          out.writeInt(MAGIC);
+          out.writeInt(VERSION);
+          writeString(out, path);
+          out.writeLong(index._length);
+          out.writeLong(index._lastModified);
+          out.writeInt(index._dirs.size());
+
+          List<byte[]> dirPaths = new ArrayList<byte[]>(index._dirs.size());
+          int iOffset = 4 + 4 + 4 + path.length + 8 + 8 + 4;
+          for (String dirPath : index._dirs.keySet()) {
+            byte[] bytes = dirPath.getBytes(StandardCharsets.UTF_8);
+            dirPaths.add(bytes);
+            iOffset += 4 + bytes.length + 4;
+          }
+          int i = 0;
+          for (Directory dir : index._dirs.values()) {
+            writeString(out, dirPaths.get(i++));
+            out.writeInt(iOffset);
+            iOffset += dir.getRecordSize();
+          }
+          for (Directory dir : index._dirs.values()) {
+            dir.write(out);
+          }
+        } finally {
+          out.close();
+        }
+        Files.move(temp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        temp.delete();
+      }
+    } catch (IOException e) {
+      // The index is only an optimization, the jar is scanned again next time
+    }
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static String[] readNames(ByteBuffer buffer) {
+    String[] names = new String[buffer.getInt()];
+    for (int i = 0; i < names.length; i++) {
+      names[i] = readString(buffer);
+    }
+    return names;
+  }
+
+  private static void writeString(DataOutputStream out, byte[] bytes) throws IOException {
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static class Directory {
+    private final String[] _childDirs;
+    private final String[] _childFiles;
+
+    Directory(String[] childDirs, String[] childFiles) {
+      _childDirs = childDirs;
+      _childFiles = childFiles;
+    }
+
+    int getRecordSize() {
+      int iSize = 4 + 4;
+      for (String name : _childDirs) {
+        iSize += 4 + name.getBytes(StandardCharsets.UTF_8).length;
+      }
+      for (String name : _childFiles) {
+        iSize += 4 + name.getBytes(StandardCharsets.UTF_8).length;
+      }
+      return iSize;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+      writeNames(out, _childDirs);
+      writeNames(out, _childFiles);
+    }
+
+    private static void writeNames(DataOutputStream out, String[] names) throws IOException {
+      out.writeInt(names.length);
+      for (String name : names) {
+        writeString(out, name.getBytes(StandardCharsets.UTF_8));
+      }
+    }
+  }
+}
@@ -0,0 +1,331 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.fs.physical;
+
+import gw.fs.ResourcePath;
+import gw.fs.watcher.DirectoryWatcher;
+import gw.lang.UnstableAPI;
+
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches directory listings and file metadata until a {@link DirectoryWatcher} reports a change,
+ * instead of checking timestamps on each call.  Reads of cached listings and metadata don't lock
+ * and don't touch the file system.
+ * <p>
+ * A directory is watched from the first time it is listed, and metadata is cached for files in
+ * watched directories.  Events are handled on a daemon thread; a change invalidates the changed
+ * file and its directory.  Where a directory can't be watched (watching is unsupported by its
+ * file system or the OS limit on watches is reached) its listing falls back to the timestamp
+ * checks of {@link FuzzyTimestampCachingPhysicalFileSystem}.
+ */
+@UnstableAPI
+public class WatchingCachingPhysicalFileSystem extends AbstractCachingPhysicalFileSystem {
+
+  private final Map<String, DirCacheInfo> _dirCache = new ConcurrentHashMap<String, DirCacheInfo>();
+  private final Map<String, IFileMetadata> _metadataCache = new ConcurrentHashMap<String, IFileMetadata>();
+  private final Set<String> _watchedDirs = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+  // Incremented before each invalidation, a value computed across an increment isn't kept
+  private final AtomicLong _generation = new AtomicLong();
+  private final DirectoryWatcher _watcher;
+  private Thread _thread;
+  private volatile boolean _bStopped;
+
+  public WatchingCachingPhysicalFileSystem(IPhysicalFileSystem delegate) {
+    super(delegate);
+    _watcher = makeWatcher();
+  }
+
+  private static DirectoryWatcher makeWatcher() {
+    try {
+      return new DirectoryWatcher();
+    } catch (RuntimeException e) {
+      // No watch service, all listings check timestamps
+      return null;
+    }
+  }
+
+  @Override
+  public List<? extends IFileMetadata> listFiles(ResourcePath directoryPath) {
+    String pathString = directoryPath.getPathString();
+    DirCacheInfo cacheInfo = _dirCache.get(pathString);
+    if (cacheInfo != null && cacheInfo.isValid()) {
+      return cacheInfo._files;
+    }
+
+    long generation = _generation.get();
+    // Watch before listing so a change made while listing isn't missed
+    boolean bWatched = watch(directoryPath);
+    cacheInfo = new DirCacheInfo(directoryPath, bWatched);
+    putIfCurrent(_dirCache, pathString, cacheInfo, generation);
+    return cacheInfo._files;
+  }
+
+  @Override
+  public IFileMetadata getFileMetadata(ResourcePath filePath) {
+    ResourcePath parent = filePath.getParent();
+    if (parent == null || !_watchedDirs.contains(parent.getPathString())) {
+      return _delegate.getFileMetadata(filePath);
+    }
+    String pathString = filePath.getPathString();
+    IFileMetadata metadata = _metadataCache.get(pathString);
+    if (metadata == null) {
+      long generation = _generation.get();
+      metadata = new CachedFileMetadata(_delegate.getFileMetadata(filePath));
+      putIfCurrent(_metadataCache, pathString, metadata, generation);
+    }
+    return metadata;
+  }
+
+  @Override
+  public boolean exists(ResourcePath resourcePath) {
+    return getFileMetadata(resourcePath).exists();
+  }
+
+  @Override
+  public boolean delete(ResourcePath filePath) {
+    try {
+      return _delegate.delete(filePath);
+    } finally {
+      invalidate(filePath, true);
+    }
+  }
+
+  @Override
+  public boolean mkdir(ResourcePath dirPath) {
+    try {
+      return _delegate.mkdir(dirPath);
+    } finally {
+      invalidate(dirPath, false);
+    }
+  }
+
+  @Override
+  public void clearDirectoryCaches(ResourcePath dirPath) {
+    _generation.incrementAndGet();
+    _dirCache.remove(dirPath.getPathString());
+    _delegate.clearDirectoryCaches(dirPath);
+  }
+
+  @Override
+  public void clearAllCaches() {
+    _generation.incrementAndGet();
+    _dirCache.clear();
+    _metadataCache.clear();
+    _delegate.clearAllCaches();
+  }
+
+  /**
+   * Stops watching, after which all listings check timestamps
+   */
+  public void stopWatching() {
+    synchronized (this) {
+      if (_watcher != null && !_bStopped) {
+        _bStopped = true;
+        _watcher.stopWatching();
+      }
+    }
+    clearAllCaches();
+    _watchedDirs.clear();
+  }
+
+  private <V> void putIfCurrent(Map<String, V> cache, String key, V value, long generation) {
+    cache.put(key, value);
+    if (_generation.get() != generation) {
+      cache.remove(key, value);
+    }
+  }
+
+  private boolean watch(ResourcePath dirPath) {
+    String pathString = dirPath.getPathString();
+    if (_watchedDirs.contains(pathString)) {
+      return true;
+    }
+    if (_watcher == null || _bStopped) {
+      return false;
+    }
+    Path path;
+    try {
+      path = Paths.get(dirPath.getFileSystemPathString());
+    } catch (InvalidPathException e) {
+      return false;
+    }
+    synchronized (this) {
+      if (_bStopped || !_watcher.watchSingleDirectory(path)) {
+        return false;
+      }
+      _watchedDirs.add(pathString);
+      if (_thread == null) {
+        _thread = new Thread(this::handleEvents, "Gosu File System Watcher");
+        _thread.setDaemon(true);
+        _thread.start();
+      }
+    }
+    return true;
+  }
+
+  private void handleEvents() {
+    try {
+      while (true) {
+        Map<Path, DirectoryWatcher.FileEvent> changes = _watcher.waitForChanges();
+        for (Map.Entry<Path, DirectoryWatcher.FileEvent> change : changes.entrySet()) {
+          invalidate(ResourcePath.parse(change.getKey().toString()), change.getValue() == DirectoryWatcher.FileEvent.DELETE);
+        }
+      }
+    } catch (InterruptedException | IllegalStateException e) {
+      // Stopped watching, the watch service throws ClosedWatchServiceException
+    }
+  }
+
+  /**
+   * Forgets the resource and its directory; and if it was deleted, everything under it
+   */
+  private void invalidate(ResourcePath path, boolean bDeleted) {
+    _generation.incrementAndGet();
+    String pathString = path.getPathString();
+    _dirCache.remove(pathString);
+    _metadataCache.remove(pathString);
+    ResourcePath parent = path.getParent();
+    if (parent != null) {
+      _dirCache.remove(parent.getPathString());
+      _metadataCache.remove(parent.getPathString());
+    }
+    if (bDeleted) {
+      // A deleted directory's watch is cancelled, it's watched again if it is re-created and listed
+      _watchedDirs.remove(pathString);
+      String prefix = pathString.endsWith("/") ? pathString : pathString + "/";
+      removeDescendants(_dirCache.keySet(), prefix);
+      removeDescendants(_metadataCache.keySet(), prefix);
+      removeDescendants(_watchedDirs, prefix);
+    }
+  }
+
+  private static void removeDescendants(Set<String> paths, String prefix) {
+    for (String path : new ArrayList<String>(paths)) {
+      if (path.startsWith(prefix)) {
+        paths.remove(path);
+      }
+    }
+  }
+
+  private class DirCacheInfo {
+    private final ResourcePath _absolutePath;
+    private final boolean _bWatched;
+    private final List<? extends IFileMetadata> _files;
+    private final long _lastFileTimestamp;
+    private final long _lastRefreshTimestamp;
+
+    private DirCacheInfo(ResourcePath absolutePath, boolean bWatched) {
+      _absolutePath = absolutePath;
+      _bWatched = bWatched;
+      _lastRefreshTimestamp = System.currentTimeMillis();
+      _lastFileTimestamp = bWatched ? 0 : _delegate.getFileMetadata(absolutePath).lastModifiedTime();
+      List<? extends IFileMetadata> files = _delegate.listFiles(absolutePath);
+      if (bWatched) {
+        // A change to a file is reported in its directory, so its metadata can be cached with the listing
+        List<IFileMetadata> cachedFiles = new ArrayList<IFileMetadata>(files.size());
+        for (IFileMetadata file : files) {
+          cachedFiles.add(new CachedFileMetadata(file));
+        }
+        files = cachedFiles;
+      }
+      _files = files;
+    }
+
+    private boolean isValid() {
+      if (_bWatched) {
+        // Removed from the cache when a change is reported
+        return true;
+      }
+      long currentTimestamp = _delegate.getFileMetadata(_absolutePath).lastModifiedTime();
+      if (currentTimestamp != _lastFileTimestamp || currentTimestamp == 0) {
+        return false;
+      }
+      // A change within the timestamp resolution of the last refresh may not show in the timestamp
+      long refreshDelta = _lastRefreshTimestamp - currentTimestamp;
+      return refreshDelta <= -16 || refreshDelta >= 16;
+    }
+  }
+
+  /**
+   * Remembers each value of the file's metadata the first time it's asked for
+   */
+  private static class CachedFileMetadata implements IFileMetadata {
+    private final IFileMetadata _delegate;
+    private volatile String _name;
+    private volatile Boolean _bDir;
+    private volatile Boolean _bFile;
+    private volatile Boolean _bExists;
+    private volatile long _lastModifiedTime = -1;
+    private volatile long _length = -1;
+
+    private CachedFileMetadata(IFileMetadata delegate) {
+      _delegate = delegate;
+    }
+
+    @Override
+    public String name() {
+      String name = _name;
+      if (name == null) {
+        _name = name = _delegate.name();
+      }
+      return name;
+    }
+
+    @Override
+    public boolean isDir() {
+      Boolean bDir = _bDir;
+      if (bDir == null) {
+        _bDir = bDir = _delegate.isDir();
+      }
+      return bDir;
+    }
+
+    @Override
+    public boolean isFile() {
+      Boolean bFile = _bFile;
+      if (bFile == null) {
+        _bFile = bFile = _delegate.isFile();
+      }
+      return bFile;
+    }
+
+    @Override
+    public boolean exists() {
+      Boolean bExists = _bExists;
+      if (bExists == null) {
+        _bExists = bExists = _delegate.exists();
+      }
+      return bExists;
+    }
+
+    @Override
+    public long lastModifiedTime() {
+      long lastModifiedTime = _lastModifiedTime;
+      if (lastModifiedTime == -1) {
+        _lastModifiedTime = lastModifiedTime = _delegate.lastModifiedTime();
+      }
+      return lastModifiedTime;
+    }
+
+    @Override
+    public long length() {
+      long length = _length;
+      if (length == -1) {
+        _length = length = _delegate.length();
+      }
+      return length;
+    }
+  }
+}
@@ -7,6 +7,7 @@ package gw.fs.watcher;
 import gw.lang.UnstableAPI;
 
 import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.FileSystems;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
@@ -20,6 +21,7 @@ import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  *
@@ -33,7 +35,7 @@ public class DirectoryWatcher {
   public DirectoryWatcher() {
     try {
       _watchService = FileSystems.getDefault().newWatchService();
-      _watchedDirectories = new HashMap<>();
+      _watchedDirectories = new ConcurrentHashMap<>();
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
@@ -76,6 +78,24 @@ public class DirectoryWatcher {
     }
   }
 
+  /**
+   * Register a watcher for the directory alone, not its subdirectories.
+   *
+   * @return false if the directory can't be watched e.g., it doesn't exist or its file system doesn't support watching
+   */
+  public boolean watchSingleDirectory(Path dir) {
+    if (_watchedDirectories == null) {
+      throw new IllegalStateException("DirectoryWatcher.close() was called. Please make a new instance.");
+    }
+    try {
+      WatchKey key = dir.register(_watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+      _watchedDirectories.put(key, dir);
+      return true;
+    } catch (IOException | UnsupportedOperationException | ClosedWatchServiceException e) {
+      return false;
+    }
+  }
+
   private void watchDirectory(Path dir) throws IOException {
     try {
       WatchKey key = dir.register(_watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
@@ -102,21 +122,34 @@ public class DirectoryWatcher {
     if (_watchedDirectories == null) {
       throw new IllegalStateException("DirectoryWatcher.close() was called. Please make a new instance.");
     }
-    Map<Path, FileEvent> events = new HashMap<>();
-    while (true) {
-      WatchKey key = _watchService.poll();
-      if (key == null) {
-        break;
-      }
+    return collectChanges(_watchService, _watchService.poll());
+  }
 
-      Path dir = _watchedDirectories.get(key);
-      if (dir == null) {
-        throw new IllegalStateException("Got a WatchKey for a Path that we didn't watch");
-      }
+  /**
+   * Like {@link #getChangesSinceLastTime()}, but waits until there is a change.
+   *
+   * @throws ClosedWatchServiceException if {@link #stopWatching()} is called while waiting
+   */
+  public Map<Path, FileEvent> waitForChanges() throws InterruptedException {
+    WatchService watchService = _watchService;
+    if (watchService == null) {
+      throw new IllegalStateException("DirectoryWatcher.close() was called. Please make a new instance.");
+    }
+    return collectChanges(watchService, watchService.take());
+  }
+
+  private Map<Path, FileEvent> collectChanges(WatchService watchService, WatchKey key) {
+    Map<Path, FileEvent> events = new HashMap<>();
+    for (; key != null; key = watchService.poll()) {
+      // The key may be from watchSingleDirectory() on another thread, before it's in the map
+      Path dir = (Path) key.watchable();
 
       for (WatchEvent event : key.pollEvents()) {
         Object context = event.context();
-        if (context instanceof Path) {
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+          // Events for the directory were lost, all that's known is that something in it changed
+          events.put(dir, FileEvent.MODIFY);
+        } else if (context instanceof Path) {
           Path changedFile = dir.resolve((Path) context);
 
           WatchEvent.Kind eventKind = event.kind();
@@ -147,7 +180,12 @@ public class DirectoryWatcher {
       }
 
       if (!key.reset()) {
-        _watchedDirectories.remove(key);
+        // The directory is no longer watched, most likely it was deleted
+        Map<WatchKey, Path> watchedDirectories = _watchedDirectories;
+        if (watchedDirectories != null) {
+          watchedDirectories.remove(key);
+        }
+        events.put(dir, FileEvent.DELETE);
       }
     }
 
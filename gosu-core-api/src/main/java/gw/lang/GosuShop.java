@@ -39,6 +39,7 @@ import gw.lang.reflect.IMetaType;
 import gw.lang.reflect.IMethodInfo;
 import gw.lang.reflect.IPropertyAccessor;
 import gw.lang.reflect.IPropertyInfo;
+import gw.lang.function.IBlock;
 import gw.lang.reflect.IType;
 import gw.lang.reflect.ITypeInfo;
 import gw.lang.reflect.ITypeInfoFactory;
@@ -48,6 +49,7 @@ import gw.lang.reflect.gs.IEnhancementIndex;
 import gw.lang.reflect.gs.IFileSystemGosuClassRepository;
 import gw.lang.reflect.gs.IGosuClass;
 import gw.lang.reflect.gs.IGosuEnhancement;
+import gw.lang.reflect.json.IJsonCodec;
 import gw.lang.reflect.gs.IGosuProgram;
 import gw.lang.reflect.gs.ISourceFileHandle;
 import gw.lang.reflect.gs.ITemplateType;
@@ -260,6 +262,14 @@ public class GosuShop
     return CommonServices.getGosuIndustrialPark().getBlockToInterfaceConversionClass( typeToCoerceTo, enclosingType );
   }
 
+  public static Object coerceBlockToInterface( IType typeToCoerceTo, IBlock block ) {
+    return CommonServices.getGosuIndustrialPark().coerceBlockToInterface( typeToCoerceTo, block );
+  }
+
+  public static IJsonCodec<?> getJsonCodec( IType structureType ) {
+    return CommonServices.getGosuIndustrialPark().getJsonCodec( structureType );
+  }
+
   public static IRTypeResolver getIRTypeResolver() {
     return CommonServices.getGosuIndustrialPark().getIRTypeResolver();
   }
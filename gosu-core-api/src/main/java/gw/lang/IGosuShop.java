@@ -41,6 +41,7 @@ import gw.lang.reflect.IMethodInfo;
 import gw.lang.reflect.IPropertyAccessor;
 import gw.lang.reflect.IPropertyInfo;
 import gw.lang.reflect.IScriptabilityModifier;
+import gw.lang.function.IBlock;
 import gw.lang.reflect.IType;
 import gw.lang.reflect.ITypeInfo;
 import gw.lang.reflect.ITypeInfoFactory;
@@ -49,6 +50,7 @@ import gw.lang.reflect.gs.IEnhancementIndex;
 import gw.lang.reflect.gs.IFileSystemGosuClassRepository;
 import gw.lang.reflect.gs.IGosuClass;
 import gw.lang.reflect.gs.IGosuEnhancement;
+import gw.lang.reflect.json.IJsonCodec;
 import gw.lang.reflect.gs.IGosuProgram;
 import gw.lang.reflect.gs.ISourceFileHandle;
 import gw.lang.reflect.gs.ITemplateType;
@@ -139,6 +141,10 @@ public interface IGosuShop extends IService
 
   IGosuClass getBlockToInterfaceConversionClass( IType typeToCoerceTo, IType enclosingType );
 
+  Object coerceBlockToInterface( IType typeToCoerceTo, IBlock block );
+
+  IJsonCodec<?> getJsonCodec( IType structureType );
+
   IRTypeResolver getIRTypeResolver();
 
   IRClassCompiler getIRClassCompiler();
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.lang.function;
+
+import gw.lang.UnstableAPI;
+import gw.lang.reflect.IType;
+import gw.lang.reflect.TypeSystem;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bootstrap for invokedynamic call sites creating blocks that are compiled to lambdas instead of
+ * classes of their own.  The body of such a block is a private static method on the class
+ * declaring it, taking and returning Objects like the invoke() method of the block's IFunction
+ * interface, or primitives like the invokePrimitive() method of a primitive-specialized block
+ * interface such as {@link IIntToIntBlock}; the site is linked with {@link LambdaMetafactory} to
+ * an implementation of the interface calling that method.
+ * <p>
+ * Only blocks that capture nothing are compiled to lambdas, so a site always produces the same
+ * block.  The lambda's class is recorded here with the name of the block class the block would
+ * otherwise be an instance of, that is what {@link IBlock#getIntrinsicType()} answers for it.
+ */
+@UnstableAPI
+public class BlockLambdaMetafactory
+{
+  public static final String BOOTSTRAP = "metafactory";
+
+  private static final ClassValue<AtomicReference<String>> BLOCK_CLASS_NAMES = new ClassValue<AtomicReference<String>>()
+  {
+    @Override
+    protected AtomicReference<String> computeValue( Class<?> type )
+    {
+      return new AtomicReference<String>();
+    }
+  };
+
+  /**
+   * @param invokedName the name of the interface method implemented by the block's body
+   * @param invokedType returns the function interface the block implements
+   * @param implMethodName the name of the static method on the caller's class with the block's body
+   * @param blockClassName the name of the block's block class
+   */
+  public static CallSite metafactory( MethodHandles.Lookup caller, String invokedName, MethodType invokedType,
+                                      String implMethodName, String blockClassName ) throws Throwable
+  {
+    MethodType invokeType = getInvokeType( invokedType.returnType(), invokedName );
+    MethodHandle implMethod = caller.findStatic( caller.lookupClass(), implMethodName, invokeType );
+    CallSite site = LambdaMetafactory.metafactory( caller, invokedName, invokedType, invokeType, implMethod, invokeType );
+    BLOCK_CLASS_NAMES.get( site.getTarget().invoke().getClass() ).set( blockClassName );
+    return site;
+  }
+
+  static IType getBlockClass( Class<?> lambdaClass )
+  {
+    String name = BLOCK_CLASS_NAMES.get( lambdaClass ).get();
+    if( name == null )
+    {
+      throw new IllegalStateException( lambdaClass.getName() + " is not a block class" );
+    }
+    return TypeSystem.getByFullName( name );
+  }
+
+  private static MethodType getInvokeType( Class<?> functionInterface, String invokedName )
+  {
+    for( Method method : functionInterface.getMethods() )
+    {
+      if( method.getName().equals( invokedName ) && Modifier.isAbstract( method.getModifiers() ) )
+      {
+        return MethodType.methodType( method.getReturnType(), method.getParameterTypes() );
+      }
+    }
+    throw new IllegalArgumentException( functionInterface.getName() + " is not a block interface" );
+  }
+}
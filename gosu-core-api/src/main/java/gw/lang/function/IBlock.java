@@ -4,7 +4,9 @@
 
 package gw.lang.function;
 
+import gw.lang.parser.IBlockClass;
 import gw.lang.reflect.IFunctionType;
+import gw.lang.reflect.IType;
 import gw.lang.reflect.gs.IGosuClassObject;
 import gw.lang.parser.expressions.IBlockExpression;
 
@@ -14,7 +16,24 @@ public interface IBlock extends IGosuClassObject
 
   public Object invokeWithArgs( Object... args );
 
-  public IBlockExpression getParsedElement();
+  default IBlockExpression getParsedElement()
+  {
+    IBlockClass type = (IBlockClass)getIntrinsicType();
+    return type.getBlock();
+  }
 
-  IFunctionType getFunctionType();
+  default IFunctionType getFunctionType()
+  {
+    return (IFunctionType)getParsedElement().getType();
+  }
+
+  /**
+   * Blocks compiled to classes extend {@link AbstractBlock}, this is the block class of a block
+   * compiled to a lambda, see {@link BlockLambdaMetafactory}
+   */
+  @Override
+  default IType getIntrinsicType()
+  {
+    return BlockLambdaMetafactory.getBlockClass( getClass() );
+  }
 }
@@ -0,0 +1,19 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.lang.function;
+
+/**
+ * Implemented by blocks of type block(double, double):double, whose callers knowing the type
+ * invoke them without boxing
+ */
+public interface IDoubleDoubleToDoubleBlock extends IFunction2 {
+
+  public double invokePrimitive(double arg0, double arg1);
+
+  default Object invoke(Object arg0, Object arg1) {
+    return invokePrimitive(((Double)arg0).doubleValue(), ((Double)arg1).doubleValue());
+  }
+
+}
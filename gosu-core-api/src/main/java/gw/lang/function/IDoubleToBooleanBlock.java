@@ -0,0 +1,19 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.lang.function;
+
+/**
+ * Implemented by blocks of type block(double):boolean, whose callers knowing the type
+ * invoke them without boxing
+ */
+public interface IDoubleToBooleanBlock extends IFunction1 {
+
+  public boolean invokePrimitive(double arg0);
+
+  default Object invoke(Object arg0) {
+    return invokePrimitive(((Double)arg0).doubleValue());
+  }
+
+}
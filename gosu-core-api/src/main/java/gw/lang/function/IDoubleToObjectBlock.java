@@ -0,0 +1,19 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.lang.function;
+
+/**
+ * Implemented by blocks of type block(double):Object, whose callers knowing the type
+ * invoke them without boxing
+ */
+public interface IDoubleToObjectBlock extends IFunction1 {
+
+  public Object invokePrimitive(double arg0);
+
+  default Object invoke(Object arg0) {
+    return invokePrimitive(((Double)arg0).doubleValue());
+  }
+
+}
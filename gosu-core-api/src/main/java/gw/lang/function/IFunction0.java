@@ -9,4 +9,12 @@ public interface IFunction0 extends IBlock {
 
   public Object invoke();
 
+  default Object invokeWithArgs(Object... args) {
+    if(args.length != 0) {
+      throw new IllegalArgumentException("You must pass 0 args to this block, but you passed " + args.length);
+    } else { 
+      return invoke();
+    }
+  }
+
 }
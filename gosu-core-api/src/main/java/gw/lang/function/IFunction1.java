@@ -9,4 +9,12 @@ public interface IFunction1 extends IBlock {
 
   public Object invoke(Object arg0);
 
+  default Object invokeWithArgs(Object... args) {
+    if(args.length != 1) {
+      throw new IllegalArgumentException("You must pass 1 args to this block, but you passed " + args.length);
+    } else { 
+      return invoke(args[0]);
+    }
+  }
+
 }
@@ -9,4 +9,12 @@ public interface IFunction15 extends IBlock {
 
   public Object invoke(Object arg0, Object arg1, Object arg2, Object arg3, Object arg4, Object arg5, Object arg6, Object arg7, Object arg8, Object arg9, Object arg10, Object arg11, Object arg12, Object arg13, Object arg14);
 
+  default Object invokeWithArgs(Object... args) {
+    if(args.length != 15) {
+      throw new IllegalArgumentException("You must pass 15 args to this block, but you passed " + args.length);
+    } else { 
+      return invoke(args[0], args[1], args[2], args[3], args[4], args[5], args[6], args[7], args[8], args[9], args[10], args[11], args[12], args[13], args[14]);
+    }
+  }
+
 }
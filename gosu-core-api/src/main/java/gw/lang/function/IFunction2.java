@@ -9,4 +9,12 @@ public interface IFunction2 extends IBlock {
 
   public Object invoke(Object arg0, Object arg1);
 
+  default Object invokeWithArgs(Object... args) {
+    if(args.length != 2) {
+      throw new IllegalArgumentException("You must pass 2 args to this block, but you passed " + args.length);
+    } else { 
+      return invoke(args[0], args[1]);
+    }
+  }
+
 }
@@ -9,4 +9,12 @@ public interface IFunction3 extends IBlock {
 
   public Object invoke(Object arg0, Object arg1, Object arg2);
 
+  default Object invokeWithArgs(Object... args) {
+    if(args.length != 3) {
+      throw new IllegalArgumentException("You must pass 3 args to this block, but you passed " + args.length);
+    } else { 
+      return invoke(args[0], args[1], args[2]);
+    }
+  }
+
 }
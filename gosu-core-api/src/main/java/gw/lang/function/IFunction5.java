@@ -9,4 +9,12 @@ public interface IFunction5 extends IBlock {
 
   public Object invoke(Object arg0, Object arg1, Object arg2, Object arg3, Object arg4);
 
+  default Object invokeWithArgs(Object... args) {
+    if(args.length != 5) {
+      throw new IllegalArgumentException("You must pass 5 args to this block, but you passed " + args.length);
+    } else { 
+      return invoke(args[0], args[1], args[2], args[3], args[4]);
+    }
+  }
+
 }
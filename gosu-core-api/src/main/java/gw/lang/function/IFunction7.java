@@ -9,4 +9,12 @@ public interface IFunction7 extends IBlock {
 
   public Object invoke(Object arg0, Object arg1, Object arg2, Object arg3, Object arg4, Object arg5, Object arg6);
 
+  default Object invokeWithArgs(Object... args) {
+    if(args.length != 7) {
+      throw new IllegalArgumentException("You must pass 7 args to this block, but you passed " + args.length);
+    } else { 
+      return invoke(args[0], args[1], args[2], args[3], args[4], args[5], args[6]);
+    }
+  }
+
 }
@@ -0,0 +1,19 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.lang.function;
+
+/**
+ * Implemented by blocks of type block(int, int):int, whose callers knowing the type
+ * invoke them without boxing
+ */
+public interface IIntIntToIntBlock extends IFunction2 {
+
+  public int invokePrimitive(int arg0, int arg1);
+
+  default Object invoke(Object arg0, Object arg1) {
+    return invokePrimitive(((Integer)arg0).intValue(), ((Integer)arg1).intValue());
+  }
+
+}
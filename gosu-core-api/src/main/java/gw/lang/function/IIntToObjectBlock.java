@@ -0,0 +1,19 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.lang.function;
+
+/**
+ * Implemented by blocks of type block(int):Object, whose callers knowing the type
+ * invoke them without boxing
+ */
+public interface IIntToObjectBlock extends IFunction1 {
+
+  public Object invokePrimitive(int arg0);
+
+  default Object invoke(Object arg0) {
+    return invokePrimitive(((Integer)arg0).intValue());
+  }
+
+}
@@ -0,0 +1,19 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.lang.function;
+
+/**
+ * Implemented by blocks of type block(long, long):long, whose callers knowing the type
+ * invoke them without boxing
+ */
+public interface ILongLongToLongBlock extends IFunction2 {
+
+  public long invokePrimitive(long arg0, long arg1);
+
+  default Object invoke(Object arg0, Object arg1) {
+    return invokePrimitive(((Long)arg0).longValue(), ((Long)arg1).longValue());
+  }
+
+}
@@ -0,0 +1,19 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.lang.function;
+
+/**
+ * Implemented by blocks of type block(long):boolean, whose callers knowing the type
+ * invoke them without boxing
+ */
+public interface ILongToBooleanBlock extends IFunction1 {
+
+  public boolean invokePrimitive(long arg0);
+
+  default Object invoke(Object arg0) {
+    return invokePrimitive(((Long)arg0).longValue());
+  }
+
+}
@@ -0,0 +1,19 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.lang.function;
+
+/**
+ * Implemented by blocks of type block(long):long, whose callers knowing the type
+ * invoke them without boxing
+ */
+public interface ILongToLongBlock extends IFunction1 {
+
+  public long invokePrimitive(long arg0);
+
+  default Object invoke(Object arg0) {
+    return invokePrimitive(((Long)arg0).longValue());
+  }
+
+}
@@ -0,0 +1,19 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.lang.function;
+
+/**
+ * Implemented by blocks of type block(long):Object, whose callers knowing the type
+ * invoke them without boxing
+ */
+public interface ILongToObjectBlock extends IFunction1 {
+
+  public Object invokePrimitive(long arg0);
+
+  default Object invoke(Object arg0) {
+    return invokePrimitive(((Long)arg0).longValue());
+  }
+
+}
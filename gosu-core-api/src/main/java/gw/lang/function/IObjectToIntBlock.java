@@ -0,0 +1,19 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.lang.function;
+
+/**
+ * Implemented by blocks of type block(Object):int, whose callers knowing the type
+ * invoke them without boxing
+ */
+public interface IObjectToIntBlock extends IFunction1 {
+
+  public int invokePrimitive(Object arg0);
+
+  default Object invoke(Object arg0) {
+    return invokePrimitive(arg0);
+  }
+
+}
@@ -14,9 +14,11 @@ import gw.lang.init.GosuInitialization;
 import gw.lang.parser.ICoercionManager;
 import gw.lang.parser.IParseIssue;
 import gw.lang.parser.IParsedElement;
+import gw.lang.parser.ITypeUsesMap;
 import gw.lang.parser.exceptions.ParseWarning;
 import gw.lang.parser.statements.IClassFileStatement;
 import gw.lang.parser.statements.IClassStatement;
+import gw.lang.parser.statements.IUsesStatement;
 import gw.lang.reflect.IEntityAccess;
 import gw.lang.reflect.IType;
 import gw.lang.reflect.TypeSystem;
@@ -25,6 +27,7 @@ import gw.lang.reflect.gs.ISourceFileHandle;
 import gw.lang.reflect.module.IExecutionEnvironment;
 import gw.lang.reflect.module.IFileSystem;
 import gw.lang.reflect.module.IModule;
+import gw.util.fingerprint.FP64;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -35,9 +38,22 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.lang.reflect.Constructor;
 import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static gw.lang.gosuc.simple.ICompilerDriver.ERROR;
 import static gw.lang.gosuc.simple.ICompilerDriver.WARNING;
@@ -45,23 +61,322 @@ import static gw.lang.gosuc.simple.ICompilerDriver.WARNING;
 public class GosuCompiler implements IGosuCompiler {
   protected GosuInitialization _gosuInitialization;
   protected File _compilingSourceFile;
+  private volatile IType _doNotVerifyAnnotation;
+  private List<String> _classpath = Collections.emptyList();
+  private List<File> _classpathDirs = Collections.emptyList();
+  private ExecutorService _ioExecutor;
+  private final List<Future<?>> _pendingWrites = new ArrayList<>();
 
   public boolean compile(File sourceFile, ICompilerDriver driver) throws Exception {
     _compilingSourceFile = sourceFile;
+    compileFile(sourceFile, driver);
+    return false;
+  }
+
+  /**
+   * Compiles the given sources as a project.  If indexFile is not null, the compile is incremental:
+   * only sources that changed since the compile recorded in the index, and sources depending on types
+   * whose class files changed as a result, are recompiled.  The index is rewritten at the end of the
+   * compile.
+   * <p>
+   * Sources are compiled one at a time on the calling thread, in order, since parsing and code
+   * generation take the TypeSystem lock.  Only fingerprinting sources and comparing and writing
+   * outputs run on iIoThreads threads.  Outputs are registered with the driver from those threads
+   * once written, driver calls are serialized.
+   *
+   * @return true if the compile completed without errors
+   */
+  public boolean compile(Collection<File> sourceFiles, ICompilerDriver driver, int iIoThreads, File indexFile) throws Exception {
+    driver = new SynchronizedCompilerDriver(driver);
+    ExecutorService executor = iIoThreads > 1 ? Executors.newFixedThreadPool(iIoThreads) : null;
+    _ioExecutor = executor;
+    try {
+      if (indexFile == null) {
+        boolean bSuccess = true;
+        for (RecordingCompilerDriver result : compileAll(sourceFiles, driver)) {
+          bSuccess &= !result.hasErrors();
+        }
+        return bSuccess;
+      }
+      return compileIncrementally(sourceFiles, driver, executor, indexFile);
+    } finally {
+      _ioExecutor = null;
+      _pendingWrites.clear();
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+    }
+  }
+
+  private boolean compileIncrementally(Collection<File> sourceFiles, ICompilerDriver driver, ExecutorService executor, File indexFile) throws Exception {
+    IncrementalCompileIndex index = IncrementalCompileIndex.load(indexFile, getEnvironmentFingerprint());
+
+    Map<String, File> sourcesByPath = new HashMap<>();
+    for (File file : sourceFiles) {
+      sourcesByPath.put(file.getCanonicalPath(), file);
+    }
+
+    Set<String> changedTypes = new HashSet<>();
+    for (String path : index.getSourcePaths()) {
+      if (!sourcesByPath.containsKey(path)) {
+        // Source was deleted
+        IncrementalCompileIndex.Entry entry = index.remove(path);
+        deleteOutputs(entry._outputs.keySet());
+        changedTypes.addAll(entry._types);
+      }
+    }
+    changedTypes.addAll(index.getChangedExternalTypes(_classpathDirs));
+
+    Map<String, String> fingerprints = fingerprint(sourcesByPath, executor);
+    Set<String> dirty = new HashSet<>();
+    for (Map.Entry<String, String> fingerprint : fingerprints.entrySet()) {
+      IncrementalCompileIndex.Entry entry = index.get(fingerprint.getKey());
+      if (entry == null || !entry._fingerprint.equals(fingerprint.getValue()) || !index.restoreOutputs(entry)) {
+        dirty.add(fingerprint.getKey());
+      }
+    }
+
+    boolean bSuccess = true;
+    Set<String> compiled = new HashSet<>();
+    while (true) {
+      for (String dependent : index.getDependents(changedTypes)) {
+        if (sourcesByPath.containsKey(dependent)) {
+          dirty.add(dependent);
+        }
+      }
+      dirty.removeAll(compiled);
+      if (dirty.isEmpty()) {
+        break;
+      }
+      changedTypes = new HashSet<>();
+      List<File> batch = new ArrayList<>();
+      for (String path : dirty) {
+        batch.add(sourcesByPath.get(path));
+      }
+      dirty = new HashSet<>();
+      List<RecordingCompilerDriver> results = compileAll(batch, driver);
+      for (int i = 0; i < batch.size(); i++) {
+        String path = batch.get(i).getCanonicalPath();
+        compiled.add(path);
+        RecordingCompilerDriver result = results.get(i);
+        IncrementalCompileIndex.Entry oldEntry = index.remove(path);
+        IncrementalCompileIndex.Entry newEntry = null;
+        if (!result.hasErrors()) {
+          newEntry = makeIndexEntry(batch.get(i), fingerprints.get(path), result.getOutputs());
+          index.put(path, newEntry);
+          index.cacheOutputs(newEntry);
+        } else {
+          // Not indexed, so the source is compiled again next time
+          bSuccess = false;
+        }
+        Set<String> staleOutputs = oldEntry == null ? new HashSet<String>() : new HashSet<>(oldEntry._outputs.keySet());
+        if (newEntry != null) {
+          staleOutputs.removeAll(newEntry._outputs.keySet());
+        }
+        deleteOutputs(staleOutputs);
+        if (newEntry == null || oldEntry == null || !newEntry._outputs.equals(oldEntry._outputs)) {
+          // Class files changed, dependents must be recompiled against them
+          if (oldEntry != null) {
+            changedTypes.addAll(oldEntry._types);
+          }
+          if (newEntry != null) {
+            changedTypes.addAll(newEntry._types);
+          }
+        }
+      }
+    }
+
+    index.updateExternalStamps(_classpathDirs);
+    index.save();
+    return bSuccess;
+  }
+
+  /**
+   * Compiles the sources on the calling thread, their outputs are written by the I/O threads.
+   * Returns once all the outputs are written.
+   */
+  private List<RecordingCompilerDriver> compileAll(Collection<File> sourceFiles, ICompilerDriver driver) throws Exception {
+    List<RecordingCompilerDriver> results = new ArrayList<>();
+    for (File file : sourceFiles) {
+      RecordingCompilerDriver recorder = new RecordingCompilerDriver(driver);
+      results.add(recorder);
+      try {
+        compileFile(file, recorder);
+      } catch (Throwable e) {
+        recorder.sendCompileIssue(file, ERROR, 0, 0, 0, getStackTrace(e));
+      }
+    }
+    for (Future<?> write : _pendingWrites) {
+      write.get();
+    }
+    _pendingWrites.clear();
+    return results;
+  }
+
+  /**
+   * Runs the write on an I/O thread if there are any, otherwise right away.  A failed write is
+   * reported as an error in the source file.
+   */
+  private void writeOutput(final File sourceFile, final ICompilerDriver driver, final String errorMessage, final OutputWrite write) {
+    Runnable task = new Runnable() {
+      public void run() {
+        try {
+          write.write();
+        } catch (Throwable e) {
+          driver.sendCompileIssue(sourceFile, ERROR, 0, 0, 0, combine(errorMessage, getStackTrace(e)));
+        }
+      }
+    };
+    if (_ioExecutor == null) {
+      task.run();
+    } else {
+      _pendingWrites.add(_ioExecutor.submit(task));
+    }
+  }
+
+  private interface OutputWrite {
+    void write() throws IOException;
+  }
+
+  private Map<String, String> fingerprint(Map<String, File> sourcesByPath, ExecutorService executor) throws Exception {
+    Map<String, Future<String>> futures = new HashMap<>();
+    Map<String, String> fingerprints = new HashMap<>();
+    for (final Map.Entry<String, File> source : sourcesByPath.entrySet()) {
+      Callable<String> task = new Callable<String>() {
+        public String call() throws Exception {
+          return IncrementalCompileIndex.fingerprint(source.getValue());
+        }
+      };
+      if (executor == null) {
+        fingerprints.put(source.getKey(), task.call());
+      } else {
+        futures.put(source.getKey(), executor.submit(task));
+      }
+    }
+    for (Map.Entry<String, Future<String>> future : futures.entrySet()) {
+      fingerprints.put(future.getKey(), future.getValue().get());
+    }
+    return fingerprints;
+  }
 
-    IType type = getType(_compilingSourceFile);
+  private IncrementalCompileIndex.Entry makeIndexEntry(File sourceFile, String fingerprint, Collection<File> outputs) throws IOException {
+    IncrementalCompileIndex.Entry entry = new IncrementalCompileIndex.Entry(fingerprint);
+    IFile ifile = FileFactory.instance().getIFile(sourceFile);
+    Collections.addAll(entry._types, TypeSystem.getTypesForFile(TypeSystem.getGlobalModule(), ifile));
+    for (File output : outputs) {
+      entry._outputs.put(output.getCanonicalPath(), IncrementalCompileIndex.fingerprint(output));
+      if (output.getName().endsWith(".class")) {
+        entry._dependencies.addAll(IncrementalCompileIndex.readDependencies(output));
+      }
+    }
+    // Class files don't reference inherited members' declaring types nor types only named in
+    // uses statements, so record those from the parsed types
+    Set<IType> visited = new HashSet<>();
+    for (String typeName : entry._types) {
+      IType type = TypeSystem.getByFullNameIfValid(typeName, TypeSystem.getGlobalModule());
+      if (type instanceof IGosuClass) {
+        addUsedTypes((IGosuClass) type, entry._dependencies);
+        addDeclaredDependencies(type, entry._dependencies, visited);
+      }
+    }
+    for (Iterator<String> iter = entry._dependencies.iterator(); iter.hasNext(); ) {
+      if (entry._types.contains(IncrementalCompileIndex.getTopLevelName(iter.next()))) {
+        iter.remove();
+      }
+    }
+    return entry;
+  }
+
+  /**
+   * Adds the supertypes, interfaces and enclosing types of the type, of its inner classes and of
+   * those types, transitively
+   */
+  private static void addDeclaredDependencies(IType type, Set<String> dependencies, Set<IType> visited) {
+    if (type == null) {
+      return;
+    }
+    type = TypeSystem.getPureGenericType(type);
+    if (type.isArray() || !visited.add(type)) {
+      return;
+    }
+    dependencies.add(getBinaryName(type));
+    addDeclaredDependencies(type.getSupertype(), dependencies, visited);
+    IType[] interfaces = type.getInterfaces();
+    if (interfaces != null) {
+      for (IType iface : interfaces) {
+        addDeclaredDependencies(iface, dependencies, visited);
+      }
+    }
+    addDeclaredDependencies(type.getEnclosingType(), dependencies, visited);
+    if (type instanceof IGosuClass) {
+      for (IGosuClass innerClass : ((IGosuClass) type).getInnerClasses()) {
+        addDeclaredDependencies(innerClass, dependencies, visited);
+      }
+    }
+  }
+
+  /**
+   * Adds the types imported by the class's uses statements, an import that no longer resolves is
+   * added by name so the class is recompiled if a type by that name is declared again
+   */
+  private static void addUsedTypes(IGosuClass gsClass, Set<String> dependencies) {
+    ITypeUsesMap typeUses = gsClass.getTypeUsesMap();
+    if (typeUses == null) {
+      return;
+    }
+    for (IUsesStatement usesStmt : typeUses.getUsesStatements()) {
+      String typeName = usesStmt.getTypeName();
+      if (typeName == null || typeName.endsWith("*")) {
+        continue;
+      }
+      IType type = TypeSystem.getByFullNameIfValid(typeName, TypeSystem.getGlobalModule());
+      dependencies.add(type == null ? typeName : getBinaryName(TypeSystem.getPureGenericType(type)));
+    }
+  }
+
+  private static String getBinaryName(IType type) {
+    IType enclosingType = type.getEnclosingType();
+    if (enclosingType == null) {
+      return type.getName();
+    }
+    return getBinaryName(enclosingType) + '$' + type.getName().substring(enclosingType.getName().length() + 1);
+  }
+
+  private void deleteOutputs(Collection<String> outputs) {
+    for (String output : outputs) {
+      new File(output).delete();
+    }
+  }
+
+  /**
+   * @return A fingerprint of the classpath, changing it invalidates the incremental compile index
+   */
+  private String getEnvironmentFingerprint() {
+    FP64 fp = new FP64(String.valueOf(System.getProperty("checkedArithmetic")));
+    for (String entry : _classpath) {
+      File file = new File(entry);
+      fp.extend(entry);
+      if (file.isFile()) {
+        fp.extend(file.length() + ":" + file.lastModified());
+      }
+    }
+    return fp.toHexString();
+  }
+
+  private boolean compileFile(File sourceFile, ICompilerDriver driver) {
+    IType type = getType(sourceFile);
     if (type == null) {
-      driver.sendCompileIssue(_compilingSourceFile, ERROR, 0, 0, 0, "Cannot find type in the Gosu Type System.");
+      driver.sendCompileIssue(sourceFile, ERROR, 0, 0, 0, "Cannot find type in the Gosu Type System.");
       return false;
     }
 
     if (isCompilable(type)) {
       try {
         if(type.isValid()) {
-          createOutputFiles((IGosuClass) type, driver);
+          createOutputFiles((IGosuClass) type, sourceFile, driver);
         }
       } catch(CompilerDriverException ex) {
-        driver.sendCompileIssue(_compilingSourceFile, ERROR, 0, 0, 0, ex.getMessage());
+        driver.sendCompileIssue(sourceFile, ERROR, 0, 0, 0, ex.getMessage());
         return false;
       }
       // output warnings and errors - whether the type was valid or not
@@ -72,11 +387,11 @@ public class GosuCompiler implements IGosuCompiler {
       for (IParseIssue issue : classElement.getParseIssues()) {
         int category = issue instanceof ParseWarning ? WARNING : ERROR;
         String message = mode == ExecutionMode.IDE ? issue.getUIMessage() : issue.getConsoleMessage();
-        driver.sendCompileIssue(_compilingSourceFile, category, issue.getTokenStart(), issue.getLine(), issue.getColumn(), message);
+        driver.sendCompileIssue(sourceFile, category, issue.getTokenStart(), issue.getLine(), issue.getColumn(), message);
       }
     }
 
-    return false;
+    return true;
   }
 
   private IType getType(File file) {
@@ -90,11 +405,15 @@ public class GosuCompiler implements IGosuCompiler {
   }
 
   private boolean isCompilable(IType type) {
-    IType doNotVerifyAnnotation = TypeSystem.getByFullNameIfValid("gw.testharness.DoNotVerifyResource");
+    IType doNotVerifyAnnotation = _doNotVerifyAnnotation;
+    if (doNotVerifyAnnotation == null) {
+      doNotVerifyAnnotation = TypeSystem.getByFullNameIfValid("gw.testharness.DoNotVerifyResource");
+      _doNotVerifyAnnotation = doNotVerifyAnnotation == null ? TypeSystem.getErrorType() : doNotVerifyAnnotation;
+    }
     return type instanceof IGosuClass && !type.getTypeInfo().hasAnnotation(doNotVerifyAnnotation);
   }
 
-  private void createOutputFiles(IGosuClass gsClass, ICompilerDriver driver) {
+  private void createOutputFiles(IGosuClass gsClass, File sourceFile, ICompilerDriver driver) {
     IDirectory moduleOutputDirectory = TypeSystem.getGlobalModule().getOutputPath();
     if (moduleOutputDirectory == null) {
       throw new RuntimeException("Can't make class file, no output path defined.");
@@ -115,10 +434,10 @@ public class GosuCompiler implements IGosuCompiler {
           }
         }
       }
-      populateClassFile(child, gsClass, driver);
-      maybeCopySourceFile(child.getParentFile(), gsClass, _compilingSourceFile, driver);
+      populateClassFile(child, gsClass, sourceFile, driver);
+      maybeCopySourceFile(child.getParentFile(), gsClass, sourceFile, driver);
     } catch (Throwable e) {
-      driver.sendCompileIssue(_compilingSourceFile, ERROR, 0, 0, 0, combine("Cannot create .class files.", getStackTrace(e)));
+      driver.sendCompileIssue(sourceFile, ERROR, 0, 0, 0, combine("Cannot create .class files.", getStackTrace(e)));
     }
   }
 
@@ -161,20 +480,21 @@ public class GosuCompiler implements IGosuCompiler {
     file.createNewFile();
   }
 
-  private void maybeCopySourceFile(File parent, IGosuClass gsClass, File sourceFile, ICompilerDriver driver) {
+  private void maybeCopySourceFile(File parent, IGosuClass gsClass, final File sourceFile, final ICompilerDriver driver) {
     ISourceFileHandle sfh = gsClass.getSourceFileHandle();
     IFile srcFile = sfh.getFile();
     if (srcFile != null) {
-      File file = new File(srcFile.getPath().getFileSystemPathString());
+      final File file = new File(srcFile.getPath().getFileSystemPathString());
       if (file.isFile()) {
-        try {
-          File destFile = new File(parent, file.getName());
-          copyFile(file, destFile);
-          driver.registerOutput(_compilingSourceFile, destFile);
-        } catch (IOException e) {
-          e.printStackTrace();
-          driver.sendCompileIssue(sourceFile, ERROR, 0, 0, 0, "Cannot copy source file to output folder.");
-        }
+        final File destFile = new File(parent, file.getName());
+        writeOutput(sourceFile, driver, "Cannot copy source file to output folder.", new OutputWrite() {
+          public void write() throws IOException {
+            if (!sameContent(file, destFile)) {
+              copyFile(file, destFile);
+            }
+            driver.registerOutput(sourceFile, destFile);
+          }
+        });
       }
     }
   }
@@ -196,25 +516,49 @@ public class GosuCompiler implements IGosuCompiler {
     }
   }
 
-  private void populateClassFile( File outputFile, IGosuClass gosuClass, ICompilerDriver driver ) throws IOException {
+  private void populateClassFile( final File outputFile, IGosuClass gosuClass, final File sourceFile, final ICompilerDriver driver ) throws IOException {
     final byte[] bytes = TypeSystem.getGosuClassLoader().getBytes(gosuClass);
-    try (OutputStream out = new FileOutputStream(outputFile)) {
-      out.write(bytes);
-      driver.registerOutput(_compilingSourceFile, outputFile);
-    }
+    writeOutput(sourceFile, driver, "Cannot create .class files.", new OutputWrite() {
+      public void write() throws IOException {
+        if (!sameContent(bytes, outputFile)) {
+          // Leave identical class files alone so their timestamps don't trigger downstream work
+          try (OutputStream out = new FileOutputStream(outputFile)) {
+            out.write(bytes);
+          }
+        }
+        driver.registerOutput(sourceFile, outputFile);
+      }
+    });
     for (IGosuClass innerClass : gosuClass.getInnerClasses()) {
       final String innerClassName = String.format("%s$%s.class", outputFile.getName().substring(0, outputFile.getName().lastIndexOf('.')), innerClass.getRelativeName());
       File innerClassFile = new File(outputFile.getParent(), innerClassName);
       if (innerClassFile.isFile()) {
         createNewFile(innerClassFile);
       }
-      populateClassFile(innerClassFile, innerClass, driver);
+      populateClassFile(innerClassFile, innerClass, sourceFile, driver);
     }
   }
 
+  private boolean sameContent(File file, File existingFile) throws IOException {
+    return existingFile.isFile() && existingFile.length() == file.length() && sameContent(Files.readAllBytes(file.toPath()), existingFile);
+  }
+
+  private boolean sameContent(byte[] bytes, File existingFile) throws IOException {
+    return existingFile.isFile() && existingFile.length() == bytes.length && Arrays.equals(bytes, Files.readAllBytes(existingFile.toPath()));
+  }
+
   public long initializeGosu(List<String> sourceFolders, List<String> classpath, String outputPath) {
     final long start = System.currentTimeMillis();
 
+    _classpath = new ArrayList<>(classpath);
+    _classpathDirs = new ArrayList<>();
+    for (String entry : classpath) {
+      File file = new File(entry);
+      if (file.isDirectory()) {
+        _classpathDirs.add(file);
+      }
+    }
+
     CommonServices.getKernel().redefineService_Privileged(IFileSystem.class, createFileSystemInstance());
     CommonServices.getKernel().redefineService_Privileged(IMemoryMonitor.class, new CompilerMemoryMonitor());
     CommonServices.getKernel().redefineService_Privileged(IPlatformHelper.class, new CompilerPlatformHelper());
@@ -252,6 +596,7 @@ public class GosuCompiler implements IGosuCompiler {
   }
 
   public void unitializeGosu() {
+    _doNotVerifyAnnotation = null;
     TypeSystem.shutdown(TypeSystem.getExecutionEnvironment());
     if (_gosuInitialization != null) {
       if (_gosuInitialization.isInitialized()) {
@@ -1,6 +1,7 @@
 package gw.lang.gosuc.simple;
 
 import java.io.File;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -16,4 +17,20 @@ public interface IGosuCompiler {
 
   boolean compile(File sourceFile, ICompilerDriver driver) throws Exception;
 
+  /**
+   * Compiles the given sources as a project.  The default implementation compiles them one at a time
+   * with {@link #compile(File, ICompilerDriver)}, ignoring iIoThreads and indexFile.
+   *
+   * @param iIoThreads the number of threads fingerprinting sources and writing outputs
+   * @param indexFile the incremental compile index, or null for a full compile
+   * @return true if the compile completed without errors
+   */
+  default boolean compile(Collection<File> sourceFiles, ICompilerDriver driver, int iIoThreads, File indexFile) throws Exception {
+    RecordingCompilerDriver recorder = new RecordingCompilerDriver(driver);
+    for (File sourceFile : sourceFiles) {
+      compile(sourceFile, recorder);
+    }
+    return !recorder.hasErrors();
+  }
+
 }
@@ -0,0 +1,307 @@
+package gw.lang.gosuc.simple;
+
+import gw.internal.ext.org.objectweb.asm.ClassReader;
+import gw.internal.ext.org.objectweb.asm.ClassVisitor;
+import gw.internal.ext.org.objectweb.asm.Opcodes;
+import gw.internal.ext.org.objectweb.asm.commons.Remapper;
+import gw.internal.ext.org.objectweb.asm.commons.RemappingClassAdapter;
+import gw.util.fingerprint.FP64;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Persistent record of a previous project compile, used by {@link GosuCompiler} to recompile only
+ * the sources that changed since then and the sources that depend on them.
+ * <p>
+ * For each successfully compiled source file the index stores a fingerprint of its content, the
+ * types it declares, the types it depends on and its output files along with their fingerprints.
+ * The dependencies are the types its class files reference, the supertypes and interfaces of its
+ * types transitively and the types it imports.  Types referenced only by name, e.g. in a string
+ * resolved at runtime, are not tracked.  Referenced types that are not declared by an indexed source and live in a
+ * directory on the classpath (e.g. classes compiled by javac in the same module) are stamped with
+ * a fingerprint of their class file; a modification time would not do, javac rewrites those on
+ * every build.  The whole index is discarded if the classpath changes.
+ * <p>
+ * Dependencies are recorded by binary name (a.b.Outer$Inner), declared types by top-level name.
+ * <p>
+ * Copies of the outputs are kept in a directory next to the index, named by fingerprint, so that
+ * outputs of unchanged sources can be restored without compiling if the build tool deleted them
+ * (as Maven's incremental build helper does with all previously created files).
+ */
+class IncrementalCompileIndex {
+  private static final String HEADER = "gosuc-index 1";
+
+  private final File _file;
+  private final File _outputCache;
+  private final String _environment;
+  private final Map<String, Entry> _sources = new HashMap<>();
+  private final Map<String, String> _externalStamps = new HashMap<>();
+
+  private IncrementalCompileIndex(File file, String environment) {
+    _file = file;
+    _outputCache = new File(file.getPath() + ".outputs");
+    _environment = environment;
+  }
+
+  static class Entry {
+    final String _fingerprint;
+    final Set<String> _types = new HashSet<>();
+    final Set<String> _dependencies = new HashSet<>();
+    final Map<String, String> _outputs = new LinkedHashMap<>();
+
+    Entry(String fingerprint) {
+      _fingerprint = fingerprint;
+    }
+  }
+
+  /**
+   * @param environment A fingerprint of everything the compile depends on besides the sources,
+   *   an index recorded with a different environment is discarded.
+   */
+  static IncrementalCompileIndex load(File file, String environment) {
+    IncrementalCompileIndex index = new IncrementalCompileIndex(file, environment);
+    if (!file.isFile()) {
+      return index;
+    }
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+      if (!HEADER.equals(reader.readLine()) || !environment.equals(reader.readLine())) {
+        return index;
+      }
+      Entry entry = null;
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String[] fields = line.split("\t");
+        switch (fields[0]) {
+          case "source":
+            entry = new Entry(fields[2]);
+            index._sources.put(fields[1], entry);
+            break;
+          case "type":
+            entry._types.add(fields[1]);
+            break;
+          case "dep":
+            entry._dependencies.add(fields[1]);
+            break;
+          case "out":
+            entry._outputs.put(fields[1], fields[2]);
+            break;
+          case "ext":
+            index._externalStamps.put(fields[1], fields[2]);
+            break;
+          default:
+            throw new IOException("Unexpected index entry: " + line);
+        }
+      }
+    } catch (Exception e) {
+      // A corrupt index just means a full compile
+      index._sources.clear();
+      index._externalStamps.clear();
+    }
+    return index;
+  }
+
+  void save() throws IOException {
+    File parent = _file.getParentFile();
+    if (parent != null) {
+      parent.mkdirs();
+    }
+    try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(_file), StandardCharsets.UTF_8))) {
+      writer.write(HEADER + "\n" + _environment + "\n");
+      for (Map.Entry<String, Entry> source : _sources.entrySet()) {
+        Entry entry = source.getValue();
+        writer.write("source\t" + source.getKey() + "\t" + entry._fingerprint + "\n");
+        for (String type : entry._types) {
+          writer.write("type\t" + type + "\n");
+        }
+        for (String dep : entry._dependencies) {
+          writer.write("dep\t" + dep + "\n");
+        }
+        for (Map.Entry<String, String> output : entry._outputs.entrySet()) {
+          writer.write("out\t" + output.getKey() + "\t" + output.getValue() + "\n");
+        }
+      }
+      for (Map.Entry<String, String> stamp : _externalStamps.entrySet()) {
+        writer.write("ext\t" + stamp.getKey() + "\t" + stamp.getValue() + "\n");
+      }
+    }
+    pruneOutputCache();
+  }
+
+  /**
+   * Copies the outputs of the entry into the output cache
+   */
+  void cacheOutputs(Entry entry) throws IOException {
+    _outputCache.mkdirs();
+    for (Map.Entry<String, String> output : entry._outputs.entrySet()) {
+      File cached = new File(_outputCache, output.getValue());
+      if (!cached.isFile()) {
+        Files.copy(new File(output.getKey()).toPath(), cached.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+  }
+
+  /**
+   * Restores missing outputs of the entry from the output cache
+   * @return false if an output is missing and could not be restored
+   */
+  boolean restoreOutputs(Entry entry) throws IOException {
+    for (Map.Entry<String, String> output : entry._outputs.entrySet()) {
+      File file = new File(output.getKey());
+      if (!file.isFile()) {
+        File cached = new File(_outputCache, output.getValue());
+        if (!cached.isFile()) {
+          return false;
+        }
+        file.getParentFile().mkdirs();
+        Files.copy(cached.toPath(), file.toPath());
+      }
+    }
+    return true;
+  }
+
+  private void pruneOutputCache() {
+    String[] cachedFiles = _outputCache.list();
+    if (cachedFiles == null) {
+      return;
+    }
+    Set<String> referenced = new HashSet<>();
+    for (Entry entry : _sources.values()) {
+      referenced.addAll(entry._outputs.values());
+    }
+    for (String cached : cachedFiles) {
+      if (!referenced.contains(cached)) {
+        new File(_outputCache, cached).delete();
+      }
+    }
+  }
+
+  Entry get(String sourcePath) {
+    return _sources.get(sourcePath);
+  }
+
+  Set<String> getSourcePaths() {
+    return new HashSet<>(_sources.keySet());
+  }
+
+  void put(String sourcePath, Entry entry) {
+    _sources.put(sourcePath, entry);
+  }
+
+  Entry remove(String sourcePath) {
+    return _sources.remove(sourcePath);
+  }
+
+  /**
+   * @return The indexed sources referencing any of the given types
+   */
+  Set<String> getDependents(Collection<String> types) {
+    Set<String> dependents = new HashSet<>();
+    if (types.isEmpty()) {
+      return dependents;
+    }
+    for (Map.Entry<String, Entry> source : _sources.entrySet()) {
+      for (String dep : source.getValue()._dependencies) {
+        if (types.contains(getTopLevelName(dep))) {
+          dependents.add(source.getKey());
+          break;
+        }
+      }
+    }
+    return dependents;
+  }
+
+  /**
+   * @return The stamped external types whose class files changed or disappeared since the last compile
+   */
+  Set<String> getChangedExternalTypes(List<File> classpathDirs) throws IOException {
+    Set<String> changed = new HashSet<>();
+    for (Map.Entry<String, String> stamp : _externalStamps.entrySet()) {
+      File classFile = findClassFile(stamp.getKey(), classpathDirs);
+      if (classFile == null || !fingerprint(classFile).equals(stamp.getValue())) {
+        changed.add(stamp.getKey());
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * Re-stamps the referenced types found as class files in the given classpath directories
+   */
+  void updateExternalStamps(List<File> classpathDirs) throws IOException {
+    Set<String> declared = new HashSet<>();
+    for (Entry entry : _sources.values()) {
+      declared.addAll(entry._types);
+    }
+    _externalStamps.clear();
+    for (Entry entry : _sources.values()) {
+      for (String dep : entry._dependencies) {
+        if (!declared.contains(getTopLevelName(dep)) && !_externalStamps.containsKey(dep)) {
+          File classFile = findClassFile(dep, classpathDirs);
+          if (classFile != null) {
+            _externalStamps.put(dep, fingerprint(classFile));
+          }
+        }
+      }
+    }
+  }
+
+  static String getTopLevelName(String binaryName) {
+    int iInner = binaryName.indexOf('$');
+    return iInner < 0 ? binaryName : binaryName.substring(0, iInner);
+  }
+
+  private static File findClassFile(String typeName, List<File> classpathDirs) {
+    String relativePath = typeName.replace('.', File.separatorChar) + ".class";
+    for (File dir : classpathDirs) {
+      File classFile = new File(dir, relativePath);
+      if (classFile.isFile()) {
+        return classFile;
+      }
+    }
+    return null;
+  }
+
+  static String fingerprint(File file) throws IOException {
+    try (InputStream in = new FileInputStream(file)) {
+      return new FP64(in).toHexString();
+    }
+  }
+
+  /**
+   * @return The binary names of the types referenced from the given class file
+   */
+  static Set<String> readDependencies(File classFile) throws IOException {
+    final Set<String> dependencies = new HashSet<>();
+    try (InputStream in = new FileInputStream(classFile)) {
+      ClassReader reader = new ClassReader(in);
+      Remapper recorder = new Remapper() {
+        @Override
+        public String map(String internalName) {
+          dependencies.add(internalName.replace('/', '.'));
+          return internalName;
+        }
+      };
+      reader.accept(new RemappingClassAdapter(new ClassVisitor(Opcodes.ASM5) {}, recorder), ClassReader.SKIP_DEBUG);
+    }
+    return dependencies;
+  }
+}
@@ -0,0 +1,42 @@
+package gw.lang.gosuc.simple;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Forwards to another driver, recording the outputs and whether errors were reported for a
+ * single source file, or for all the sources compiled through it.  Thread-safe, outputs are
+ * registered from the threads writing them.
+ */
+class RecordingCompilerDriver implements ICompilerDriver {
+  private final ICompilerDriver _driver;
+  private final List<File> _outputs = new ArrayList<>();
+  private boolean _bErrors;
+
+  RecordingCompilerDriver(ICompilerDriver driver) {
+    _driver = driver;
+  }
+
+  @Override
+  public synchronized void sendCompileIssue(File file, int category, long offset, long line, long column, String message) {
+    if (category == ERROR) {
+      _bErrors = true;
+    }
+    _driver.sendCompileIssue(file, category, offset, line, column, message);
+  }
+
+  @Override
+  public synchronized void registerOutput(File sourceFile, File outputFile) {
+    _outputs.add(outputFile);
+    _driver.registerOutput(sourceFile, outputFile);
+  }
+
+  public synchronized boolean hasErrors() {
+    return _bErrors;
+  }
+
+  public synchronized List<File> getOutputs() {
+    return _outputs;
+  }
+}
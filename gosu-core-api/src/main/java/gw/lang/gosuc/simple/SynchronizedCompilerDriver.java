@@ -0,0 +1,24 @@
+package gw.lang.gosuc.simple;
+
+import java.io.File;
+
+/**
+ * Serializes calls to a driver that is shared by concurrently compiling threads
+ */
+class SynchronizedCompilerDriver implements ICompilerDriver {
+  private final ICompilerDriver _driver;
+
+  SynchronizedCompilerDriver(ICompilerDriver driver) {
+    _driver = driver;
+  }
+
+  @Override
+  public synchronized void sendCompileIssue(File file, int category, long offset, long line, long column, String message) {
+    _driver.sendCompileIssue(file, category, offset, line, column, message);
+  }
+
+  @Override
+  public synchronized void registerOutput(File sourceFile, File outputFile) {
+    _driver.registerOutput(sourceFile, outputFile);
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.lang.ir.expression;
+
+import gw.lang.UnstableAPI;
+import gw.lang.ir.IRExpression;
+import gw.lang.ir.IRType;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A call to a static method that is linked through an invokedynamic call site.  The
+ * static method describes both the signature of the call site and its semantics; the
+ * bootstrap method is free to link the site to a faster, equivalent target (e.g., an
+ * inline cache keyed on the receiver's class), falling back to the static method.
+ * <p>
+ * Backends that do not support invokedynamic may compile this expression exactly as
+ * they would a plain static {@link IRMethodCallExpression}.
+ * <p>
+ * A call site may also pass String constants to its bootstrap method, after the lookup, name
+ * and type.  Such a site has no static method equivalent, e.g. one creating a block compiled
+ * to a lambda.
+ */
+@UnstableAPI
+public class IRInvokeDynamicExpression extends IRMethodCallExpression {
+  private IRType _bootstrapOwner;
+  private String _bootstrapName;
+  private List<String> _bootstrapArgs;
+
+  public IRInvokeDynamicExpression( String name, IRType ownersType, IRType returnType, List<IRType> parameterTypes, List<IRExpression> args,
+                                    IRType bootstrapOwner, String bootstrapName ) {
+    this( name, ownersType, returnType, parameterTypes, args, bootstrapOwner, bootstrapName, Collections.<String>emptyList() );
+  }
+
+  public IRInvokeDynamicExpression( String name, IRType ownersType, IRType returnType, List<IRType> parameterTypes, List<IRExpression> args,
+                                    IRType bootstrapOwner, String bootstrapName, List<String> bootstrapArgs ) {
+    super( name, ownersType, false, returnType, parameterTypes, null, args );
+    _bootstrapOwner = bootstrapOwner;
+    _bootstrapName = bootstrapName;
+    _bootstrapArgs = bootstrapArgs;
+  }
+
+  public IRType getBootstrapOwner() {
+    return _bootstrapOwner;
+  }
+
+  public String getBootstrapName() {
+    return _bootstrapName;
+  }
+
+  public List<String> getBootstrapArgs() {
+    return _bootstrapArgs;
+  }
+}
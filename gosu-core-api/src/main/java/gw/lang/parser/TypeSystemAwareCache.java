@@ -9,6 +9,8 @@ import gw.util.concurrent.Cache;
 import gw.lang.reflect.AbstractTypeSystemListener;
 import gw.lang.reflect.TypeSystem;
 
+import java.util.concurrent.TimeUnit;
+
 public class TypeSystemAwareCache<K, V> extends Cache<K, V>
 {
 
@@ -20,9 +22,13 @@ public class TypeSystemAwareCache<K, V> extends Cache<K, V>
     return new TypeSystemAwareCache<K, V>(name, size, handler);
   }
 
+  /**
+   * Misses made while holding the type system lock load the key themselves, the thread already
+   * loading it may be waiting for that lock.
+   */
   public TypeSystemAwareCache( String name, int size, MissHandler<K, V> kvMissHandler )
   {
-    super( name, size, kvMissHandler );
+    super( name, size, null, 0, TimeUnit.NANOSECONDS, TypeSystem::isLockedByCurrentThread, kvMissHandler );
     TypeSystem.addTypeLoaderListenerAsWeakRef( _cacheClearer );
   }
 
@@ -52,15 +52,7 @@ public class FunctionToInterfaceCoercer extends BaseCoercer implements IResolvin
     }
     else if( value instanceof IBlock )
     {
-      IGosuClass proxyClass = GosuShop.getBlockToInterfaceConversionClass( typeToCoerceTo, TypeSystem.get( value.getClass().getEnclosingClass() ) );
-      IBlock blk = (IBlock)value;
-      try {
-        //noinspection unchecked
-        return proxyClass.getBackingClass().getConstructor( IBlock.class ).newInstance( blk );
-      }
-      catch( Exception e ) {
-        throw new RuntimeException( e );
-      }
+      return GosuShop.coerceBlockToInterface( typeToCoerceTo, (IBlock)value );
     }
     else
     {
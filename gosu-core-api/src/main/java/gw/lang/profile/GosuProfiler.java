@@ -0,0 +1,210 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.lang.profile;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.ConstantCallSite;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records where Gosu spends its time, per type and per method, for diagnosing slow scripts in
+ * running systems:
+ * <ul>
+ *   <li>The time each type spends in each {@link Phase}: type loading, the three parse phases and
+ *   compilation.  Recorded while profiling is enabled, via the gosu.profile system property or
+ *   {@link #setEnabled(boolean)}.
+ *   <li>Invocation counts and cumulative time of Gosu methods.  This requires instrumenting the
+ *   bytecode, so it applies to classes compiled while
+ *   {@link gw.lang.reflect.gs.BytecodeOptions#isProfileMethods()} is on.
+ * </ul>
+ * {@link #getSnapshot()} returns what was recorded so far.  When running on a JVM with Flight
+ * Recorder the same data is also emitted as the JFR events gosu.Phase (one per type and phase)
+ * and gosu.MethodProfile (periodically, one per method).
+ */
+public final class GosuProfiler
+{
+  public static final String PROFILE_SYSTEM_PROP = "gosu.profile";
+
+  private static final Map<String, MethodStats> METHODS = new ConcurrentHashMap<>();
+  private static final Map<String, TypeStats> TYPES = new ConcurrentHashMap<>();
+  private static final ThreadLocal<PhaseTimer> CURRENT_PHASE = new ThreadLocal<>();
+
+  private static volatile boolean ENABLED;
+  private static volatile JfrRecorder JFR;
+
+  static
+  {
+    setEnabled( Boolean.getBoolean( PROFILE_SYSTEM_PROP ) );
+  }
+
+  private GosuProfiler()
+  {
+  }
+
+  public static boolean isEnabled()
+  {
+    return ENABLED;
+  }
+
+  public static synchronized void setEnabled( boolean bEnabled )
+  {
+    if( bEnabled && JFR == null )
+    {
+      JFR = JfrRecorder.create( METHODS.values() );
+    }
+    ENABLED = bEnabled;
+  }
+
+  /**
+   * Starts timing a phase of a type, call {@link #endPhase(PhaseTimer)} in a finally block.
+   *
+   * @return the timer, or null if profiling is disabled
+   */
+  public static PhaseTimer startPhase( Phase phase, String typeName )
+  {
+    if( !ENABLED )
+    {
+      return null;
+    }
+    JfrRecorder jfr = JFR;
+    PhaseTimer timer = new PhaseTimer( phase, typeName, CURRENT_PHASE.get(), jfr == null ? null : jfr.begin() );
+    CURRENT_PHASE.set( timer );
+    return timer;
+  }
+
+  public static void endPhase( PhaseTimer timer )
+  {
+    endPhase( timer, true );
+  }
+
+  /**
+   * @param timer the timer returned from {@link #startPhase(Phase, String)}, may be null
+   * @param bRecord false to discard the time, e.g. a type lookup that didn't find a type
+   */
+  public static void endPhase( PhaseTimer timer, boolean bRecord )
+  {
+    if( timer == null )
+    {
+      return;
+    }
+    long nanos = System.nanoTime() - timer._startNanos;
+    CURRENT_PHASE.set( timer._parent );
+    if( !bRecord )
+    {
+      return;
+    }
+    if( timer._parent != null )
+    {
+      timer._parent._childNanos += nanos;
+    }
+    long selfNanos = nanos - timer._childNanos;
+    TYPES.computeIfAbsent( timer._typeName, TypeStats::new ).add( timer._phase, selfNanos );
+    JfrRecorder jfr = JFR;
+    if( jfr != null )
+    {
+      jfr.commit( timer._event, timer._phase, timer._typeName, selfNanos );
+    }
+  }
+
+  /**
+   * Bootstrap for the invokedynamic instruction method profiling inserts at the start of each
+   * method, binds the call site to the method's stats.
+   */
+  public static CallSite bootstrapMethodStats( MethodHandles.Lookup lookup, String name, MethodType type, String methodName )
+  {
+    MethodStats stats = METHODS.computeIfAbsent( methodName, MethodStats::new );
+    return new ConstantCallSite( MethodHandles.constant( MethodStats.class, stats ).asType( type ) );
+  }
+
+  public static ProfilingSnapshot getSnapshot()
+  {
+    List<MethodProfile> methods = new ArrayList<>();
+    for( MethodStats stats : METHODS.values() )
+    {
+      MethodProfile profile = stats.toProfile();
+      if( profile.getInvocationCount() > 0 )
+      {
+        methods.add( profile );
+      }
+    }
+    List<TypeProfile> types = new ArrayList<>();
+    for( TypeStats stats : TYPES.values() )
+    {
+      types.add( stats.toProfile() );
+    }
+    return new ProfilingSnapshot( methods, types );
+  }
+
+  /**
+   * Discards everything recorded so far
+   */
+  public static void reset()
+  {
+    // Method stats stay registered, call sites are bound to them
+    for( MethodStats stats : METHODS.values() )
+    {
+      stats.reset();
+    }
+    TYPES.clear();
+  }
+
+  /**
+   * A phase being timed, see {@link #startPhase(Phase, String)}
+   */
+  public static final class PhaseTimer
+  {
+    private final Phase _phase;
+    private final String _typeName;
+    private final PhaseTimer _parent;
+    private final Object _event;
+    private final long _startNanos;
+    private long _childNanos;
+
+    private PhaseTimer( Phase phase, String typeName, PhaseTimer parent, Object event )
+    {
+      _phase = phase;
+      _typeName = typeName;
+      _parent = parent;
+      _event = event;
+      _startNanos = System.nanoTime();
+    }
+  }
+
+  private static final class TypeStats
+  {
+    private final String _name;
+    private final LongAdder[] _nanos = new LongAdder[Phase.values().length];
+
+    TypeStats( String name )
+    {
+      _name = name;
+      for( int i = 0; i < _nanos.length; i++ )
+      {
+        _nanos[i] = new LongAdder();
+      }
+    }
+
+    void add( Phase phase, long nanos )
+    {
+      _nanos[phase.ordinal()].add( nanos );
+    }
+
+    TypeProfile toProfile()
+    {
+      long[] nanos = new long[_nanos.length];
+      for( int i = 0; i < nanos.length; i++ )
+      {
+        nanos[i] = _nanos[i].sum();
+      }
+      return new TypeProfile( _name, nanos );
+    }
+  }
+}
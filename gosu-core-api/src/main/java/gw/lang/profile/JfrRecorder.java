@@ -0,0 +1,218 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.lang.profile;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Emits {@link GosuProfiler}'s data as Flight Recorder events.  The jdk.jfr API is only present on
+ * JDK 8u262 and later, so it is reached through reflection: the events are defined at runtime with
+ * jdk.jfr.EventFactory and their methods are bound to method handles.  {@link #create} returns null
+ * on JVMs without the API.
+ */
+final class JfrRecorder
+{
+  private static final String JFR = "jdk.jfr.";
+
+  // Field indexes of the gosu.Phase event, in the order they are defined
+  private static final int PHASE = 0;
+  private static final int TYPE = 1;
+  private static final int SELF_TIME = 2;
+
+  // Field indexes of the gosu.MethodProfile event
+  private static final int METHOD = 0;
+  private static final int INVOCATION_COUNT = 1;
+  private static final int TOTAL_TIME = 2;
+
+  private final MethodHandle _newPhaseEvent;   // () -> Object
+  private final MethodHandle _newMethodEvent;  // () -> Object
+  private final MethodHandle _isEnabled;       // (Object) -> boolean
+  private final MethodHandle _shouldCommit;    // (Object) -> boolean
+  private final MethodHandle _begin;           // (Object) -> void
+  private final MethodHandle _end;             // (Object) -> void
+  private final MethodHandle _commit;          // (Object) -> void
+  private final MethodHandle _set;             // (Object, int, Object) -> void
+
+  /**
+   * @return the recorder, or null if this JVM has no Flight Recorder API
+   */
+  static JfrRecorder create( Collection<MethodStats> methods )
+  {
+    JfrRecorder recorder;
+    try
+    {
+      recorder = new JfrRecorder();
+      recorder.addPeriodicMethodEvents( methods );
+    }
+    catch( ReflectiveOperationException | LinkageError e )
+    {
+      return null;
+    }
+    return recorder;
+  }
+
+  private JfrRecorder() throws ReflectiveOperationException
+  {
+    Class<?> eventClass = Class.forName( JFR + "Event" );
+    Class<?> factoryClass = Class.forName( JFR + "EventFactory" );
+    MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+
+    Object phaseFactory = createEventFactory( factoryClass,
+      Arrays.asList( annotation( "Name", "gosu.Phase" ),
+                     annotation( "Label", "Gosu Type Phase" ),
+                     annotation( "Category", new String[] {"Gosu"} ),
+                     annotation( "Description", "Loading, parsing or compiling a Gosu type" ) ),
+      Arrays.asList( field( String.class, "phase", annotation( "Label", "Phase" ) ),
+                     field( String.class, "type", annotation( "Label", "Type" ) ),
+                     field( long.class, "selfTime", annotation( "Label", "Self Time" ),
+                            annotation( "Description", "Duration excluding nested phases of other types" ),
+                            annotation( "Timespan", "NANOSECONDS" ) ) ) );
+    Object methodFactory = createEventFactory( factoryClass,
+      Arrays.asList( annotation( "Name", "gosu.MethodProfile" ),
+                     annotation( "Label", "Gosu Method Profile" ),
+                     annotation( "Category", new String[] {"Gosu"} ),
+                     annotation( "Description", "Invocation count and cumulative time of a Gosu method since profiling started" ),
+                     annotation( "Period", "60 s" ),
+                     annotation( "StackTrace", false ) ),
+      Arrays.asList( field( String.class, "method", annotation( "Label", "Method" ) ),
+                     field( long.class, "invocationCount", annotation( "Label", "Invocations" ) ),
+                     field( long.class, "totalTime", annotation( "Label", "Total Time" ),
+                            annotation( "Timespan", "NANOSECONDS" ) ) ) );
+
+    MethodHandle newEvent = lookup.findVirtual( factoryClass, "newEvent", MethodType.methodType( eventClass ) );
+    _newPhaseEvent = newEvent.bindTo( phaseFactory ).asType( MethodType.methodType( Object.class ) );
+    _newMethodEvent = newEvent.bindTo( methodFactory ).asType( MethodType.methodType( Object.class ) );
+    _isEnabled = eventMethod( lookup, eventClass, "isEnabled", boolean.class );
+    _shouldCommit = eventMethod( lookup, eventClass, "shouldCommit", boolean.class );
+    _begin = eventMethod( lookup, eventClass, "begin", void.class );
+    _end = eventMethod( lookup, eventClass, "end", void.class );
+    _commit = eventMethod( lookup, eventClass, "commit", void.class );
+    _set = lookup.findVirtual( eventClass, "set", MethodType.methodType( void.class, int.class, Object.class ) )
+      .asType( MethodType.methodType( void.class, Object.class, int.class, Object.class ) );
+  }
+
+  private void addPeriodicMethodEvents( Collection<MethodStats> methods ) throws ReflectiveOperationException
+  {
+    Runnable emit = () -> {
+      for( MethodStats stats : methods )
+      {
+        MethodProfile profile = stats.toProfile();
+        if( profile.getInvocationCount() > 0 )
+        {
+          try
+          {
+            Object event = (Object)_newMethodEvent.invokeExact();
+            _set.invokeExact( event, METHOD, (Object)profile.getName() );
+            _set.invokeExact( event, INVOCATION_COUNT, (Object)profile.getInvocationCount() );
+            _set.invokeExact( event, TOTAL_TIME, (Object)profile.getTotalNanos() );
+            _commit.invokeExact( event );
+          }
+          catch( Throwable t )
+          {
+            throw rethrow( t );
+          }
+        }
+      }
+    };
+    Object sample;
+    try
+    {
+      sample = (Object)_newMethodEvent.invokeExact();
+    }
+    catch( Throwable t )
+    {
+      throw rethrow( t );
+    }
+    Class.forName( JFR + "FlightRecorder" )
+      .getMethod( "addPeriodicEvent", Class.class, Runnable.class )
+      .invoke( null, sample.getClass(), emit );
+  }
+
+  Object begin()
+  {
+    try
+    {
+      Object event = (Object)_newPhaseEvent.invokeExact();
+      if( !(boolean)_isEnabled.invokeExact( event ) )
+      {
+        return null;
+      }
+      _begin.invokeExact( event );
+      return event;
+    }
+    catch( Throwable t )
+    {
+      throw rethrow( t );
+    }
+  }
+
+  void commit( Object begun, Phase phase, String typeName, long selfNanos )
+  {
+    if( begun == null )
+    {
+      return;
+    }
+    try
+    {
+      _end.invokeExact( begun );
+      if( (boolean)_shouldCommit.invokeExact( begun ) )
+      {
+        _set.invokeExact( begun, PHASE, (Object)phase.name() );
+        _set.invokeExact( begun, TYPE, (Object)typeName );
+        _set.invokeExact( begun, SELF_TIME, (Object)selfNanos );
+        _commit.invokeExact( begun );
+      }
+    }
+    catch( Throwable t )
+    {
+      throw rethrow( t );
+    }
+  }
+
+  private static Object createEventFactory( Class<?> factoryClass, List<Object> annotations, List<Object> fields ) throws ReflectiveOperationException
+  {
+    return factoryClass.getMethod( "create", List.class, List.class ).invoke( null, annotations, fields );
+  }
+
+  private static Object annotation( String name, Object value ) throws ReflectiveOperationException
+  {
+    return Class.forName( JFR + "AnnotationElement" )
+      .getConstructor( Class.class, Object.class )
+      .newInstance( Class.forName( JFR + name ), value );
+  }
+
+  private static Object field( Class<?> type, String name, Object... annotations ) throws ReflectiveOperationException
+  {
+    List<Object> annotationList = annotations.length == 0 ? Collections.emptyList() : Arrays.asList( annotations );
+    return Class.forName( JFR + "ValueDescriptor" )
+      .getConstructor( Class.class, String.class, List.class )
+      .newInstance( type, name, annotationList );
+  }
+
+  private static MethodHandle eventMethod( MethodHandles.Lookup lookup, Class<?> eventClass, String name, Class<?> returnType ) throws ReflectiveOperationException
+  {
+    return lookup.findVirtual( eventClass, name, MethodType.methodType( returnType ) )
+      .asType( MethodType.methodType( returnType, Object.class ) );
+  }
+
+  private static RuntimeException rethrow( Throwable t )
+  {
+    if( t instanceof RuntimeException )
+    {
+      return (RuntimeException)t;
+    }
+    if( t instanceof Error )
+    {
+      throw (Error)t;
+    }
+    return new RuntimeException( t );
+  }
+}
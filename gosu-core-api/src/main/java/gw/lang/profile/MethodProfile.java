@@ -0,0 +1,47 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.lang.profile;
+
+/**
+ * Invocations of a Gosu method as of a {@link ProfilingSnapshot}.  Times are inclusive, they
+ * contain the time spent in methods the method calls.
+ */
+public final class MethodProfile
+{
+  private final String _name;
+  private final long _invocationCount;
+  private final long _totalNanos;
+
+  MethodProfile( String name, long invocationCount, long totalNanos )
+  {
+    _name = name;
+    _invocationCount = invocationCount;
+    _totalNanos = totalNanos;
+  }
+
+  /**
+   * @return the declaring class, name and descriptor, e.g. <code>com.acme.Rules.check(Ljava/lang/String;)Z</code>
+   */
+  public String getName()
+  {
+    return _name;
+  }
+
+  public long getInvocationCount()
+  {
+    return _invocationCount;
+  }
+
+  public long getTotalNanos()
+  {
+    return _totalNanos;
+  }
+
+  @Override
+  public String toString()
+  {
+    return _name + ": " + _invocationCount + " calls, " + _totalNanos / 1000000 + "ms";
+  }
+}
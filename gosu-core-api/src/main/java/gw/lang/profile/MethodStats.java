@@ -0,0 +1,51 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.lang.profile;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Invocation count and cumulative time of one Gosu method.  When method profiling is enabled the
+ * compiler binds each method to its stats with an invokedynamic call site, see
+ * {@link GosuProfiler#bootstrapMethodStats}, and calls {@link #record(long)} on every exit.
+ */
+public final class MethodStats
+{
+  private final String _name;
+  private final LongAdder _count = new LongAdder();
+  private final LongAdder _nanos = new LongAdder();
+
+  MethodStats( String name )
+  {
+    _name = name;
+  }
+
+  /**
+   * Called from instrumented code as the method returns or throws.
+   *
+   * @param startNanos the System.nanoTime() on entry
+   */
+  public void record( long startNanos )
+  {
+    _nanos.add( System.nanoTime() - startNanos );
+    _count.increment();
+  }
+
+  String getName()
+  {
+    return _name;
+  }
+
+  MethodProfile toProfile()
+  {
+    return new MethodProfile( _name, _count.sum(), _nanos.sum() );
+  }
+
+  void reset()
+  {
+    _count.reset();
+    _nanos.reset();
+  }
+}
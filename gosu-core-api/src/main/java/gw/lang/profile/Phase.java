@@ -0,0 +1,23 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.lang.profile;
+
+/**
+ * The phases a Gosu type goes through before its code runs, timed per type by
+ * {@link GosuProfiler}.
+ */
+public enum Phase
+{
+  /** Resolving the name to a type via the type loaders */
+  TYPE_LOAD,
+  /** Parsing the class header: supertypes, interfaces, type variables */
+  PARSE_HEADER,
+  /** Parsing member declarations */
+  PARSE_DECLARATIONS,
+  /** Parsing member bodies */
+  PARSE_DEFINITIONS,
+  /** Transforming the parse tree to IR and generating bytecode */
+  COMPILE
+}
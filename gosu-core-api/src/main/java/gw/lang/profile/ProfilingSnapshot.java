@@ -0,0 +1,44 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.lang.profile;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A point in time copy of what {@link GosuProfiler} recorded, each list sorted by time spent,
+ * most expensive first.
+ */
+public final class ProfilingSnapshot
+{
+  private final List<MethodProfile> _methods;
+  private final List<TypeProfile> _types;
+
+  ProfilingSnapshot( List<MethodProfile> methods, List<TypeProfile> types )
+  {
+    methods.sort( Comparator.comparingLong( MethodProfile::getTotalNanos ).reversed() );
+    types.sort( Comparator.comparingLong( TypeProfile::getTotalNanos ).reversed() );
+    _methods = Collections.unmodifiableList( methods );
+    _types = Collections.unmodifiableList( types );
+  }
+
+  /**
+   * @return the Gosu methods invoked at least once, empty unless classes were compiled with
+   *   method profiling, see {@link gw.lang.reflect.gs.BytecodeOptions#isProfileMethods()}
+   */
+  public List<MethodProfile> getMethods()
+  {
+    return _methods;
+  }
+
+  /**
+   * @return the types loaded, parsed or compiled while profiling was enabled
+   */
+  public List<TypeProfile> getTypes()
+  {
+    return _types;
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.lang.profile;
+
+/**
+ * The time a type spent in each {@link Phase} as of a {@link ProfilingSnapshot}.  Times are
+ * exclusive: parsing a class often loads and parses the types it references, that time is
+ * attributed to those types and not to the class.
+ */
+public final class TypeProfile
+{
+  private final String _name;
+  private final long[] _nanos;
+
+  TypeProfile( String name, long[] nanos )
+  {
+    _name = name;
+    _nanos = nanos;
+  }
+
+  public String getName()
+  {
+    return _name;
+  }
+
+  public long getNanos( Phase phase )
+  {
+    return _nanos[phase.ordinal()];
+  }
+
+  public long getTotalNanos()
+  {
+    long total = 0;
+    for( long nanos : _nanos )
+    {
+      total += nanos;
+    }
+    return total;
+  }
+
+  @Override
+  public String toString()
+  {
+    StringBuilder sb = new StringBuilder( _name ).append( ':' );
+    for( Phase phase : Phase.values() )
+    {
+      if( getNanos( phase ) > 0 )
+      {
+        sb.append( ' ' ).append( phase ).append( '=' ).append( getNanos( phase ) / 1000 ).append( "us" );
+      }
+    }
+    return sb.toString();
+  }
+}
@@ -13,6 +13,7 @@ import gw.lang.reflect.java.JavaTypes;
 import gw.lang.reflect.gs.IGenericTypeVariable;
 import gw.lang.parser.IScriptPartId;
 import gw.lang.reflect.java.IJavaClassInfo;
+import gw.lang.reflect.java.IJavaType;
 import gw.lang.parser.IBlockClass;
 import gw.lang.parser.ScriptPartId;
 import gw.lang.parser.TypeVarToTypeMap;
@@ -611,7 +612,8 @@ public class FunctionType extends AbstractType implements IFunctionType, IGeneri
 
   private IJavaClassInfo getFunctionClass()
   {
-    return TypeSystem.getGosuClassLoader().getFunctionClassForArity( getParameterTypes().length ).getBackingClassInfo();
+    // The interface, as in compiled code; a block compiled to a lambda doesn't extend the FunctionN class
+    return ((IJavaType)TypeSystem.getByFullName( "gw.lang.function.IFunction" + getParameterTypes().length )).getBackingClassInfo();
   }
 
   public Object getArrayComponent( Object array, int iIndex ) throws IllegalArgumentException, ArrayIndexOutOfBoundsException
@@ -280,6 +280,14 @@ public class TypeSystem
     return GLOBAL_LOCK;
   }
 
+  /**
+   * @return true if the current thread holds the global type-system lock
+   */
+  public static boolean isLockedByCurrentThread()
+  {
+    return ((ReentrantLock)GLOBAL_LOCK).isHeldByCurrentThread();
+  }
+
   public static IType getComponentType( IType valueType )
   {
     return CommonServices.getTypeSystem().getComponentType(valueType);
@@ -6,6 +6,7 @@ package gw.lang.reflect.gs;
 
 import gw.util.concurrent.LocklessLazyVar;
 
+import java.io.File;
 import java.util.List;
 
 public class BytecodeOptions
@@ -18,6 +19,15 @@ public class BytecodeOptions
   private static boolean TREE_VERIFICATION_ENABLED = false;
 
   public static final String RELOAD_CLASSES_SYSTEM_PROP = "gosu.can.reload.classes";
+  public static final String BYTECODE_CACHE_DIR_SYSTEM_PROP = "gosu.bytecode.cache.dir";
+  public static final String PROFILE_METHODS_SYSTEM_PROP = "gosu.profile.methods";
+  public static final String LAMBDA_BLOCKS_SYSTEM_PROP = "gosu.lambda.blocks";
+  public static final String ANONYMOUS_EVAL_CLASSES_SYSTEM_PROP = "gosu.anonymous.eval.classes";
+
+  private static volatile File BYTECODE_CACHE_DIR = determineBytecodeCacheDir();
+  private static volatile boolean PROFILE_METHODS = Boolean.getBoolean( PROFILE_METHODS_SYSTEM_PROP );
+  private static volatile boolean LAMBDA_BLOCKS = Boolean.getBoolean( LAMBDA_BLOCKS_SYSTEM_PROP );
+  private static volatile boolean ANONYMOUS_EVAL_CLASSES = Boolean.getBoolean( ANONYMOUS_EVAL_CLASSES_SYSTEM_PROP );
 
   public static LocklessLazyVar<Boolean> JDWP_ENABLED =
     new LocklessLazyVar<Boolean>() {
@@ -87,6 +97,11 @@ public class BytecodeOptions
     return COLLECT_COMPILATION_STATISTICS;
   }
 
+  public static void setCollectCompilationStatistics( boolean bCollect )
+  {
+    COLLECT_COMPILATION_STATISTICS = bCollect;
+  }
+
   private static boolean determineIfCanReloadClasses() {
     String explicitValue = System.getProperty(RELOAD_CLASSES_SYSTEM_PROP);
     if (explicitValue != null) {
@@ -101,6 +116,77 @@ public class BytecodeOptions
     return System.getProperty( "java.vm.name" ).contains( "Dynamic Code Evolution" );
   }
 
+  /**
+   * @return the directory where compiled Gosu classes are cached across JVM runs, or null if
+   *   the bytecode cache is disabled (the default).  Set via the gosu.bytecode.cache.dir system
+   *   property or {@link #setBytecodeCacheDir(File)}.
+   */
+  public static File getBytecodeCacheDir()
+  {
+    return BYTECODE_CACHE_DIR;
+  }
+
+  public static void setBytecodeCacheDir( File dir )
+  {
+    BYTECODE_CACHE_DIR = dir;
+  }
+
+  private static File determineBytecodeCacheDir()
+  {
+    String dir = System.getProperty( BYTECODE_CACHE_DIR_SYSTEM_PROP );
+    return dir == null || dir.isEmpty() ? null : new File( dir );
+  }
+
+  /**
+   * @return true if Gosu methods are compiled to record their invocation counts and times with
+   *   {@link gw.lang.profile.GosuProfiler}.  Off by default, set via the gosu.profile.methods
+   *   system property or {@link #setProfileMethods(boolean)}; affects classes compiled afterwards.
+   */
+  public static boolean isProfileMethods()
+  {
+    return PROFILE_METHODS;
+  }
+
+  public static void setProfileMethods( boolean bProfileMethods )
+  {
+    PROFILE_METHODS = bProfileMethods;
+  }
+
+  /**
+   * @return true if blocks capturing nothing are compiled to a method on the enclosing class and
+   *   created with LambdaMetafactory instead of getting a class of their own.  Off by default, set
+   *   the gosu.lambda.blocks system property to true or call {@link #setLambdaBlocks(boolean)}
+   *   to turn it on; affects classes compiled afterwards.  Such blocks print with Object's
+   *   toString instead of their source and a given block expression always yields the same
+   *   instance.
+   */
+  public static boolean isLambdaBlocks()
+  {
+    return LAMBDA_BLOCKS;
+  }
+
+  public static void setLambdaBlocks( boolean bLambdaBlocks )
+  {
+    LAMBDA_BLOCKS = bLambdaBlocks;
+  }
+
+  /**
+   * @return true if eval programs without blocks or inner classes are defined as hidden classes
+   *   (VM-anonymous classes on JDK 8) hosted by their enclosing class instead of each in a class
+   *   loader of its own, so each is unloaded on its own as soon as it is unreachable.  Off by
+   *   default, set via the gosu.anonymous.eval.classes system property or
+   *   {@link #setAnonymousEvalClasses(boolean)}; affects programs compiled afterwards.
+   */
+  public static boolean isAnonymousEvalClasses()
+  {
+    return ANONYMOUS_EVAL_CLASSES;
+  }
+
+  public static void setAnonymousEvalClasses( boolean bAnonymousEvalClasses )
+  {
+    ANONYMOUS_EVAL_CLASSES = bAnonymousEvalClasses;
+  }
+
   public static boolean isTreeVerifcationEnabled()
   {
     return TREE_VERIFICATION_ENABLED;
@@ -2,6 +2,7 @@ package gw.lang.reflect.json;
 
 import javax.script.Bindings;
 import javax.script.ScriptException;
+import java.io.Reader;
 import java.io.StringReader;
 import java.util.List;
 
@@ -20,7 +21,17 @@ public class DefaultParser implements IJsonParser {
   }
   public Bindings parseJson( String jsonText, boolean big ) throws ScriptException
   {
-    SimpleParserImpl parser = new SimpleParserImpl( new Tokenizer(new StringReader(jsonText)), big );
+    return parseJson( new StringReader( jsonText ), big );
+  }
+
+  @Override
+  public Bindings parseJson( Reader reader ) throws ScriptException
+  {
+    return parseJson( reader, false );
+  }
+  public Bindings parseJson( Reader reader, boolean big ) throws ScriptException
+  {
+    SimpleParserImpl parser = new SimpleParserImpl( new Tokenizer(reader), big );
     Object result = parser.parse();
     List<String> errors = parser.getErrors();
     if(errors.size() != 0) {
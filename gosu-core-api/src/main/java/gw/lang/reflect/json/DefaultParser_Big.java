@@ -2,6 +2,7 @@ package gw.lang.reflect.json;
 
 import javax.script.Bindings;
 import javax.script.ScriptException;
+import java.io.Reader;
 
 public class DefaultParser_Big extends DefaultParser {
   private static final DefaultParser_Big INSTANCE = new DefaultParser_Big();
@@ -16,4 +17,10 @@ public class DefaultParser_Big extends DefaultParser {
   {
     return super.parseJson( jsonText, true );
   }
+
+  @Override
+  public Bindings parseJson( Reader reader ) throws ScriptException
+  {
+    return super.parseJson( reader, true );
+  }
 }
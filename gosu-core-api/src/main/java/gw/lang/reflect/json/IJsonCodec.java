@@ -0,0 +1,50 @@
+package gw.lang.reflect.json;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+
+/**
+ * Reads and writes JSON directly as instances of a type, without going through Bindings.  See
+ * {@link Json#getCodec(gw.lang.reflect.IType)}.
+ */
+public interface IJsonCodec<T>
+{
+  /**
+   * Reads the next value from the reader.  A JSON null reads as null.
+   */
+  T read( JsonReader reader );
+
+  /**
+   * Writes the value to the writer.  A null value is written as a JSON null.
+   */
+  void write( T value, JsonWriter writer );
+
+  default T fromJson( String json )
+  {
+    return read( new JsonReader( new StringReader( json ) ) );
+  }
+
+  default T fromJson( Reader reader )
+  {
+    return read( new JsonReader( reader ) );
+  }
+
+  default String toJson( T value )
+  {
+    StringWriter writer = new StringWriter();
+    write( value, new JsonWriter( writer ) );
+    return writer.toString();
+  }
+
+  /**
+   * Writes the value to the Writer, which is flushed but not closed
+   */
+  default void toJson( T value, Writer writer )
+  {
+    JsonWriter jsonWriter = new JsonWriter( writer );
+    write( value, jsonWriter );
+    jsonWriter.flush();
+  }
+}
@@ -2,6 +2,8 @@ package gw.lang.reflect.json;
 
 import javax.script.Bindings;
 import javax.script.ScriptException;
+import java.io.IOException;
+import java.io.Reader;
 
 /**
  */
@@ -9,6 +11,28 @@ public interface IJsonParser
 {
   Bindings parseJson( String jsonText ) throws ScriptException;
 
+  /**
+   * Parses JSON read from the stream.  By default the stream is read fully into a String, parsers
+   * that can work directly from the stream should override this.
+   */
+  default Bindings parseJson( Reader reader ) throws ScriptException
+  {
+    StringBuilder sb = new StringBuilder();
+    char[] buf = new char[4096];
+    try
+    {
+      for( int read = reader.read( buf ); read >= 0; read = reader.read( buf ) )
+      {
+        sb.append( buf, 0, read );
+      }
+    }
+    catch( IOException e )
+    {
+      throw new RuntimeException( e );
+    }
+    return parseJson( sb.toString() );
+  }
+
   static IJsonParser getDefaultParser()
   {
     return DefaultParser.instance();
@@ -1,10 +1,13 @@
 package gw.lang.reflect.json;
 
 
+import gw.lang.GosuShop;
+import gw.lang.reflect.IType;
 import gw.util.concurrent.LocklessLazyVar;
 
 import javax.script.Bindings;
 import javax.script.ScriptException;
+import java.io.Reader;
 import java.util.List;
 
 /**
@@ -65,6 +68,26 @@ public class Json
     }
   }
 
+  /**
+   * Parse JSON from the stream as a javax.script.Bindings instance.  The stream is parsed as it
+   * is read, it is not first read into a String.  To process a document too large to hold in
+   * memory as Bindings, use a {@link JsonReader}.
+   *
+   * @param reader A stream of Standard JSON formatted text, not closed by this method
+   * @return A javax.script.Bindings instance
+   */
+  public static Bindings fromJson( Reader reader )
+  {
+    try
+    {
+      return PARSER.get().parseJson( reader );
+    }
+    catch( ScriptException e )
+    {
+      throw new RuntimeException( e );
+    }
+  }
+
   /**
    * Makes a tree of structure types reflecting the Bindings.
    *<p>
@@ -83,6 +106,27 @@ public class Json
     return sb.toString();
   }
 
+  /**
+   * Gets a codec reading and writing JSON directly as instances of a structure type, such as one
+   * made with {@link #makeStructureTypes(String, Bindings, boolean)}.  Reading creates instances
+   * of a class generated to implement the structure, with a field for each property, instead of
+   * Bindings; writing calls the structure's property getters.  A property's JSON name is its
+   * {@link gw.lang.reflect.ActualName} if it has one.
+   * <p>
+   * Properties may be Strings, Booleans, numbers, structures, Lists of any of these, or Objects
+   * and Bindings, which read as they would with {@link #fromJson(String)}.  Members in the JSON
+   * not matching a property are skipped.
+   *
+   * @param structureType A Gosu structure type
+   * @throws IllegalArgumentException If the type is not a structure or has a property of an
+   *   unsupported type
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> IJsonCodec<T> getCodec( IType structureType )
+  {
+    return (IJsonCodec<T>)GosuShop.getJsonCodec( structureType );
+  }
+
   private static IJsonType transformJsonObject( String name, IJsonParentType parent, Object jsonObj )
   {
     IJsonType type = null;
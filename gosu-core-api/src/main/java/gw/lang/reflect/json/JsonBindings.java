@@ -0,0 +1,335 @@
+package gw.lang.reflect.json;
+
+import javax.script.Bindings;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The Bindings the JSON parser produces for a JSON object.  Rather than a hash table per object,
+ * the keys are kept in a {@link JsonShape} shared by all the parsed objects with the same keys, and
+ * the values in a flat array indexed by the shape.  Replacing the value of a key keeps
+ * the compact form, adding or removing a key switches the Bindings over to a map of its own, as
+ * does parsing an object with too many keys for a shape.
+ * <p>
+ * Iteration follows the order of the keys in the document.  Like SimpleBindings, keys must be
+ * non-empty Strings and the Bindings is not thread-safe.
+ */
+public final class JsonBindings extends AbstractMap<String, Object> implements Bindings
+{
+  private static final Object[] NO_VALUES = new Object[0];
+
+  private JsonShape _shape;
+  private Object[] _values;
+  private Map<String, Object> _map;
+
+  JsonBindings( JsonShape root )
+  {
+    _shape = root;
+    _values = NO_VALUES;
+  }
+
+  /**
+   * Adds a member while parsing, moving to the parser's next shape for a new key
+   */
+  void append( JsonShape.Tree shapes, String key, Object value )
+  {
+    if( _map != null )
+    {
+      _map.put( key, value );
+      return;
+    }
+    int i = _shape.indexOf( key );
+    if( i < 0 )
+    {
+      if( _shape.isFull() )
+      {
+        // A wide object, presumably a dictionary rather than a record
+        toMap();
+        _map.put( key, value );
+        return;
+      }
+      _shape = shapes.with( _shape, key );
+      i = _shape.size() - 1;
+      if( i == _values.length )
+      {
+        _values = Arrays.copyOf( _values, Math.max( 4, i * 2 ) );
+      }
+    }
+    _values[i] = value;
+  }
+
+  /**
+   * Drops the spare capacity left over from parsing
+   */
+  JsonBindings trim()
+  {
+    if( _map == null && _values.length != _shape.size() )
+    {
+      _values = _shape.size() == 0 ? NO_VALUES : Arrays.copyOf( _values, _shape.size() );
+    }
+    return this;
+  }
+
+  /**
+   * @return An opaque token for the key set of this Bindings, or null if this Bindings is no
+   *   longer in the compact form.  Bindings with the same shape have the same keys at the same
+   *   indexes.  For use with {@link #getAt(Object, int, String)}.
+   */
+  public Object getShape()
+  {
+    return _map == null ? _shape : null;
+  }
+
+  /**
+   * @return The shape of this Bindings if it is shared by the objects of every parse, otherwise
+   *   null.  Unlike a shape private to one parse, it is worth linking against; a Bindings parsed
+   *   later with the same keys in the same order has the same shape.
+   */
+  public Object getSharedShape()
+  {
+    return _map == null && _shape.isShared() ? _shape : null;
+  }
+
+  /**
+   * @return The index of the key in this Bindings' shape, or -1 if the key is not in the shape
+   */
+  public int indexOf( String key )
+  {
+    return _map == null ? _shape.indexOf( key ) : -1;
+  }
+
+  /**
+   * Gets the value of a key at the index previously found with {@link #indexOf(String)} on a
+   * Bindings of the given shape.  If this Bindings has a different shape or the shape is null, the
+   * key is looked up.
+   */
+  public Object getAt( Object shape, int index, String key )
+  {
+    if( shape == _shape && _map == null )
+    {
+      return index < 0 ? null : _values[index];
+    }
+    return get( key );
+  }
+
+  @Override
+  public int size()
+  {
+    return _map == null ? _shape.size() : _map.size();
+  }
+
+  @Override
+  public Object get( Object key )
+  {
+    checkKey( key );
+    if( _map != null )
+    {
+      return _map.get( key );
+    }
+    int i = _shape.indexOf( key );
+    return i < 0 ? null : _values[i];
+  }
+
+  @Override
+  public boolean containsKey( Object key )
+  {
+    checkKey( key );
+    return _map == null ? _shape.indexOf( key ) >= 0 : _map.containsKey( key );
+  }
+
+  @Override
+  public Object put( String key, Object value )
+  {
+    checkKey( key );
+    if( _map == null )
+    {
+      int i = _shape.indexOf( key );
+      if( i >= 0 )
+      {
+        Object old = _values[i];
+        _values[i] = value;
+        return old;
+      }
+      toMap();
+    }
+    return _map.put( key, value );
+  }
+
+  @Override
+  public Object remove( Object key )
+  {
+    checkKey( key );
+    if( _map == null )
+    {
+      if( _shape.indexOf( key ) < 0 )
+      {
+        return null;
+      }
+      toMap();
+    }
+    return _map.remove( key );
+  }
+
+  @Override
+  public void clear()
+  {
+    _map = new LinkedHashMap<>();
+    _shape = null;
+    _values = null;
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet()
+  {
+    return new AbstractSet<Entry<String, Object>>()
+    {
+      @Override
+      public Iterator<Entry<String, Object>> iterator()
+      {
+        return _map == null ? new ShapeIterator() : _map.entrySet().iterator();
+      }
+
+      @Override
+      public int size()
+      {
+        return JsonBindings.this.size();
+      }
+    };
+  }
+
+  private void toMap()
+  {
+    Map<String, Object> map = new LinkedHashMap<>( _shape.size() * 2 );
+    for( int i = 0; i < _shape.size(); i++ )
+    {
+      map.put( _shape.getKey( i ), _values[i] );
+    }
+    _map = map;
+    _shape = null;
+    _values = null;
+  }
+
+  private static void checkKey( Object key )
+  {
+    // same as SimpleBindings
+    if( key == null )
+    {
+      throw new NullPointerException( "key can not be null" );
+    }
+    if( !(key instanceof String) )
+    {
+      throw new ClassCastException( "key should be a String" );
+    }
+    if( key.equals( "" ) )
+    {
+      throw new IllegalArgumentException( "key can not be empty" );
+    }
+  }
+
+  private class ShapeIterator implements Iterator<Entry<String, Object>>
+  {
+    private final JsonShape _iterShape = _shape;
+    private int _i;
+    private boolean _bRemovable;
+
+    @Override
+    public boolean hasNext()
+    {
+      return _i < _iterShape.size();
+    }
+
+    @Override
+    public Entry<String, Object> next()
+    {
+      if( !hasNext() )
+      {
+        throw new NoSuchElementException();
+      }
+      _bRemovable = true;
+      return new ShapeEntry( _iterShape, _i++ );
+    }
+
+    @Override
+    public void remove()
+    {
+      if( !_bRemovable )
+      {
+        throw new IllegalStateException();
+      }
+      if( _map == null && _shape != _iterShape )
+      {
+        throw new ConcurrentModificationException();
+      }
+      _bRemovable = false;
+      JsonBindings.this.remove( _iterShape.getKey( _i - 1 ) );
+    }
+  }
+
+  private class ShapeEntry implements Entry<String, Object>
+  {
+    private final JsonShape _entryShape;
+    private final int _i;
+
+    ShapeEntry( JsonShape shape, int i )
+    {
+      _entryShape = shape;
+      _i = i;
+    }
+
+    @Override
+    public String getKey()
+    {
+      return _entryShape.getKey( _i );
+    }
+
+    @Override
+    public Object getValue()
+    {
+      return _shape == _entryShape ? _values[_i] : get( getKey() );
+    }
+
+    @Override
+    public Object setValue( Object value )
+    {
+      if( _shape == _entryShape )
+      {
+        Object old = _values[_i];
+        _values[_i] = value;
+        return old;
+      }
+      return put( getKey(), value );
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+      if( !(o instanceof Entry) )
+      {
+        return false;
+      }
+      Entry e = (Entry)o;
+      Object value = getValue();
+      return getKey().equals( e.getKey() ) && (value == null ? e.getValue() == null : value.equals( e.getValue() ));
+    }
+
+    @Override
+    public int hashCode()
+    {
+      Object value = getValue();
+      return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+    }
+
+    @Override
+    public String toString()
+    {
+      return getKey() + "=" + getValue();
+    }
+  }
+}
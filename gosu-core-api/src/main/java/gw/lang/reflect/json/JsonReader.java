@@ -0,0 +1,416 @@
+package gw.lang.reflect.json;
+
+import javax.script.ScriptException;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A pull-style reader of a JSON document from a stream.  Rather than building the whole document
+ * in memory as {@link Json#fromJson(String)} does, the reader moves through the document one
+ * event at a time and only holds the current name or value:
+ * <pre>
+ *   using( var reader = new JsonReader( new FileReader( file ) ) ) {
+ *     var event = reader.next()
+ *     while( event != END_DOCUMENT ) {
+ *       if( event == VALUE ) {
+ *         print( reader.Value )
+ *       }
+ *       event = reader.next()
+ *     }
+ *   }
+ * </pre>
+ * Parts of the document may be materialized as Bindings and Lists with {@link #readValue()}, for
+ * instance a huge array of objects can be processed element by element with {@link #elements()}:
+ * <pre>
+ *   for( quote in reader.elements() ) {
+ *     var q : Dynamic = quote
+ *     ...
+ *   }
+ * </pre>
+ * Scalar values are Strings, Booleans, Integers or Longs, and Doubles, or BigIntegers and
+ * BigDecimals if the reader is created to use big numbers, just like the values in the Bindings
+ * produced by {@link Json#fromJson(String)}.
+ * <p>
+ * Malformed JSON is reported with a RuntimeException wrapping a ScriptException, the same as
+ * {@link Json#fromJson(String)}.
+ */
+public class JsonReader implements Closeable
+{
+  public enum Event
+  {
+    START_OBJECT,
+    END_OBJECT,
+    START_ARRAY,
+    END_ARRAY,
+    NAME,
+    VALUE,
+    END_DOCUMENT
+  }
+
+  private enum Scope
+  {
+    EMPTY_DOCUMENT,
+    NONEMPTY_DOCUMENT,
+    EMPTY_OBJECT,
+    DANGLING_NAME,
+    NONEMPTY_OBJECT,
+    EMPTY_ARRAY,
+    NONEMPTY_ARRAY
+  }
+
+  private final Reader _reader;
+  private final Tokenizer _tokenizer;
+  private final boolean _bUseBig;
+  private final JsonShape.Tree _shapes;
+  private Token _token;
+  private Scope[] _stack;
+  private int _iDepth;
+  private String _name;
+  private Object _value;
+
+  public JsonReader( Reader reader )
+  {
+    this( reader, false );
+  }
+
+  /**
+   * @param useBig If true, numbers are read as BigIntegers and BigDecimals
+   */
+  public JsonReader( Reader reader, boolean useBig )
+  {
+    _reader = reader;
+    _tokenizer = new Tokenizer( reader );
+    _bUseBig = useBig;
+    _shapes = new JsonShape.Tree();
+    _stack = new Scope[16];
+    _stack[_iDepth++] = Scope.EMPTY_DOCUMENT;
+    _token = _tokenizer.next();
+  }
+
+  /**
+   * Reads a UTF-8 encoded document from the stream
+   */
+  public JsonReader( InputStream in )
+  {
+    this( new InputStreamReader( in, StandardCharsets.UTF_8 ) );
+  }
+
+  /**
+   * @return True if the current object or array has another member or element, or if the
+   *   document's value hasn't been read yet
+   */
+  public boolean hasNext()
+  {
+    switch( peekScope() )
+    {
+      case EMPTY_DOCUMENT:
+        return true;
+      case NONEMPTY_DOCUMENT:
+        return false;
+      case EMPTY_OBJECT:
+      case NONEMPTY_OBJECT:
+        return _token.getType() != TokenType.RCURLY && _token.getType() != TokenType.EOF;
+      case DANGLING_NAME:
+        return true;
+      default:
+        return _token.getType() != TokenType.RSQUARE && _token.getType() != TokenType.EOF;
+    }
+  }
+
+  /**
+   * Moves to the next event in the document.  After a NAME event the member's name is available
+   * from {@link #getName()}, after a VALUE event the scalar value is available from
+   * {@link #getValue()}.
+   */
+  public Event next()
+  {
+    switch( peekScope() )
+    {
+      case EMPTY_DOCUMENT:
+        replaceScope( Scope.NONEMPTY_DOCUMENT );
+        return nextValue();
+
+      case NONEMPTY_DOCUMENT:
+        check( TokenType.EOF, "EOF" );
+        return Event.END_DOCUMENT;
+
+      case EMPTY_OBJECT:
+      case NONEMPTY_OBJECT:
+        if( _token.getType() == TokenType.RCURLY )
+        {
+          _iDepth--;
+          advance();
+          return Event.END_OBJECT;
+        }
+        if( peekScope() == Scope.NONEMPTY_OBJECT )
+        {
+          check( TokenType.COMMA, "," );
+          advance();
+        }
+        check( TokenType.STRING, "a string" );
+        _name = _token.getString();
+        advance();
+        check( TokenType.COLON, ":" );
+        advance();
+        replaceScope( Scope.DANGLING_NAME );
+        return Event.NAME;
+
+      case DANGLING_NAME:
+        replaceScope( Scope.NONEMPTY_OBJECT );
+        return nextValue();
+
+      default:
+        if( _token.getType() == TokenType.RSQUARE )
+        {
+          _iDepth--;
+          advance();
+          return Event.END_ARRAY;
+        }
+        if( peekScope() == Scope.NONEMPTY_ARRAY )
+        {
+          check( TokenType.COMMA, "," );
+          advance();
+        }
+        replaceScope( Scope.NONEMPTY_ARRAY );
+        return nextValue();
+    }
+  }
+
+  /**
+   * @return The name of the member from the last NAME event
+   */
+  public String getName()
+  {
+    return _name;
+  }
+
+  /**
+   * @return The scalar value from the last VALUE event
+   */
+  public Object getValue()
+  {
+    return _value;
+  }
+
+  /**
+   * Reads the next value in full: an object is read as a {@link JsonBindings}, an array as a List and a scalar
+   * as its value.  If the reader is positioned before a member's name, the name is read first.
+   */
+  public Object readValue()
+  {
+    if( isBeforeName() )
+    {
+      next();
+    }
+    return readValue( next() );
+  }
+
+  /**
+   * Skips the next value without materializing it.  If the reader is positioned before a
+   * member's name, the name is skipped too.
+   */
+  public void skipValue()
+  {
+    if( isBeforeName() )
+    {
+      next();
+    }
+    int iDepth = 0;
+    do
+    {
+      switch( next() )
+      {
+        case START_OBJECT:
+        case START_ARRAY:
+          iDepth++;
+          break;
+        case END_OBJECT:
+        case END_ARRAY:
+          iDepth--;
+          break;
+        case END_DOCUMENT:
+          return;
+      }
+    } while( iDepth > 0 );
+  }
+
+  /**
+   * Reads the next value, which must be an array, one element at a time.  Each element is
+   * materialized as with {@link #readValue()} only when the iterator gets to it.
+   */
+  public Iterable<Object> elements()
+  {
+    if( isBeforeName() )
+    {
+      next();
+    }
+    Event event = next();
+    if( event != Event.START_ARRAY )
+    {
+      throw error( "expecting '[', found " + event );
+    }
+    return () -> new Iterator<Object>()
+    {
+      private boolean _bDone;
+
+      @Override
+      public boolean hasNext()
+      {
+        if( _bDone )
+        {
+          return false;
+        }
+        if( JsonReader.this.hasNext() )
+        {
+          return true;
+        }
+        next( Event.END_ARRAY );
+        _bDone = true;
+        return false;
+      }
+
+      @Override
+      public Object next()
+      {
+        if( !hasNext() )
+        {
+          throw new NoSuchElementException();
+        }
+        return readValue();
+      }
+
+      private void next( Event expected )
+      {
+        Event event = JsonReader.this.next();
+        if( event != expected )
+        {
+          throw error( "expecting " + expected + ", found " + event );
+        }
+      }
+    };
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    _reader.close();
+  }
+
+  private Object readValue( Event event )
+  {
+    switch( event )
+    {
+      case START_OBJECT:
+        JsonBindings bindings = new JsonBindings( _shapes.root() );
+        while( next() == Event.NAME )
+        {
+          String name = _name;
+          bindings.append( _shapes, name, readValue( next() ) );
+        }
+        return bindings.trim();
+
+      case START_ARRAY:
+        List<Object> list = new ArrayList<>();
+        for( Event e = next(); e != Event.END_ARRAY; e = next() )
+        {
+          list.add( readValue( e ) );
+        }
+        return list;
+
+      case VALUE:
+        return _value;
+
+      default:
+        throw error( "expecting a value, found " + event );
+    }
+  }
+
+  private Event nextValue()
+  {
+    switch( _token.getType() )
+    {
+      case LCURLY:
+        push( Scope.EMPTY_OBJECT );
+        advance();
+        return Event.START_OBJECT;
+      case LSQUARE:
+        push( Scope.EMPTY_ARRAY );
+        advance();
+        return Event.START_ARRAY;
+      case INTEGER:
+        _value = SimpleParserImpl.integerValue( _token, _bUseBig );
+        break;
+      case DOUBLE:
+        _value = SimpleParserImpl.doubleValue( _token, _bUseBig );
+        break;
+      case STRING:
+        _value = _token.getString();
+        break;
+      case TRUE:
+        _value = Boolean.TRUE;
+        break;
+      case FALSE:
+        _value = Boolean.FALSE;
+        break;
+      case NULL:
+        _value = null;
+        break;
+      default:
+        throw error( "Unexpected token '" + _token.getString() + "'" );
+    }
+    advance();
+    return Event.VALUE;
+  }
+
+  private boolean isBeforeName()
+  {
+    Scope scope = peekScope();
+    return scope == Scope.EMPTY_OBJECT || scope == Scope.NONEMPTY_OBJECT;
+  }
+
+  private void advance()
+  {
+    _token = _tokenizer.next();
+  }
+
+  private void check( TokenType type, String s )
+  {
+    if( _token.getType() != type )
+    {
+      throw error( "expecting '" + s + "', found '" + _token.getString() + "'" );
+    }
+  }
+
+  private RuntimeException error( String msg )
+  {
+    return new RuntimeException( new ScriptException( "[" + _token.getLineNumber() + ":" + _token.getColumn() + "] " + msg ) );
+  }
+
+  private Scope peekScope()
+  {
+    return _stack[_iDepth - 1];
+  }
+
+  private void replaceScope( Scope scope )
+  {
+    _stack[_iDepth - 1] = scope;
+  }
+
+  private void push( Scope scope )
+  {
+    if( _iDepth == _stack.length )
+    {
+      _stack = Arrays.copyOf( _stack, _iDepth * 2 );
+    }
+    _stack[_iDepth++] = scope;
+  }
+}
@@ -0,0 +1,209 @@
+package gw.lang.reflect.json;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The key set of a {@link JsonBindings}, mapping each key to the index of its value in the
+ * Bindings' value array.  Shapes form a tree rooted at an empty shape, each child adds one key to
+ * its parent.  Objects parsed with the same keys in the same order walk the same path through the
+ * tree and end up sharing the shape, so a large array of homogeneous records stores its keys
+ * once.
+ * <p>
+ * The tree is shared by all parses, so the records of every document of the same kind have the
+ * same shapes and dynamic property access can link against them, see {@link JsonBindings#getSharedShape()}.
+ * The shared tree holds at most {@link #MAX_SHARED} shapes, which live as long as the class.
+ * Beyond that each parser grows a {@link Tree} of its own, whose shapes don't outlive the
+ * documents using them.  Shapes are immutable except for the transitions of shared shapes, which
+ * are thread-safe.
+ */
+final class JsonShape
+{
+  /**
+   * Beyond this many transitions from a single shape the keys are presumably data (a dictionary
+   * keyed by id and the like) rather than structure, further children are not shared.
+   */
+  private static final int MAX_TRANSITIONS = 64;
+  /**
+   * Shapes stop at this many keys, a wider object is a map of its own.  Each shape copies its
+   * parent's keys, so the cost of a chain of shapes grows with the square of its length.
+   */
+  private static final int MAX_KEYS = 64;
+  /**
+   * Up to this many keys a linear search beats hashing
+   */
+  private static final int MAX_LINEAR = 8;
+  /**
+   * The most shapes shared across parses, approximately
+   */
+  private static final int MAX_SHARED = 4096;
+
+  private static final AtomicInteger SHARED_COUNT = new AtomicInteger();
+  private static final JsonShape ROOT = new JsonShape( new String[0], true );
+
+  private final String[] _keys;
+  private final Map<String, Integer> _index;
+  private final boolean _bShared;
+  private volatile Map<String, JsonShape> _transitions;
+
+  private JsonShape( String[] keys, boolean bShared )
+  {
+    _keys = keys;
+    _bShared = bShared;
+    if( keys.length > MAX_LINEAR )
+    {
+      _index = new HashMap<>( keys.length * 2 );
+      for( int i = 0; i < keys.length; i++ )
+      {
+        _index.put( keys[i], i );
+      }
+    }
+    else
+    {
+      _index = null;
+    }
+  }
+
+  int size()
+  {
+    return _keys.length;
+  }
+
+  String getKey( int i )
+  {
+    return _keys[i];
+  }
+
+  /**
+   * @return true if the shape is in the tree shared by all parses
+   */
+  boolean isShared()
+  {
+    return _bShared;
+  }
+
+  /**
+   * @return The index of the key's value or -1 if the shape doesn't have the key
+   */
+  int indexOf( Object key )
+  {
+    if( _index != null )
+    {
+      Integer i = _index.get( key );
+      return i == null ? -1 : i;
+    }
+    for( int i = 0; i < _keys.length; i++ )
+    {
+      String k = _keys[i];
+      if( k == key || k.equals( key ) )
+      {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return true if no more keys can be added to this shape
+   */
+  boolean isFull()
+  {
+    return _keys.length >= MAX_KEYS;
+  }
+
+  private JsonShape extend( String key, boolean bShared )
+  {
+    String[] keys = Arrays.copyOf( _keys, _keys.length + 1 );
+    keys[_keys.length] = key;
+    return new JsonShape( keys, bShared );
+  }
+
+  /**
+   * @return The shared child of this shared shape for the key, or null if the shared tree has no
+   *   room for it
+   */
+  private JsonShape withShared( String key )
+  {
+    Map<String, JsonShape> transitions = _transitions;
+    JsonShape shape = transitions == null ? null : transitions.get( key );
+    if( shape != null )
+    {
+      return shape;
+    }
+    synchronized( this )
+    {
+      transitions = _transitions;
+      if( transitions == null )
+      {
+        _transitions = transitions = new ConcurrentHashMap<>( 4 );
+      }
+      shape = transitions.get( key );
+      if( shape != null )
+      {
+        return shape;
+      }
+      if( transitions.size() >= MAX_TRANSITIONS || SHARED_COUNT.get() >= MAX_SHARED )
+      {
+        return null;
+      }
+      SHARED_COUNT.incrementAndGet();
+      shape = extend( key, true );
+      transitions.put( key, shape );
+      return shape;
+    }
+  }
+
+  /**
+   * A parser's view of the shape tree: the shared shapes, and the shapes of its own once the
+   * shared tree is full.  Not thread-safe, like the parser.
+   */
+  static final class Tree
+  {
+    private Map<JsonShape, Map<String, JsonShape>> _local;
+
+    JsonShape root()
+    {
+      return ROOT;
+    }
+
+    /**
+     * @return The shape with the shape's keys followed by the key, the key must not be in the shape
+     */
+    JsonShape with( JsonShape shape, String key )
+    {
+      if( shape._bShared )
+      {
+        JsonShape shared = shape.withShared( key );
+        if( shared != null )
+        {
+          return shared;
+        }
+      }
+
+      if( _local == null )
+      {
+        _local = new IdentityHashMap<>();
+      }
+      Map<String, JsonShape> transitions = _local.get( shape );
+      if( transitions == null )
+      {
+        transitions = new HashMap<>( 4 );
+        _local.put( shape, transitions );
+      }
+      JsonShape child = transitions.get( key );
+      if( child == null )
+      {
+        child = shape.extend( key, false );
+        if( transitions.size() < MAX_TRANSITIONS )
+        {
+          transitions.put( key, child );
+        }
+      }
+      return child;
+    }
+  }
+}
@@ -0,0 +1,329 @@
+package gw.lang.reflect.json;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Writes a compact JSON document to a stream as it goes, nothing is buffered beyond what the
+ * underlying Writer buffers.  A document may be written structurally:
+ * <pre>
+ *   writer.beginArray()
+ *   for( quote in quotes ) {
+ *     writer.beginObject().name( "symbol" ).value( quote.Symbol ).endObject()
+ *   }
+ *   writer.endArray()
+ * </pre>
+ * or by value, where {@link #value(Object)} streams Bindings (and other Maps), Lists (and other
+ * Iterables) and arrays member by member.
+ * <p>
+ * I/O errors are reported with an UncheckedIOException.
+ */
+public class JsonWriter implements Closeable, Flushable
+{
+  private enum Scope
+  {
+    EMPTY_DOCUMENT,
+    NONEMPTY_DOCUMENT,
+    EMPTY_OBJECT,
+    DANGLING_NAME,
+    NONEMPTY_OBJECT,
+    EMPTY_ARRAY,
+    NONEMPTY_ARRAY
+  }
+
+  private static final String[] ESCAPES = new String[128];
+  static
+  {
+    for( int i = 0; i < 0x20; i++ )
+    {
+      ESCAPES[i] = String.format( "\\u%04x", i );
+    }
+    ESCAPES['"'] = "\\\"";
+    ESCAPES['\\'] = "\\\\";
+    ESCAPES['\t'] = "\\t";
+    ESCAPES['\b'] = "\\b";
+    ESCAPES['\n'] = "\\n";
+    ESCAPES['\r'] = "\\r";
+    ESCAPES['\f'] = "\\f";
+  }
+
+  private final Writer _writer;
+  private Scope[] _stack;
+  private int _iDepth;
+
+  public JsonWriter( Writer writer )
+  {
+    _writer = writer;
+    _stack = new Scope[16];
+    _stack[_iDepth++] = Scope.EMPTY_DOCUMENT;
+  }
+
+  /**
+   * Writes a UTF-8 encoded document to the stream
+   */
+  public JsonWriter( OutputStream out )
+  {
+    this( new OutputStreamWriter( out, StandardCharsets.UTF_8 ) );
+  }
+
+  public JsonWriter beginObject()
+  {
+    beforeValue();
+    push( Scope.EMPTY_OBJECT );
+    write( '{' );
+    return this;
+  }
+
+  public JsonWriter endObject()
+  {
+    Scope scope = peekScope();
+    if( scope != Scope.EMPTY_OBJECT && scope != Scope.NONEMPTY_OBJECT )
+    {
+      throw new IllegalStateException( "Not in an object" );
+    }
+    _iDepth--;
+    write( '}' );
+    return this;
+  }
+
+  public JsonWriter beginArray()
+  {
+    beforeValue();
+    push( Scope.EMPTY_ARRAY );
+    write( '[' );
+    return this;
+  }
+
+  public JsonWriter endArray()
+  {
+    Scope scope = peekScope();
+    if( scope != Scope.EMPTY_ARRAY && scope != Scope.NONEMPTY_ARRAY )
+    {
+      throw new IllegalStateException( "Not in an array" );
+    }
+    _iDepth--;
+    write( ']' );
+    return this;
+  }
+
+  /**
+   * Writes the name of the next member of the current object
+   */
+  public JsonWriter name( String name )
+  {
+    Scope scope = peekScope();
+    if( scope == Scope.NONEMPTY_OBJECT )
+    {
+      write( ',' );
+    }
+    else if( scope != Scope.EMPTY_OBJECT )
+    {
+      throw new IllegalStateException( "Not in an object" );
+    }
+    replaceScope( Scope.DANGLING_NAME );
+    string( name );
+    write( ':' );
+    return this;
+  }
+
+  /**
+   * Writes a value: null, a String or Character, a Number, a Boolean, a Bindings or other Map,
+   * a List or other Iterable, or an array.  Maps, Iterables and arrays are written recursively.
+   */
+  public JsonWriter value( Object value )
+  {
+    if( value instanceof Map )
+    {
+      beginObject();
+      for( Map.Entry<?, ?> entry : ((Map<?, ?>)value).entrySet() )
+      {
+        name( String.valueOf( entry.getKey() ) );
+        value( entry.getValue() );
+      }
+      return endObject();
+    }
+    if( value instanceof Iterable )
+    {
+      beginArray();
+      for( Object elem : (Iterable<?>)value )
+      {
+        value( elem );
+      }
+      return endArray();
+    }
+    if( value != null && value.getClass().isArray() )
+    {
+      beginArray();
+      for( int i = 0, len = Array.getLength( value ); i < len; i++ )
+      {
+        value( Array.get( value, i ) );
+      }
+      return endArray();
+    }
+
+    beforeValue();
+    if( value == null )
+    {
+      write( "null" );
+    }
+    else if( value instanceof String || value instanceof Character )
+    {
+      string( value.toString() );
+    }
+    else if( value instanceof Double || value instanceof Float )
+    {
+      double d = ((Number)value).doubleValue();
+      if( Double.isNaN( d ) || Double.isInfinite( d ) )
+      {
+        throw new IllegalArgumentException( "JSON numbers must be finite: " + value );
+      }
+      write( value.toString() );
+    }
+    else if( value instanceof Number || value instanceof Boolean )
+    {
+      write( value.toString() );
+    }
+    else
+    {
+      throw new IllegalArgumentException( "Unsupported JSON type: " + value.getClass() );
+    }
+    return this;
+  }
+
+  @Override
+  public void flush()
+  {
+    try
+    {
+      _writer.flush();
+    }
+    catch( IOException e )
+    {
+      throw new UncheckedIOException( e );
+    }
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    _writer.close();
+  }
+
+  private void beforeValue()
+  {
+    switch( peekScope() )
+    {
+      case EMPTY_DOCUMENT:
+        replaceScope( Scope.NONEMPTY_DOCUMENT );
+        break;
+      case NONEMPTY_DOCUMENT:
+        throw new IllegalStateException( "A JSON document has a single value" );
+      case DANGLING_NAME:
+        replaceScope( Scope.NONEMPTY_OBJECT );
+        break;
+      case EMPTY_ARRAY:
+        replaceScope( Scope.NONEMPTY_ARRAY );
+        break;
+      case NONEMPTY_ARRAY:
+        write( ',' );
+        break;
+      default:
+        throw new IllegalStateException( "Expecting a name" );
+    }
+  }
+
+  private void string( String value )
+  {
+    try
+    {
+      _writer.write( '"' );
+      int iStart = 0;
+      int len = value.length();
+      for( int i = 0; i < len; i++ )
+      {
+        char c = value.charAt( i );
+        String escape;
+        if( c < 128 )
+        {
+          escape = ESCAPES[c];
+        }
+        else if( c == '\u2028' )
+        {
+          escape = "\\u2028";
+        }
+        else if( c == '\u2029' )
+        {
+          escape = "\\u2029";
+        }
+        else
+        {
+          escape = null;
+        }
+        if( escape != null )
+        {
+          _writer.write( value, iStart, i - iStart );
+          _writer.write( escape );
+          iStart = i + 1;
+        }
+      }
+      _writer.write( value, iStart, len - iStart );
+      _writer.write( '"' );
+    }
+    catch( IOException e )
+    {
+      throw new UncheckedIOException( e );
+    }
+  }
+
+  private void write( char c )
+  {
+    try
+    {
+      _writer.write( c );
+    }
+    catch( IOException e )
+    {
+      throw new UncheckedIOException( e );
+    }
+  }
+
+  private void write( String s )
+  {
+    try
+    {
+      _writer.write( s );
+    }
+    catch( IOException e )
+    {
+      throw new UncheckedIOException( e );
+    }
+  }
+
+  private Scope peekScope()
+  {
+    return _stack[_iDepth - 1];
+  }
+
+  private void replaceScope( Scope scope )
+  {
+    _stack[_iDepth - 1] = scope;
+  }
+
+  private void push( Scope scope )
+  {
+    if( _iDepth == _stack.length )
+    {
+      _stack = Arrays.copyOf( _stack, _iDepth * 2 );
+    }
+    _stack[_iDepth++] = scope;
+  }
+}
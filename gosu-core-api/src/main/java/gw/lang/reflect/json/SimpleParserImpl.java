@@ -1,6 +1,5 @@
 package gw.lang.reflect.json;
 
-import javax.script.SimpleBindings;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
@@ -33,10 +32,12 @@ final class SimpleParserImpl {
   private Token T;
   private final List<String> errors;
   private boolean useBig;
+  private final JsonShape.Tree shapes;
 
   public SimpleParserImpl(Tokenizer tokenizer, boolean useBig) {
     this.tokenizer = tokenizer;
     this.useBig = useBig;
+    shapes = new JsonShape.Tree();
     errors = new ArrayList<String>();
     advance();
   }
@@ -93,7 +94,7 @@ final class SimpleParserImpl {
 
   // object = "{" [ member { "," member } ] "}".
   public Object parseObject() {
-    Map map = new SimpleBindings();
+    JsonBindings map = new JsonBindings(shapes.root());
     advance();
     if(T.getType() == TokenType.STRING) {
       parseMember(map);
@@ -103,7 +104,7 @@ final class SimpleParserImpl {
       }
     }
     checkAndSkip(TokenType.RCURLY, "}");
-    return map;
+    return map.trim();
   }
 
   public void skipObject() {
@@ -127,6 +128,14 @@ final class SimpleParserImpl {
     map.put(key, val);
   }
 
+  void parseMember(JsonBindings map) {
+    String key = T.getString();
+    check(TokenType.STRING, "a string");
+    check(TokenType.COLON, ":");
+    Object val = parseValue();
+    map.append(shapes, key, val);
+  }
+
   public void skipMember() {
     check(TokenType.STRING, "a string");
     check(TokenType.COLON, ":");
@@ -144,28 +153,11 @@ final class SimpleParserImpl {
         val = parseArray();
         break;
       case INTEGER:
-        if(useBig) {
-          val = new BigInteger(T.getString());
-        } else {
-          try {
-            val = Integer.parseInt(T.getString());
-          } catch(NumberFormatException e0) {
-            // we have an overflow, the tokenizer guarantees the format is correct
-            try {
-              val = Long.parseLong(T.getString());
-            } catch(NumberFormatException e1) {
-              val = 0;
-            }
-          }
-        }
+        val = integerValue(T, useBig);
         advance();
         break;
       case DOUBLE:
-        if(useBig) {
-          val = new BigDecimal(T.getString());
-        } else {
-          val = Double.parseDouble(T.getString());
-        }
+        val = doubleValue(T, useBig);
         advance();
         break;
       case STRING:
@@ -191,6 +183,29 @@ final class SimpleParserImpl {
     return val;
   }
 
+  static Object integerValue(Token T, boolean useBig) {
+    if(useBig) {
+      return new BigInteger(T.getString());
+    }
+    try {
+      return Integer.parseInt(T.getString());
+    } catch(NumberFormatException e0) {
+      // we have an overflow, the tokenizer guarantees the format is correct
+      try {
+        return Long.parseLong(T.getString());
+      } catch(NumberFormatException e1) {
+        return 0;
+      }
+    }
+  }
+
+  static Object doubleValue(Token T, boolean useBig) {
+    if(useBig) {
+      return new BigDecimal(T.getString());
+    }
+    return Double.parseDouble(T.getString());
+  }
+
   public void skipValue() {
     switch(T.getType()) {
       case LCURLY:
@@ -5,12 +5,17 @@ import java.io.Reader;
 
 final class Tokenizer {
   private Reader source;
+  private final char[] buffer;
+  private int pos;
+  private int limit;
   private int line;
   private int column;
   private char ch;
 
   public Tokenizer(Reader source) {
     this.source = source;
+    // read through a buffer of our own, reading a char at a time from a Reader is slow even when it's buffered
+    buffer = new char[4096];
     line = 1;
     column = 0;
     nextChar();
@@ -269,9 +274,9 @@ final class Tokenizer {
   private void nextChar() {
     int c;
 
-    try {
-      c = source.read();
-    } catch (IOException e) {
+    if(pos < limit || fill()) {
+      c = buffer[pos++];
+    } else {
       c = -1;
     }
     if(c == '\n') {
@@ -286,6 +291,20 @@ final class Tokenizer {
     ch = (char)c;
   }
 
+  private boolean fill() {
+    try {
+      int count;
+      do {
+        count = source.read(buffer, 0, buffer.length);
+      } while(count == 0);
+      pos = 0;
+      limit = Math.max(count, 0);
+    } catch (IOException e) {
+      limit = 0;
+    }
+    return limit > 0;
+  }
+
   private boolean moreChars() {
     return ch != '\0';
   }
@@ -14,11 +14,15 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Nodes are read without locking (e.g., type lookups) while writers are serialized externally, so
+ * children and user data are published through volatile fields.
+ */
 public class FqnCacheNode<K> {
   private final String name;
   private final FqnCacheNode<K> parent;
-  private K userData;
-  private Map<String, FqnCacheNode<K>> children;
+  private volatile K userData;
+  private volatile Map<String, FqnCacheNode<K>> children;
 
   public FqnCacheNode( String text, FqnCacheNode<K> parent ) {
     this.name = text;
@@ -26,6 +30,7 @@ public class FqnCacheNode<K> {
   }
 
   public final FqnCacheNode<K> getChild( String segment ) {
+    Map<String, FqnCacheNode<K>> children = this.children;
     if (children != null) {
       return children.get(segment);
     } else {
@@ -38,13 +43,22 @@ public class FqnCacheNode<K> {
   }
 
   public FqnCacheNode<K> getOrCreateChild( String segment ) {
+    Map<String, FqnCacheNode<K>> children = this.children;
     if (children == null) {
-      children = new ConcurrentHashMap<String, FqnCacheNode<K>>(2);
+      synchronized (this) {
+        children = this.children;
+        if (children == null) {
+          this.children = children = new ConcurrentHashMap<String, FqnCacheNode<K>>(2);
+        }
+      }
     }
     FqnCacheNode<K> node = children.get(segment);
     if (node == null) {
       node = new FqnCacheNode<K>(segment, this);
-      children.put(segment, node);
+      FqnCacheNode<K> existing = children.putIfAbsent(segment, node);
+      if (existing != null) {
+        node = existing;
+      }
     }
     return node;
   }
@@ -53,11 +67,12 @@ public class FqnCacheNode<K> {
     parent.deleteChild(this);
   }
 
-  private void deleteChild(FqnCacheNode<K> child) {
+  private synchronized void deleteChild(FqnCacheNode<K> child) {
+    Map<String, FqnCacheNode<K>> children = this.children;
     if (children != null) {
       children.remove(child.name);
       if (children.isEmpty()) {
-        children = null;
+        this.children = null;
       }
     }
   }
@@ -71,10 +86,12 @@ public class FqnCacheNode<K> {
   }
 
   public final boolean isLeaf() {
+    Map<String, FqnCacheNode<K>> children = this.children;
     return children == null || children.isEmpty();
   }
 
   public void collectNames( Set<String> names, String s ) {
+    Map<String, FqnCacheNode<K>> children = this.children;
     if (children != null) {
       for (FqnCacheNode<K> child : children.values()) {
         String path = s.length() == 0
@@ -90,6 +107,7 @@ public class FqnCacheNode<K> {
   }
 
   public final Collection<FqnCacheNode<K>> getChildren() {
+    Map<String, FqnCacheNode<K>> children = this.children;
     if (children != null) {
       return children.values();
     } else {
@@ -98,6 +116,7 @@ public class FqnCacheNode<K> {
   }
 
   public final boolean visitDepthFirst( Predicate<K> visitor ) {
+    Map<String, FqnCacheNode<K>> children = this.children;
     if (children != null) {
       List<FqnCacheNode<K>> copy = new ArrayList<FqnCacheNode<K>>( children.values() );
       for( FqnCacheNode<K> child: copy ) {
@@ -110,6 +129,7 @@ public class FqnCacheNode<K> {
   }
 
   public final boolean visitNodeDepthFirst( Predicate<FqnCacheNode> visitor ) {
+    Map<String, FqnCacheNode<K>> children = this.children;
     if (children != null) {
       List<FqnCacheNode<K>> copy = new ArrayList<FqnCacheNode<K>>( children.values() );
       for( FqnCacheNode<K> child: copy ) {
@@ -125,6 +145,7 @@ public class FqnCacheNode<K> {
     if( !visitor.evaluate( getUserData() ) ) {
       return false;
     }
+    Map<String, FqnCacheNode<K>> children = this.children;
     if (children != null) {
       List<FqnCacheNode<K>> copy = new ArrayList<FqnCacheNode<K>>( children.values() );
       for( FqnCacheNode<K> child: copy ) {
@@ -138,6 +159,7 @@ public class FqnCacheNode<K> {
     if( !visitor.evaluate( this ) ) {
       return false;
     }
+    Map<String, FqnCacheNode<K>> children = this.children;
     if( children != null ) {
       List<FqnCacheNode<K>> copy = new ArrayList<FqnCacheNode<K>>( children.values() );
       for( FqnCacheNode<K> child: copy ) {
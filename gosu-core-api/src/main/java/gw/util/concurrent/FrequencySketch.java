@@ -0,0 +1,111 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.util.concurrent;
+
+/**
+ * A count-min sketch of 4-bit counters estimating how often keys were used recently, the
+ * popularity history behind the TinyLFU admission policy of {@link TinyLfuCacheMap}.
+ * <p>
+ * Each key maps to one counter in each of four rows.  A row's counters for a key are all stored
+ * in one 64-bit word (16 counters per word, 4 per row), so an increment or an estimate touches
+ * four words.  When the number of increments reaches the sample size all counters are halved so
+ * that the history ages and the sketch adapts to changes in popularity.
+ * <p>
+ * Not thread-safe, the owning map only accesses it under its eviction lock.
+ */
+final class FrequencySketch {
+  private static final long[] SEED = {
+    0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final long ONE_MASK = 0x1111111111111111L;
+  private static final int MAX_COUNT = 15;
+
+  private final long[] _table;
+  private final int _tableMask;
+  private final int _sampleSize;
+  private int _size;
+
+  /**
+   * @param maximumSize the expected number of distinct keys the cache holds
+   */
+  FrequencySketch(long maximumSize) {
+    int tableSize = ceilingPowerOfTwo((int)Math.min(Math.max(maximumSize, 1), 1 << 30));
+    _table = new long[tableSize];
+    _tableMask = tableSize - 1;
+    _sampleSize = 10 * (int)Math.min(Math.max(maximumSize, 1), Integer.MAX_VALUE / 10);
+  }
+
+  /**
+   * @return the estimated number of occurrences of the key, at most 15
+   */
+  int frequency(Object key) {
+    int hash = spread(key.hashCode());
+    int start = (hash & 3) << 2;
+    int frequency = MAX_COUNT;
+    for (int i = 0; i < 4; i++) {
+      int index = indexOf(hash, i);
+      int count = (int)((_table[index] >>> ((start + i) << 2)) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  /**
+   * Increments the popularity of the key unless it is already at the maximum
+   */
+  void increment(Object key) {
+    int hash = spread(key.hashCode());
+    int start = (hash & 3) << 2;
+    boolean added = false;
+    for (int i = 0; i < 4; i++) {
+      added |= incrementAt(indexOf(hash, i), start + i);
+    }
+    if (added && ++_size == _sampleSize) {
+      reset();
+    }
+  }
+
+  private boolean incrementAt(int i, int j) {
+    int offset = j << 2;
+    long mask = 0xfL << offset;
+    if ((_table[i] & mask) != mask) {
+      _table[i] += 1L << offset;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Halves every counter, dropping the odd remainders from the size
+   */
+  private void reset() {
+    int odd = 0;
+    for (int i = 0; i < _table.length; i++) {
+      odd += Long.bitCount(_table[i] & ONE_MASK);
+      _table[i] = (_table[i] >>> 1) & RESET_MASK;
+    }
+    _size = (_size >>> 1) - (odd >>> 2);
+  }
+
+  private int indexOf(int hash, int row) {
+    long h = (hash + SEED[row]) * SEED[row];
+    h += h >>> 32;
+    return ((int)h) & _tableMask;
+  }
+
+  /**
+   * Guards against poor hash codes
+   */
+  private static int spread(int x) {
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    return (x >>> 16) ^ x;
+  }
+
+  private static int ceilingPowerOfTwo(int x) {
+    return 1 << -Integer.numberOfLeadingZeros(x - 1);
+  }
+}
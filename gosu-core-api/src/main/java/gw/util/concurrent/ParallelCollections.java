@@ -0,0 +1,336 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.util.concurrent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Fork-join implementations of the parallel collection enhancements (parallelMap, parallelWhere,
+ * parallelEach, parallelReduce and parallelSum).  The elements are split into contiguous ranges
+ * that are processed in the pool and joined back in order, so results are ordered the same as
+ * with the sequential enhancements.
+ * <p>
+ * Work runs in {@link ForkJoinPool#commonPool()} unless another pool is installed with
+ * {@link #setPool(ForkJoinPool)}.  Blocks passed to these methods run concurrently and must not
+ * depend on the order in which they are called.
+ */
+public class ParallelCollections
+{
+  /**
+   * Number of ranges per worker thread, more ranges than threads balances uneven work
+   */
+  private static final int RANGES_PER_THREAD = 4;
+  /**
+   * Ranges are at least this long, handing a shorter one to the pool costs more than it saves
+   * unless each element takes a good while.  A source no longer than this is processed in the
+   * caller's thread.
+   */
+  private static final int MIN_RANGE = 256;
+
+  private static volatile ForkJoinPool _pool;
+
+  private ParallelCollections()
+  {
+  }
+
+  /**
+   * @return The pool parallel collection operations run in
+   */
+  public static ForkJoinPool getPool()
+  {
+    ForkJoinPool pool = _pool;
+    return pool == null ? ForkJoinPool.commonPool() : pool;
+  }
+
+  /**
+   * Sets the pool parallel collection operations run in, null reverts to the common pool.
+   */
+  public static void setPool( ForkJoinPool pool )
+  {
+    _pool = pool;
+  }
+
+  public static <T, Q> List<Q> map( Iterable<T> source, final Function<? super T, ? extends Q> mapper )
+  {
+    final List<T> list = toRandomAccessList( source );
+    // Filled in place by the ranges, each setting its own indexes
+    final List<Q> result = new ArrayList<Q>( Collections.<Q>nCopies( list.size(), null ) );
+    invoke( list.size(), new RangeOp<Void>()
+    {
+      @Override
+      Void computeRange( int iStart, int iEnd )
+      {
+        for( int i = iStart; i < iEnd; i++ )
+        {
+          result.set( i, mapper.apply( list.get( i ) ) );
+        }
+        return null;
+      }
+    } );
+    return result;
+  }
+
+  public static <T> List<T> where( Iterable<T> source, final Predicate<? super T> cond )
+  {
+    final List<T> list = toRandomAccessList( source );
+    return invoke( list.size(), new RangeOp<List<T>>()
+    {
+      @Override
+      List<T> computeRange( int iStart, int iEnd )
+      {
+        List<T> matches = new ArrayList<T>();
+        for( int i = iStart; i < iEnd; i++ )
+        {
+          T elt = list.get( i );
+          if( cond.test( elt ) )
+          {
+            matches.add( elt );
+          }
+        }
+        return matches;
+      }
+
+      @Override
+      List<T> combine( List<T> left, List<T> right )
+      {
+        left.addAll( right );
+        return left;
+      }
+    } );
+  }
+
+  public static <T> void each( Iterable<T> source, final Consumer<? super T> operation )
+  {
+    final List<T> list = toRandomAccessList( source );
+    invoke( list.size(), new RangeOp<Void>()
+    {
+      @Override
+      Void computeRange( int iStart, int iEnd )
+      {
+        for( int i = iStart; i < iEnd; i++ )
+        {
+          operation.accept( list.get( i ) );
+        }
+        return null;
+      }
+    } );
+  }
+
+  /**
+   * Reduces each range of elements, starting from identity, with the aggregator and then combines
+   * the results of adjacent ranges with the combiner.  identity must be an identity value for the
+   * combiner, and the combiner must be associative.
+   */
+  public static <T, V> V reduce( Iterable<T> source, final V identity, final BiFunction<V, ? super T, V> aggregator, final BinaryOperator<V> combiner )
+  {
+    final List<T> list = toRandomAccessList( source );
+    if( list.isEmpty() )
+    {
+      return identity;
+    }
+    return invoke( list.size(), new RangeOp<V>()
+    {
+      @Override
+      V computeRange( int iStart, int iEnd )
+      {
+        V value = identity;
+        for( int i = iStart; i < iEnd; i++ )
+        {
+          value = aggregator.apply( value, list.get( i ) );
+        }
+        return value;
+      }
+
+      @Override
+      V combine( V left, V right )
+      {
+        return combiner.apply( left, right );
+      }
+    } );
+  }
+
+  /**
+   * Sums the mapped values of each range into a primitive accumulator, only the per-range
+   * subtotals are boxed when adjacent ranges are combined.
+   */
+  public static <T> int sumInt( Iterable<T> source, final ToIntFunction<? super T> mapper )
+  {
+    final List<T> list = toRandomAccessList( source );
+    if( list.isEmpty() )
+    {
+      return 0;
+    }
+    return invoke( list.size(), new RangeOp<Integer>()
+    {
+      @Override
+      Integer computeRange( int iStart, int iEnd )
+      {
+        int sum = 0;
+        for( int i = iStart; i < iEnd; i++ )
+        {
+          sum += mapper.applyAsInt( list.get( i ) );
+        }
+        return sum;
+      }
+
+      @Override
+      Integer combine( Integer left, Integer right )
+      {
+        return left + right;
+      }
+    } );
+  }
+
+  /**
+   * @see #sumInt(Iterable, ToIntFunction)
+   */
+  public static <T> long sumLong( Iterable<T> source, final ToLongFunction<? super T> mapper )
+  {
+    final List<T> list = toRandomAccessList( source );
+    if( list.isEmpty() )
+    {
+      return 0L;
+    }
+    return invoke( list.size(), new RangeOp<Long>()
+    {
+      @Override
+      Long computeRange( int iStart, int iEnd )
+      {
+        long sum = 0L;
+        for( int i = iStart; i < iEnd; i++ )
+        {
+          sum += mapper.applyAsLong( list.get( i ) );
+        }
+        return sum;
+      }
+
+      @Override
+      Long combine( Long left, Long right )
+      {
+        return left + right;
+      }
+    } );
+  }
+
+  /**
+   * @see #sumInt(Iterable, ToIntFunction)
+   */
+  public static <T> double sumDouble( Iterable<T> source, final ToDoubleFunction<? super T> mapper )
+  {
+    final List<T> list = toRandomAccessList( source );
+    if( list.isEmpty() )
+    {
+      return 0.0;
+    }
+    return invoke( list.size(), new RangeOp<Double>()
+    {
+      @Override
+      Double computeRange( int iStart, int iEnd )
+      {
+        double sum = 0.0;
+        for( int i = iStart; i < iEnd; i++ )
+        {
+          sum += mapper.applyAsDouble( list.get( i ) );
+        }
+        return sum;
+      }
+
+      @Override
+      Double combine( Double left, Double right )
+      {
+        return left + right;
+      }
+    } );
+  }
+
+  private static <R> R invoke( int iSize, RangeOp<R> op )
+  {
+    int iThreshold = threshold( iSize );
+    if( iSize <= iThreshold )
+    {
+      // Not worth forking, run in the caller's thread
+      return op.computeRange( 0, iSize );
+    }
+    return getPool().invoke( new RangeTask<R>( op, 0, iSize, iThreshold ) );
+  }
+
+  private static int threshold( int iSize )
+  {
+    return Math.max( MIN_RANGE, iSize / (getPool().getParallelism() * RANGES_PER_THREAD) );
+  }
+
+  private static <T> List<T> toRandomAccessList( Iterable<T> source )
+  {
+    if( source instanceof List && source instanceof RandomAccess )
+    {
+      return (List<T>)source;
+    }
+    List<T> list = new ArrayList<T>();
+    for( T elt : source )
+    {
+      list.add( elt );
+    }
+    return list;
+  }
+
+  private static abstract class RangeOp<R>
+  {
+    abstract R computeRange( int iStart, int iEnd );
+
+    /**
+     * Joins the results of two adjacent ranges, left preceding right
+     */
+    R combine( R left, R right )
+    {
+      return null;
+    }
+  }
+
+  /**
+   * Splits [start, end) in halves until a range is no larger than the threshold
+   */
+  private static class RangeTask<R> extends RecursiveTask<R>
+  {
+    private final RangeOp<R> _op;
+    private final int _iStart;
+    private final int _iEnd;
+    private final int _iThreshold;
+
+    RangeTask( RangeOp<R> op, int iStart, int iEnd, int iThreshold )
+    {
+      _op = op;
+      _iStart = iStart;
+      _iEnd = iEnd;
+      _iThreshold = iThreshold;
+    }
+
+    @Override
+    protected R compute()
+    {
+      if( _iEnd - _iStart <= _iThreshold )
+      {
+        return _op.computeRange( _iStart, _iEnd );
+      }
+      int iMid = (_iStart + _iEnd) >>> 1;
+      RangeTask<R> right = new RangeTask<R>( _op, iMid, _iEnd, _iThreshold );
+      right.fork();
+      R left = new RangeTask<R>( _op, _iStart, iMid, _iThreshold ).compute();
+      return _op.combine( left, right.join() );
+    }
+  }
+}
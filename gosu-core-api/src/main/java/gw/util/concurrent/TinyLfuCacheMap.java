@@ -0,0 +1,456 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.util.concurrent;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded concurrent map for caches, the storage behind {@link Cache}.  Entries are evicted
+ * with the W-TinyLFU policy:
+ * <ul>
+ * <li> New entries enter a small LRU <i>window</i> (1% of the maximum weight), so a burst of
+ *      new keys cannot flush the cache and a new entry is always retained at least briefly.
+ * <li> Entries pushed out of the window are <i>candidates</i> for the main space.  A candidate
+ *      is admitted only if a {@link FrequencySketch} estimates it has been used more often than
+ *      the entry the main space would evict for it, the <i>victim</i>.  One-hit wonders are
+ *      therefore discarded instead of displacing popular entries.
+ * <li> The main space is a segmented LRU: entries start in <i>probation</i> and are promoted to
+ *      the <i>protected</i> segment (80% of the main space) when used again.
+ * </ul>
+ * Reads never block: a hit is recorded in a striped, lossy ring buffer and replayed against the
+ * policy in batches by whichever thread acquires the eviction lock.  Writes apply the policy
+ * immediately under the lock, so the map never exceeds its maximum weight once a put returns.
+ * <p>
+ * Entries may be weighed with a {@link Cache.Weigher}, by default each weighs 1 and the maximum
+ * weight is the maximum number of entries.  Entries may also expire a fixed time after they are
+ * written; expired entries are dropped when they are read or when they come up for eviction.
+ * <p>
+ * Null keys and values are not permitted.
+ */
+public final class TinyLfuCacheMap<K, V> {
+  private static final int READ_BUFFER_SIZE = 32;
+  private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+  private static final int READ_BUFFER_DRAIN_THRESHOLD = READ_BUFFER_SIZE / 2;
+  private static final int NUM_READ_BUFFERS = ceilingPowerOfTwo(Runtime.getRuntime().availableProcessors());
+
+  private static final int PERCENT_WINDOW = 1;
+  private static final int PERCENT_PROTECTED = 80;
+
+  private final ConcurrentHashMap<K, Node<K, V>> _data;
+  private final Cache.Weigher<? super K, ? super V> _weigher;
+  private final long _expireAfterWriteNanos;
+  private final ReadBuffer[] _readBuffers;
+
+  // Guarded by _evictionLock
+  private final ReentrantLock _evictionLock = new ReentrantLock();
+  private final FrequencySketch _sketch;
+  private final AccessOrderDeque<K, V> _window = new AccessOrderDeque<K, V>();
+  private final AccessOrderDeque<K, V> _probation = new AccessOrderDeque<K, V>();
+  private final AccessOrderDeque<K, V> _protected = new AccessOrderDeque<K, V>();
+  private final long _maximumWeight;
+  private final long _windowMaximum;
+  private final long _mainMaximum;
+  private final long _protectedMaximum;
+  private long _windowWeight;
+  private long _mainWeight;
+  private long _protectedWeight;
+
+  /**
+   * @param maximumSize the maximum number of entries
+   */
+  public TinyLfuCacheMap(long maximumSize) {
+    this(maximumSize, null, 0, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * @param maximumWeight the maximum total weight of the entries
+   * @param weigher weighs the entries, null to weigh each entry as 1
+   * @param expireAfterWrite how long after it was written an entry expires, 0 to never expire
+   * @param unit the unit of expireAfterWrite
+   */
+  public TinyLfuCacheMap(long maximumWeight, Cache.Weigher<? super K, ? super V> weigher, long expireAfterWrite, TimeUnit unit) {
+    if (maximumWeight < 0 || expireAfterWrite < 0) {
+      throw new IllegalArgumentException();
+    }
+    _data = new ConcurrentHashMap<K, Node<K, V>>((int)Math.min(maximumWeight, 1 << 16));
+    _weigher = weigher;
+    _expireAfterWriteNanos = unit.toNanos(expireAfterWrite);
+    _readBuffers = new ReadBuffer[NUM_READ_BUFFERS];
+    for (int i = 0; i < _readBuffers.length; i++) {
+      _readBuffers[i] = new ReadBuffer();
+    }
+    _maximumWeight = maximumWeight;
+    _windowMaximum = Math.min(maximumWeight, Math.max(1, maximumWeight * PERCENT_WINDOW / 100));
+    _mainMaximum = maximumWeight - _windowMaximum;
+    _protectedMaximum = _mainMaximum * PERCENT_PROTECTED / 100;
+    _sketch = new FrequencySketch(maximumWeight);
+  }
+
+  /**
+   * @return the value for the key, or null if it is absent or expired
+   */
+  public V get(Object key) {
+    Node<K, V> node = _data.get(key);
+    if (node == null) {
+      return null;
+    }
+    if (isExpired(node)) {
+      removeNode(node);
+      return null;
+    }
+    recordRead(node);
+    return node._value;
+  }
+
+  /**
+   * @return the previous value for the key, or null
+   */
+  public V put(K key, V value) {
+    if (key == null || value == null) {
+      throw new IllegalArgumentException();
+    }
+    int weight = _weigher == null ? 1 : _weigher.weigh(key, value);
+    if (weight < 0) {
+      throw new IllegalArgumentException("Negative weight: " + weight);
+    }
+    Node<K, V> node = new Node<K, V>(key, value, weight, _expireAfterWriteNanos == 0 ? 0 : System.nanoTime());
+    Node<K, V> old = _data.put(key, node);
+    _evictionLock.lock();
+    try {
+      drainReadBuffers();
+      if (old != null) {
+        unlink(old);
+      }
+      onAdd(node);
+    }
+    finally {
+      _evictionLock.unlock();
+    }
+    return old == null || isExpired(old) ? null : old._value;
+  }
+
+  /**
+   * @return the removed value, or null if the key was absent
+   */
+  public V remove(Object key) {
+    Node<K, V> node = _data.remove(key);
+    if (node == null) {
+      return null;
+    }
+    _evictionLock.lock();
+    try {
+      unlink(node);
+    }
+    finally {
+      _evictionLock.unlock();
+    }
+    return isExpired(node) ? null : node._value;
+  }
+
+  public void clear() {
+    _evictionLock.lock();
+    try {
+      for (ReadBuffer buffer : _readBuffers) {
+        buffer.clear();
+      }
+      for (K key : _data.keySet()) {
+        Node<K, V> node = _data.remove(key);
+        if (node != null) {
+          unlink(node);
+        }
+      }
+    }
+    finally {
+      _evictionLock.unlock();
+    }
+  }
+
+  /**
+   * @return the number of entries, including expired entries that have not been dropped yet
+   */
+  public int size() {
+    return _data.size();
+  }
+
+  public long getMaximumWeight() {
+    return _maximumWeight;
+  }
+
+  /**
+   * @return the total weight of the entries
+   */
+  public long getWeightedSize() {
+    _evictionLock.lock();
+    try {
+      return _windowWeight + _mainWeight;
+    }
+    finally {
+      _evictionLock.unlock();
+    }
+  }
+
+  private boolean isExpired(Node<K, V> node) {
+    return _expireAfterWriteNanos != 0 && System.nanoTime() - node._writeTime >= _expireAfterWriteNanos;
+  }
+
+  private void removeNode(Node<K, V> node) {
+    if (_data.remove(node._key, node)) {
+      _evictionLock.lock();
+      try {
+        unlink(node);
+      }
+      finally {
+        _evictionLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Records a hit for the policy, dropping it if the buffer is full
+   */
+  private void recordRead(Node<K, V> node) {
+    ReadBuffer buffer = _readBuffers[(int)Thread.currentThread().getId() & (NUM_READ_BUFFERS - 1)];
+    long writeCount = buffer._writeCount.get();
+    long pending = writeCount - buffer._readCount;
+    if (pending < READ_BUFFER_SIZE && buffer._writeCount.compareAndSet(writeCount, writeCount + 1)) {
+      buffer._slots.lazySet((int)writeCount & READ_BUFFER_MASK, node);
+    }
+    if (pending >= READ_BUFFER_DRAIN_THRESHOLD && _evictionLock.tryLock()) {
+      try {
+        drainReadBuffers();
+      }
+      finally {
+        _evictionLock.unlock();
+      }
+    }
+  }
+
+  private void drainReadBuffers() {
+    for (ReadBuffer buffer : _readBuffers) {
+      long readCount = buffer._readCount;
+      long writeCount = buffer._writeCount.get();
+      for (; readCount < writeCount; readCount++) {
+        int index = (int)readCount & READ_BUFFER_MASK;
+        @SuppressWarnings("unchecked")
+        Node<K, V> node = (Node<K, V>)buffer._slots.get(index);
+        if (node == null) {
+          // The slot is claimed but not written yet, pick up from here next time
+          break;
+        }
+        buffer._slots.lazySet(index, null);
+        onAccess(node);
+      }
+      buffer._readCount = readCount;
+    }
+  }
+
+  private void onAccess(Node<K, V> node) {
+    _sketch.increment(node._key);
+    switch (node._queue) {
+      case WINDOW:
+        _window.moveToBack(node);
+        break;
+      case PROBATION:
+        _probation.remove(node);
+        node._queue = Queue.PROTECTED;
+        _protected.add(node);
+        _protectedWeight += node._weight;
+        demoteFromProtected();
+        break;
+      case PROTECTED:
+        _protected.moveToBack(node);
+        break;
+      default:
+        // Not linked yet or already removed
+    }
+  }
+
+  private void onAdd(Node<K, V> node) {
+    if (node._queue != Queue.NEW || _data.get(node._key) != node) {
+      // Replaced or removed before it was linked
+      node._queue = Queue.DEAD;
+      return;
+    }
+    _sketch.increment(node._key);
+    node._queue = Queue.WINDOW;
+    _window.add(node);
+    _windowWeight += node._weight;
+    evict();
+  }
+
+  private void unlink(Node<K, V> node) {
+    switch (node._queue) {
+      case WINDOW:
+        _window.remove(node);
+        _windowWeight -= node._weight;
+        break;
+      case PROBATION:
+        _probation.remove(node);
+        _mainWeight -= node._weight;
+        break;
+      case PROTECTED:
+        _protected.remove(node);
+        _mainWeight -= node._weight;
+        _protectedWeight -= node._weight;
+        break;
+      default:
+    }
+    node._queue = Queue.DEAD;
+  }
+
+  private void demoteFromProtected() {
+    while (_protectedWeight > _protectedMaximum) {
+      Node<K, V> demoted = _protected.poll();
+      _protectedWeight -= demoted._weight;
+      demoted._queue = Queue.PROBATION;
+      _probation.add(demoted);
+    }
+  }
+
+  /**
+   * Moves the window's overflow into the main space, each candidate either displacing the main
+   * space's victims or being evicted itself depending on which is used more frequently.
+   */
+  private void evict() {
+    while (_windowWeight > _windowMaximum) {
+      Node<K, V> candidate = _window.poll();
+      _windowWeight -= candidate._weight;
+      candidate._queue = Queue.PROBATION;
+      _probation.add(candidate);
+      _mainWeight += candidate._weight;
+      while (_mainWeight > _mainMaximum) {
+        Node<K, V> victim = _probation.peek();
+        if (victim == candidate) {
+          victim = _probation.peekNext(candidate);
+          if (victim == null) {
+            victim = _protected.peek();
+          }
+        }
+        if (victim == null || candidate._weight > _mainMaximum || isExpired(candidate) ||
+            (!isExpired(victim) && !admit(candidate, victim))) {
+          evictNode(candidate);
+          break;
+        }
+        evictNode(victim);
+      }
+    }
+  }
+
+  private boolean admit(Node<K, V> candidate, Node<K, V> victim) {
+    return _sketch.frequency(candidate._key) > _sketch.frequency(victim._key);
+  }
+
+  private void evictNode(Node<K, V> node) {
+    _data.remove(node._key, node);
+    unlink(node);
+  }
+
+  private static int ceilingPowerOfTwo(int x) {
+    return 1 << -Integer.numberOfLeadingZeros(Math.max(x, 1) - 1);
+  }
+
+  enum Queue {
+    NEW, WINDOW, PROBATION, PROTECTED, DEAD
+  }
+
+  static final class Node<K, V> {
+    final K _key;
+    final V _value;
+    final int _weight;
+    final long _writeTime;
+
+    // Guarded by the eviction lock
+    Queue _queue = Queue.NEW;
+    Node<K, V> _prev;
+    Node<K, V> _next;
+
+    Node(K key, V value, int weight, long writeTime) {
+      _key = key;
+      _value = value;
+      _weight = weight;
+      _writeTime = writeTime;
+    }
+  }
+
+  /**
+   * An intrusive doubly-linked list of nodes, least recently used first
+   */
+  static final class AccessOrderDeque<K, V> {
+    private Node<K, V> _first;
+    private Node<K, V> _last;
+
+    Node<K, V> peek() {
+      return _first;
+    }
+
+    Node<K, V> peekNext(Node<K, V> node) {
+      return node._next;
+    }
+
+    Node<K, V> poll() {
+      Node<K, V> first = _first;
+      if (first != null) {
+        remove(first);
+      }
+      return first;
+    }
+
+    void add(Node<K, V> node) {
+      node._prev = _last;
+      node._next = null;
+      if (_last == null) {
+        _first = node;
+      }
+      else {
+        _last._next = node;
+      }
+      _last = node;
+    }
+
+    void remove(Node<K, V> node) {
+      if (node._prev == null) {
+        _first = node._next;
+      }
+      else {
+        node._prev._next = node._next;
+      }
+      if (node._next == null) {
+        _last = node._prev;
+      }
+      else {
+        node._next._prev = node._prev;
+      }
+      node._prev = null;
+      node._next = null;
+    }
+
+    void moveToBack(Node<K, V> node) {
+      if (node != _last) {
+        remove(node);
+        add(node);
+      }
+    }
+  }
+
+  /**
+   * A ring buffer of recent hits, written by readers and drained under the eviction lock
+   */
+  static final class ReadBuffer {
+    final AtomicLong _writeCount = new AtomicLong();
+    volatile long _readCount;
+    final AtomicReferenceArray<Object> _slots = new AtomicReferenceArray<Object>(READ_BUFFER_SIZE);
+
+    void clear() {
+      for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+        _slots.lazySet(i, null);
+      }
+      _readCount = _writeCount.get();
+    }
+  }
+}
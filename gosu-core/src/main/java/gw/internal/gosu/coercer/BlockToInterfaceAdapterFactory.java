@@ -0,0 +1,396 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.coercer;
+
+import gw.internal.ext.org.objectweb.asm.ClassWriter;
+import gw.internal.ext.org.objectweb.asm.MethodVisitor;
+import gw.internal.ext.org.objectweb.asm.Opcodes;
+import gw.internal.ext.org.objectweb.asm.Type;
+import gw.config.CommonServices;
+import gw.internal.gosu.loader.GeneratedClassLoader;
+import gw.internal.gosu.parser.TypeLord;
+import gw.lang.function.IBlock;
+import gw.lang.parser.IBlockClass;
+import gw.lang.parser.coercers.FunctionToInterfaceCoercer;
+import gw.lang.reflect.AbstractTypeSystemListener;
+import gw.lang.reflect.IFunctionType;
+import gw.lang.reflect.IType;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.gs.IGosuObject;
+import gw.lang.reflect.java.IJavaType;
+import gw.lang.reflect.java.JavaTypes;
+import gw.util.GosuExceptionUtil;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.ConstantCallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Adapts blocks to Java functional interfaces (Runnable, Comparator, Callable...) with a class
+ * generated directly as bytecode for each interface.  The adapter implements the interface's
+ * single abstract method by passing its arguments to the block's invokeWithArgs() and coercing
+ * the result to the method's return type, just like the Gosu proxy classes generated by
+ * {@link FunctionToInterfaceClassGenerator} for the interfaces this can't adapt, Gosu interfaces
+ * and non-public ones.
+ * <p>
+ * An interface's adapter is generated the first time a block is coerced to it and is cached here
+ * by interface, thereafter finding it takes no lock.  Adapters are defined in a class loader of
+ * their own, a child of the interface's loader.  The cache is held by this class rather than by the
+ * interfaces' Class objects, since adapters refer to Gosu's classes and one kept on e.g. Runnable
+ * would keep Gosu's class loader alive as long as the JVM.  It is cleared when the type system
+ * refreshes, releasing the interfaces of module class loaders discarded by the refresh.
+ * <p>
+ * Compiled code coercing a block to an interface calls an invokedynamic site bootstrapped by
+ * {@link #bootstrap} that is linked to the adapter's constructor.
+ */
+public class BlockToInterfaceAdapterFactory {
+  public static final String BOOTSTRAP = "bootstrap";
+
+  private static final String ADAPTER_PACKAGE = "gw.internal.gosu.coercer.adapters.";
+  private static final String BLOCK_FIELD = "_block";
+
+  private static final Adapter NO_ADAPTER = new Adapter( null, null );
+  private static final ConcurrentHashMap<Class<?>, Adapter> ADAPTERS = new ConcurrentHashMap<>();
+  @SuppressWarnings({"FieldCanBeLocal"})
+  private static final AbstractTypeSystemListener CLEARER = new AbstractTypeSystemListener() {
+    @Override
+    public void refreshed() {
+      ADAPTERS.clear();
+    }
+  };
+  static {
+    TypeSystem.addTypeLoaderListenerAsWeakRef( CLEARER );
+  }
+
+  /**
+   * @return true if blocks returning blockReturnType coerced to the type are adapted here rather
+   *   than by a Gosu proxy class
+   */
+  public static boolean canAdapt( IType typeToCoerceTo, IType blockReturnType ) {
+    Class<?> iface = getBackingClass( typeToCoerceTo );
+    if( iface == null ) {
+      return false;
+    }
+    Method method = getSingleMethod( iface );
+    return method != null &&
+           !(isNarrowable( typeToCoerceTo, method.getGenericReturnType() ) && narrowsReturnType( typeToCoerceTo, blockReturnType ));
+  }
+
+  /**
+   * @return an instance of the interface delegating to the block, or null if the interface can't
+   *   be adapted here, see {@link #canAdapt}
+   */
+  public static Object adapt( IType typeToCoerceTo, IBlock block ) {
+    Class<?> iface = getBackingClass( typeToCoerceTo );
+    Adapter adapter = iface == null ? null : getAdapter( iface );
+    if( adapter == null ||
+        (isNarrowable( typeToCoerceTo, adapter._returnType ) && narrowsReturnType( typeToCoerceTo, block )) ) {
+      return null;
+    }
+    try {
+      return adapter._constructor.invoke( block );
+    }
+    catch( Throwable t ) {
+      throw GosuExceptionUtil.forceThrow( t );
+    }
+  }
+
+  /**
+   * Links a call site taking a block and returning an interface this can adapt to the adapter's
+   * constructor
+   */
+  public static CallSite bootstrap( MethodHandles.Lookup caller, String name, MethodType type ) {
+    Adapter adapter = getAdapter( type.returnType() );
+    if( adapter == null ) {
+      throw new IllegalStateException( type.returnType().getName() + " can't be adapted from a block" );
+    }
+    return new ConstantCallSite( adapter._constructor.asType( type ) );
+  }
+
+  /**
+   * Called from adapters to coerce what their block returns to their method's return type
+   */
+  public static Object coerceReturnValue( Object value, Class<?> returnType ) {
+    if( value != null && returnType.isInstance( value ) ) {
+      return value;
+    }
+    return CommonServices.getCoercionManager().convertValue( value, TypeSystem.get( returnType ) );
+  }
+
+  private static Class<?> getBackingClass( IType type ) {
+    return type instanceof IJavaType ? ((IJavaType)type).getBackingClass() : null;
+  }
+
+  /**
+   * Adapters coerce what blocks return to the erased return type of the method.  If a type
+   * argument narrows it e.g., Callable<Class>, the block must already return a compatible type,
+   * otherwise a Gosu proxy coerces to the parameterized type.
+   */
+  private static boolean isNarrowable( IType typeToCoerceTo, java.lang.reflect.Type returnType ) {
+    return !(returnType instanceof Class) && typeToCoerceTo.isParameterizedType();
+  }
+
+  private static boolean narrowsReturnType( IType typeToCoerceTo, IBlock block ) {
+    // Blocks made from method references have no block class to tell their return type
+    return !(block.getIntrinsicType() instanceof IBlockClass) ||
+           narrowsReturnType( typeToCoerceTo, block.getFunctionType().getReturnType() );
+  }
+
+  private static boolean narrowsReturnType( IType typeToCoerceTo, IType blockReturnType ) {
+    IFunctionType functionType = FunctionToInterfaceCoercer.getRepresentativeFunctionType( typeToCoerceTo );
+    if( functionType == null ) {
+      return true;
+    }
+    if( blockReturnType.isPrimitive() && blockReturnType != JavaTypes.pVOID() ) {
+      blockReturnType = TypeLord.getBoxedTypeFromPrimitiveType( blockReturnType );
+    }
+    return !functionType.getReturnType().isAssignableFrom( blockReturnType );
+  }
+
+  /**
+   * @return the interface's adapter, or null if it can't be adapted
+   */
+  private static Adapter getAdapter( Class<?> iface ) {
+    Adapter adapter = ADAPTERS.get( iface );
+    if( adapter == null ) {
+      adapter = ADAPTERS.computeIfAbsent( iface, i -> {
+        Adapter made = makeAdapter( i );
+        return made == null ? NO_ADAPTER : made;
+      } );
+    }
+    return adapter == NO_ADAPTER ? null : adapter;
+  }
+
+  private static Adapter makeAdapter( Class<?> iface ) {
+    Method method = getSingleMethod( iface );
+    if( method == null ) {
+      return null;
+    }
+    String name = ADAPTER_PACKAGE + "BlockTo" + iface.getName().replace( '.', '_' ).replace( '$', '_' );
+    byte[] bytes = generateAdapter( name, iface, method );
+    Class<?> adapterClass = new AdapterLoader( iface.getClassLoader() ).define( name, bytes );
+    try {
+      MethodHandle constructor = MethodHandles.publicLookup().findConstructor( adapterClass, MethodType.methodType( void.class, IBlock.class ) )
+        .asType( MethodType.methodType( iface, IBlock.class ) );
+      return new Adapter( constructor, method.getGenericReturnType() );
+    }
+    catch( ReflectiveOperationException e ) {
+      throw GosuExceptionUtil.forceThrow( e );
+    }
+  }
+
+  /**
+   * @return the interface's single abstract method, or null if it isn't a public Java interface
+   *   having exactly one
+   */
+  private static Method getSingleMethod( Class<?> iface ) {
+    if( !iface.isInterface() || !Modifier.isPublic( iface.getModifiers() ) ||
+        IGosuObject.class.isAssignableFrom( iface ) ) {
+      return null;
+    }
+    List<Method> methods = new ArrayList<>();
+    for( Method method : iface.getMethods() ) {
+      if( Modifier.isAbstract( method.getModifiers() ) && !isObjectMethod( method ) && !isOverridden( method, methods ) ) {
+        methods.add( method );
+      }
+    }
+    return methods.size() == 1 ? methods.get( 0 ) : null;
+  }
+
+  private static boolean isObjectMethod( Method method ) {
+    try {
+      return Modifier.isPublic( Object.class.getMethod( method.getName(), method.getParameterTypes() ).getModifiers() );
+    }
+    catch( NoSuchMethodException e ) {
+      return false;
+    }
+  }
+
+  private static boolean isOverridden( Method method, List<Method> methods ) {
+    for( Method m : methods ) {
+      if( m.getName().equals( method.getName() ) &&
+          Type.getMethodDescriptor( m ).equals( Type.getMethodDescriptor( method ) ) ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static byte[] generateAdapter( String name, Class<?> iface, Method method ) {
+    String slashName = name.replace( '.', '/' );
+    String blockName = Type.getInternalName( IBlock.class );
+    String blockDesc = Type.getDescriptor( IBlock.class );
+
+    ClassWriter cw = new ClassWriter( ClassWriter.COMPUTE_MAXS );
+    cw.visit( Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER | Opcodes.ACC_SYNTHETIC,
+              slashName, null, "java/lang/Object", new String[] {Type.getInternalName( iface )} );
+    cw.visitField( Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, BLOCK_FIELD, blockDesc, null, null ).visitEnd();
+
+    MethodVisitor mv = cw.visitMethod( Opcodes.ACC_PUBLIC, "<init>", "(" + blockDesc + ")V", null, null );
+    mv.visitCode();
+    mv.visitVarInsn( Opcodes.ALOAD, 0 );
+    mv.visitMethodInsn( Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false );
+    mv.visitVarInsn( Opcodes.ALOAD, 0 );
+    mv.visitVarInsn( Opcodes.ALOAD, 1 );
+    mv.visitFieldInsn( Opcodes.PUTFIELD, slashName, BLOCK_FIELD, blockDesc );
+    mv.visitInsn( Opcodes.RETURN );
+    mv.visitMaxs( 0, 0 );
+    mv.visitEnd();
+
+    mv = cw.visitMethod( Opcodes.ACC_PUBLIC, "toString", "()Ljava/lang/String;", null, null );
+    mv.visitCode();
+    mv.visitVarInsn( Opcodes.ALOAD, 0 );
+    mv.visitFieldInsn( Opcodes.GETFIELD, slashName, BLOCK_FIELD, blockDesc );
+    mv.visitMethodInsn( Opcodes.INVOKEVIRTUAL, "java/lang/Object", "toString", "()Ljava/lang/String;", false );
+    mv.visitInsn( Opcodes.ARETURN );
+    mv.visitMaxs( 0, 0 );
+    mv.visitEnd();
+
+    Type methodType = Type.getType( method );
+    mv = cw.visitMethod( Opcodes.ACC_PUBLIC, method.getName(), methodType.getDescriptor(), null, null );
+    mv.visitCode();
+    mv.visitVarInsn( Opcodes.ALOAD, 0 );
+    mv.visitFieldInsn( Opcodes.GETFIELD, slashName, BLOCK_FIELD, blockDesc );
+    Type[] paramTypes = methodType.getArgumentTypes();
+    pushInt( mv, paramTypes.length );
+    mv.visitTypeInsn( Opcodes.ANEWARRAY, "java/lang/Object" );
+    int iSlot = 1;
+    for( int i = 0; i < paramTypes.length; i++ ) {
+      mv.visitInsn( Opcodes.DUP );
+      pushInt( mv, i );
+      mv.visitVarInsn( paramTypes[i].getOpcode( Opcodes.ILOAD ), iSlot );
+      box( mv, paramTypes[i] );
+      mv.visitInsn( Opcodes.AASTORE );
+      iSlot += paramTypes[i].getSize();
+    }
+    mv.visitMethodInsn( Opcodes.INVOKEINTERFACE, blockName, "invokeWithArgs", "([Ljava/lang/Object;)Ljava/lang/Object;", true );
+    coerceReturnValue( mv, methodType.getReturnType(), method.getReturnType() );
+    mv.visitMaxs( 0, 0 );
+    mv.visitEnd();
+
+    cw.visitEnd();
+    return cw.toByteArray();
+  }
+
+  private static void coerceReturnValue( MethodVisitor mv, Type type, Class<?> returnType ) {
+    if( type.getSort() == Type.VOID ) {
+      mv.visitInsn( Opcodes.POP );
+      mv.visitInsn( Opcodes.RETURN );
+      return;
+    }
+    if( returnType == Object.class ) {
+      mv.visitInsn( Opcodes.ARETURN );
+      return;
+    }
+    if( returnType.isPrimitive() ) {
+      mv.visitFieldInsn( Opcodes.GETSTATIC, getBoxedInternalName( type ), "TYPE", "Ljava/lang/Class;" );
+    }
+    else {
+      mv.visitLdcInsn( type );
+    }
+    mv.visitMethodInsn( Opcodes.INVOKESTATIC, Type.getInternalName( BlockToInterfaceAdapterFactory.class ), "coerceReturnValue",
+                        "(Ljava/lang/Object;Ljava/lang/Class;)Ljava/lang/Object;", false );
+    if( returnType.isPrimitive() ) {
+      String boxed = getBoxedInternalName( type );
+      mv.visitTypeInsn( Opcodes.CHECKCAST, boxed );
+      mv.visitMethodInsn( Opcodes.INVOKEVIRTUAL, boxed, type.getClassName() + "Value", "()" + type.getDescriptor(), false );
+    }
+    else {
+      mv.visitTypeInsn( Opcodes.CHECKCAST, type.getInternalName() );
+    }
+    mv.visitInsn( type.getOpcode( Opcodes.IRETURN ) );
+  }
+
+  private static void box( MethodVisitor mv, Type type ) {
+    if( type.getSort() != Type.OBJECT && type.getSort() != Type.ARRAY ) {
+      String boxed = getBoxedInternalName( type );
+      mv.visitMethodInsn( Opcodes.INVOKESTATIC, boxed, "valueOf", "(" + type.getDescriptor() + ")L" + boxed + ";", false );
+    }
+  }
+
+  private static String getBoxedInternalName( Type type ) {
+    switch( type.getSort() ) {
+      case Type.BOOLEAN:
+        return "java/lang/Boolean";
+      case Type.CHAR:
+        return "java/lang/Character";
+      case Type.BYTE:
+        return "java/lang/Byte";
+      case Type.SHORT:
+        return "java/lang/Short";
+      case Type.INT:
+        return "java/lang/Integer";
+      case Type.FLOAT:
+        return "java/lang/Float";
+      case Type.LONG:
+        return "java/lang/Long";
+      case Type.DOUBLE:
+        return "java/lang/Double";
+      default:
+        throw new IllegalArgumentException( type.getDescriptor() );
+    }
+  }
+
+  private static void pushInt( MethodVisitor mv, int i ) {
+    if( i <= 5 ) {
+      mv.visitInsn( Opcodes.ICONST_0 + i );
+    }
+    else if( i <= Byte.MAX_VALUE ) {
+      mv.visitIntInsn( Opcodes.BIPUSH, i );
+    }
+    else {
+      mv.visitIntInsn( Opcodes.SIPUSH, i );
+    }
+  }
+
+  private static class Adapter {
+    private final MethodHandle _constructor;
+    private final java.lang.reflect.Type _returnType;
+
+    Adapter( MethodHandle constructor, java.lang.reflect.Type returnType ) {
+      _constructor = constructor;
+      _returnType = returnType;
+    }
+  }
+
+  /**
+   * Defines an adapter in a child of its interface's loader, resolving the Gosu classes the
+   * adapter refers to from Gosu's own loader since the interface's, e.g. the bootstrap loader for
+   * Runnable, may not see them.  An adapter has no type of its own, it is typed as the interface
+   * it implements.
+   */
+  private static class AdapterLoader extends GeneratedClassLoader {
+    AdapterLoader( ClassLoader parent ) {
+      super( parent );
+    }
+
+    @Override
+    protected Class<?> loadClass( String name, boolean resolve ) throws ClassNotFoundException {
+      if( name.equals( IBlock.class.getName() ) ) {
+        return IBlock.class;
+      }
+      if( name.equals( BlockToInterfaceAdapterFactory.class.getName() ) ) {
+        return BlockToInterfaceAdapterFactory.class;
+      }
+      return super.loadClass( name, resolve );
+    }
+
+    @Override
+    public Class<?> getTypedAs( Class<?> cls ) {
+      return cls.getInterfaces()[0];
+    }
+
+    Class<?> define( String name, byte[] bytes ) {
+      return defineClass( name, bytes, 0, bytes.length );
+    }
+  }
+}
@@ -7,6 +7,7 @@ package gw.internal.gosu.coercer;
 import gw.internal.gosu.compiler.GosuClassLoader;
 import gw.internal.gosu.parser.IGosuClassInternal;
 import gw.internal.gosu.parser.TypeLord;
+import gw.lang.function.IBlock;
 import gw.lang.parser.IHasInnerClass;
 import gw.lang.parser.ISource;
 import gw.lang.parser.TypeVarToTypeMap;
@@ -37,6 +38,27 @@ public class FunctionToInterfaceClassGenerator {
   private static final Map<String, String> MAP = new HashMap<>();
   public static final String PROXY_FOR = "ProxyFor_";
 
+  /**
+   * @return an instance of the interface delegating to the block, an adapter from
+   *   {@link BlockToInterfaceAdapterFactory} if it handles the interface, otherwise a proxy class
+   *   generated here
+   */
+  public static Object coerceBlockToInterface( IType typeToCoerceTo, IBlock block ) {
+    Object adapter = BlockToInterfaceAdapterFactory.adapt( typeToCoerceTo, block );
+    if( adapter != null ) {
+      return adapter;
+    }
+    // Blocks compiled to lambdas have no enclosing class, their proxies go in the top-level holder
+    Class<?> enclosingClass = block.getClass().getEnclosingClass();
+    IGosuClass proxyClass = getBlockToInterfaceConversionClass( typeToCoerceTo, enclosingClass == null ? null : TypeSystem.get( enclosingClass ) );
+    try {
+      return proxyClass.getBackingClass().getConstructor( IBlock.class ).newInstance( block );
+    }
+    catch( Exception e ) {
+      throw new RuntimeException( e );
+    }
+  }
+
   public static synchronized IGosuClass getBlockToInterfaceConversionClass( IType typeToCoerceTo, IType enclosingType ) {
     if( !(enclosingType instanceof IGosuClass) ) {
       // The enclosing type could be a GosuFragment, for example, which isn't compiled
@@ -0,0 +1,445 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.compiler;
+
+import gw.config.CommonServices;
+import gw.fs.IFile;
+import gw.internal.ext.org.objectweb.asm.ClassReader;
+import gw.internal.ext.org.objectweb.asm.ClassVisitor;
+import gw.internal.ext.org.objectweb.asm.Opcodes;
+import gw.internal.ext.org.objectweb.asm.commons.Remapper;
+import gw.internal.ext.org.objectweb.asm.commons.RemappingClassAdapter;
+import gw.internal.gosu.coercer.FunctionToInterfaceClassGenerator;
+import gw.internal.gosu.ir.TransformingCompiler;
+import gw.internal.gosu.parser.IBlockClassInternal;
+import gw.internal.gosu.parser.ICompilableTypeInternal;
+import gw.internal.gosu.parser.IGosuClassInternal;
+import gw.internal.gosu.parser.TypeLord;
+import gw.lang.Gosu;
+import gw.lang.parser.TypeSystemAwareCache;
+import gw.lang.reflect.IType;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.gs.BytecodeOptions;
+import gw.lang.reflect.gs.GosuClassPathThing;
+import gw.lang.reflect.gs.ICompilableType;
+import gw.lang.reflect.gs.IGosuProgram;
+import gw.lang.reflect.gs.ISourceFileHandle;
+import gw.util.fingerprint.FP64;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A persistent cache of the bytecode {@link GosuClassLoader} compiles from Gosu source, so that
+ * after a JVM restart classes compiled in a previous run are loaded without compiling their
+ * bodies to bytecode again.  The type itself is still loaded and its declarations parsed by its
+ * type loader first.  The cache is opt-in, see {@link BytecodeOptions#getBytecodeCacheDir()}.
+ * <p>
+ * There is one entry file per class, containing the class file along with what it was compiled
+ * from: the compiler (Gosu version, gosu-core build, Java version and options affecting the
+ * bytecode), a fingerprint of the source file declaring the class and fingerprints of the types
+ * it depends on: those the class file references and the supertypes and interfaces of the class
+ * and its enclosing types, transitively.  A Gosu type is fingerprinted by its source file, a
+ * Java type by its class file.  An entry is used only if all of these still match, otherwise
+ * the class is compiled as usual and the entry replaced.
+ * <p>
+ * Compiling a class also marks which of its blocks were compiled to lambdas instead of classes
+ * of their own, see {@link IBlockClassInternal#isCompiledToLambda()}.  The entry records these
+ * blocks and a hit marks them again, as if the class had been compiled.
+ * <p>
+ * Only classes from source files are cached; programs, fragments and other types without a
+ * source file are always compiled, as are block-to-interface proxies and the classes using them
+ * (a proxy can only be resolved after compiling the class that needs it).  Types that are
+ * neither from a source file nor from a class file (e.g. generated by a custom type loader)
+ * can't be fingerprinted and are assumed not to change between runs.
+ */
+class BytecodeCache
+{
+  private static final String FORMAT = "gosu-bytecode-cache 2";
+  private static final String ENTRY_EXT = ".gsbc";
+  private static final String UNRESOLVED = "-";
+  private static final String[] IGNORED_NAMESPACES = {"java/", "javax/", "sun/"};
+
+  private static String _compilerKey;
+
+  private final File _dir;
+  private final TypeSystemAwareCache<String, String> _fingerprints =
+    TypeSystemAwareCache.make( "Bytecode Cache Fingerprints", 10000, this::computeFingerprint );
+
+  BytecodeCache( File dir )
+  {
+    _dir = dir;
+  }
+
+  File getDir()
+  {
+    return _dir;
+  }
+
+  /**
+   * @return the cached bytecode for the class if it is still up to date, otherwise null
+   */
+  byte[] get( ICompilableType gsClass )
+  {
+    if( !isCacheable( gsClass ) )
+    {
+      return null;
+    }
+    File entry = getEntryFile( gsClass );
+    if( !entry.isFile() )
+    {
+      return null;
+    }
+    try( DataInputStream in = new DataInputStream( new ByteArrayInputStream( Files.readAllBytes( entry.toPath() ) ) ) )
+    {
+      if( !FORMAT.equals( in.readUTF() ) ||
+          !getCompilerKey().equals( in.readUTF() ) ||
+          !getSourceFingerprint( gsClass ).equals( in.readUTF() ) )
+      {
+        return null;
+      }
+      int iDeps = in.readInt();
+      for( int i = 0; i < iDeps; i++ )
+      {
+        String dep = in.readUTF();
+        if( !in.readUTF().equals( _fingerprints.get( dep ) ) )
+        {
+          return null;
+        }
+      }
+      Set<String> lambdaBlocks = new HashSet<>();
+      int iLambdaBlocks = in.readInt();
+      for( int i = 0; i < iLambdaBlocks; i++ )
+      {
+        lambdaBlocks.add( in.readUTF() );
+      }
+      byte[] bytes = new byte[in.readInt()];
+      in.readFully( bytes );
+      // Only once the whole entry is read, a partial one must not change any block
+      for( IBlockClassInternal block : getOwnBlocks( gsClass ) )
+      {
+        block.setCompiledToLambda( lambdaBlocks.contains( block.getRelativeName() ) );
+      }
+      return bytes;
+    }
+    catch( IOException e )
+    {
+      // A truncated or otherwise unreadable entry is just a miss, it is rewritten after compiling
+      return null;
+    }
+  }
+
+  /**
+   * Stores the compiled bytecode of the class
+   */
+  void put( ICompilableType gsClass, byte[] bytes )
+  {
+    if( !isCacheable( gsClass ) || !gsClass.isValid() || referencesProxy( bytes ) )
+    {
+      return;
+    }
+    Map<String, String> deps = new LinkedHashMap<>();
+    for( String dep : getDependencies( gsClass, bytes ) )
+    {
+      deps.put( dep, _fingerprints.get( dep ) );
+    }
+    File entry = getEntryFile( gsClass );
+    try
+    {
+      entry.getParentFile().mkdirs();
+      // Write to a temp file and rename, other JVMs may share the directory
+      File temp = File.createTempFile( entry.getName(), ".tmp", entry.getParentFile() );
+      try( DataOutputStream out = new DataOutputStream( new FileOutputStream( temp ) ) )
+      {
+        out.writeUTF( FORMAT );
+        out.writeUTF( getCompilerKey() );
+        out.writeUTF( getSourceFingerprint( gsClass ) );
+        out.writeInt( deps.size() );
+        for( Map.Entry<String, String> dep : deps.entrySet() )
+        {
+          out.writeUTF( dep.getKey() );
+          out.writeUTF( dep.getValue() );
+        }
+        List<String> lambdaBlocks = new ArrayList<>();
+        for( IBlockClassInternal block : getOwnBlocks( gsClass ) )
+        {
+          if( block.isCompiledToLambda() )
+          {
+            lambdaBlocks.add( block.getRelativeName() );
+          }
+        }
+        out.writeInt( lambdaBlocks.size() );
+        for( String block : lambdaBlocks )
+        {
+          out.writeUTF( block );
+        }
+        out.writeInt( bytes.length );
+        out.write( bytes );
+      }
+      Files.move( temp.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+    }
+    catch( IOException e )
+    {
+      // The cache is an optimization, a class that can't be cached is compiled again next time
+      CommonServices.getEntityAccess().getLogger().warn( "Could not write bytecode cache entry for " + gsClass.getName() + ": " + e );
+    }
+  }
+
+  private boolean isCacheable( ICompilableType gsClass )
+  {
+    if( !(gsClass instanceof IGosuClassInternal) || gsClass instanceof IGosuProgram || gsClass.isParameterizedType() ||
+        gsClass.getRelativeName().startsWith( FunctionToInterfaceClassGenerator.PROXY_FOR ) )
+    {
+      return false;
+    }
+    IType outer = TypeLord.getOuterMostEnclosingClass( gsClass );
+    return outer instanceof ICompilableType && !(outer instanceof IGosuProgram) && getSourceFile( (ICompilableType)outer ) != null;
+  }
+
+  /**
+   * @return the blocks whose enclosing type is the class, only these can be compiled to lambdas
+   *   of the class, a nested block is compiled with the block enclosing it
+   */
+  private static List<IBlockClassInternal> getOwnBlocks( ICompilableType gsClass )
+  {
+    List<IBlockClassInternal> blocks = new ArrayList<>();
+    ICompilableTypeInternal type = (ICompilableTypeInternal)gsClass;
+    for( int i = 0; i < type.getBlockCount(); i++ )
+    {
+      IType block = type.getBlock( i );
+      if( block instanceof IBlockClassInternal && block.getEnclosingType() == gsClass )
+      {
+        blocks.add( (IBlockClassInternal)block );
+      }
+    }
+    return blocks;
+  }
+
+  private File getEntryFile( ICompilableType gsClass )
+  {
+    return new File( _dir, getJavaName( gsClass ).replace( '.', File.separatorChar ) + ENTRY_EXT );
+  }
+
+  private String getSourceFingerprint( ICompilableType gsClass )
+  {
+    return _fingerprints.get( getJavaName( TypeLord.getOuterMostEnclosingClass( gsClass ) ).replace( '.', '/' ) );
+  }
+
+  /**
+   * Fingerprints a type referenced from a class file by its internal name, a Gosu type by its
+   * source file and anything else by its class file.
+   */
+  private String computeFingerprint( String internalName )
+  {
+    try
+    {
+      IType type = TypeSystem.getByFullNameIfValidNoJava( getTopLevelName( internalName ).replace( '/', '.' ) );
+      if( type instanceof ICompilableType )
+      {
+        IFile file = getSourceFile( (ICompilableType)type );
+        if( file == null )
+        {
+          return UNRESOLVED;
+        }
+        try( InputStream in = file.openInputStream() )
+        {
+          return new FP64( in ).toHexString();
+        }
+      }
+      URL url = TypeSystem.getGosuClassLoader().getActualLoader().getResource( internalName + ".class" );
+      if( url == null || GosuClassPathThing.GOSU_CLASS_PROTOCOL.equals( url.getProtocol() ) )
+      {
+        return UNRESOLVED;
+      }
+      try( InputStream in = url.openStream() )
+      {
+        return new FP64( in ).toHexString();
+      }
+    }
+    catch( IOException e )
+    {
+      return UNRESOLVED;
+    }
+  }
+
+  private static IFile getSourceFile( ICompilableType type )
+  {
+    ISourceFileHandle sfh = type.getSourceFileHandle();
+    return sfh == null ? null : sfh.getFile();
+  }
+
+  private static String getJavaName( IType type )
+  {
+    return GosuClassLoader.getJavaName( type );
+  }
+
+  private static String getTopLevelName( String internalName )
+  {
+    int iInner = internalName.indexOf( '$' );
+    return iInner < 0 ? internalName : internalName.substring( 0, iInner );
+  }
+
+  private static boolean isIgnored( String internalName )
+  {
+    for( String namespace : IGNORED_NAMESPACES )
+    {
+      if( internalName.startsWith( namespace ) )
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Block-to-interface proxies exist only once the class using them is compiled, they are
+   * referenced by class and by name, so this looks for the name anywhere in the constant pool
+   */
+  private static boolean referencesProxy( byte[] bytes )
+  {
+    byte[] proxyFor = FunctionToInterfaceClassGenerator.PROXY_FOR.getBytes( StandardCharsets.US_ASCII );
+    outer:
+    for( int i = 0; i <= bytes.length - proxyFor.length; i++ )
+    {
+      for( int j = 0; j < proxyFor.length; j++ )
+      {
+        if( bytes[i + j] != proxyFor[j] )
+        {
+          continue outer;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * @return the internal names of the types the bytecode of the class depends on: those referenced
+   *   from its class file along with the supertypes and interfaces of the class and of its enclosing
+   *   types, all the way up.  Members inherited from a supertype are referenced through the
+   *   subclass, so the class file alone doesn't name every type whose change affects it.
+   */
+  static Set<String> getDependencies( ICompilableType gsClass, byte[] bytes )
+  {
+    Set<String> types = readDependencies( bytes );
+    addTypeHierarchy( gsClass, types, new HashSet<>() );
+    String self = getJavaName( TypeLord.getOuterMostEnclosingClass( gsClass ) ).replace( '.', '/' );
+    Set<String> dependencies = new TreeSet<>();
+    for( String dep : types )
+    {
+      if( !isIgnored( dep ) && !getTopLevelName( dep ).equals( self ) )
+      {
+        dependencies.add( dep );
+      }
+    }
+    return dependencies;
+  }
+
+  private static void addTypeHierarchy( IType type, Set<String> types, Set<IType> visited )
+  {
+    if( type == null )
+    {
+      return;
+    }
+    type = TypeLord.getPureGenericType( type );
+    if( type.isArray() || !visited.add( type ) )
+    {
+      return;
+    }
+    types.add( getJavaName( type ).replace( '.', '/' ) );
+    addTypeHierarchy( type.getSupertype(), types, visited );
+    IType[] interfaces = type.getInterfaces();
+    if( interfaces != null )
+    {
+      for( IType iface : interfaces )
+      {
+        addTypeHierarchy( iface, types, visited );
+      }
+    }
+    addTypeHierarchy( type.getEnclosingType(), types, visited );
+  }
+
+  /**
+   * @return the internal names of the types referenced from the class file
+   */
+  private static TreeSet<String> readDependencies( byte[] bytes )
+  {
+    final TreeSet<String> dependencies = new TreeSet<>();
+    Remapper recorder = new Remapper()
+    {
+      @Override
+      public String map( String internalName )
+      {
+        dependencies.add( internalName );
+        return internalName;
+      }
+    };
+    new ClassReader( bytes ).accept( new RemappingClassAdapter( new ClassVisitor( Opcodes.ASM5 ) {}, recorder ), ClassReader.SKIP_DEBUG );
+    return dependencies;
+  }
+
+  /**
+   * Identifies everything besides the source that determines the bytecode
+   */
+  private static synchronized String getCompilerKey()
+  {
+    if( _compilerKey == null )
+    {
+      _compilerKey = Gosu.getVersion() + ";" + getBuildStamp() +
+                     ";java=" + System.getProperty( "java.version" ) +
+                     ";checkedArithmetic=" + Boolean.getBoolean( "checkedArithmetic" );
+    }
+    // Options that can change at runtime
+    return _compilerKey +
+           ";annotations=" + BytecodeOptions.isGenerateAnnotationsToClassFiles() +
+           ";profileMethods=" + BytecodeOptions.isProfileMethods() +
+           ";lambdaBlocks=" + BytecodeOptions.isLambdaBlocks();
+  }
+
+  /**
+   * @return the size and time stamp of the gosu-core jar, or of a compiler class file when
+   *   running from a directory
+   */
+  private static String getBuildStamp()
+  {
+    CodeSource codeSource = TransformingCompiler.class.getProtectionDomain().getCodeSource();
+    File location = null;
+    try
+    {
+      if( codeSource != null && codeSource.getLocation() != null )
+      {
+        location = new File( codeSource.getLocation().toURI() );
+        if( location.isDirectory() )
+        {
+          location = new File( location, TransformingCompiler.class.getName().replace( '.', File.separatorChar ) + ".class" );
+        }
+      }
+    }
+    catch( Exception e )
+    {
+      location = null;
+    }
+    return location == null || !location.isFile()
+           ? "unknown"
+           : location.length() + ":" + location.lastModified();
+  }
+}
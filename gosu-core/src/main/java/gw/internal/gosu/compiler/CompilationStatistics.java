@@ -4,7 +4,9 @@
 
 package gw.internal.gosu.compiler;
 
+import gw.internal.gosu.ir.compiler.bytecode.IRClassCompiler;
 import gw.internal.gosu.parser.IBlockClassInternal;
+import gw.lang.ir.IRClass;
 import gw.lang.reflect.gs.IGosuProgram;
 import gw.lang.reflect.gs.BytecodeOptions;
 import gw.lang.reflect.gs.ICompilableType;
@@ -31,6 +33,11 @@ public class CompilationStatistics
   long _programPermanent;
   long _otherPermanent;
 
+  long _lambdaBlock;
+  long _lambdaBlockBytes;
+
+  long _capturedByValue;
+
   private static CompilationStatistics INSTANCE = new CompilationStatistics();
 
   private CompilationStatistics(){}
@@ -86,9 +93,53 @@ public class CompilationStatistics
 
     System.out.println( "    * Class : " + gsClass.getName() + ", size : " + length );
     System.out.println( "    * Defined in SingleServingClassLoader : " + singleServingClassLoader );
-    System.out.println( "      * Bytes = total : " + _totalBytes + ", blocks : " + _blockBytes + ", programs : " + _programBytes + ", other : " + _otherBytes );
-    System.out.println( "      * Count = total : " + _total + ", blocks : " + _block + ", programs : " + _program + ", other : " + _other );
+    printTotals();
     System.out.println( "      * Bytes (Permanent) = total : " + _totalBytesPermanent + ", blocks : " + _blockBytesPermanent + ", programs : " + _programBytesPermanent + ", other : " + _otherBytesPermanent );
     System.out.println( "      * Count (Permanent) = total : " + _totalPermanent + ", blocks : " + _blockPermanent + ", programs : " + _programPermanent + ", other : " + _otherPermanent );
   }
+
+  /**
+   * Records a block compiled to a lambda, i.e. a block class that is never generated.  The bytes
+   * are those the block class would have had.
+   */
+  public void collectLambdaBlockStats( IBlockClassInternal blockClass, IRClass blockIrClass )
+  {
+    if( !BytecodeOptions.collectCompilationStatistics() )
+    {
+      return;
+    }
+    long length = IRClassCompiler.compileClass( blockIrClass, false ).length;
+    _lambdaBlockBytes += length;
+    _lambdaBlock++;
+
+    System.out.println( "    * Lambda block : " + blockClass.getName() + ", class size saved : " + length );
+    printTotals();
+  }
+
+  /**
+   * Records the captured symbols of a block or anonymous class held by value, i.e. effectively
+   * final symbols that would otherwise be boxed in one element arrays.
+   */
+  public void collectCapturedByValueStats( ICompilableType gsClass, int iCount )
+  {
+    if( !BytecodeOptions.collectCompilationStatistics() || iCount == 0 )
+    {
+      return;
+    }
+    _capturedByValue += iCount;
+
+    System.out.println( "    * Captured by value : " + gsClass.getName() + ", boxes avoided : " + iCount );
+    System.out.println( "      * Boxes avoided = total : " + _capturedByValue );
+  }
+
+  public long getBoxesAvoided()
+  {
+    return _capturedByValue;
+  }
+
+  private void printTotals()
+  {
+    System.out.println( "      * Bytes = total : " + _totalBytes + ", blocks : " + _blockBytes + ", programs : " + _programBytes + ", other : " + _otherBytes + ", saved by lambda blocks : " + _lambdaBlockBytes );
+    System.out.println( "      * Count = total : " + _total + ", blocks : " + _block + ", programs : " + _program + ", other : " + _other + ", lambda blocks : " + _lambdaBlock );
+  }
 }
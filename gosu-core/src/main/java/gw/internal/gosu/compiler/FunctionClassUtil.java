@@ -4,8 +4,11 @@
 
 package gw.internal.gosu.compiler;
 
+import gw.lang.reflect.IFunctionType;
+import gw.lang.reflect.IType;
 import gw.lang.reflect.TypeSystem;
 import gw.lang.reflect.java.IJavaType;
+import gw.lang.reflect.java.JavaTypes;
 import gw.util.GosuExceptionUtil;
 import gw.lang.function.IBlock;
 
@@ -14,6 +17,7 @@ public class FunctionClassUtil extends ClassLoader
   public static final String FUNCTION_PACKAGE = "gw.lang.function";
   public static final String FUNCTION_CLASS_PREFIX = FUNCTION_PACKAGE + ".Function";
   public static final String FUNCTION_INTERFACE_PREFIX = FUNCTION_PACKAGE + ".IFunction";
+  public static final String SPECIALIZED_INVOKE_METHOD_NAME = "invokePrimitive";
   private static final Class[][] ARGS = new Class[IBlock.MAX_ARGS + 1][];
   static
   {
@@ -49,6 +53,72 @@ public class FunctionClassUtil extends ClassLoader
     return null;
   }
 
+  /**
+   * A block whose signature has primitive parameters or a primitive result implements one of the
+   * interfaces in gw.lang.function named for the signature, e.g. IIntToIntBlock for
+   * block(int):int, besides the IFunction interface for its arity.  Their invokePrimitive()
+   * method takes and returns the primitives, callers knowing the block's type call it to avoid
+   * boxing.  There are such interfaces for blocks of one int, long, double, or reference
+   * parameter returning one of those or boolean, and for blocks of two int, long, or double
+   * parameters returning the same type.
+   *
+   * @return the specialized interface for blocks of the function type, or null if there is none
+   */
+  public static IJavaType getSpecializedFunctionInterface( IFunctionType functionType )
+  {
+    IType[] paramTypes = functionType.getParameterTypes();
+    IType returnType = functionType.getReturnType();
+    if( paramTypes.length == 0 || paramTypes.length > 2 ||
+        returnType == JavaTypes.pVOID() || returnType == null )
+    {
+      return null;
+    }
+    StringBuilder name = new StringBuilder( FUNCTION_PACKAGE ).append( ".I" );
+    boolean bPrimitive = false;
+    for( IType paramType : paramTypes )
+    {
+      String strName = getSpecializedTypeName( paramType );
+      if( strName == null || strName.equals( "Boolean" ) )
+      {
+        return null;
+      }
+      bPrimitive |= paramType.isPrimitive();
+      name.append( strName );
+    }
+    String strReturnName = getSpecializedTypeName( returnType );
+    if( strReturnName == null || (!bPrimitive && !returnType.isPrimitive()) )
+    {
+      return null;
+    }
+    name.append( "To" ).append( strReturnName ).append( "Block" );
+    return (IJavaType)TypeSystem.getByFullNameIfValid( name.toString(), TypeSystem.getGlobalModule() );
+  }
+
+  private static String getSpecializedTypeName( IType type )
+  {
+    if( !type.isPrimitive() )
+    {
+      return "Object";
+    }
+    if( type == JavaTypes.pINT() )
+    {
+      return "Int";
+    }
+    if( type == JavaTypes.pLONG() )
+    {
+      return "Long";
+    }
+    if( type == JavaTypes.pDOUBLE() )
+    {
+      return "Double";
+    }
+    if( type == JavaTypes.pBOOLEAN() )
+    {
+      return "Boolean";
+    }
+    return null;
+  }
+
   public static String getFunctionInterfaceSlashNameForArity( int arity )
   {
     return "gw/lang/function/IFunction" + arity;
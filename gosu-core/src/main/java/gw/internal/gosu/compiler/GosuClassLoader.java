@@ -8,6 +8,7 @@ import gw.config.CommonServices;
 import gw.internal.gosu.ir.TransformingCompiler;
 import gw.internal.gosu.ir.transform.AbstractElementTransformer;
 import gw.internal.gosu.parser.ExecutionEnvironment;
+import gw.internal.gosu.parser.IBlockClassInternal;
 import gw.internal.gosu.parser.ICompilableTypeInternal;
 import gw.internal.gosu.parser.IGosuClassInternal;
 import gw.internal.gosu.parser.IGosuProgramInternal;
@@ -31,6 +32,7 @@ import gw.lang.reflect.java.JavaTypes;
 import gw.lang.reflect.module.TypeSystemLockHelper;
 import gw.util.GosuExceptionUtil;
 
+import java.io.File;
 import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
@@ -43,6 +45,7 @@ public class GosuClassLoader implements IGosuClassLoader
 {
   private DiscreteLoaderCache _discreteLoaders = new DiscreteLoaderCache();
   private ClassLoader _loader;
+  private volatile BytecodeCache _bytecodeCache;
 
 
   //## For tests only
@@ -67,7 +70,18 @@ public class GosuClassLoader implements IGosuClassLoader
   {
     try
     {
-      return compileClass( gsClass, false );
+      BytecodeCache cache = getBytecodeCache();
+      if( cache == null )
+      {
+        return compileClassAndCollectStats( gsClass );
+      }
+      byte[] bytes = cache.get( gsClass );
+      if( bytes == null )
+      {
+        bytes = compileClassAndCollectStats( gsClass );
+        cache.put( gsClass, bytes );
+      }
+      return bytes;
     }
     catch( Exception pre )
     {
@@ -75,6 +89,24 @@ public class GosuClassLoader implements IGosuClassLoader
     }
   }
 
+  /**
+   * @return the persistent bytecode cache for the directory configured in BytecodeOptions, or null if there is none
+   */
+  private BytecodeCache getBytecodeCache()
+  {
+    File dir = BytecodeOptions.getBytecodeCacheDir();
+    if( dir == null )
+    {
+      return null;
+    }
+    BytecodeCache cache = _bytecodeCache;
+    if( cache == null || !cache.getDir().equals( dir ) )
+    {
+      _bytecodeCache = cache = new BytecodeCache( dir );
+    }
+    return cache;
+  }
+
   public GosuClassLoader( ClassLoader parent )
   {
     assignParent( parent );
@@ -176,6 +208,15 @@ public class GosuClassLoader implements IGosuClassLoader
         return ((IGosuClassInternal)gsClass).getBackingClass();
       }
 
+      if( BytecodeOptions.isAnonymousEvalClasses() && !useSingleServingLoader && TypeLord.isEvalProgram( gsClass ) )
+      {
+        Class cls = maybeDefineAnonymousClass( gsClass );
+        if( cls != null )
+        {
+          return cls;
+        }
+      }
+
       // there is no point in defining eval classes in a single serving class loader (it wastes memory)
       if( useSingleServingLoader || TypeLord.isEvalProgram( gsClass ) || isThrowawayProgram( gsClass ) || isEnclosingTypeInSingleServingLoader( gsClass ) || hasDiscreteNamespace( gsClass.getNamespace() ) )
       {
@@ -300,7 +341,11 @@ public class GosuClassLoader implements IGosuClassLoader
     Class<?> result = loader._defineClass( gsClass );
     // Define all inner classes and blocks, too. Otherwise, they eventually could be loaded through URL handler.
     for (int i = 0; i < gsClass.getBlockCount(); i++) {
-      defineClassInSingleServingLoader( (ICompilableTypeInternal)gsClass.getBlock(i), loader );
+      ICompilableTypeInternal block = (ICompilableTypeInternal)gsClass.getBlock( i );
+      // A block compiled to a lambda has no class
+      if( !(block instanceof IBlockClassInternal) || !((IBlockClassInternal)block).isCompiledToLambda() ) {
+        defineClassInSingleServingLoader( block, loader );
+      }
     }
     if( gsClass.getInnerClasses() != null ) {
       for( IType inner: gsClass.getInnerClasses() ) {
@@ -315,6 +360,59 @@ public class GosuClassLoader implements IGosuClassLoader
     return result;
   }
 
+  /**
+   * Defines an eval program as a class hosted by its enclosing class, a hidden class on JDK 15 and
+   * later and a VM-anonymous class on JDK 8, see {@link HostedClassDefiner}.  The program is not
+   * registered with any loader, it is unloaded as soon as it is unreachable.  A program with blocks
+   * or inner classes is not defined this way since they refer to it by name.
+   *
+   * @return the class, or null if the program can't be defined as a hosted class
+   */
+  private Class maybeDefineAnonymousClass( ICompilableTypeInternal gsClass )
+  {
+    if( !HostedClassDefiner.isSupported() ||
+        gsClass.getBlockCount() > 0 ||
+        (gsClass.getInnerClasses() != null && !gsClass.getInnerClasses().isEmpty()) ||
+        hasDiscreteNamespace( gsClass.getNamespace() ) )
+    {
+      return null;
+    }
+    IType enclosingType = gsClass.getEnclosingType();
+    if( !(enclosingType instanceof IHasJavaClass) && !(enclosingType instanceof IJavaBackedType) )
+    {
+      return null;
+    }
+    Class<?> hostClass = enclosingType instanceof IJavaBackedType
+                         ? ((IJavaBackedType)enclosingType).getBackingClass()
+                         : ((IHasJavaClass)enclosingType).getBackingClass();
+    if( hostClass == null )
+    {
+      return null;
+    }
+
+    byte[] classBytes = compileClass( gsClass, shouldDebugClass( gsClass ) );
+    CompilationStatistics.instance().collectStats( gsClass, classBytes, true );
+    return HostedClassDefiner.define( hostClass, classBytes );
+  }
+
+  /**
+   * @return true if the class was defined as a hosted class, see {@link BytecodeOptions#isAnonymousEvalClasses()}
+   */
+  public static boolean isAnonymousClass( Class cls )
+  {
+    // Both hidden and VM-anonymous class names have a '/' suffix
+    return cls.getName().indexOf( '/' ) > 0;
+  }
+
+  /**
+   * @return true if the VM supports defining hosted classes, otherwise eval programs are always
+   * defined in a single serving loader regardless of {@link BytecodeOptions#isAnonymousEvalClasses()}
+   */
+  public static boolean canDefineAnonymousClasses()
+  {
+    return HostedClassDefiner.isSupported();
+  }
+
   private boolean shouldUseSingleServingLoader(ICompilableTypeInternal gsClass) {
     List<IGosuClassLoadingObserver> observers = CommonServices.getEntityAccess().getGosuClassLoadingObservers();
     if (observers != null) {
@@ -363,6 +461,13 @@ public class GosuClassLoader implements IGosuClassLoader
     }
   }
 
+  private static byte[] compileClassAndCollectStats( ICompilableType type )
+  {
+    byte[] bytes = compileClass( type, false );
+    CompilationStatistics.instance().collectStats( type, bytes, false );
+    return bytes;
+  }
+
   private static byte[] compileClass( ICompilableType type, boolean debug )
   {
     return TransformingCompiler.compileClass( type, debug );
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.compiler;
+
+import gw.util.GosuExceptionUtil;
+import gw.util.concurrent.LocklessLazyVar;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Defines a class hosted by another class instead of by a class loader.  The host resolves the
+ * class's references and grants it access to its private members, the class is registered with no
+ * loader and is unloaded as soon as it is unreachable.  On JDK 15 and later it is a hidden class
+ * defined with Lookup.defineHiddenClass as a nestmate of the host, on JDK 8 a VM-anonymous class
+ * defined with Unsafe.defineAnonymousClass.  Both are reached through reflection, the runtime
+ * still targets Java 8.
+ */
+final class HostedClassDefiner
+{
+  private static final LocklessLazyVar<HostedClassDefiner> INSTANCE = new LocklessLazyVar<HostedClassDefiner>()
+  {
+    @Override
+    protected HostedClassDefiner init()
+    {
+      HostedClassDefiner definer = makeHiddenClassDefiner();
+      return definer != null ? definer : makeAnonymousClassDefiner();
+    }
+  };
+
+  // MethodHandles.privateLookupIn( Class, Lookup ) and Lookup.defineHiddenClass( byte[], boolean, ClassOption... )
+  private final Method _privateLookupIn;
+  private final Method _defineHiddenClass;
+  private final Object _hiddenClassOptions;
+
+  // Unsafe.defineAnonymousClass( Class hostClass, byte[] data, Object[] cpPatches )
+  private final Object _unsafe;
+  private final Method _defineAnonymousClass;
+
+  private HostedClassDefiner( Method privateLookupIn, Method defineHiddenClass, Object hiddenClassOptions,
+                              Object unsafe, Method defineAnonymousClass )
+  {
+    _privateLookupIn = privateLookupIn;
+    _defineHiddenClass = defineHiddenClass;
+    _hiddenClassOptions = hiddenClassOptions;
+    _unsafe = unsafe;
+    _defineAnonymousClass = defineAnonymousClass;
+  }
+
+  /**
+   * @return true if this VM can define hosted classes
+   */
+  static boolean isSupported()
+  {
+    return INSTANCE.get() != null;
+  }
+
+  /**
+   * @param host  the class hosting the new one, the new class must be in its package
+   * @param bytes the class file
+   *
+   * @return the class, or null if the VM can't define it hosted by the host, e.g. because the
+   *   host's loader can't grant gosu-core full access to it on JDK 9 and later
+   */
+  static Class<?> define( Class<?> host, byte[] bytes )
+  {
+    HostedClassDefiner definer = INSTANCE.get();
+    return definer == null ? null : definer.defineHosted( host, bytes );
+  }
+
+  private Class<?> defineHosted( Class<?> host, byte[] bytes )
+  {
+    try
+    {
+      if( _defineHiddenClass != null )
+      {
+        Object lookup = _privateLookupIn.invoke( null, host, MethodHandles.lookup() );
+        return ((MethodHandles.Lookup)_defineHiddenClass.invoke( lookup, bytes, true, _hiddenClassOptions )).lookupClass();
+      }
+      return (Class<?>)_defineAnonymousClass.invoke( _unsafe, host, bytes, null );
+    }
+    catch( InvocationTargetException e )
+    {
+      if( e.getCause() instanceof IllegalAccessException )
+      {
+        // No full privilege access to the host, e.g. it is in another loader's unnamed module
+        return null;
+      }
+      throw GosuExceptionUtil.forceThrow( e.getCause() );
+    }
+    catch( IllegalAccessException e )
+    {
+      throw GosuExceptionUtil.forceThrow( e );
+    }
+  }
+
+  private static HostedClassDefiner makeHiddenClassDefiner()
+  {
+    try
+    {
+      Method privateLookupIn = MethodHandles.class.getMethod( "privateLookupIn", Class.class, MethodHandles.Lookup.class );
+      @SuppressWarnings( "unchecked" )
+      Class<Enum> classOption = (Class<Enum>)Class.forName( "java.lang.invoke.MethodHandles$Lookup$ClassOption" );
+      Object options = Array.newInstance( classOption, 1 );
+      Array.set( options, 0, Enum.valueOf( classOption, "NESTMATE" ) );
+      Method defineHiddenClass = MethodHandles.Lookup.class.getMethod( "defineHiddenClass", byte[].class, boolean.class, options.getClass() );
+      return new HostedClassDefiner( privateLookupIn, defineHiddenClass, options, null, null );
+    }
+    catch( ReflectiveOperationException e )
+    {
+      return null;
+    }
+  }
+
+  private static HostedClassDefiner makeAnonymousClassDefiner()
+  {
+    try
+    {
+      Field theUnsafe = Class.forName( "sun.misc.Unsafe" ).getDeclaredField( "theUnsafe" );
+      theUnsafe.setAccessible( true );
+      Object unsafe = theUnsafe.get( null );
+      Method defineAnonymousClass = unsafe.getClass().getMethod( "defineAnonymousClass", Class.class, byte[].class, Object[].class );
+      return new HostedClassDefiner( null, null, null, unsafe, defineAnonymousClass );
+    }
+    catch( ReflectiveOperationException | RuntimeException e )
+    {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.compiler.protocols.gosuclass;
+
+import gw.lang.reflect.AbstractTypeSystemListener;
+import gw.lang.reflect.IDefaultTypeLoader;
+import gw.lang.reflect.ITypeLoader;
+import gw.lang.reflect.RefreshKind;
+import gw.lang.reflect.RefreshRequest;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.gs.IGosuClass;
+import gw.lang.reflect.gs.IGosuFragment;
+import gw.lang.reflect.gs.IGosuProgram;
+import gw.lang.reflect.module.IModule;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The names of the types Gosu can load, so the gosuclass protocol can reject the names of Java
+ * classes and resources without taking the type system lock or looking them up in the type system.
+ * <p>
+ * The index holds the names of the types in all type loaders but the Java one, and the prefixes those
+ * type loaders handle, which are read when the index is first consulted, along with the names of Gosu
+ * classes made since (e.g., proxies).  A name is a candidate if it or one of its enclosing names (for
+ * inner classes, blocks and names under a handled prefix) is in the index.  Program, eval and fragment
+ * names are always candidates.  The index is rebuilt after the type system is refreshed or its type
+ * loaders change, created types are added as they are refreshed.  A full refresh also forgets the
+ * names of the Gosu classes made so far.
+ */
+public class GosuClassNameIndex {
+  // Accepts all names, used while the index can't be built
+  private static final Set<String> ALL = Collections.emptySet();
+
+  private static final Set<String> CREATED = Collections.newSetFromMap( new ConcurrentHashMap<String, Boolean>() );
+  private static volatile Set<String> INDEX;
+  private static boolean _bBuilding;
+  private static boolean _bListening;
+
+  private static final LongAdder LOOKUPS = new LongAdder();
+  private static final LongAdder REJECTED = new LongAdder();
+
+  @SuppressWarnings({"FieldCanBeLocal"})
+  private static final AbstractTypeSystemListener INVALIDATOR = new AbstractTypeSystemListener() {
+    @Override
+    public void refreshed() {
+      reset();
+    }
+
+    @Override
+    public void refreshedTypes( RefreshRequest request ) {
+      Set<String> index = INDEX;
+      if( index != null && index != ALL && request.types != null &&
+          (request.kind == RefreshKind.CREATION || request.kind == RefreshKind.MODIFICATION) ) {
+        Collections.addAll( index, request.types );
+      }
+    }
+  };
+
+  /**
+   * @param strType The dot-separated name of a class requested from the gosuclass protocol
+   * @return false if the name can't be the name of a Gosu type or one of its inner classes
+   */
+  public static boolean mightBeGosuType( String strType ) {
+    LOOKUPS.increment();
+    if( isDynamicName( strType ) ) {
+      return true;
+    }
+    Set<String> index = getIndex();
+    if( index == ALL ) {
+      return true;
+    }
+    String strName = strType;
+    while( true ) {
+      if( index.contains( strName ) || CREATED.contains( strName ) ) {
+        return true;
+      }
+      int iDot = strName.lastIndexOf( '.' );
+      if( iDot <= 0 ) {
+        break;
+      }
+      strName = strName.substring( 0, iDot );
+    }
+    REJECTED.increment();
+    return false;
+  }
+
+  /**
+   * Called as Gosu classes are made, so types that don't come from a type loader's files, such as
+   * proxies and parsed classes, are candidates too.
+   */
+  public static void typeCreated( String strType ) {
+    if( !isDynamicName( strType ) ) {
+      CREATED.add( strType );
+    }
+  }
+
+  /**
+   * Forgets the type loaders' names, they are read again when the index is next consulted.
+   */
+  public static void invalidate() {
+    INDEX = null;
+  }
+
+  /**
+   * Forgets the type loaders' names and the names of the Gosu classes made so far.
+   */
+  static void reset() {
+    CREATED.clear();
+    invalidate();
+  }
+
+  /**
+   * @return the number of names checked against the index
+   */
+  public static long getLookupCount() {
+    return LOOKUPS.sum();
+  }
+
+  /**
+   * @return the number of names rejected by the index without looking them up in the type system
+   */
+  public static long getRejectedCount() {
+    return REJECTED.sum();
+  }
+
+  private static boolean isDynamicName( String strType ) {
+    return strType.contains( IGosuProgram.NAME_PREFIX ) ||
+           strType.startsWith( IGosuClass.PROXY_PREFIX ) ||
+           strType.startsWith( IGosuFragment.FRAGMENT_PACKAGE );
+  }
+
+  private static Set<String> getIndex() {
+    Set<String> index = INDEX;
+    if( index != null ) {
+      return index;
+    }
+    TypeSystem.lock();
+    try {
+      if( INDEX != null ) {
+        return INDEX;
+      }
+      if( _bBuilding ) {
+        // Reading type names loaded a class through the protocol
+        return ALL;
+      }
+      if( !_bListening ) {
+        // Not in a static initializer, type loaders invalidate the index while the type system is made
+        TypeSystem.addTypeLoaderListenerAsWeakRef( INVALIDATOR );
+        _bListening = true;
+      }
+      _bBuilding = true;
+      try {
+        INDEX = index = build();
+      }
+      finally {
+        _bBuilding = false;
+      }
+      return index;
+    }
+    finally {
+      TypeSystem.unlock();
+    }
+  }
+
+  private static Set<String> build() {
+    try {
+      Set<String> index = Collections.newSetFromMap( new ConcurrentHashMap<String, Boolean>() );
+      for( IModule module : TypeSystem.getExecutionEnvironment().getModules() ) {
+        for( ITypeLoader loader : module.getTypeLoaders( ITypeLoader.class ) ) {
+          if( loader instanceof IDefaultTypeLoader ) {
+            // Java classes are not loaded through the protocol
+            continue;
+          }
+          for( CharSequence name : loader.getAllTypeNames() ) {
+            index.add( name.toString() );
+          }
+          for( String prefix : loader.getHandledPrefixes() ) {
+            index.add( prefix.endsWith( "." ) ? prefix.substring( 0, prefix.length() - 1 ) : prefix );
+          }
+        }
+      }
+      return index;
+    }
+    catch( RuntimeException e ) {
+      // The type system isn't ready, check every name until it is refreshed or its type loaders change
+      return ALL;
+    }
+  }
+}
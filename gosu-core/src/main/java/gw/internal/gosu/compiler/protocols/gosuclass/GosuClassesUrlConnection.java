@@ -106,6 +106,10 @@ public class GosuClassesUrlConnection extends URLConnection {
       // Never load an eval class here, they should always load in a single-serving loader
       return;
     }
+    if( !GosuClassNameIndex.mightBeGosuType( strType ) ) {
+      // Not a Gosu type, reject it without taking the type system lock
+      return;
+    }
     TypeSystemLockHelper.getTypeSystemLockWithMonitor( loader );
     try {
       IModule global = TypeSystem.getGlobalModule();
@@ -13,6 +13,8 @@ import gw.internal.gosu.ir.transform.GosuFragmentTransformer;
 import gw.internal.gosu.parser.IGosuClassInternal;
 import gw.internal.gosu.parser.fragments.GosuFragment;
 import gw.lang.ir.IRClass;
+import gw.lang.profile.GosuProfiler;
+import gw.lang.profile.Phase;
 import gw.lang.reflect.gs.BytecodeOptions;
 import gw.lang.reflect.gs.ICompilableType;
 
@@ -20,8 +22,16 @@ public class TransformingCompiler
 {
   public static byte[] compileClass( ICompilableType gsClass, boolean debug )
   {
-    IRClass irClass = compileType( gsClass );
-    return _compileClass( gsClass, debug, irClass );
+    GosuProfiler.PhaseTimer timer = GosuProfiler.startPhase( Phase.COMPILE, gsClass.getName() );
+    try
+    {
+      IRClass irClass = compileType( gsClass );
+      return _compileClass( gsClass, debug, irClass );
+    }
+    finally
+    {
+      GosuProfiler.endPhase( timer );
+    }
   }
 
   private static byte[] _compileClass( ICompilableType gsClass, boolean debug, IRClass irClass )
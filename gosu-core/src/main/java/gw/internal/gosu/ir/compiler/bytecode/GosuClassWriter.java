@@ -16,23 +16,32 @@ import gw.internal.gosu.ir.transform.util.IRTypeResolver;
 import gw.internal.gosu.parser.TypeLord;
 import gw.lang.reflect.IType;
 import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.gs.BytecodeOptions;
 import gw.lang.reflect.java.IJavaBackedTypeData;
 import gw.lang.reflect.java.JavaTypes;
 
 public class GosuClassWriter extends ClassVisitor
 {
   private final ClassWriter _cw;
+  private final boolean _bProfileMethods;
+  private String _className;
 
   public GosuClassWriter()
   {
     super( Opcodes.ASM5 );
     _cw = new MyWriter();
+    _bProfileMethods = BytecodeOptions.isProfileMethods();
   }
 
   @Override
   public MethodVisitor visitMethod( int i, String s, String s2, String s3, String[] strings )
   {
-    return new GosuMethodVisitor( _cw.visitMethod( i, s, s2, s3, strings ) );
+    MethodVisitor mv = _cw.visitMethod( i, s, s2, s3, strings );
+    if( _bProfileMethods && ProfilingMethodAdapter.shouldProfile( i, s ) )
+    {
+      mv = new ProfilingMethodAdapter( mv, i, s, s2, _className );
+    }
+    return new GosuMethodVisitor( mv );
   }
 
   public byte[] toByteArray() {
@@ -42,6 +51,7 @@ public class GosuClassWriter extends ClassVisitor
 
   @Override
   public void visit( int version, int access, String name, String signature, String superName, String[] interfaces ) {
+    _className = name.replace( '/', '.' );
     _cw.visit( version, access, name, signature, superName, interfaces );
   }
 
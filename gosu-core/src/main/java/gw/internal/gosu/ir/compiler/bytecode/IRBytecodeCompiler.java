@@ -18,6 +18,7 @@ import gw.internal.gosu.ir.compiler.bytecode.expression.IREqualityExpressionComp
 import gw.internal.gosu.ir.compiler.bytecode.expression.IRFieldGetExpressionCompiler;
 import gw.internal.gosu.ir.compiler.bytecode.expression.IRIdentifierCompiler;
 import gw.internal.gosu.ir.compiler.bytecode.expression.IRInstanceOfExpressionCompiler;
+import gw.internal.gosu.ir.compiler.bytecode.expression.IRInvokeDynamicExpressionCompiler;
 import gw.internal.gosu.ir.compiler.bytecode.expression.IRLazyTypeMethodCallExpressionCompiler;
 import gw.internal.gosu.ir.compiler.bytecode.expression.IRMethodCallExpressionCompiler;
 import gw.internal.gosu.ir.compiler.bytecode.expression.IRNegationExpressionCompiler;
@@ -68,6 +69,7 @@ import gw.lang.ir.expression.IREqualityExpression;
 import gw.lang.ir.expression.IRFieldGetExpression;
 import gw.lang.ir.expression.IRIdentifier;
 import gw.lang.ir.expression.IRInstanceOfExpression;
+import gw.lang.ir.expression.IRInvokeDynamicExpression;
 import gw.lang.ir.expression.IRLazyTypeMethodCallExpression;
 import gw.lang.ir.expression.IRMethodCallExpression;
 import gw.lang.ir.expression.IRNegationExpression;
@@ -188,6 +190,8 @@ public class IRBytecodeCompiler {
         IRFieldGetExpressionCompiler.compile((IRFieldGetExpression) expression, context);
       } else if (expression instanceof IRIdentifier) {
         IRIdentifierCompiler.compile((IRIdentifier) expression, context);
+      } else if (expression instanceof IRInvokeDynamicExpression) {
+        IRInvokeDynamicExpressionCompiler.compile((IRInvokeDynamicExpression) expression, context);
       } else if (expression instanceof IRMethodCallExpression) {
         IRMethodCallExpressionCompiler.compile((IRMethodCallExpression) expression, context);
       } else if (expression instanceof IRLazyTypeMethodCallExpression) {
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.compiler.bytecode;
+
+import gw.internal.ext.org.objectweb.asm.Handle;
+import gw.internal.ext.org.objectweb.asm.Label;
+import gw.internal.ext.org.objectweb.asm.MethodVisitor;
+import gw.internal.ext.org.objectweb.asm.Opcodes;
+import gw.internal.ext.org.objectweb.asm.Type;
+import gw.internal.ext.org.objectweb.asm.commons.LocalVariablesSorter;
+import gw.lang.profile.GosuProfiler;
+import gw.lang.profile.MethodStats;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Instruments a method to record its invocation count and time with {@link GosuProfiler}, see
+ * {@link gw.lang.reflect.gs.BytecodeOptions#isProfileMethods()}.  On entry the method's
+ * {@link MethodStats} is fetched with an invokedynamic instruction bound to a constant, so the
+ * only per call cost is reading the clock and two counter increments; every return and a
+ * catch-all handler around the body record the elapsed time.  Constructors have no such handler,
+ * it would cover the super constructor call, so only constructors that return are recorded.
+ */
+class ProfilingMethodAdapter extends LocalVariablesSorter
+{
+  private static final Type STATS_TYPE = Type.getType( MethodStats.class );
+  private static final Handle BOOTSTRAP =
+    new Handle( Opcodes.H_INVOKESTATIC, Type.getInternalName( GosuProfiler.class ), "bootstrapMethodStats",
+                MethodType.methodType( CallSite.class, MethodHandles.Lookup.class, String.class, MethodType.class, String.class ).toMethodDescriptorString() );
+
+  private final String _methodName;
+  private final boolean _bConstructor;
+  private final Label _start = new Label();
+  private int _statsVar = -1;
+  private int _startVar;
+
+  ProfilingMethodAdapter( MethodVisitor mv, int access, String name, String desc, String className )
+  {
+    super( Opcodes.ASM5, access, desc, mv );
+    _methodName = className + '.' + name + desc;
+    _bConstructor = name.equals( "<init>" );
+  }
+
+  static boolean shouldProfile( int access, String name )
+  {
+    return (access & (Opcodes.ACC_ABSTRACT | Opcodes.ACC_NATIVE | Opcodes.ACC_SYNTHETIC | Opcodes.ACC_BRIDGE)) == 0 &&
+           !name.equals( "<clinit>" );
+  }
+
+  @Override
+  public void visitCode()
+  {
+    super.visitCode();
+    _statsVar = newLocal( STATS_TYPE );
+    _startVar = newLocal( Type.LONG_TYPE );
+    mv.visitInvokeDynamicInsn( "stats", Type.getMethodDescriptor( STATS_TYPE ), BOOTSTRAP, _methodName );
+    mv.visitVarInsn( Opcodes.ASTORE, _statsVar );
+    mv.visitMethodInsn( Opcodes.INVOKESTATIC, "java/lang/System", "nanoTime", "()J", false );
+    mv.visitVarInsn( Opcodes.LSTORE, _startVar );
+    mv.visitLabel( _start );
+  }
+
+  @Override
+  public void visitInsn( int opcode )
+  {
+    // Throws are recorded by the handler, see visitMaxs()
+    if( opcode >= Opcodes.IRETURN && opcode <= Opcodes.RETURN )
+    {
+      record();
+    }
+    super.visitInsn( opcode );
+  }
+
+  @Override
+  public void visitMaxs( int maxStack, int maxLocals )
+  {
+    if( _statsVar >= 0 && !_bConstructor )
+    {
+      Label handler = new Label();
+      mv.visitLabel( handler );
+      record();
+      mv.visitInsn( Opcodes.ATHROW );
+      // Visited last so that it comes last in the exception table, after the method's own handlers
+      mv.visitTryCatchBlock( _start, handler, handler, null );
+    }
+    super.visitMaxs( maxStack, maxLocals );
+  }
+
+  private void record()
+  {
+    mv.visitVarInsn( Opcodes.ALOAD, _statsVar );
+    mv.visitVarInsn( Opcodes.LLOAD, _startVar );
+    mv.visitMethodInsn( Opcodes.INVOKEVIRTUAL, STATS_TYPE.getInternalName(), "record", "(J)V", false );
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.compiler.bytecode.expression;
+
+import gw.internal.ext.org.objectweb.asm.Handle;
+import gw.internal.ext.org.objectweb.asm.Opcodes;
+import gw.internal.gosu.ir.compiler.bytecode.AbstractBytecodeCompiler;
+import gw.internal.gosu.ir.compiler.bytecode.IRBytecodeCompiler;
+import gw.internal.gosu.ir.compiler.bytecode.IRBytecodeContext;
+import gw.lang.ir.IRExpression;
+import gw.lang.ir.IRType;
+import gw.lang.ir.expression.IRInvokeDynamicExpression;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+
+public class IRInvokeDynamicExpressionCompiler extends AbstractBytecodeCompiler {
+
+  private static final String BOOTSTRAP_DESCRIPTOR =
+    MethodType.methodType( CallSite.class, MethodHandles.Lookup.class, String.class, MethodType.class ).toMethodDescriptorString();
+
+  public static void compile( IRInvokeDynamicExpression expression, IRBytecodeContext context ) {
+    for( IRExpression arg : expression.getArgs() ) {
+      IRBytecodeCompiler.compileIRExpression( arg, context );
+    }
+
+    StringBuilder descriptor = new StringBuilder();
+    descriptor.append( "(" );
+    for( IRType param : expression.getParameterTypes() ) {
+      descriptor.append( param.getDescriptor() );
+    }
+    descriptor.append( ")" );
+    descriptor.append( expression.getReturnType().getDescriptor() );
+
+    List<String> bootstrapArgs = expression.getBootstrapArgs();
+    Handle bootstrap = new Handle( Opcodes.H_INVOKESTATIC, expression.getBootstrapOwner().getSlashName(),
+                                   expression.getBootstrapName(), getBootstrapDescriptor( bootstrapArgs.size() ) );
+    context.getMv().visitInvokeDynamicInsn( expression.getName(), descriptor.toString(), bootstrap, bootstrapArgs.toArray() );
+  }
+
+  private static String getBootstrapDescriptor( int iStringArgs ) {
+    if( iStringArgs == 0 ) {
+      return BOOTSTRAP_DESCRIPTOR;
+    }
+    StringBuilder descriptor = new StringBuilder( BOOTSTRAP_DESCRIPTOR.substring( 0, BOOTSTRAP_DESCRIPTOR.indexOf( ')' ) ) );
+    for( int i = 0; i < iStringArgs; i++ ) {
+      descriptor.append( "Ljava/lang/String;" );
+    }
+    return descriptor.append( BOOTSTRAP_DESCRIPTOR.substring( BOOTSTRAP_DESCRIPTOR.indexOf( ')' ) ) ).toString();
+  }
+}
@@ -130,7 +130,7 @@ public class IRMethodForConstructorSymbol implements IRMethod {
       {
         for( ICapturedSymbol sym : capturedSymbols.values() )
         {
-          params.add( IRTypeResolver.getDescriptor( sym.getType().getArrayType() ) );
+          params.add( AbstractElementTransformer.getCapturedSymbolType( sym ) );
         }
       }
     }
@@ -185,7 +185,7 @@ public class IRMethodFromConstructorInfo extends IRFeatureBase implements IRMeth
       {
         for( ICapturedSymbol sym : capturedSymbols.values() )
         {
-          paramTypes.add( IRTypeResolver.getDescriptor( sym.getType().getArrayType() ) );
+          paramTypes.add( AbstractElementTransformer.getCapturedSymbolType( sym ) );
         }
       }
     }
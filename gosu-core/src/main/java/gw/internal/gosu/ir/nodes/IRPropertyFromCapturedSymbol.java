@@ -26,7 +26,8 @@ public class IRPropertyFromCapturedSymbol extends IRFeatureBase implements IRPro
 
   @Override
   public IRType getType() {
-    return maybeReifyFieldType( _owningType, _symbol.getName(), _symbol.getType() ).getArrayType();
+    IRType type = maybeReifyFieldType( _owningType, _symbol.getName(), _symbol.getType() );
+    return _symbol.isValueBoxed() ? type.getArrayType() : type;
   }
 
   @Override
@@ -41,7 +42,8 @@ public class IRPropertyFromCapturedSymbol extends IRFeatureBase implements IRPro
 
   @Override
   public boolean isCaptured() {
-    return true;
+    // Only a reassigned symbol is held in a one element array, an effectively final one is held by value
+    return _symbol.isValueBoxed();
   }
 
   @Override
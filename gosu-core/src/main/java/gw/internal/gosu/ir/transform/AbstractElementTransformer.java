@@ -37,6 +37,7 @@ import gw.internal.gosu.parser.TypeVariableArrayType;
 import gw.internal.gosu.parser.TypeVariableType;
 import gw.internal.gosu.parser.expressions.BlockType;
 import gw.internal.gosu.parser.fragments.GosuFragment;
+import gw.internal.gosu.runtime.DynamicDispatchBootstrap;
 import gw.internal.gosu.runtime.GosuRuntimeMethods;
 import gw.lang.IDimension;
 import gw.lang.ir.IRElement;
@@ -57,6 +58,7 @@ import gw.lang.ir.expression.IRCompositeExpression;
 import gw.lang.ir.expression.IREqualityExpression;
 import gw.lang.ir.expression.IRFieldGetExpression;
 import gw.lang.ir.expression.IRIdentifier;
+import gw.lang.ir.expression.IRInvokeDynamicExpression;
 import gw.lang.ir.expression.IRLazyTypeMethodCallExpression;
 import gw.lang.ir.expression.IRMethodCallExpression;
 import gw.lang.ir.expression.IRNegationExpression;
@@ -206,6 +208,23 @@ public abstract class AbstractElementTransformer<T extends IParsedElement>
     return callMethod( cls, strMethod, paramTypes, null, args );
   }
 
+  /**
+   * Calls one of the reflective member access methods on GosuRuntimeMethods through an invokedynamic
+   * call site that caches the resolved member per receiver class, see DynamicDispatchBootstrap.
+   */
+  public IRExpression callRuntimeMethodDynamically( String strMethod, Class[] paramTypes, List<IRExpression> args )
+  {
+    IRMethod method = IRMethodFactory.createIRMethod( GosuRuntimeMethods.class, strMethod, paramTypes );
+    List<IRType> irParamTypes = method.getAllParameterTypes();
+    List<IRExpression> convertedArgs = new ArrayList<IRExpression>();
+    for( int i = 0; i < args.size(); i++ )
+    {
+      convertedArgs.add( IRArgConverter.castOrConvertIfNecessary( irParamTypes.get( i ), args.get( i ) ) );
+    }
+    return new IRInvokeDynamicExpression( strMethod, method.getOwningIRType(), method.getReturnType(), irParamTypes, convertedArgs,
+                                          getDescriptor( DynamicDispatchBootstrap.class ), DynamicDispatchBootstrap.BOOTSTRAP );
+  }
+
   //TODO-sm Remove this method.
   public IRExpression callMethod( Class cls, String strMethod, Class[] paramTypes, IRExpression root, List<IRExpression> args )
   {
@@ -2671,7 +2690,7 @@ public abstract class AbstractElementTransformer<T extends IParsedElement>
       {
         for( ICapturedSymbol sym : capturedSymbols.values() )
         {
-          params.add( getDescriptor( sym.getType().getArrayType() ) );
+          params.add( getCapturedSymbolType( sym ) );
         }
       }
     }
@@ -2847,7 +2866,7 @@ public abstract class AbstractElementTransformer<T extends IParsedElement>
         {
           if( isCapturedOnEnclosingAnonymousClass( sym, (IGosuClassInternal)type ) )
           {
-            args.add( getInstanceField( getGosuClass(), CAPTURED_VAR_PREFIX + sym.getName(), getDescriptor( sym.getType().getArrayType() ), AccessibilityUtil.forSymbol((IReducedSymbol) sym),
+            args.add( getInstanceField( getGosuClass(), CAPTURED_VAR_PREFIX + sym.getName(), getCapturedSymbolType( sym ), AccessibilityUtil.forSymbol((IReducedSymbol) sym),
                     pushThis()));
           }
           else
@@ -2863,6 +2882,15 @@ public abstract class AbstractElementTransformer<T extends IParsedElement>
     }
   }
 
+  /**
+   * A captured symbol is held in a one element array shared with its enclosing scope if it is
+   * assigned after its declaration, otherwise it's a copy of the symbol's value.
+   */
+  public static IRType getCapturedSymbolType( ICapturedSymbol sym )
+  {
+    return getDescriptor( sym.isValueBoxed() ? sym.getType().getArrayType() : sym.getType() );
+  }
+
   private boolean isCapturedOnEnclosingAnonymousClass( ICapturedSymbol sym, IGosuClassInternal gsClass )
   {
     ICompilableTypeInternal enclosingType = gsClass.getEnclosingType();
@@ -4,16 +4,22 @@
 
 package gw.internal.gosu.ir.transform;
 
+import gw.internal.gosu.compiler.FunctionClassUtil;
 import gw.internal.gosu.parser.DynamicFunctionSymbol;
 import gw.internal.gosu.parser.BlockClass;
+import gw.internal.gosu.parser.IBlockClassInternal;
+import gw.lang.reflect.IFunctionType;
 
 public class DFSFunctionBodyTransformationContext extends FunctionBodyTransformationContext {
 
   private DynamicFunctionSymbol _dfs;
+  private boolean _bSpecializedBlockInvoke;
 
   public DFSFunctionBodyTransformationContext(TopLevelTransformationContext context, boolean isStatic, DynamicFunctionSymbol dfs) {
     super(context, isStatic);
     _dfs = dfs;
+    _bSpecializedBlockInvoke = isBlockInvoke() &&
+                               FunctionClassUtil.getSpecializedFunctionInterface( (IFunctionType)((IBlockClassInternal)context.getGosuClass()).getBlockType() ) != null;
   }
 
   public boolean isBlockInvoke()
@@ -21,6 +27,11 @@ public class DFSFunctionBodyTransformationContext extends FunctionBodyTransforma
     return _dfs.getDisplayName().equals( BlockClass.INVOKE_METHOD_NAME ) && _context.compilingBlock();
   }
 
+  public boolean isSpecializedBlockInvoke()
+  {
+    return _bSpecializedBlockInvoke;
+  }
+
   public DynamicFunctionSymbol getCurrentDFS()
   {
     return _dfs;
@@ -25,6 +25,7 @@ public class FunctionBodyTransformationContext
 
   protected TopLevelTransformationContext _context;
   private boolean _isStatic;
+  private boolean _bThisReferenced;
 
   public FunctionBodyTransformationContext(TopLevelTransformationContext context, boolean isStatic) {
     _context = context;
@@ -105,6 +106,9 @@ public class FunctionBodyTransformationContext
   }
 
   public IRSymbol getSymbol(String symbolName) {
+    if( Keyword.KW_this.getName().equals( symbolName ) ) {
+      _bThisReferenced = true;
+    }
     IRSymbol symbol = _scopes.peek().getSymbol( symbolName );
     if (symbol == null) {
       throw new IllegalStateException("No symbol found named " + symbolName);
@@ -112,6 +116,14 @@ public class FunctionBodyTransformationContext
     return symbol;
   }
 
+  /**
+   * @return true if the body compiled so far refers to this
+   */
+  public boolean isThisReferenced()
+  {
+    return _bThisReferenced;
+  }
+
   public boolean hasSymbol(String symbolName)
   {
     return _scopes.peek().getSymbol( symbolName ) != null;
@@ -141,6 +153,11 @@ public class FunctionBodyTransformationContext
     return false;
   }
 
+  public boolean isSpecializedBlockInvoke()
+  {
+    return false;
+  }
+
   public DynamicFunctionSymbol getCurrentDFS()
   {
     return null;
@@ -37,6 +37,7 @@ import gw.lang.parser.statements.IReturnStatement;
 import gw.lang.parser.statements.IStatementList;
 import gw.lang.parser.statements.ITerminalStatement;
 import gw.lang.parser.statements.IThrowStatement;
+import gw.lang.reflect.IFunctionType;
 import gw.lang.reflect.IRelativeTypeInfo;
 import gw.lang.reflect.IType;
 import gw.lang.reflect.TypeSystem;
@@ -166,7 +167,14 @@ public class FunctionStatementTransformer extends AbstractElementTransformer<Fun
     IType returnType = _dfs.getReturnType();
     boolean[] bAbsolute = {false};
     ITerminalStatement terminalStmt = statement.getLeastSignificantTerminalStatement( bAbsolute );
-    if( _cc().isBlockInvoke() )
+    if( _cc().isSpecializedBlockInvoke() )
+    {
+      if( terminalStmt == null || !bAbsolute[0] || _dfs.isLoopImplicitReturn() )
+      {
+        addImplicitReturn( statements, ((IFunctionType)((IBlockClassInternal)getGosuClass()).getBlockType()).getReturnType() );
+      }
+    }
+    else if( _cc().isBlockInvoke() )
     {
       if( terminalStmt == null || !bAbsolute[0] )
       {
@@ -266,6 +274,11 @@ public class FunctionStatementTransformer extends AbstractElementTransformer<Fun
     for( ISymbol paramSym : getActualArgSymbols() )
     {
       IType actualType = paramSym.getType();
+      if( actualType.isPrimitive() && _cc().isSpecializedBlockInvoke() )
+      {
+        // Passed as is
+        continue;
+      }
       IRSymbol properlyTypedSymbol = new IRSymbol( paramSym.getName() + (paramSym.isValueBoxed() ? "$$unboxedParam" : ""), getDescriptor(actualType), false );
       _cc().putSymbol( properlyTypedSymbol );
 
@@ -5,6 +5,8 @@
 package gw.internal.gosu.ir.transform;
 
 import gw.internal.ext.org.objectweb.asm.Opcodes;
+import gw.internal.gosu.compiler.CompilationStatistics;
+import gw.internal.gosu.compiler.FunctionClassUtil;
 import gw.internal.gosu.ir.nodes.GosuClassIRType;
 import gw.internal.gosu.ir.nodes.IRMethod;
 import gw.internal.gosu.ir.nodes.IRMethodFactory;
@@ -16,6 +18,7 @@ import gw.internal.gosu.ir.transform.util.IRTypeResolver;
 import gw.internal.gosu.ir.transform.util.NameResolver;
 import gw.internal.gosu.parser.AbstractDynamicSymbol;
 import gw.internal.gosu.parser.BlockClass;
+import gw.internal.gosu.parser.IBlockClassInternal;
 import gw.internal.gosu.parser.DynamicFunctionSymbol;
 import gw.internal.gosu.parser.EnumCodePropertySymbol;
 import gw.internal.gosu.parser.EnumDisplayNamePropertySymbol;
@@ -68,6 +71,7 @@ import gw.lang.parser.Keyword;
 import gw.lang.parser.expressions.IVarStatement;
 import gw.lang.parser.statements.IFunctionStatement;
 import gw.lang.reflect.IAnnotationInfo;
+import gw.lang.reflect.IFunctionType;
 import gw.lang.reflect.IMethodInfo;
 import gw.lang.reflect.IModifierInfo;
 import gw.lang.reflect.IParameterInfo;
@@ -118,6 +122,7 @@ public class GosuClassTransformer extends AbstractElementTransformer<ClassStatem
   private IRClass _irClass;
   private GosuClassTransformationContext _context;
   private boolean _bHasAsserts;
+  private boolean _bBlockInvokeReferencesThis;
 
   public static IRClass compile( IGosuClassInternal gsClass )
   {
@@ -125,6 +130,19 @@ public class GosuClassTransformer extends AbstractElementTransformer<ClassStatem
     return cc.compile();
   }
 
+  /**
+   * Compiles a block class whose invoke method is to become a static method of the block's
+   * enclosing class
+   *
+   * @return the block class, or null if its invoke method refers to the block itself
+   */
+  public static IRClass compileBlockForLambda( IBlockClassInternal blockClass )
+  {
+    GosuClassTransformer cc = new GosuClassTransformer( (IGosuClassInternal)blockClass );
+    IRClass irClass = cc.compile();
+    return cc._bBlockInvokeReferencesThis ? null : irClass;
+  }
+
   private GosuClassTransformer( IGosuClassInternal gsClass )
   {
     super( null, (ClassStatement)gsClass.getClassStatement() );
@@ -401,17 +419,23 @@ public class GosuClassTransformer extends AbstractElementTransformer<ClassStatem
 
     if( capturedSymbols != null )
     {
+      int iByValue = 0;
       for( ICapturedSymbol sym : capturedSymbols.values() )
       {
+        if( !sym.isValueBoxed() )
+        {
+          iByValue++;
+        }
         int iModifiers = Opcodes.ACC_FINAL | Opcodes.ACC_SYNTHETIC;
         iModifiers |= (BytecodeOptions.isSingleServingLoader() ? Opcodes.ACC_PUBLIC : Opcodes.ACC_PRIVATE);
         IRFieldDecl fieldDecl = new IRFieldDecl( iModifiers,
                                                  false,
                                                  CAPTURED_VAR_PREFIX + sym.getName(),
-                                                 getDescriptor( sym.getType().getArrayType() ),
+                                                 getCapturedSymbolType( sym ),
                                                  null );
         _irClass.addField( fieldDecl );
       }
+      CompilationStatistics.instance().collectCapturedByValueStats( _gsClass, iByValue );
     }
 
     if( requiresExternalSymbolCapture( _gsClass ) )
@@ -631,7 +655,7 @@ public class GosuClassTransformer extends AbstractElementTransformer<ClassStatem
     {
       for( ICapturedSymbol sym : capturedSymbols.values() )
       {
-        parameters.add( new IRSymbol( getCapturedSymbolParameterName( sym ), getDescriptor( sym.getType().getArrayType() ), false ) );
+        parameters.add( new IRSymbol( getCapturedSymbolParameterName( sym ), getCapturedSymbolType( sym ), false ) );
       }
     }
 
@@ -1311,10 +1335,11 @@ public class GosuClassTransformer extends AbstractElementTransformer<ClassStatem
     maybeAddImplicitEnhancementParameters( dfs, parameters );
     maybeGetTypeVarSymbolTypes( dfs, parameters );
     maybeAddImplicitExternalSymbolsParameter( dfs, parameters );
-    for( ISymbol param : dfs.getArgs() )
+    IJavaType specializedBlockInterface = isBlockInvoke( dfs ) ? getSpecializedBlockInterface() : null;
+    for( ISymbol param : getParameterSymbols( dfs, specializedBlockInterface != null ) )
     {
       String name = param.getName();
-      if( isBlockInvoke( dfs ) )
+      if( isBlockInvoke( dfs ) && !param.getType().isPrimitive() )
       {
         name = name + "$$blockParam";
       }
@@ -1341,6 +1366,10 @@ public class GosuClassTransformer extends AbstractElementTransformer<ClassStatem
         FunctionStatementTransformer funcStmtCompiler = new FunctionStatementTransformer( dfs, _context );
         methodBody = funcStmtCompiler.compile();
         methodBody = maybeWrapProgramEvaluateForManangedProgram( dfs, methodBody );
+        if( isBlockInvoke( dfs ) && _context.isThisReferenced() )
+        {
+          _bBlockInvokeReferencesThis = true;
+        }
       }
       else
       {
@@ -1362,6 +1391,11 @@ public class GosuClassTransformer extends AbstractElementTransformer<ClassStatem
     {
       annotationDefaultValue = new Object[] {CompileTimeExpressionParser.convertValueToInfoFriendlyValue( annotationDefault.evaluate(), getGosuClass().getTypeInfo() )};
     }
+    if( specializedBlockInterface != null )
+    {
+      compileSpecializedBlockInvoke( dfs, methodBody, parameters );
+      return;
+    }
     IRMethodStatement method = new IRMethodStatement( methodBody,
                                                       NameResolver.getFunctionName( dfs ),
                                                       getModifiers( dfs ),
@@ -1376,6 +1410,52 @@ public class GosuClassTransformer extends AbstractElementTransformer<ClassStatem
     _irClass.addMethod( method );
   }
 
+  /**
+   * The invoke method of a block implementing a primitive-specialized function interface takes
+   * the block's primitive arguments as is, see {@link FunctionClassUtil#getSpecializedFunctionInterface}
+   */
+  private List<ISymbol> getParameterSymbols( DynamicFunctionSymbol dfs, boolean bSpecializedBlockInvoke )
+  {
+    List<ISymbol> args = dfs.getArgs();
+    if( !bSpecializedBlockInvoke )
+    {
+      return args;
+    }
+    List<ISymbol> blockArgs = ((IBlockClassInternal)_gsClass).getBlock().getArgs();
+    List<ISymbol> params = new ArrayList<ISymbol>( args.size() );
+    for( int i = 0; i < args.size(); i++ )
+    {
+      params.add( blockArgs.get( i ).getType().isPrimitive() ? blockArgs.get( i ) : args.get( i ) );
+    }
+    return params;
+  }
+
+  /**
+   * Compiles the block's invoke method as the invokePrimitive() method of its specialized function
+   * interface, the interface's default invoke() method unboxes the arguments and calls it.
+   */
+  private void compileSpecializedBlockInvoke( DynamicFunctionSymbol dfs, IRStatement methodBody, List<IRSymbol> parameters )
+  {
+    IType returnType = ((IFunctionType)((IBlockClassInternal)_gsClass).getBlockType()).getReturnType();
+    _irClass.addMethod( new IRMethodStatement( methodBody,
+                                               FunctionClassUtil.SPECIALIZED_INVOKE_METHOD_NAME,
+                                               getModifiers( dfs ),
+                                               dfs.isInternal(),
+                                               returnType.isPrimitive() ? getDescriptor( returnType ) : getDescriptor( Object.class ),
+                                               parameters ) );
+  }
+
+  /**
+   * @return the primitive-specialized function interface the block being compiled implements, or
+   *   null if not compiling a block or the block's signature has none
+   */
+  private IJavaType getSpecializedBlockInterface()
+  {
+    return _gsClass instanceof IBlockClassInternal
+           ? FunctionClassUtil.getSpecializedFunctionInterface( (IFunctionType)((IBlockClassInternal)_gsClass).getBlockType() )
+           : null;
+  }
+
   /**
    * If this is:
    * <ul>
@@ -1763,7 +1843,7 @@ public class GosuClassTransformer extends AbstractElementTransformer<ClassStatem
       iIndex += (_gsClass.isStatic() ? 0 : 1); // ...one for outer 'this' (if non-static)
       for( ICapturedSymbol sym : capturedSymbols.values() )
       {
-        statements.add( setInstanceField( _gsClass, CAPTURED_VAR_PREFIX + sym.getName(), getDescriptor( sym.getType().getArrayType() ), AccessibilityUtil.forCapturedVar(),
+        statements.add( setInstanceField( _gsClass, CAPTURED_VAR_PREFIX + sym.getName(), getCapturedSymbolType( sym ), AccessibilityUtil.forCapturedVar(),
                                           pushThis(),
                                           identifier( _context.getSymbol( getCapturedSymbolParameterName( sym ) ) ) ) );
       }
@@ -1900,6 +1980,11 @@ public class GosuClassTransformer extends AbstractElementTransformer<ClassStatem
     {
       _irClass.addInterface( iface );
     }
+    IJavaType specializedBlockInterface = getSpecializedBlockInterface();
+    if( specializedBlockInterface != null )
+    {
+      _irClass.addInterface( getDescriptor( specializedBlockInterface ) );
+    }
     _irClass.makeGenericSignature( _gsClass );
   }
 
@@ -93,6 +93,12 @@ public interface TopLevelTransformationContext {
 
   boolean isBlockInvoke();
 
+  /**
+   * @return true if compiling the invoke method of a block implementing a primitive-specialized
+   *   function interface, the method then takes and returns the block's primitives
+   */
+  boolean isSpecializedBlockInvoke();
+
   boolean isFragmentEvaluation();
 
   IRStatement compile( IStatement stmt );
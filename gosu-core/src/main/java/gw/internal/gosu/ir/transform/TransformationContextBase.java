@@ -127,6 +127,10 @@ public abstract class TransformationContextBase implements TopLevelTransformatio
     return _bodyContext.getSymbol( symbolName );
   }
 
+  public boolean isThisReferenced() {
+    return _bodyContext.isThisReferenced();
+  }
+
   @Override
   public boolean hasSymbol( String strSymbol ) {
     return _bodyContext.hasSymbol( strSymbol );
@@ -162,6 +166,11 @@ public abstract class TransformationContextBase implements TopLevelTransformatio
     return _bodyContext.isBlockInvoke();
   }
 
+  @Override
+  public boolean isSpecializedBlockInvoke() {
+    return _bodyContext.isSpecializedBlockInvoke();
+  }
+
   @Override
   public IRSymbol createSymbol(String name, IRType type) {
     return _bodyContext.createSymbol( name, type );
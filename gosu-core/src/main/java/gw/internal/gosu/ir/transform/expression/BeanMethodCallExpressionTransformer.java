@@ -14,7 +14,6 @@ import gw.internal.gosu.parser.expressions.BeanMethodCallExpression;
 import gw.internal.gosu.parser.expressions.Identifier;
 import gw.internal.gosu.parser.expressions.SuperAccess;
 import gw.internal.gosu.parser.statements.BeanMethodCallStatement;
-import gw.internal.gosu.runtime.GosuRuntimeMethods;
 import gw.lang.ir.IRElement;
 import gw.lang.ir.IRExpression;
 import gw.lang.ir.IRSymbol;
@@ -239,7 +238,7 @@ public class BeanMethodCallExpressionTransformer extends AbstractExpressionTrans
       irRoot = irRootExpr;
     }
 
-    IRExpression miCall = callStaticMethod( GosuRuntimeMethods.class, "invokeMethodInfo", new Class[]{IType.class, String.class, IType[].class, Object.class, Object[].class},
+    IRExpression miCall = callRuntimeMethodDynamically( "invokeMethodInfo", new Class[]{IType.class, String.class, IType[].class, Object.class, Object[].class},
             exprList(
                     pushType( mi.getOwnersType(), true ),
                     pushConstant( mi.getDisplayName() ),
@@ -4,27 +4,42 @@
 
 package gw.internal.gosu.ir.transform.expression;
 
+import gw.internal.ext.org.objectweb.asm.Opcodes;
+import gw.internal.gosu.compiler.CompilationStatistics;
+import gw.internal.gosu.compiler.FunctionClassUtil;
 import gw.internal.gosu.ir.nodes.JavaClassIRType;
+import gw.internal.gosu.ir.transform.GosuClassTransformer;
+import gw.internal.gosu.parser.IBlockClassInternal;
 import gw.internal.gosu.parser.expressions.BlockExpression;
+import gw.lang.function.BlockLambdaMetafactory;
+import gw.lang.ir.IRClass;
 import gw.lang.ir.IRStatement;
 import gw.lang.ir.IRSymbol;
 import gw.lang.ir.expression.IRCompositeExpression;
+import gw.lang.ir.expression.IRInvokeDynamicExpression;
 import gw.lang.ir.statement.IRAssignmentStatement;
+import gw.lang.ir.statement.IRMethodStatement;
 import gw.lang.parser.IBlockClass;
 import gw.internal.gosu.ir.transform.TopLevelTransformationContext;
 import gw.lang.ir.IRExpression;
 import gw.lang.ir.IRType;
 import gw.lang.parser.expressions.IBlockExpression;
 import gw.lang.reflect.IBlockType;
+import gw.lang.reflect.IFunctionType;
 import gw.lang.reflect.IType;
+import gw.lang.reflect.java.IJavaType;
+import gw.lang.reflect.gs.BytecodeOptions;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Arrays;
 
 
 public class BlockExpressionTransformer extends AbstractExpressionTransformer<IBlockExpression>
 {
+  public static final String LAMBDA_METHOD_PREFIX = "lambda$";
+
   public BlockExpressionTransformer( TopLevelTransformationContext cc, IBlockExpression parsedElem )
   {
     super( cc, parsedElem );
@@ -44,6 +59,19 @@ public class BlockExpressionTransformer extends AbstractExpressionTransformer<IB
     pushCapturedSymbols( blockClazz, args, false );
     int typeParams = pushTypeParametersForConstructor( _expr(), blockClazz, args, false );
 
+    if( args.isEmpty() && canCompileToLambda( blockClazz ) )
+    {
+      IRExpression lambda = compileToLambda( (IBlockClassInternal)blockClazz );
+      if( lambda != null )
+      {
+        return lambda;
+      }
+    }
+    if( blockClazz instanceof IBlockClassInternal )
+    {
+      ((IBlockClassInternal)blockClazz).setCompiledToLambda( false );
+    }
+
     List<IRType> paramTypes = Arrays.asList( getConstructorParamTypes( new IType[0], typeParams, blockClazz ) );
 
     IRExpression newExpr = buildNewExpression( getDescriptor( blockClazz ), paramTypes, args );
@@ -52,6 +80,96 @@ public class BlockExpressionTransformer extends AbstractExpressionTransformer<IB
     return newExpr;
   }
 
+  /**
+   * A block whose constructor takes nothing, i.e. one that captures neither this nor locals nor
+   * type variables, doesn't need a class of its own.  Its body becomes a private static method
+   * of the enclosing class and the block is created by an invokedynamic call site linked with
+   * LambdaMetafactory, see {@link BlockLambdaMetafactory}.  A block with classes of its own,
+   * e.g. a nested block, is always compiled to a class, they need it as their enclosing class.
+   */
+  private boolean canCompileToLambda( IBlockClass blockClazz )
+  {
+    return BytecodeOptions.isLambdaBlocks() &&
+           blockClazz instanceof IBlockClassInternal &&
+           blockClazz.isValid() &&
+           blockClazz.isStatic() &&
+           blockClazz.getInnerClasses().isEmpty() &&
+           blockClazz.getEnclosingType() == getGosuClass();
+  }
+
+  private IRExpression compileToLambda( IBlockClassInternal blockClazz )
+  {
+    IRClass blockIrClass = GosuClassTransformer.compileBlockForLambda( blockClazz );
+    IRMethodStatement invoke = blockIrClass == null ? null : getInvokeMethod( blockIrClass );
+    if( invoke == null )
+    {
+      // The block needs its instance, e.g. for an eval(), or more than its invoke method
+      return null;
+    }
+
+    String implName = LAMBDA_METHOD_PREFIX + blockClazz.getRelativeName();
+    IRClass irClass = _cc().getIrClass();
+    if( !hasMethod( irClass, implName ) )
+    {
+      // A block in a field initializer is compiled once per constructor
+      irClass.addMethod( new IRMethodStatement( invoke.getMethodBody(), implName,
+                                                Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_SYNTHETIC, false,
+                                                invoke.getReturnType(), invoke.getParameters() ) );
+      CompilationStatistics.instance().collectLambdaBlockStats( blockClazz, blockIrClass );
+    }
+    blockClazz.setCompiledToLambda( true );
+
+    IJavaType specializedInterface = FunctionClassUtil.getSpecializedFunctionInterface( (IFunctionType)blockClazz.getBlockType() );
+    IRType functionInterface = getDescriptor( specializedInterface != null
+                                              ? specializedInterface
+                                              : FunctionClassUtil.getFunctionInterfaceForArity( invoke.getParameters().size() ) );
+    IRExpression newExpr = new IRInvokeDynamicExpression( invoke.getName(), functionInterface, functionInterface,
+                                                          Collections.<IRType>emptyList(), Collections.<IRExpression>emptyList(),
+                                                          getDescriptor( BlockLambdaMetafactory.class ), BlockLambdaMetafactory.BOOTSTRAP,
+                                                          Arrays.asList( implName, blockClazz.getName() ) );
+    newExpr.setImplicit( true );
+    return newExpr;
+  }
+
+  /**
+   * @return the invoke method of the block class, invokePrimitive() if the block implements a
+   *   primitive-specialized function interface, or null if it has other members besides its
+   *   constructor and static initializer
+   */
+  private static IRMethodStatement getInvokeMethod( IRClass blockIrClass )
+  {
+    if( !blockIrClass.getFields().isEmpty() )
+    {
+      return null;
+    }
+    IRMethodStatement invoke = null;
+    for( IRMethodStatement method : blockIrClass.getMethods() )
+    {
+      if( (method.getName().equals( IBlockClass.INVOKE_METHOD_NAME ) ||
+           method.getName().equals( FunctionClassUtil.SPECIALIZED_INVOKE_METHOD_NAME )) && invoke == null )
+      {
+        invoke = method;
+      }
+      else if( !method.getName().equals( "<init>" ) && !method.getName().equals( "<clinit>" ) )
+      {
+        return null;
+      }
+    }
+    return invoke;
+  }
+
+  private static boolean hasMethod( IRClass irClass, String name )
+  {
+    for( IRMethodStatement method : irClass.getMethods() )
+    {
+      if( method.getName().equals( name ) )
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
   public static IRExpression compile( TopLevelTransformationContext cc, BlockExpression blockExpression )
   {
     BlockExpressionTransformer compiler = new BlockExpressionTransformer( cc, blockExpression );
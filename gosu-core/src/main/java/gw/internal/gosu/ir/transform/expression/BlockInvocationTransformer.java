@@ -7,11 +7,18 @@ package gw.internal.gosu.ir.transform.expression;
 import gw.internal.gosu.parser.expressions.BlockInvocation;
 import gw.lang.ir.IRElement;
 import gw.lang.ir.IRExpression;
+import gw.lang.ir.IRSymbol;
+import gw.lang.ir.IRType;
+import gw.lang.ir.IRTypeConstants;
 import gw.internal.gosu.ir.transform.ExpressionTransformer;
 import gw.internal.gosu.ir.transform.TopLevelTransformationContext;
 import gw.internal.gosu.compiler.FunctionClassUtil;
+import gw.internal.gosu.ir.nodes.IRMethodFactory;
 import gw.lang.ir.expression.IRCompositeExpression;
+import gw.lang.ir.expression.IRInstanceOfExpression;
 import gw.lang.parser.IExpression;
+import gw.lang.reflect.IFunctionType;
+import gw.lang.reflect.IRelativeTypeInfo;
 import gw.lang.reflect.IType;
 import gw.lang.reflect.java.IJavaClassInfo;
 import gw.lang.reflect.java.IJavaType;
@@ -34,6 +41,12 @@ public class BlockInvocationTransformer extends AbstractExpressionTransformer<Bl
 
   protected IRExpression compile_impl()
   {
+    IJavaType specializedInterface = getSpecializedInterface();
+    if( specializedInterface != null )
+    {
+      return compileSpecializedInvocation( specializedInterface );
+    }
+
     List<IRExpression> explicitArgs = boxArgs();
     List<IRElement> callElements = handleNamedArgs( explicitArgs, _expr().getNamedArgOrder() );
 
@@ -60,6 +73,96 @@ public class BlockInvocationTransformer extends AbstractExpressionTransformer<Bl
     return call;
   }
 
+  /**
+   * A block of a type having a primitive-specialized function interface implements it, unless
+   * it's e.g. a coerced Java lambda, so the invocation tests the block for the interface and
+   * calls its invokePrimitive() method, sparing boxing the arguments and the result, if it is
+   * one.  Otherwise the block is invoked as usual.
+   */
+  private IRExpression compileSpecializedInvocation( IJavaType specializedInterface )
+  {
+    IFunctionType functionType = (IFunctionType)_expr().getRoot().getType();
+    IType[] paramTypes = functionType.getParameterTypes();
+    IType returnType = _expr().getType();
+
+    List<IRElement> elements = new ArrayList<IRElement>();
+    IRExpression root = ExpressionTransformer.compile( _expr().getRoot(), _cc() );
+    IRSymbol blockSymbol = _cc().makeAndIndexTempSymbol( root.getType() );
+    elements.add( buildAssignment( blockSymbol, root ) );
+
+    List<IRExpression> args = new ArrayList<IRExpression>();
+    List<IRExpression> boxedArgs = new ArrayList<IRExpression>();
+    List<IRType> specializedParamTypes = new ArrayList<IRType>();
+    for( int i = 0; i < paramTypes.length; i++ )
+    {
+      IExpression arg = _expr().getArgs().get( i );
+      IRExpression irArg = ExpressionTransformer.compile( arg, _cc() );
+      IRSymbol argSymbol = _cc().makeAndIndexTempSymbol( irArg.getType() );
+      elements.add( buildAssignment( argSymbol, irArg ) );
+      args.add( identifier( argSymbol ) );
+      boxedArgs.add( boxValue( arg.getType(), identifier( argSymbol ) ) );
+      specializedParamTypes.add( paramTypes[i].isPrimitive() ? getDescriptor( paramTypes[i] ) : IRTypeConstants.OBJECT() );
+    }
+
+    IRExpression specializedCall = callMethod( IRMethodFactory.createIRMethod( specializedInterface, FunctionClassUtil.SPECIALIZED_INVOKE_METHOD_NAME,
+                                                                              returnType.isPrimitive() ? getDescriptor( returnType ) : IRTypeConstants.OBJECT(),
+                                                                              specializedParamTypes, IRelativeTypeInfo.Accessibility.PUBLIC, false ),
+                                               buildCast( getDescriptor( specializedInterface ), identifier( blockSymbol ) ), args );
+    IRExpression call = callMethod( FunctionClassUtil.getFunctionInterfaceForArity( paramTypes.length ).getBackingClassInfo(),
+                                    "invoke", FunctionClassUtil.getArgArrayForArity( paramTypes.length ),
+                                    identifier( blockSymbol ), boxedArgs );
+    if( returnType.isPrimitive() )
+    {
+      call = unboxValueToType( returnType, call );
+    }
+    else
+    {
+      specializedCall = checkCast( returnType, specializedCall );
+      call = checkCast( returnType, call );
+    }
+    elements.add( buildTernary( new IRInstanceOfExpression( identifier( blockSymbol ), getDescriptor( specializedInterface ) ),
+                                specializedCall, call, getDescriptor( returnType ) ) );
+    return new IRCompositeExpression( elements );
+  }
+
+  /**
+   * @return the primitive-specialized function interface to call the block with, null if the
+   *   block's type has none, the arguments are named, or they or the result need converting
+   */
+  private IJavaType getSpecializedInterface()
+  {
+    int[] namedArgOrder = _expr().getNamedArgOrder();
+    IType rootType = _expr().getRoot().getType();
+    if( (namedArgOrder != null && namedArgOrder.length > 0) || !(rootType instanceof IFunctionType) )
+    {
+      return null;
+    }
+    IFunctionType functionType = (IFunctionType)rootType;
+    IType[] paramTypes = functionType.getParameterTypes();
+    List<IExpression> args = _expr().getArgs();
+    if( paramTypes.length != args.size() ||
+        !isSameKind( functionType.getReturnType(), _expr().getType() ) )
+    {
+      return null;
+    }
+    for( int i = 0; i < paramTypes.length; i++ )
+    {
+      if( !isSameKind( paramTypes[i], args.get( i ).getType() ) )
+      {
+        return null;
+      }
+    }
+    return FunctionClassUtil.getSpecializedFunctionInterface( functionType );
+  }
+
+  /**
+   * @return true if both types are the same primitive or both are reference types
+   */
+  private static boolean isSameKind( IType type, IType actualType )
+  {
+    return type.isPrimitive() ? type == actualType : !actualType.isPrimitive();
+  }
+
   private List<IRExpression> boxArgs()
   {
     List<IRExpression> irArgs = new ArrayList<IRExpression>();
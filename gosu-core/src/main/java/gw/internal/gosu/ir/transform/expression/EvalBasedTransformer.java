@@ -52,7 +52,7 @@ public abstract class EvalBasedTransformer<T extends IExpression> extends Abstra
       {
         if( enclosingClass.isAnonymous() && enclosingClass.getCapturedSymbols().containsKey( sym.getName() ) )
         {
-          values.add( getInstanceField( getGosuClass(), CAPTURED_VAR_PREFIX + sym.getName(), getDescriptor( sym.getType().getArrayType() ), AccessibilityUtil.forCapturedVar(), pushThis() ) );
+          values.add( getInstanceField( getGosuClass(), CAPTURED_VAR_PREFIX + sym.getName(), getCapturedSymbolType( sym ), AccessibilityUtil.forCapturedVar(), pushThis() ) );
         }
         else
         {
@@ -5,6 +5,7 @@
 package gw.internal.gosu.ir.transform.expression;
 
 import gw.config.CommonServices;
+import gw.internal.gosu.compiler.GosuClassLoader;
 import gw.internal.gosu.compiler.SingleServingGosuClassLoader;
 import gw.internal.gosu.ir.transform.ExpressionTransformer;
 import gw.internal.gosu.ir.transform.TopLevelTransformationContext;
@@ -17,9 +18,14 @@ import gw.lang.parser.ICapturedSymbol;
 import gw.lang.parser.IGosuProgramParser;
 import gw.lang.parser.IParseResult;
 import gw.lang.parser.IParsedElement;
+import gw.lang.parser.ISymbol;
 import gw.lang.parser.ISymbolTable;
+import gw.lang.reflect.AbstractTypeSystemListener;
 import gw.lang.reflect.IType;
 import gw.lang.reflect.LazyTypeResolver;
+import gw.lang.reflect.RefreshKind;
+import gw.lang.reflect.RefreshRequest;
+import gw.lang.reflect.TypeSystem;
 import gw.lang.reflect.gs.ICompilableType;
 import gw.lang.reflect.gs.IExternalSymbolMap;
 import gw.lang.reflect.gs.IGosuProgram;
@@ -27,15 +33,18 @@ import gw.lang.reflect.gs.IProgramInstance;
 import gw.util.GosuExceptionUtil;
 import gw.util.GosuStringUtil;
 import gw.util.concurrent.LocklessLazyVar;
+import gw.util.concurrent.TinyLfuCacheMap;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  */
@@ -45,6 +54,38 @@ public class EvalExpressionTransformer extends EvalBasedTransformer<EvalExpressi
   // ##todo: use a ConcurrentHashMap here somehow i.e., stop using Collections.synchronizedMap(), it's a perf issue here
   public static final Map<String, EvalExpression> EVAL_EXPRESSIONS = Collections.synchronizedMap( new LRUMap( 2000 ) );
 
+  // Compiled eval programs by source text, enclosing class name, eval site and the types of the
+  // symbols the source is compiled against, so evaluating the same source from the same site again
+  // only constructs and runs its program.  The key holds names and text only, not types or parse
+  // trees.  The cache is cleared when the type system or a type refreshes.  An evicted program's
+  // single-serving loader is released once its site's program cache (see EvalExpression) lets go of
+  // the program too.
+  private static final int EVAL_PROGRAM_CACHE_SIZE = 1000;
+  private static final TinyLfuCacheMap<EvalProgramKey, EvalProgram> EVAL_PROGRAMS = new TinyLfuCacheMap<EvalProgramKey, EvalProgram>( EVAL_PROGRAM_CACHE_SIZE );
+  @SuppressWarnings({"FieldCanBeLocal"})
+  private static final AbstractTypeSystemListener INVALIDATOR = new AbstractTypeSystemListener()
+  {
+    @Override
+    public void refreshed()
+    {
+      clearEvalExpressions();
+    }
+
+    @Override
+    public void refreshedTypes( RefreshRequest request )
+    {
+      if( request.kind != RefreshKind.CREATION )
+      {
+        // Any program, and any eval site's parse tree, may refer to the modified types
+        clearEvalExpressions();
+      }
+    }
+  };
+  static
+  {
+    TypeSystem.addTypeLoaderListenerAsWeakRef( INVALIDATOR );
+  }
+
   private static interface DeclaredConstructorsAccessor {
     Constructor getConstructor( Class clz );
   }
@@ -162,13 +203,20 @@ public class EvalExpressionTransformer extends EvalBasedTransformer<EvalExpressi
                                                 LazyTypeResolver[] immediateFuncTypeParams, IType enclosingClass,
                                                 int iLineNum, int iColumn, String evalExprText )
   {
-    String evalExprKey = makeEvalKey( enclosingClass, iLineNum, iColumn, evalExprText );
-    EvalExpression evalExpr = EVAL_EXPRESSIONS.get( evalExprKey );
-    if( evalExpr == null && enclosingClass instanceof ICompilableType ) {
-      ((ICompilableType)enclosingClass).compile(); // force compilation of enclosing class indirectly compiles eval-expr which caches the expr
-      evalExpr = EVAL_EXPRESSIONS.get( evalExprKey );
+    String strSource = CommonServices.getCoercionManager().makeStringFrom( source );
+    EvalProgramKey key = new EvalProgramKey( enclosingClass.getName(), evalExprText, iLineNum, iColumn, strSource, null );
+    EvalProgram program = getCachedEvalProgram( key );
+    if( program == null )
+    {
+      String evalExprKey = makeEvalKey( enclosingClass, iLineNum, iColumn, evalExprText );
+      EvalExpression evalExpr = EVAL_EXPRESSIONS.get( evalExprKey );
+      if( evalExpr == null && enclosingClass instanceof ICompilableType ) {
+        ((ICompilableType)enclosingClass).compile(); // force compilation of enclosing class indirectly compiles eval-expr which caches the expr
+        evalExpr = EVAL_EXPRESSIONS.get( evalExprKey );
+      }
+      program = compileEvalProgram( key, capturedValues, immediateFuncTypeParams, enclosingClass, evalExpr, null );
     }
-    return compileAndRunEvalSource( source, outer, capturedValues, immediateFuncTypeParams, enclosingClass, evalExpr );
+    return program.run( outer, capturedValues, immediateFuncTypeParams, null );
   }
 
   public static Object compileAndRunEvalSource( Object source, Object outer, Object[] capturedValues,
@@ -181,10 +229,38 @@ public class EvalExpressionTransformer extends EvalBasedTransformer<EvalExpressi
                                                 ISymbolTable compileTimeLocalContextSymbols, IExternalSymbolMap runtimeLocalSymbolValues )
   {
     String strSource = CommonServices.getCoercionManager().makeStringFrom( source );
+    EvalProgramKey key = evalExpr == null
+                         ? new EvalProgramKey( enclosingClass.getName(), null, 0, 0, strSource, getSymbolTypes( compileTimeLocalContextSymbols ) )
+                         : new EvalProgramKey( enclosingClass.getName(), evalExpr.getClass().getName(), evalExpr.getLineNum(), evalExpr.getColumn(),
+                                               strSource, getSymbolTypes( compileTimeLocalContextSymbols ) );
+    EvalProgram program = getCachedEvalProgram( key );
+    if( program == null )
+    {
+      program = compileEvalProgram( key, capturedValues, immediateFuncTypeParams, enclosingClass, evalExpr, compileTimeLocalContextSymbols );
+    }
+    return program.run( outer, capturedValues, immediateFuncTypeParams, runtimeLocalSymbolValues );
+  }
+
+  private static EvalProgram getCachedEvalProgram( EvalProgramKey key )
+  {
+    EvalProgram program = EVAL_PROGRAMS.get( key );
+    if( program != null && program._iRefreshChecksum != TypeSystem.getRefreshChecksum() )
+    {
+      // Compiled against types that have since been refreshed
+      EVAL_PROGRAMS.remove( key );
+      return null;
+    }
+    return program;
+  }
+
+  private static EvalProgram compileEvalProgram( EvalProgramKey key, Object[] capturedValues, LazyTypeResolver[] immediateFuncTypeParams,
+                                                 IType enclosingClass, IParsedElement evalExpr, ISymbolTable compileTimeLocalContextSymbols )
+  {
+    int iRefreshChecksum = TypeSystem.getRefreshChecksum();
     IGosuProgramParser parser = GosuParserFactory.createProgramParser();
     List<ICapturedSymbol> capturedSymbols = evalExpr instanceof EvalExpression ? ((EvalExpression)evalExpr).getCapturedForBytecode() : Collections.<ICapturedSymbol>emptyList();
     //debugInfo( compileTimeLocalContextSymbols );
-    IParseResult res = parser.parseEval( strSource, capturedSymbols, enclosingClass, evalExpr, compileTimeLocalContextSymbols );
+    IParseResult res = parser.parseEval( key._source, capturedSymbols, enclosingClass, evalExpr, compileTimeLocalContextSymbols );
     IGosuProgram gp = res.getProgram();
     if( !gp.isValid() )
     {
@@ -193,44 +269,41 @@ public class EvalExpressionTransformer extends EvalBasedTransformer<EvalExpressi
 
     Class<?> javaClass = gp.getBackingClass();
     ClassLoader classLoader = javaClass.getClassLoader();
-    assert classLoader instanceof SingleServingGosuClassLoader;
-    List<Object> args = new ArrayList<Object>();
-    if( !gp.isStatic() )
-    {
-      args.add( outer );
-    }
-
-    addCapturedValues( (IGosuProgramInternal)gp, capturedSymbols, capturedValues, args );
-
-    addEnclosingTypeParams( immediateFuncTypeParams, args );
-
+    assert classLoader instanceof SingleServingGosuClassLoader || GosuClassLoader.isAnonymousClass( javaClass );
     Constructor ctor = _ctorAccessor.get().getConstructor( javaClass );
+    EvalProgram program = new EvalProgram( (IGosuProgramInternal)gp, ctor, capturedSymbols, iRefreshChecksum );
+
+    Object[] args = program.makeArgs( null, capturedValues, immediateFuncTypeParams, null );
     Class[] parameterTypes = ctor.getParameterTypes();
-    if( parameterTypes.length != args.size() )
+    if( parameterTypes.length != args.length )
     {
-      if( parameterTypes.length > args.size() &&
+      if( parameterTypes.length == args.length + 1 &&
           parameterTypes[parameterTypes.length-1].getName().equals( IExternalSymbolMap.class.getName() ) )
       {
-        args.add( runtimeLocalSymbolValues );
+        program._bRuntimeSymbols = true;
       }
       else
       {
-        throw new IllegalStateException( "Eval constructor param count is not " + args.size() + "\nPassed in args " + printArgs( args ) + "\nActual args: " + printArgs( ctor.getParameterTypes() ) );
+        throw new IllegalStateException( "Eval constructor param count is not " + args.length + "\nPassed in args " + printArgs( Arrays.asList( args ) ) + "\nActual args: " + printArgs( ctor.getParameterTypes() ) );
       }
     }
-    try
+    EVAL_PROGRAMS.put( key, program );
+    return program;
+  }
+
+  private static String getSymbolTypes( ISymbolTable symbols )
+  {
+    if( symbols == null )
     {
-//      Class[] parameterTypes = ctor.getParameterTypes();
-//      for( int i = 0; i < parameterTypes.length; i++ ) {
-//        System.out.println( "PARAM: " + parameterTypes[i].getName() + "  ARG: " + args.get( i ) );
-//      }
-      IProgramInstance evalInstance = (IProgramInstance)ctor.newInstance( args.toArray() );
-      return evalInstance.evaluate( runtimeLocalSymbolValues );
+      return null;
     }
-    catch( Exception e )
+    StringBuilder sb = new StringBuilder();
+    for( Object value : symbols.getSymbols().values() )
     {
-      throw GosuExceptionUtil.forceThrow( e );
+      ISymbol symbol = (ISymbol)value;
+      sb.append( symbol.getName() ).append( ':' ).append( symbol.getType() == null ? null : symbol.getType().getName() ).append( ';' );
     }
+    return sb.toString();
   }
 
   private static String printArgs( List<Object> args ) {
@@ -259,29 +332,152 @@ public class EvalExpressionTransformer extends EvalBasedTransformer<EvalExpressi
     }
   }
 
-  private static void addCapturedValues( IGosuProgramInternal gp, List<ICapturedSymbol> capturedSymbols, Object[] capturedValues, List<Object> args )
+  /**
+   * @return the number of compiled eval programs cached
+   */
+  static int getEvalProgramCacheSize() {
+    return EVAL_PROGRAMS.size();
+  }
+
+  public static void clearEvalExpressions() {
+    EVAL_EXPRESSIONS.clear();
+    EVAL_PROGRAMS.clear();
+  }
+
+  private static final class EvalProgramKey
   {
-    if( capturedValues != null )
+    private final String _enclosingClass;
+    private final String _site;
+    private final int _iLine;
+    private final int _iColumn;
+    private final String _source;
+    private final String _symbolTypes;
+    private final int _iHash;
+
+    /**
+     * @param site The text of the eval expression, or the kind of element evaluated against
+     */
+    EvalProgramKey( String enclosingClass, String site, int iLine, int iColumn, String source, String symbolTypes )
     {
-      // Note: must add the captured symbols in the order of the eval class' ctor, which is the order of the values in its map of captured symbols.
+      _enclosingClass = enclosingClass;
+      _site = site;
+      _iLine = iLine;
+      _iColumn = iColumn;
+      _source = source;
+      _symbolTypes = symbolTypes;
+      int iHash = enclosingClass.hashCode();
+      iHash = iHash * 31 + Objects.hashCode( site );
+      iHash = iHash * 31 + iLine;
+      iHash = iHash * 31 + iColumn;
+      _iHash = iHash * 31 + Objects.hashCode( source );
+    }
 
+    @Override
+    public boolean equals( Object o )
+    {
+      if( this == o )
+      {
+        return true;
+      }
+      if( !(o instanceof EvalProgramKey) )
+      {
+        return false;
+      }
+      EvalProgramKey that = (EvalProgramKey)o;
+      return _iHash == that._iHash &&
+             _enclosingClass.equals( that._enclosingClass ) &&
+             _iLine == that._iLine &&
+             _iColumn == that._iColumn &&
+             Objects.equals( _site, that._site ) &&
+             Objects.equals( _source, that._source ) &&
+             Objects.equals( _symbolTypes, that._symbolTypes );
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return _iHash;
+    }
+  }
+
+  /**
+   * A compiled eval program and how to construct it from the arguments of an eval.
+   */
+  private static final class EvalProgram
+  {
+    private final int _iRefreshChecksum;
+    private final Constructor _ctor;
+    private final boolean _bStatic;
+    // Indexes into the captured values in the order of the program's ctor params, -1 for the
+    // captured external symbols, which are the last value
+    private final int[] _capturedIndexes;
+    private boolean _bRuntimeSymbols;
+
+    EvalProgram( IGosuProgramInternal gp, Constructor ctor, List<ICapturedSymbol> capturedSymbols, int iRefreshChecksum )
+    {
+      _iRefreshChecksum = iRefreshChecksum;
+      _ctor = ctor;
+      _bStatic = gp.isStatic();
+
+      // Note: must add the captured symbols in the order of the eval class' ctor, which is the order of the values in its map of captured symbols.
+      List<Integer> indexes = new ArrayList<Integer>();
       Map<String, ICapturedSymbol> capturedSymbolsByName = gp.getCapturedSymbols();
       if( capturedSymbolsByName != null )
       {
         for( ICapturedSymbol sym : capturedSymbolsByName.values() )
         {
-          args.add( capturedValues[capturedSymbols.indexOf( sym )] );
+          indexes.add( capturedSymbols.indexOf( sym ) );
         }
       }
+      if( requiresExternalSymbolCapture( gp ) )
+      {
+        indexes.add( -1 );
+      }
+      _capturedIndexes = new int[indexes.size()];
+      for( int i = 0; i < _capturedIndexes.length; i++ )
+      {
+        _capturedIndexes[i] = indexes.get( i );
+      }
+    }
 
-      if (requiresExternalSymbolCapture(gp)) {
-        args.add( capturedValues[capturedValues.length - 1] );
+    Object[] makeArgs( Object outer, Object[] capturedValues, LazyTypeResolver[] immediateFuncTypeParams, IExternalSymbolMap runtimeLocalSymbolValues )
+    {
+      int iCaptured = capturedValues == null ? 0 : _capturedIndexes.length;
+      int iTypeParams = immediateFuncTypeParams == null ? 0 : immediateFuncTypeParams.length;
+      Object[] args = new Object[(_bStatic ? 0 : 1) + iCaptured + iTypeParams + (_bRuntimeSymbols ? 1 : 0)];
+      int i = 0;
+      if( !_bStatic )
+      {
+        args[i++] = outer;
       }
+      for( int j = 0; j < iCaptured; j++ )
+      {
+        int iIndex = _capturedIndexes[j];
+        args[i++] = capturedValues[iIndex < 0 ? capturedValues.length - 1 : iIndex];
+      }
+      for( int j = 0; j < iTypeParams; j++ )
+      {
+        args[i++] = immediateFuncTypeParams[j];
+      }
+      if( _bRuntimeSymbols )
+      {
+        args[i] = runtimeLocalSymbolValues;
+      }
+      return args;
     }
-  }
 
-  public static void clearEvalExpressions() {
-    EVAL_EXPRESSIONS.clear();
+    Object run( Object outer, Object[] capturedValues, LazyTypeResolver[] immediateFuncTypeParams, IExternalSymbolMap runtimeLocalSymbolValues )
+    {
+      try
+      {
+        IProgramInstance evalInstance = (IProgramInstance)_ctor.newInstance( makeArgs( outer, capturedValues, immediateFuncTypeParams, runtimeLocalSymbolValues ) );
+        return evalInstance.evaluate( runtimeLocalSymbolValues );
+      }
+      catch( Exception e )
+      {
+        throw GosuExceptionUtil.forceThrow( e );
+      }
+    }
   }
 
 }
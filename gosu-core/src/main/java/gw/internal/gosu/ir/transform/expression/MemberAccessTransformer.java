@@ -22,7 +22,6 @@ import gw.internal.gosu.parser.expressions.MemberExpansionAccess;
 import gw.internal.gosu.parser.expressions.SuperAccess;
 import gw.internal.gosu.parser.expressions.TypeLiteral;
 import gw.internal.gosu.parser.optimizer.SinglePropertyMemberAccessRuntime;
-import gw.internal.gosu.runtime.GosuRuntimeMethods;
 import gw.lang.Autocreate;
 import gw.lang.ShortCircuitingProperty;
 import gw.lang.ir.IRElement;
@@ -467,8 +466,8 @@ public class MemberAccessTransformer extends AbstractExpressionTransformer<Membe
       {
         throw new IllegalArgumentException( "Cannot invoke a static property reflectively on a placeholder type" );
       }
-      result = callStaticMethod( GosuRuntimeMethods.class, "getProperty", new Class[]{Object.class, IType.class, String.class},
-                                 exprList( root, pushType( rootType ), pushPropertyName( pi ) ) );
+      result = callRuntimeMethodDynamically( "getProperty", new Class[]{Object.class, IType.class, String.class},
+                                             exprList( root, pushType( rootType ), pushPropertyName( pi ) ) );
     }
     else
     {
@@ -5,6 +5,7 @@
 package gw.internal.gosu.ir.transform.expression;
 
 import gw.config.CommonServices;
+import gw.internal.gosu.coercer.BlockToInterfaceAdapterFactory;
 import gw.internal.gosu.coercer.FunctionToInterfaceClassGenerator;
 import gw.internal.gosu.ir.nodes.IRTypeFactory;
 import gw.internal.gosu.ir.nodes.JavaClassIRType;
@@ -21,6 +22,7 @@ import gw.lang.ir.expression.IRCompositeExpression;
 import gw.lang.ir.expression.IRConditionalOrExpression;
 import gw.lang.ir.expression.IRIdentifier;
 import gw.lang.ir.expression.IRInstanceOfExpression;
+import gw.lang.ir.expression.IRInvokeDynamicExpression;
 import gw.lang.ir.statement.IRAssignmentStatement;
 import gw.lang.ir.statement.IRStatementList;
 import gw.lang.parser.GosuParserTypes;
@@ -235,12 +237,21 @@ public class TypeAsTransformer extends AbstractExpressionTransformer<ITypeAsExpr
     if( asType.isInterface() && lhsType instanceof IBlockType ) {
       IRSymbol tempLhs = _cc().makeAndIndexTempSymbol( getDescriptor( lhsType ) );
       IRAssignmentStatement tempLhsAssn = buildAssignment( tempLhs, root );
-      IGosuClass gsClass = FunctionToInterfaceClassGenerator.getBlockToInterfaceConversionClass( asType, _cc().getGosuClass() );
+      IRExpression adapter;
+      if( BlockToInterfaceAdapterFactory.canAdapt( asType, ((IBlockType)lhsType).getReturnType() ) ) {
+        adapter = new IRInvokeDynamicExpression( "adapt", getDescriptor( asType ), getDescriptor( asType ),
+                                                 Collections.singletonList( IRTypeFactory.get( JavaTypes.IBLOCK() ) ),
+                                                 Collections.<IRExpression>singletonList( identifier( tempLhs ) ),
+                                                 getDescriptor( BlockToInterfaceAdapterFactory.class ), BlockToInterfaceAdapterFactory.BOOTSTRAP );
+      }
+      else {
+        IGosuClass gsClass = FunctionToInterfaceClassGenerator.getBlockToInterfaceConversionClass( asType, _cc().getGosuClass() );
+        adapter = buildNewExpression( IRTypeFactory.get( gsClass ),
+                                      Collections.singletonList( IRTypeFactory.get( JavaTypes.IBLOCK() ) ),
+                                      Collections.<IRExpression>singletonList( identifier( tempLhs ) ) );
+      }
       return buildComposite( tempLhsAssn,
-                            buildNullCheckTernary( identifier( tempLhs ), nullLiteral(),
-                              buildNewExpression( IRTypeFactory.get( gsClass ),
-                                Collections.singletonList( IRTypeFactory.get( JavaTypes.IBLOCK() ) ),
-                                Collections.<IRExpression>singletonList( identifier( tempLhs ) ) ) ) );
+                            buildNullCheckTernary( identifier( tempLhs ), nullLiteral(), adapter ) );
     }
 
     IType lhsDimensionNumberType = findDimensionType( lhsType );
@@ -475,8 +486,14 @@ public class TypeAsTransformer extends AbstractExpressionTransformer<ITypeAsExpr
       } else {
         coercerExpression = pushNull();
       }
-      result = callStaticMethod(TypeAsTransformer.class, "coerceValue", new Class[]{Object.class, IType.class, ICoercer.class},
-        exprList(root, pushType(_expr().getType()), coercerExpression));
+      if (coercer == RuntimeCoercer.instance()) {
+        // Runtime coercions resolve the coercer from the value's type, link it per value class
+        result = callRuntimeMethodDynamically("coerceValue", new Class[]{Object.class, IType.class, ICoercer.class},
+          exprList(root, pushType(_expr().getType()), coercerExpression));
+      } else {
+        result = callStaticMethod(TypeAsTransformer.class, "coerceValue", new Class[]{Object.class, IType.class, ICoercer.class},
+          exprList(root, pushType(_expr().getType()), coercerExpression));
+      }
     }
     if (!_expr().getType().isPrimitive()) {
       result = checkCast(_expr().getType(), result);
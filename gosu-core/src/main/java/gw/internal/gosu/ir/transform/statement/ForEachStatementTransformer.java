@@ -9,24 +9,33 @@ import gw.internal.gosu.ir.compiler.bytecode.expression.IRMethodCallExpressionCo
 import gw.internal.gosu.ir.nodes.JavaClassIRType;
 import gw.internal.gosu.ir.transform.ExpressionTransformer;
 import gw.internal.gosu.ir.transform.TopLevelTransformationContext;
+import gw.internal.gosu.parser.Expression;
+import gw.internal.gosu.parser.ParenthesizedExpression;
 import gw.internal.gosu.parser.Symbol;
+import gw.internal.gosu.parser.expressions.BeanMethodCallExpression;
+import gw.internal.gosu.parser.expressions.IntervalExpression;
 import gw.internal.gosu.parser.statements.ForEachStatement;
 import gw.lang.ir.IRExpression;
 import gw.lang.ir.IRStatement;
 import gw.lang.ir.IRSymbol;
+import gw.lang.ir.IRType;
 import gw.lang.ir.IRTypeConstants;
 import gw.lang.ir.statement.IRAssignmentStatement;
 import gw.lang.ir.statement.IRForEachStatement;
+import gw.lang.reflect.IMethodInfo;
 import gw.lang.reflect.IType;
 import gw.lang.reflect.TypeSystem;
 import gw.lang.reflect.interval.AbstractIntIterator;
 import gw.lang.reflect.interval.AbstractLongIterator;
 import gw.lang.reflect.interval.IntegerInterval;
 import gw.lang.reflect.interval.LongInterval;
+import gw.lang.reflect.interval.NumberInterval;
+import gw.lang.reflect.java.IJavaType;
 import gw.lang.reflect.java.JavaTypes;
 
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 /**
@@ -52,11 +61,23 @@ public class ForEachStatementTransformer extends AbstractStatementTransformer<Fo
     _cc().pushScope( false );
     try
     {
-      IRForEachStatement forLoop = makeLoopImpl( _cc(), ExpressionTransformer.compile( _stmt().getInExpression(), _cc() ),
-                                                 _stmt().getInExpression().getType(),
-                                                 _stmt().getIdentifier(),
-                                                 _stmt().getIndexIdentifier(),
-                                                 _stmt().getIteratorIdentifier() );
+      IRForEachStatement forLoop;
+      IntervalExpression intervalLiteral = getCountableIntervalLiteral( _stmt().getInExpression(), _stmt().getIdentifier(), _stmt().getIteratorIdentifier() );
+      if( intervalLiteral != null )
+      {
+        // Count through the literal's values without making the interval
+        forLoop = new IRForEachStatement();
+        makeIntervalLiteralLoop( _cc(), intervalLiteral, getIntervalStep( _stmt().getInExpression() ), forLoop, _stmt().getIdentifier() );
+        addIndex( forLoop, _stmt().getIndexIdentifier() );
+      }
+      else
+      {
+        forLoop = makeLoopImpl( _cc(), ExpressionTransformer.compile( _stmt().getInExpression(), _cc() ),
+                                _stmt().getInExpression().getType(),
+                                _stmt().getIdentifier(),
+                                _stmt().getIndexIdentifier(),
+                                _stmt().getIteratorIdentifier() );
+      }
       forLoop.setBody( _cc().compile( _stmt().getStatement() ) );
       return forLoop;
     }
@@ -92,11 +113,22 @@ public class ForEachStatementTransformer extends AbstractStatementTransformer<Fo
     {
       makeIntLoop( cc, rootExpression, forLoop, identifier );
     }
+    else if( iteratorIdentifier == null && isCountableIntervalType( type, identifier ) )
+    {
+      makeIntervalLoop( cc, rootExpression, forLoop, identifier );
+    }
     else
     {
       makeIteratorLoop( cc, rootExpression, forLoop, identifier, iteratorIdentifier );
     }
 
+    addIndex( forLoop, indexSymbol );
+
+    return forLoop;
+  }
+
+  private void addIndex( IRForEachStatement forLoop, Symbol indexSymbol )
+  {
     if( indexSymbol != null )
     {
       // index variable init
@@ -116,8 +148,6 @@ public class ForEachStatementTransformer extends AbstractStatementTransformer<Fo
         forLoop.addIncrementor( buildAssignment( indexIRSymbol, increment ) );
       }
     }
-
-    return forLoop;
   }
 
   private void makeIteratorLoop( TopLevelTransformationContext cc, IRExpression rootExpression, IRForEachStatement forLoop, Symbol identifier, Symbol iteratorIdentifier )
@@ -162,12 +192,12 @@ public class ForEachStatementTransformer extends AbstractStatementTransformer<Fo
     if( rootExpression.getType() == JavaClassIRType.get( IntegerInterval.class ) )
     {
       // Optimize for integer intervals (no boxing)
-      nextValue = callMethod( AbstractIntIterator.class, "nextInt", new Class[0], identifier( iterator.getSymbol() ), Collections.<IRExpression>emptyList() );
+      nextValue = callMethod( AbstractIntIterator.class, "nextInt", new Class[0], intervalIterator( AbstractIntIterator.class, iterator.getSymbol(), iteratorIdentifier ), Collections.<IRExpression>emptyList() );
     }
     else if( rootExpression.getType() == JavaClassIRType.get( LongInterval.class ) )
     {
       // Optimize for long intervals (no boxing)
-      nextValue = callMethod( AbstractLongIterator.class, "nextLong", new Class[0], identifier( iterator.getSymbol() ), Collections.<IRExpression>emptyList() );
+      nextValue = callMethod( AbstractLongIterator.class, "nextLong", new Class[0], intervalIterator( AbstractLongIterator.class, iterator.getSymbol(), iteratorIdentifier ), Collections.<IRExpression>emptyList() );
     }
     else
     {
@@ -186,6 +216,14 @@ public class ForEachStatementTransformer extends AbstractStatementTransformer<Fo
     }
   }
 
+  private IRExpression intervalIterator( Class iteratorClass, IRSymbol iterator, Symbol iteratorIdentifier )
+  {
+    // A declared iterator variable is just an Iterator
+    return iteratorIdentifier != null
+           ? checkCast( iteratorClass, identifier( iterator ) )
+           : identifier( iterator );
+  }
+
   private void makeArrayLoop( TopLevelTransformationContext cc, IRExpression rootExpression, IRForEachStatement forLoop, Symbol identifier )
   {
     // array temporary variable init
@@ -258,6 +296,185 @@ public class ForEachStatementTransformer extends AbstractStatementTransformer<Fo
     }
   }
 
+  private void makeIntervalLiteralLoop( TopLevelTransformationContext cc, IntervalExpression interval, Expression stepExpr, IRForEachStatement forLoop, Symbol identifier )
+  {
+    IType type = identifier.getType();
+    IRType irType = getDescriptor( type );
+
+    // endpoints and step, evaluated in the order the interval would evaluate them
+    IRAssignmentStatement from = convertOperandToPrimitive( type, interval.getLHS().getType(), ExpressionTransformer.compile( interval.getLHS(), cc ), cc.makeAndIndexTempSymbol( irType ) );
+    forLoop.addInitializer( from );
+    IRAssignmentStatement to = convertOperandToPrimitive( type, interval.getRHS().getType(), ExpressionTransformer.compile( interval.getRHS(), cc ), cc.makeAndIndexTempSymbol( irType ) );
+    forLoop.addInitializer( to );
+    IRAssignmentStatement step;
+    if( stepExpr != null )
+    {
+      step = convertOperandToPrimitive( type, stepExpr.getType(), ExpressionTransformer.compile( stepExpr, cc ), cc.makeAndIndexTempSymbol( irType ) );
+    }
+    else
+    {
+      step = buildAssignment( cc.makeAndIndexTempSymbol( irType ), type == JavaTypes.pLONG() ? numericLiteral( 1L ) : numericLiteral( 1 ) );
+    }
+    forLoop.addInitializer( step );
+
+    // a reversed literal, such as n..0, counts down from its left endpoint
+    makeCountedLoop( cc, forLoop, identifier, from.getSymbol(), to.getSymbol(), step.getSymbol(),
+                     booleanLiteral( interval.isLeftClosed() ), booleanLiteral( interval.isRightClosed() ) );
+  }
+
+  private void makeIntervalLoop( TopLevelTransformationContext cc, IRExpression rootExpression, IRForEachStatement forLoop, Symbol identifier )
+  {
+    IRType irType = getDescriptor( identifier.getType() );
+
+    // interval temporary variable init
+    IRAssignmentStatement interval = buildAssignment( cc.makeAndIndexTempSymbol( rootExpression.getType() ), rootExpression );
+    forLoop.addInitializer( interval );
+
+    // read the interval once, in the order of iteration; a null interval has no values
+    IRAssignmentStatement from = buildAssignment( cc.makeAndIndexTempSymbol( irType ),
+                                                  numberConvert( IRTypeConstants.pLONG(), irType, callStaticMethod( ForEachStatementTransformer.class, "intervalLoopEndpoint", new Class[]{NumberInterval.class, boolean.class}, exprList( identifier( interval.getSymbol() ), booleanLiteral( true ) ) ) ) );
+    forLoop.addInitializer( from );
+    IRAssignmentStatement to = buildAssignment( cc.makeAndIndexTempSymbol( irType ),
+                                                numberConvert( IRTypeConstants.pLONG(), irType, callStaticMethod( ForEachStatementTransformer.class, "intervalLoopEndpoint", new Class[]{NumberInterval.class, boolean.class}, exprList( identifier( interval.getSymbol() ), booleanLiteral( false ) ) ) ) );
+    forLoop.addInitializer( to );
+    IRAssignmentStatement step = buildAssignment( cc.makeAndIndexTempSymbol( irType ),
+                                                  numberConvert( IRTypeConstants.pLONG(), irType, callStaticMethod( ForEachStatementTransformer.class, "intervalLoopStep", new Class[]{NumberInterval.class}, exprList( identifier( interval.getSymbol() ) ) ) ) );
+    forLoop.addInitializer( step );
+    IRAssignmentStatement fromClosed = buildAssignment( cc.makeAndIndexTempSymbol( IRTypeConstants.pBOOLEAN() ),
+                                                        callStaticMethod( ForEachStatementTransformer.class, "isIntervalLoopEndpointClosed", new Class[]{NumberInterval.class, boolean.class}, exprList( identifier( interval.getSymbol() ), booleanLiteral( true ) ) ) );
+    forLoop.addInitializer( fromClosed );
+    IRAssignmentStatement toClosed = buildAssignment( cc.makeAndIndexTempSymbol( IRTypeConstants.pBOOLEAN() ),
+                                                      callStaticMethod( ForEachStatementTransformer.class, "isIntervalLoopEndpointClosed", new Class[]{NumberInterval.class, boolean.class}, exprList( identifier( interval.getSymbol() ), booleanLiteral( false ) ) ) );
+    forLoop.addInitializer( toClosed );
+
+    makeCountedLoop( cc, forLoop, identifier, from.getSymbol(), to.getSymbol(), step.getSymbol(),
+                     identifier( fromClosed.getSymbol() ), identifier( toClosed.getSymbol() ) );
+  }
+
+  /**
+   * Counts from one endpoint toward the other by step.  The number of values is computed up front, so
+   * the loop neither makes an iterator nor runs past the bounds of int or long.
+   */
+  private void makeCountedLoop( TopLevelTransformationContext cc, IRForEachStatement forLoop, Symbol identifier,
+                                IRSymbol from, IRSymbol to, IRSymbol step, IRExpression fromClosed, IRExpression toClosed )
+  {
+    IRType irType = from.getType();
+    List<IRExpression> countArgs = exprList( numberConvert( irType, IRTypeConstants.pLONG(), identifier( from ) ),
+                                             numberConvert( irType, IRTypeConstants.pLONG(), identifier( to ) ),
+                                             numberConvert( irType, IRTypeConstants.pLONG(), identifier( step ) ),
+                                             fromClosed, toClosed );
+    Class[] countParamTypes = {long.class, long.class, long.class, boolean.class, boolean.class};
+
+    // number of values, unsigned, checks the step
+    IRAssignmentStatement remaining = buildAssignment( cc.makeAndIndexTempSymbol( IRTypeConstants.pLONG() ),
+                                                       callStaticMethod( ForEachStatementTransformer.class, "intervalLoopCount", countParamTypes, countArgs ) );
+    forLoop.addInitializer( remaining );
+
+    // signed step init
+    IRAssignmentStatement delta = buildAssignment( cc.makeAndIndexTempSymbol( irType ),
+                                                   buildTernary( buildGreaterThan( identifier( from ), identifier( to ) ),
+                                                                 buildNegation( identifier( step ) ), identifier( step ), irType ) );
+    forLoop.addInitializer( delta );
+
+    // cursor init
+    IRAssignmentStatement csr = buildAssignment( cc.makeAndIndexTempSymbol( irType ),
+                                                 buildTernary( fromClosed, identifier( from ), buildAddition( identifier( from ), identifier( delta.getSymbol() ) ), irType ) );
+    forLoop.addInitializer( csr );
+
+    // loop variable init
+    IRAssignmentStatement loopInitializer = initLocalVarWithDefault( identifier );
+    forLoop.addInitializer( loopInitializer );
+    IRSymbol loopIdentifier = loopInitializer.getSymbol();
+
+    // loop test
+    forLoop.setLoopTest( buildNotEquals( identifier( remaining.getSymbol() ), numericLiteral( 0L ) ) );
+
+    // update loop variable
+    if( identifier.isValueBoxed() )
+    {
+      forLoop.addIncrementor( buildAssignment( loopIdentifier, buildInitializedArray( irType, Collections.singletonList( identifier( csr.getSymbol() ) ) ) ) );
+    }
+    else
+    {
+      forLoop.addIncrementor( buildAssignment( loopIdentifier, identifier( csr.getSymbol() ) ) );
+    }
+
+    // advance
+    forLoop.addIncrementor( buildAssignment( csr.getSymbol(), buildAddition( identifier( csr.getSymbol() ), identifier( delta.getSymbol() ) ) ) );
+    forLoop.addIncrementor( buildAssignment( remaining.getSymbol(), buildSubtraction( identifier( remaining.getSymbol() ), numericLiteral( 1L ) ) ) );
+  }
+
+  private static boolean isCountableIntervalType( IType type, Symbol identifier )
+  {
+    return (type == JavaTypes.INTEGER_INTERVAL() && identifier.getType() == JavaTypes.pINT()) ||
+           (type == JavaTypes.LONG_INTERVAL() && identifier.getType() == JavaTypes.pLONG());
+  }
+
+  private static boolean isCountableEndpointType( IType type )
+  {
+    return isIntType( type ) || isBoxedIntType( type ) || type == JavaTypes.pLONG() || type == JavaTypes.LONG();
+  }
+
+  /**
+   * @return the integer or long interval literal iterated by the expression, e.g., 0..n or (0..n).step( 2 ),
+   * if its values can be counted without making the interval, otherwise null
+   */
+  private static IntervalExpression getCountableIntervalLiteral( Expression inExpr, Symbol identifier, Symbol iteratorIdentifier )
+  {
+    if( iteratorIdentifier != null || !isCountableIntervalType( inExpr.getType(), identifier ) )
+    {
+      return null;
+    }
+    Expression stepExpr = getIntervalStep( inExpr );
+    if( stepExpr != null )
+    {
+      if( !isCountableEndpointType( stepExpr.getType() ) )
+      {
+        return null;
+      }
+      inExpr = ((BeanMethodCallExpression)unwrapParens( inExpr )).getRootExpression();
+    }
+    inExpr = unwrapParens( inExpr );
+    if( !(inExpr instanceof IntervalExpression) || !isCountableIntervalType( inExpr.getType(), identifier ) )
+    {
+      return null;
+    }
+    IntervalExpression interval = (IntervalExpression)inExpr;
+    return isCountableEndpointType( interval.getLHS().getType() ) && isCountableEndpointType( interval.getRHS().getType() )
+           ? interval
+           : null;
+  }
+
+  /**
+   * @return the argument of step() called directly on an integer or long interval, otherwise null
+   */
+  private static Expression getIntervalStep( Expression inExpr )
+  {
+    inExpr = unwrapParens( inExpr );
+    if( !(inExpr instanceof BeanMethodCallExpression) )
+    {
+      return null;
+    }
+    BeanMethodCallExpression call = (BeanMethodCallExpression)inExpr;
+    IMethodInfo mi = call.getMethodDescriptor();
+    if( call.isNullSafe() || !"step".equals( call.getMemberName() ) || call.getArgs() == null || call.getArgs().length != 1 ||
+        mi == null || !(mi.getOwnersType() instanceof IJavaType) ||
+        call.getRootType() != inExpr.getType() )
+    {
+      return null;
+    }
+    return call.getArgs()[0];
+  }
+
+  private static Expression unwrapParens( Expression expr )
+  {
+    while( expr instanceof ParenthesizedExpression )
+    {
+      expr = ((ParenthesizedExpression)expr).getExpression();
+    }
+    return expr;
+  }
+
   private IRExpression makeInt(IRExpression rootExpression) {
     if (rootExpression.getType().isInt()) {
       return rootExpression;
@@ -318,6 +535,57 @@ public class ForEachStatementTransformer extends AbstractStatementTransformer<Fo
     return Collections.nCopies( 1, obj ).iterator();
   }
 
+  /**
+   * @return the endpoint a counted interval loop starts from (bFrom) or counts toward, 0 for a null interval
+   */
+  @SuppressWarnings({"UnusedDeclaration"})
+  public static long intervalLoopEndpoint( NumberInterval interval, boolean bFrom )
+  {
+    if( interval == null )
+    {
+      return 0;
+    }
+    return ((Number)(interval.isReverse() == bFrom ? interval.getRightEndpoint() : interval.getLeftEndpoint())).longValue();
+  }
+
+  @SuppressWarnings({"UnusedDeclaration"})
+  public static boolean isIntervalLoopEndpointClosed( NumberInterval interval, boolean bFrom )
+  {
+    return interval != null && (interval.isReverse() == bFrom ? interval.isRightClosed() : interval.isLeftClosed());
+  }
+
+  @SuppressWarnings({"UnusedDeclaration"})
+  public static long intervalLoopStep( NumberInterval interval )
+  {
+    return interval == null ? 1 : ((Number)interval.getStep()).longValue();
+  }
+
+  /**
+   * @return the number of values from the from endpoint toward the to endpoint by step, an unsigned long.
+   * A long interval can have 2^64 values, which are counted as 2^64 - 1.
+   */
+  @SuppressWarnings({"UnusedDeclaration"})
+  public static long intervalLoopCount( long from, long to, long step, boolean bFromClosed, boolean bToClosed )
+  {
+    if( step <= 0 )
+    {
+      throw new IllegalArgumentException( "The step must be greater than 0: " + step );
+    }
+    long distance = from > to ? from - to : to - from;
+    if( distance == 0 )
+    {
+      return bFromClosed && bToClosed ? 1 : 0;
+    }
+    // the last value's distance from the from endpoint, in steps; Long.divideUnsigned() is slow, use it only past Long.MAX_VALUE
+    long lastDistance = bToClosed ? distance : distance - 1;
+    long lastIndex = lastDistance >= 0 ? lastDistance / step : Long.divideUnsigned( lastDistance, step );
+    if( bFromClosed )
+    {
+      return lastIndex == -1 ? -1 : lastIndex + 1;
+    }
+    return lastIndex;
+  }
+
   static final class ArrayIterator implements Iterator
   {
     private int _iCsr;
@@ -206,8 +206,8 @@ public class MemberAssignmentStatementTransformer extends AbstractStatementTrans
     }
     else {
       // Everything else should dispatch to the statically-determined property
-      setter = callStaticMethod( GosuRuntimeMethods.class, "setProperty", new Class[]{Object.class, IType.class, String.class, Object.class},
-                                 exprList( root, pushType( type ), propertyName, value ) );
+      setter = callRuntimeMethodDynamically( "setProperty", new Class[]{Object.class, IType.class, String.class, Object.class},
+                                             exprList( root, pushType( type ), propertyName, value ) );
     }
     return buildMethodCall( setter );
   }
@@ -4,6 +4,7 @@
 
 package gw.internal.gosu.ir.transform.statement;
 
+import gw.internal.gosu.parser.IBlockClassInternal;
 import gw.internal.gosu.parser.statements.ReturnStatement;
 import gw.internal.gosu.ir.transform.ExpressionTransformer;
 import gw.internal.gosu.ir.transform.TopLevelTransformationContext;
@@ -16,6 +17,7 @@ import gw.lang.ir.statement.IRReturnStatement;
 import gw.lang.ir.statement.IRStatementList;
 import gw.lang.ir.statement.IRSyntheticStatement;
 import gw.lang.ir.statement.IRAssignmentStatement;
+import gw.lang.reflect.IFunctionType;
 import gw.lang.reflect.IType;
 import gw.lang.reflect.java.IJavaType;
 import gw.lang.reflect.java.JavaTypes;
@@ -112,7 +114,11 @@ public class ReturnStatementTransformer extends AbstractStatementTransformer<Ret
     IRExpression expression = ExpressionTransformer.compile( _stmt().getValue(), _cc() );
 
     // handle implicit boxing/unbocking in block invoke methods or 
-    if( (_cc().isBlockInvoke() || _cc().isFragmentEvaluation() ) && retType.isPrimitive() )
+    if( _cc().isSpecializedBlockInvoke() )
+    {
+      expression = convertToSpecializedReturnType( retType, expression );
+    }
+    else if( (_cc().isBlockInvoke() || _cc().isFragmentEvaluation() ) && retType.isPrimitive() )
     {
       expression = boxValue( retType, expression );
     }
@@ -129,4 +135,16 @@ public class ReturnStatementTransformer extends AbstractStatementTransformer<Ret
     }
     return expression;
   }
-}
\ No newline at end of file
+
+  private IRExpression convertToSpecializedReturnType( IType retType, IRExpression expression )
+  {
+    IType blockReturnType = ((IFunctionType)((IBlockClassInternal)getGosuClass()).getBlockType()).getReturnType();
+    if( blockReturnType.isPrimitive() )
+    {
+      return retType.isPrimitive()
+             ? numberConvert( retType, blockReturnType, expression )
+             : unboxValueToType( blockReturnType, expression );
+    }
+    return retType.isPrimitive() ? boxValue( retType, expression ) : expression;
+  }
+}
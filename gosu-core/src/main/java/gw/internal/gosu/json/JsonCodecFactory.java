@@ -0,0 +1,844 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.json;
+
+import gw.internal.ext.org.objectweb.asm.ClassWriter;
+import gw.internal.ext.org.objectweb.asm.Label;
+import gw.internal.ext.org.objectweb.asm.MethodVisitor;
+import gw.internal.ext.org.objectweb.asm.Opcodes;
+import gw.internal.ext.org.objectweb.asm.Type;
+import gw.internal.gosu.ir.compiler.bytecode.expression.IRMethodCallExpressionCompiler;
+import gw.internal.gosu.loader.GeneratedClassLoader;
+import gw.internal.gosu.parser.GosuClassProxyFactory;
+import gw.lang.reflect.IAnnotationInfo;
+import gw.lang.reflect.IPropertyInfo;
+import gw.lang.reflect.IType;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.gs.IGosuClass;
+import gw.lang.reflect.gs.IGosuEnhancement;
+import gw.lang.reflect.java.IJavaType;
+import gw.lang.reflect.java.JavaTypes;
+import gw.lang.reflect.json.IJsonCodec;
+import gw.lang.reflect.json.JsonReader;
+import gw.lang.reflect.json.JsonWriter;
+import gw.util.GosuExceptionUtil;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Generates JSON codecs for Gosu structure types, see {@link gw.lang.reflect.json.Json#getCodec(IType)}.
+ * <p>
+ * For each structure two classes are generated directly as bytecode: a class implementing the
+ * structure with a field for each property, and the codec.  The codec reads an object's members
+ * into the fields, switching on the index of the member's name, and writes the members from the
+ * structure's getters, so neither direction involves Bindings or reflective property access.
+ * Properties of structure or List type are read and written by nested codecs, which are linked
+ * once all the codecs for a structure's graph exist so structures may refer to one another.
+ * <p>
+ * Like block adapters, the classes for a structure are defined in a class loader of their own, a
+ * child of the structure's loader.  Unlike block adapters, which are cached by the factory because
+ * their interfaces are JDK classes that outlive Gosu, the codec is cached on the structure's
+ * backing interface in a {@link ClassValue}.  That interface is a Gosu class, so the codec lives
+ * exactly as long as the structure's loader, which sees the classes the codec refers to anyway;
+ * a refresh that redefines the structure gives it a new class and so a new codec.
+ */
+public class JsonCodecFactory {
+  private static final String CODEC_PACKAGE = "gw.internal.gosu.json.codecs.";
+
+  private static final String READER = Type.getInternalName( JsonReader.class );
+  private static final String WRITER = Type.getInternalName( JsonWriter.class );
+  private static final String CODEC = Type.getInternalName( IJsonCodec.class );
+  private static final String STRUCTURE_CODEC = Type.getInternalName( StructureCodec.class );
+  private static final String FACTORY = Type.getInternalName( JsonCodecFactory.class );
+
+  /**
+   * The helpers converting the scalar values JsonReader reads to property types
+   */
+  private static final Map<Class<?>, String> SCALARS = new HashMap<>();
+  private static final Map<Class<?>, Function<Object, Object>> ELEMENT_SCALARS = new HashMap<>();
+  static {
+    SCALARS.put( String.class, "asString" );
+    SCALARS.put( Boolean.class, "asBoolean" );
+    SCALARS.put( boolean.class, "asBooleanValue" );
+    SCALARS.put( Integer.class, "asInteger" );
+    SCALARS.put( int.class, "asIntValue" );
+    SCALARS.put( Long.class, "asLong" );
+    SCALARS.put( long.class, "asLongValue" );
+    SCALARS.put( Double.class, "asDouble" );
+    SCALARS.put( double.class, "asDoubleValue" );
+    SCALARS.put( Float.class, "asFloat" );
+    SCALARS.put( float.class, "asFloatValue" );
+    SCALARS.put( Short.class, "asShort" );
+    SCALARS.put( short.class, "asShortValue" );
+    SCALARS.put( Byte.class, "asByte" );
+    SCALARS.put( byte.class, "asByteValue" );
+    SCALARS.put( BigInteger.class, "asBigInteger" );
+    SCALARS.put( BigDecimal.class, "asBigDecimal" );
+
+    ELEMENT_SCALARS.put( String.class, JsonCodecFactory::asString );
+    ELEMENT_SCALARS.put( Boolean.class, JsonCodecFactory::asBoolean );
+    ELEMENT_SCALARS.put( Integer.class, JsonCodecFactory::asInteger );
+    ELEMENT_SCALARS.put( Long.class, JsonCodecFactory::asLong );
+    ELEMENT_SCALARS.put( Double.class, JsonCodecFactory::asDouble );
+    ELEMENT_SCALARS.put( Float.class, JsonCodecFactory::asFloat );
+    ELEMENT_SCALARS.put( Short.class, JsonCodecFactory::asShort );
+    ELEMENT_SCALARS.put( Byte.class, JsonCodecFactory::asByte );
+    ELEMENT_SCALARS.put( BigInteger.class, JsonCodecFactory::asBigInteger );
+    ELEMENT_SCALARS.put( BigDecimal.class, JsonCodecFactory::asBigDecimal );
+  }
+
+  private static final ClassValue<StructureCodec> CODECS = new ClassValue<StructureCodec>() {
+    @Override
+    protected StructureCodec computeValue( Class<?> iface ) {
+      return makeCodec( (IGosuClass)TypeSystem.get( iface ) );
+    }
+  };
+
+  /**
+   * @return the codec for the structure type
+   * @throws IllegalArgumentException if the type isn't a structure or has a property of a type
+   *   that can't be read from JSON
+   */
+  public static IJsonCodec<?> getCodec( IType structureType ) {
+    if( !(structureType instanceof IGosuClass) || !((IGosuClass)structureType).isStructure() ) {
+      throw new IllegalArgumentException( structureType.getName() + " is not a structure type" );
+    }
+    if( structureType.isGenericType() || structureType.isParameterizedType() ) {
+      throw new IllegalArgumentException( "JSON codecs are not supported for generic structure " + structureType.getName() );
+    }
+    StructureCodec codec = CODECS.get( ((IGosuClass)structureType).getBackingClass() );
+    codec.link();
+    return codec;
+  }
+
+  //
+  // Called from generated codecs
+  //
+
+  @SuppressWarnings("UnusedDeclaration")
+  public static boolean beginObject( JsonReader reader ) {
+    JsonReader.Event event = reader.next();
+    if( event == JsonReader.Event.START_OBJECT ) {
+      return true;
+    }
+    if( event == JsonReader.Event.VALUE && reader.getValue() == null ) {
+      return false;
+    }
+    throw new IllegalStateException( "Expecting a JSON object, found " + event );
+  }
+
+  @SuppressWarnings("UnusedDeclaration")
+  public static boolean nextMember( JsonReader reader ) {
+    return reader.next() == JsonReader.Event.NAME;
+  }
+
+  public static Object readScalar( JsonReader reader ) {
+    JsonReader.Event event = reader.next();
+    if( event != JsonReader.Event.VALUE ) {
+      throw new IllegalStateException( "Expecting a JSON value, found " + event );
+    }
+    return reader.getValue();
+  }
+
+  /**
+   * @return the value if it implements the structure, otherwise a structural proxy for it
+   */
+  @SuppressWarnings("UnusedDeclaration")
+  public static Object asStructure( Object value, Class<?> iface ) {
+    return iface.isInstance( value ) ? value : IRMethodCallExpressionCompiler.constructProxy( value, iface );
+  }
+
+  @SuppressWarnings("UnusedDeclaration")
+  public static String toJson( Class<?> iface, Object value ) {
+    StructureCodec codec = CODECS.get( iface );
+    codec.link();
+    return codec.toJson( value );
+  }
+
+  public static String asString( Object value ) {
+    return value == null ? null : value.toString();
+  }
+
+  public static Boolean asBoolean( Object value ) {
+    return (Boolean)value;
+  }
+
+  @SuppressWarnings("UnusedDeclaration")
+  public static boolean asBooleanValue( Object value ) {
+    return value != null && (Boolean)value;
+  }
+
+  public static Integer asInteger( Object value ) {
+    return value == null || value instanceof Integer ? (Integer)value : Integer.valueOf( ((Number)value).intValue() );
+  }
+
+  @SuppressWarnings("UnusedDeclaration")
+  public static int asIntValue( Object value ) {
+    return value == null ? 0 : ((Number)value).intValue();
+  }
+
+  public static Long asLong( Object value ) {
+    return value == null || value instanceof Long ? (Long)value : Long.valueOf( ((Number)value).longValue() );
+  }
+
+  @SuppressWarnings("UnusedDeclaration")
+  public static long asLongValue( Object value ) {
+    return value == null ? 0 : ((Number)value).longValue();
+  }
+
+  public static Double asDouble( Object value ) {
+    return value == null || value instanceof Double ? (Double)value : Double.valueOf( ((Number)value).doubleValue() );
+  }
+
+  @SuppressWarnings("UnusedDeclaration")
+  public static double asDoubleValue( Object value ) {
+    return value == null ? 0 : ((Number)value).doubleValue();
+  }
+
+  public static Float asFloat( Object value ) {
+    return value == null ? null : Float.valueOf( ((Number)value).floatValue() );
+  }
+
+  @SuppressWarnings("UnusedDeclaration")
+  public static float asFloatValue( Object value ) {
+    return value == null ? 0 : ((Number)value).floatValue();
+  }
+
+  public static Short asShort( Object value ) {
+    return value == null ? null : Short.valueOf( ((Number)value).shortValue() );
+  }
+
+  @SuppressWarnings("UnusedDeclaration")
+  public static short asShortValue( Object value ) {
+    return value == null ? 0 : ((Number)value).shortValue();
+  }
+
+  public static Byte asByte( Object value ) {
+    return value == null ? null : Byte.valueOf( ((Number)value).byteValue() );
+  }
+
+  @SuppressWarnings("UnusedDeclaration")
+  public static byte asByteValue( Object value ) {
+    return value == null ? 0 : ((Number)value).byteValue();
+  }
+
+  public static BigInteger asBigInteger( Object value ) {
+    if( value == null || value instanceof BigInteger ) {
+      return (BigInteger)value;
+    }
+    if( value instanceof BigDecimal ) {
+      return ((BigDecimal)value).toBigInteger();
+    }
+    return BigInteger.valueOf( ((Number)value).longValue() );
+  }
+
+  public static BigDecimal asBigDecimal( Object value ) {
+    if( value == null || value instanceof BigDecimal ) {
+      return (BigDecimal)value;
+    }
+    if( value instanceof BigInteger ) {
+      return new BigDecimal( (BigInteger)value );
+    }
+    if( value instanceof Double || value instanceof Float ) {
+      return BigDecimal.valueOf( ((Number)value).doubleValue() );
+    }
+    return BigDecimal.valueOf( ((Number)value).longValue() );
+  }
+
+  //
+  // Generation
+  //
+
+  private static StructureCodec makeCodec( IGosuClass structure ) {
+    Class<?> iface = structure.getBackingClass();
+    List<Property> properties = getProperties( structure, iface );
+
+    String baseName = CODEC_PACKAGE + iface.getName().replace( '.', '_' ).replace( '$', '_' );
+    String objectName = baseName + "_Object";
+    String codecName = baseName + "_Codec";
+    CodecLoader loader = new CodecLoader( iface.getClassLoader() );
+    loader.define( objectName, generateObject( objectName, iface, properties ) );
+    Class<?> codecClass = loader.define( codecName, generateCodec( codecName, objectName, iface, properties ) );
+    try {
+      StructureCodec codec = (StructureCodec)codecClass.newInstance();
+      codec._properties = properties;
+      codec._index = new HashMap<>( properties.size() * 2 );
+      for( int i = 0; i < properties.size(); i++ ) {
+        codec._index.put( properties.get( i )._jsonName, i );
+      }
+      return codec;
+    }
+    catch( ReflectiveOperationException e ) {
+      throw GosuExceptionUtil.forceThrow( e );
+    }
+  }
+
+  private static List<Property> getProperties( IGosuClass structure, Class<?> iface ) {
+    List<Property> properties = new ArrayList<>();
+    List<Method> accessors = new ArrayList<>();
+    int iNested = 0;
+    for( IPropertyInfo pi : structure.getTypeInfo().getProperties() ) {
+      if( pi.isStatic() || !pi.isReadable() ||
+          pi.getOwnersType() instanceof IGosuEnhancement ||
+          pi.getOwnersType() == JavaTypes.IGOSU_OBJECT().getAdapterClass() ||
+          GosuClassProxyFactory.isObjectProperty( pi ) ) {
+        continue;
+      }
+      Method getter = findMethod( iface, "get" + pi.getName() );
+      if( getter == null ) {
+        getter = findMethod( iface, "is" + pi.getName() );
+      }
+      if( getter == null ) {
+        throw new IllegalArgumentException( "No getter for property " + pi.getName() + " on " + structure.getName() );
+      }
+      Method setter = findMethod( iface, "set" + pi.getName(), getter.getReturnType() );
+      accessors.add( getter );
+      if( setter != null ) {
+        accessors.add( setter );
+      }
+
+      Property property = new Property( pi, getter, setter );
+      if( property._scalar == null && !property.isValue() ) {
+        if( !isStructure( property._type ) && getListElementType( property._type ) == null ) {
+          throw new IllegalArgumentException( "Unsupported type " + property._type.getName() + " for JSON property " +
+                                              pi.getName() + " on " + structure.getName() );
+        }
+        property._iNested = iNested++;
+      }
+      properties.add( property );
+    }
+
+    for( Method method : iface.getMethods() ) {
+      if( Modifier.isAbstract( method.getModifiers() ) && !accessors.contains( method ) && !isObjectMethod( method ) ) {
+        throw new IllegalArgumentException( "JSON codecs are not supported for structure " + structure.getName() +
+                                            " declaring method " + method.getName() );
+      }
+    }
+    return properties;
+  }
+
+  private static Method findMethod( Class<?> iface, String name, Class<?>... paramTypes ) {
+    try {
+      return iface.getMethod( name, paramTypes );
+    }
+    catch( NoSuchMethodException e ) {
+      return null;
+    }
+  }
+
+  private static boolean isObjectMethod( Method method ) {
+    try {
+      Object.class.getMethod( method.getName(), method.getParameterTypes() );
+      return true;
+    }
+    catch( NoSuchMethodException e ) {
+      return false;
+    }
+  }
+
+  private static boolean isStructure( IType type ) {
+    return type instanceof IGosuClass && ((IGosuClass)type).isStructure() &&
+           !type.isGenericType() && !type.isParameterizedType();
+  }
+
+  private static IType getListElementType( IType type ) {
+    if( type.isParameterizedType() && type.getGenericType() == JavaTypes.LIST().getGenericType() ) {
+      return type.getTypeParameters()[0];
+    }
+    return null;
+  }
+
+  /**
+   * @return a codec for a property or List element of the type
+   */
+  private static IJsonCodec<?> getNestedCodec( IType type ) {
+    if( isStructure( type ) ) {
+      StructureCodec codec = CODECS.get( ((IGosuClass)type).getBackingClass() );
+      codec.link();
+      return codec;
+    }
+    IType elementType = getListElementType( type );
+    if( elementType != null ) {
+      return new ListCodec( getNestedCodec( elementType ) );
+    }
+    Class<?> cls = type instanceof IJavaType ? ((IJavaType)type).getBackingClass() : null;
+    Function<Object, Object> converter = ELEMENT_SCALARS.get( cls );
+    if( converter != null ) {
+      return new ScalarCodec( converter );
+    }
+    if( cls == Object.class || type == JavaTypes.OBJECT() || type.isDynamic() ) {
+      return new ScalarCodec( null );
+    }
+    throw new IllegalArgumentException( "Unsupported type for JSON: " + type.getName() );
+  }
+
+  private static byte[] generateObject( String name, Class<?> iface, List<Property> properties ) {
+    String slashName = name.replace( '.', '/' );
+    ClassWriter cw = new ClassWriter( ClassWriter.COMPUTE_MAXS );
+    cw.visit( Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER | Opcodes.ACC_SYNTHETIC,
+              slashName, null, "java/lang/Object", new String[] {Type.getInternalName( iface )} );
+
+    MethodVisitor mv = cw.visitMethod( Opcodes.ACC_PUBLIC, "<init>", "()V", null, null );
+    mv.visitCode();
+    mv.visitVarInsn( Opcodes.ALOAD, 0 );
+    mv.visitMethodInsn( Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false );
+    mv.visitInsn( Opcodes.RETURN );
+    mv.visitMaxs( 0, 0 );
+    mv.visitEnd();
+
+    for( Property property : properties ) {
+      String desc = Type.getDescriptor( property._class );
+      cw.visitField( 0, property._fieldName, desc, null, null ).visitEnd();
+
+      Method getter = property._getter;
+      mv = cw.visitMethod( Opcodes.ACC_PUBLIC, getter.getName(), Type.getMethodDescriptor( getter ), null, null );
+      mv.visitCode();
+      mv.visitVarInsn( Opcodes.ALOAD, 0 );
+      mv.visitFieldInsn( Opcodes.GETFIELD, slashName, property._fieldName, desc );
+      mv.visitInsn( Type.getType( property._class ).getOpcode( Opcodes.IRETURN ) );
+      mv.visitMaxs( 0, 0 );
+      mv.visitEnd();
+
+      Method setter = property._setter;
+      if( setter != null ) {
+        mv = cw.visitMethod( Opcodes.ACC_PUBLIC, setter.getName(), Type.getMethodDescriptor( setter ), null, null );
+        mv.visitCode();
+        mv.visitVarInsn( Opcodes.ALOAD, 0 );
+        mv.visitVarInsn( Type.getType( property._class ).getOpcode( Opcodes.ILOAD ), 1 );
+        mv.visitFieldInsn( Opcodes.PUTFIELD, slashName, property._fieldName, desc );
+        mv.visitInsn( Opcodes.RETURN );
+        mv.visitMaxs( 0, 0 );
+        mv.visitEnd();
+      }
+    }
+
+    mv = cw.visitMethod( Opcodes.ACC_PUBLIC, "toString", "()Ljava/lang/String;", null, null );
+    mv.visitCode();
+    mv.visitLdcInsn( Type.getType( iface ) );
+    mv.visitVarInsn( Opcodes.ALOAD, 0 );
+    mv.visitMethodInsn( Opcodes.INVOKESTATIC, FACTORY, "toJson", "(Ljava/lang/Class;Ljava/lang/Object;)Ljava/lang/String;", false );
+    mv.visitInsn( Opcodes.ARETURN );
+    mv.visitMaxs( 0, 0 );
+    mv.visitEnd();
+
+    cw.visitEnd();
+    return cw.toByteArray();
+  }
+
+  private static byte[] generateCodec( String name, String objectName, Class<?> iface, List<Property> properties ) {
+    String slashName = name.replace( '.', '/' );
+    String objectSlashName = objectName.replace( '.', '/' );
+    String ifaceName = Type.getInternalName( iface );
+    ClassWriter cw = new ClassWriter( ClassWriter.COMPUTE_FRAMES ) {
+      @Override
+      protected String getCommonSuperClass( String type1, String type2 ) {
+        // Frames only ever merge locals of the same type, avoid loading the generated classes
+        return "java/lang/Object";
+      }
+    };
+    cw.visit( Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER | Opcodes.ACC_SYNTHETIC,
+              slashName, null, STRUCTURE_CODEC, null );
+
+    MethodVisitor mv = cw.visitMethod( Opcodes.ACC_PUBLIC, "<init>", "()V", null, null );
+    mv.visitCode();
+    mv.visitVarInsn( Opcodes.ALOAD, 0 );
+    mv.visitMethodInsn( Opcodes.INVOKESPECIAL, STRUCTURE_CODEC, "<init>", "()V", false );
+    mv.visitInsn( Opcodes.RETURN );
+    mv.visitMaxs( 0, 0 );
+    mv.visitEnd();
+
+    generateRead( cw, objectSlashName, properties );
+    generateWrite( cw, ifaceName, properties );
+
+    cw.visitEnd();
+    return cw.toByteArray();
+  }
+
+  // Object read( JsonReader reader ) {
+  //   if( !beginObject( reader ) ) {
+  //     return null;
+  //   }
+  //   Impl obj = new Impl();
+  //   while( nextMember( reader ) ) {
+  //     switch( indexOf( reader.getName() ) ) {
+  //       case 0: obj.prop0 = asString( readScalar( reader ) ); break;
+  //       case 1: obj.prop1 = (List)_nested[0].read( reader ); break;
+  //       ...
+  //       default: reader.skipValue();
+  //     }
+  //   }
+  //   return obj;
+  // }
+  private static void generateRead( ClassWriter cw, String objectName, List<Property> properties ) {
+    MethodVisitor mv = cw.visitMethod( Opcodes.ACC_PUBLIC, "read", "(L" + READER + ";)Ljava/lang/Object;", null, null );
+    mv.visitCode();
+    Label start = new Label();
+    mv.visitVarInsn( Opcodes.ALOAD, 1 );
+    mv.visitMethodInsn( Opcodes.INVOKESTATIC, FACTORY, "beginObject", "(L" + READER + ";)Z", false );
+    mv.visitJumpInsn( Opcodes.IFNE, start );
+    mv.visitInsn( Opcodes.ACONST_NULL );
+    mv.visitInsn( Opcodes.ARETURN );
+
+    mv.visitLabel( start );
+    mv.visitTypeInsn( Opcodes.NEW, objectName );
+    mv.visitInsn( Opcodes.DUP );
+    mv.visitMethodInsn( Opcodes.INVOKESPECIAL, objectName, "<init>", "()V", false );
+    mv.visitVarInsn( Opcodes.ASTORE, 2 );
+
+    Label loop = new Label();
+    Label end = new Label();
+    Label skip = new Label();
+    mv.visitLabel( loop );
+    mv.visitVarInsn( Opcodes.ALOAD, 1 );
+    mv.visitMethodInsn( Opcodes.INVOKESTATIC, FACTORY, "nextMember", "(L" + READER + ";)Z", false );
+    mv.visitJumpInsn( Opcodes.IFEQ, end );
+
+    if( !properties.isEmpty() ) {
+      mv.visitVarInsn( Opcodes.ALOAD, 0 );
+      mv.visitVarInsn( Opcodes.ALOAD, 1 );
+      mv.visitMethodInsn( Opcodes.INVOKEVIRTUAL, READER, "getName", "()Ljava/lang/String;", false );
+      mv.visitMethodInsn( Opcodes.INVOKEVIRTUAL, STRUCTURE_CODEC, "indexOf", "(Ljava/lang/String;)I", false );
+      Label[] cases = new Label[properties.size()];
+      for( int i = 0; i < cases.length; i++ ) {
+        cases[i] = new Label();
+      }
+      mv.visitTableSwitchInsn( 0, cases.length - 1, skip, cases );
+      for( int i = 0; i < cases.length; i++ ) {
+        Property property = properties.get( i );
+        mv.visitLabel( cases[i] );
+        mv.visitVarInsn( Opcodes.ALOAD, 2 );
+        if( property._scalar != null ) {
+          mv.visitVarInsn( Opcodes.ALOAD, 1 );
+          mv.visitMethodInsn( Opcodes.INVOKESTATIC, FACTORY, "readScalar", "(L" + READER + ";)Ljava/lang/Object;", false );
+          mv.visitMethodInsn( Opcodes.INVOKESTATIC, FACTORY, property._scalar,
+                              "(Ljava/lang/Object;)" + Type.getDescriptor( property._class ), false );
+        }
+        else {
+          if( property.isValue() ) {
+            mv.visitVarInsn( Opcodes.ALOAD, 1 );
+            mv.visitMethodInsn( Opcodes.INVOKEVIRTUAL, READER, "readValue", "()Ljava/lang/Object;", false );
+          }
+          else {
+            pushNestedCodec( mv, property );
+            mv.visitVarInsn( Opcodes.ALOAD, 1 );
+            mv.visitMethodInsn( Opcodes.INVOKEINTERFACE, CODEC, "read", "(L" + READER + ";)Ljava/lang/Object;", true );
+          }
+          if( property._class != Object.class ) {
+            mv.visitTypeInsn( Opcodes.CHECKCAST, Type.getInternalName( property._class ) );
+          }
+        }
+        mv.visitFieldInsn( Opcodes.PUTFIELD, objectName, property._fieldName, Type.getDescriptor( property._class ) );
+        mv.visitJumpInsn( Opcodes.GOTO, loop );
+      }
+    }
+
+    mv.visitLabel( skip );
+    mv.visitVarInsn( Opcodes.ALOAD, 1 );
+    mv.visitMethodInsn( Opcodes.INVOKEVIRTUAL, READER, "skipValue", "()V", false );
+    mv.visitJumpInsn( Opcodes.GOTO, loop );
+
+    mv.visitLabel( end );
+    mv.visitVarInsn( Opcodes.ALOAD, 2 );
+    mv.visitInsn( Opcodes.ARETURN );
+    mv.visitMaxs( 0, 0 );
+    mv.visitEnd();
+  }
+
+  // void write( Object value, JsonWriter writer ) {
+  //   if( value == null || value instanceof Map ) {
+  //     writer.value( value );
+  //     return;
+  //   }
+  //   Iface obj = (Iface)asStructure( value, Iface.class );
+  //   writer.beginObject();
+  //   writer.name( "prop0" ).value( obj.getprop0() );
+  //   writer.name( "prop1" );
+  //   _nested[0].write( obj.getprop1(), writer );
+  //   ...
+  //   writer.endObject();
+  // }
+  private static void generateWrite( ClassWriter cw, String ifaceName, List<Property> properties ) {
+    MethodVisitor mv = cw.visitMethod( Opcodes.ACC_PUBLIC, "write", "(Ljava/lang/Object;L" + WRITER + ";)V", null, null );
+    mv.visitCode();
+    Label plain = new Label();
+    Label structure = new Label();
+    mv.visitVarInsn( Opcodes.ALOAD, 1 );
+    mv.visitJumpInsn( Opcodes.IFNULL, plain );
+    mv.visitVarInsn( Opcodes.ALOAD, 1 );
+    mv.visitTypeInsn( Opcodes.INSTANCEOF, "java/util/Map" );
+    mv.visitJumpInsn( Opcodes.IFEQ, structure );
+    mv.visitLabel( plain );
+    mv.visitVarInsn( Opcodes.ALOAD, 2 );
+    mv.visitVarInsn( Opcodes.ALOAD, 1 );
+    mv.visitMethodInsn( Opcodes.INVOKEVIRTUAL, WRITER, "value", "(Ljava/lang/Object;)L" + WRITER + ";", false );
+    mv.visitInsn( Opcodes.POP );
+    mv.visitInsn( Opcodes.RETURN );
+
+    mv.visitLabel( structure );
+    mv.visitVarInsn( Opcodes.ALOAD, 1 );
+    mv.visitLdcInsn( Type.getObjectType( ifaceName ) );
+    mv.visitMethodInsn( Opcodes.INVOKESTATIC, FACTORY, "asStructure", "(Ljava/lang/Object;Ljava/lang/Class;)Ljava/lang/Object;", false );
+    mv.visitTypeInsn( Opcodes.CHECKCAST, ifaceName );
+    mv.visitVarInsn( Opcodes.ASTORE, 3 );
+    mv.visitVarInsn( Opcodes.ALOAD, 2 );
+    mv.visitMethodInsn( Opcodes.INVOKEVIRTUAL, WRITER, "beginObject", "()L" + WRITER + ";", false );
+    mv.visitInsn( Opcodes.POP );
+    for( Property property : properties ) {
+      mv.visitVarInsn( Opcodes.ALOAD, 2 );
+      mv.visitLdcInsn( property._jsonName );
+      mv.visitMethodInsn( Opcodes.INVOKEVIRTUAL, WRITER, "name", "(Ljava/lang/String;)L" + WRITER + ";", false );
+      if( property._iNested < 0 ) {
+        invokeGetter( mv, property );
+        box( mv, Type.getType( property._class ) );
+        mv.visitMethodInsn( Opcodes.INVOKEVIRTUAL, WRITER, "value", "(Ljava/lang/Object;)L" + WRITER + ";", false );
+        mv.visitInsn( Opcodes.POP );
+      }
+      else {
+        mv.visitInsn( Opcodes.POP );
+        pushNestedCodec( mv, property );
+        invokeGetter( mv, property );
+        mv.visitVarInsn( Opcodes.ALOAD, 2 );
+        mv.visitMethodInsn( Opcodes.INVOKEINTERFACE, CODEC, "write", "(Ljava/lang/Object;L" + WRITER + ";)V", true );
+      }
+    }
+    mv.visitVarInsn( Opcodes.ALOAD, 2 );
+    mv.visitMethodInsn( Opcodes.INVOKEVIRTUAL, WRITER, "endObject", "()L" + WRITER + ";", false );
+    mv.visitInsn( Opcodes.POP );
+    mv.visitInsn( Opcodes.RETURN );
+    mv.visitMaxs( 0, 0 );
+    mv.visitEnd();
+  }
+
+  private static void invokeGetter( MethodVisitor mv, Property property ) {
+    Method getter = property._getter;
+    mv.visitVarInsn( Opcodes.ALOAD, 3 );
+    mv.visitMethodInsn( Opcodes.INVOKEINTERFACE, Type.getInternalName( getter.getDeclaringClass() ), getter.getName(),
+                        Type.getMethodDescriptor( getter ), true );
+  }
+
+  private static void pushNestedCodec( MethodVisitor mv, Property property ) {
+    mv.visitVarInsn( Opcodes.ALOAD, 0 );
+    mv.visitFieldInsn( Opcodes.GETFIELD, STRUCTURE_CODEC, "_nested", "[L" + CODEC + ";" );
+    pushInt( mv, property._iNested );
+    mv.visitInsn( Opcodes.AALOAD );
+  }
+
+  private static void box( MethodVisitor mv, Type type ) {
+    String boxed;
+    switch( type.getSort() ) {
+      case Type.BOOLEAN:
+        boxed = "java/lang/Boolean";
+        break;
+      case Type.BYTE:
+        boxed = "java/lang/Byte";
+        break;
+      case Type.SHORT:
+        boxed = "java/lang/Short";
+        break;
+      case Type.INT:
+        boxed = "java/lang/Integer";
+        break;
+      case Type.FLOAT:
+        boxed = "java/lang/Float";
+        break;
+      case Type.LONG:
+        boxed = "java/lang/Long";
+        break;
+      case Type.DOUBLE:
+        boxed = "java/lang/Double";
+        break;
+      default:
+        return;
+    }
+    mv.visitMethodInsn( Opcodes.INVOKESTATIC, boxed, "valueOf", "(" + type.getDescriptor() + ")L" + boxed + ";", false );
+  }
+
+  private static void pushInt( MethodVisitor mv, int i ) {
+    if( i <= 5 ) {
+      mv.visitInsn( Opcodes.ICONST_0 + i );
+    }
+    else if( i <= Byte.MAX_VALUE ) {
+      mv.visitIntInsn( Opcodes.BIPUSH, i );
+    }
+    else {
+      mv.visitIntInsn( Opcodes.SIPUSH, i );
+    }
+  }
+
+  /**
+   * The superclass of generated codecs
+   */
+  public static abstract class StructureCodec implements IJsonCodec<Object> {
+    protected IJsonCodec[] _nested;
+    private Map<String, Integer> _index;
+    private List<Property> _properties;
+    private volatile boolean _bLinked;
+    private boolean _bLinking;
+
+    /**
+     * @return the index of the property with the JSON name or -1 if there isn't one
+     */
+    protected final int indexOf( String name ) {
+      Integer i = _index.get( name );
+      return i == null ? -1 : i;
+    }
+
+    /**
+     * Makes the codecs for the properties read with nested codecs.  All linking happens under one
+     * lock, and a codec reached again while it is linking is left alone, so a structure may
+     * refer back to itself or to a structure referring to it.
+     */
+    void link() {
+      if( _bLinked ) {
+        return;
+      }
+      synchronized( JsonCodecFactory.class ) {
+        if( _bLinked || _bLinking ) {
+          return;
+        }
+        _bLinking = true;
+        try {
+          List<IJsonCodec> nested = new ArrayList<>();
+          for( Property property : _properties ) {
+            if( property._iNested >= 0 ) {
+              nested.add( getNestedCodec( property._type ) );
+            }
+          }
+          _nested = nested.toArray( new IJsonCodec[nested.size()] );
+          _properties = null;
+          _bLinked = true;
+        }
+        finally {
+          _bLinking = false;
+        }
+      }
+    }
+  }
+
+  private static class ListCodec implements IJsonCodec<Object> {
+    private final IJsonCodec<Object> _element;
+
+    @SuppressWarnings("unchecked")
+    ListCodec( IJsonCodec<?> element ) {
+      _element = (IJsonCodec<Object>)element;
+    }
+
+    @Override
+    public Object read( JsonReader reader ) {
+      JsonReader.Event event = reader.next();
+      if( event == JsonReader.Event.VALUE && reader.getValue() == null ) {
+        return null;
+      }
+      if( event != JsonReader.Event.START_ARRAY ) {
+        throw new IllegalStateException( "Expecting a JSON array, found " + event );
+      }
+      List<Object> list = new ArrayList<>();
+      while( reader.hasNext() ) {
+        list.add( _element.read( reader ) );
+      }
+      reader.next();
+      return list;
+    }
+
+    @Override
+    public void write( Object value, JsonWriter writer ) {
+      if( value == null ) {
+        writer.value( null );
+        return;
+      }
+      writer.beginArray();
+      for( Object element : (List<?>)value ) {
+        _element.write( element, writer );
+      }
+      writer.endArray();
+    }
+  }
+
+  private static class ScalarCodec implements IJsonCodec<Object> {
+    private final Function<Object, Object> _converter;
+
+    /**
+     * @param converter converts a scalar value, or null to read any value as JsonReader reads it
+     */
+    ScalarCodec( Function<Object, Object> converter ) {
+      _converter = converter;
+    }
+
+    @Override
+    public Object read( JsonReader reader ) {
+      return _converter == null ? reader.readValue() : _converter.apply( readScalar( reader ) );
+    }
+
+    @Override
+    public void write( Object value, JsonWriter writer ) {
+      writer.value( value );
+    }
+  }
+
+  private static class Property {
+    private final String _fieldName;
+    private final String _jsonName;
+    private final IType _type;
+    private final Method _getter;
+    private final Method _setter;
+    private final Class<?> _class;
+    private final String _scalar;
+    private int _iNested = -1;
+
+    Property( IPropertyInfo pi, Method getter, Method setter ) {
+      _fieldName = pi.getName();
+      IAnnotationInfo actualName = pi.getAnnotation( JavaTypes.ACTUAL_NAME() );
+      _jsonName = actualName == null ? pi.getName() : (String)actualName.getFieldValue( "value" );
+      _type = pi.getFeatureType();
+      _getter = getter;
+      _setter = setter;
+      _class = getter.getReturnType();
+      _scalar = _type instanceof IJavaType ? SCALARS.get( _class ) : null;
+    }
+
+    /**
+     * @return true if the property takes any value as JsonReader reads it e.g., Object, Dynamic or Bindings
+     */
+    boolean isValue() {
+      return _scalar == null && !isStructure( _type ) && getListElementType( _type ) == null &&
+             (_class == Object.class || _class.isAssignableFrom( gw.lang.reflect.json.JsonBindings.class ));
+    }
+  }
+
+  /**
+   * Defines the classes generated for a structure in a child of the structure's loader, resolving
+   * the classes they refer to from Gosu's own loader.  The classes are typed as plain Java classes.
+   */
+  private static class CodecLoader extends GeneratedClassLoader {
+    CodecLoader( ClassLoader parent ) {
+      super( parent );
+    }
+
+    @Override
+    protected Class<?> loadClass( String name, boolean resolve ) throws ClassNotFoundException {
+      if( name.startsWith( JsonCodecFactory.class.getName() ) || name.startsWith( "gw.lang.reflect.json." ) ) {
+        return JsonCodecFactory.class.getClassLoader().loadClass( name );
+      }
+      return super.loadClass( name, resolve );
+    }
+
+    @Override
+    public Class<?> getTypedAs( Class<?> cls ) {
+      return cls;
+    }
+
+    Class<?> define( String name, byte[] bytes ) {
+      return defineClass( name, bytes, 0, bytes.length );
+    }
+  }
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.loader;
+
+/**
+ * A class loader defining classes Gosu generates at runtime as bytecode, outside of any type
+ * loader, e.g. block adapters and JSON codecs.  The type system can't find such classes by name,
+ * so it asks their loader for their type instead, see
+ * {@link gw.lang.reflect.TypeSystem#get(Class)}.
+ */
+public abstract class GeneratedClassLoader extends ClassLoader
+{
+  protected GeneratedClassLoader( ClassLoader parent )
+  {
+    super( parent );
+  }
+
+  /**
+   * @param cls a class defined by this loader
+   * @return the class whose type the class's instances have, the class itself if they are typed as
+   *   a plain Java class
+   */
+  public abstract Class<?> getTypedAs( Class<?> cls );
+}
@@ -34,6 +34,8 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class BlockClass extends SyntheticClass implements IBlockClassInternal
 {
   private static final AtomicInteger TMP_INT_IDENTIFIER = new AtomicInteger( 0 );
+  private volatile boolean _bCompiledToLambda;
+
   private BlockClass( BlockExpression blk )
   {
     super("_todo_remove_me", "_todo_remove_me." + GosuClassTypeLoader.BLOCK_PREFIX + TMP_INT_IDENTIFIER.incrementAndGet() + GosuClassTypeLoader.BLOCK_POSTFIX,
@@ -194,6 +196,18 @@ public class BlockClass extends SyntheticClass implements IBlockClassInternal
     return (IBlockClassInternal)blockClass.getOrCreateTypeReference();
   }
 
+  @Override
+  public boolean isCompiledToLambda()
+  {
+    return _bCompiledToLambda;
+  }
+
+  @Override
+  public void setCompiledToLambda( boolean bCompiledToLambda )
+  {
+    _bCompiledToLambda = bCompiledToLambda;
+  }
+
   @Override
   public boolean isAnonymous()
   {
@@ -21,7 +21,11 @@ public class CapturedSymbol extends Symbol implements ICapturedSymbol
     super( strName, sym.getType(), stackProvider, null, scope );
     _referredSymbol = sym;
     sym.setValueIsBoxed( true ); //the parent symbol should now use a reference
-    this.setValueIsBoxed( true ); //captured symbols always use references
+    this.setValueIsBoxed( true ); //captured symbols use references if the parent symbol is reassigned
+    if( sym instanceof Symbol )
+    {
+      _valueIsReassigned = ((Symbol)sym)._valueIsReassigned; //an assignment to either is an assignment to both
+    }
   }
 
   public ISymbol getReferredSymbol() {
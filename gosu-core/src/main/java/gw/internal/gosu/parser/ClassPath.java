@@ -7,6 +7,8 @@ package gw.internal.gosu.parser;
 import gw.config.CommonServices;
 import gw.fs.IDirectory;
 import gw.fs.IFile;
+import gw.fs.jar.JarFileDirectoryImpl;
+import gw.fs.jar.JarIndex;
 import gw.internal.gosu.module.fs.FileSystemImpl;
 import gw.lang.reflect.IDefaultTypeLoader;
 import gw.lang.reflect.gs.TypeName;
@@ -60,6 +62,11 @@ public class ClassPath implements IClassPath
       return null;
     }
     Object value = node.getUserData();
+    if( value instanceof JarClassFile ) {
+      // Materialize the class's package in the jar only now that it's needed
+      value = ((JarClassFile)value).resolve();
+      node.setUserData( value );
+    }
     if( value instanceof IFile ) {
       if( _bStableFiles ) {
         // Files are assumed stable outside an IDE
@@ -95,7 +102,30 @@ public class ClassPath implements IClassPath
     IDirectory[] paths = javaClassPath.toArray(new IDirectory[javaClassPath.size()]);
     for (int i = paths.length - 1; i >= 0; i--) {
       IDirectory path = paths[i];
-      addClassNames(path, path, _filter);
+      if( path instanceof JarFileDirectoryImpl ) {
+        addClassNames( (JarFileDirectoryImpl)path, _filter );
+      }
+      else {
+        addClassNames(path, path, _filter);
+      }
+    }
+  }
+
+  /**
+   * Adds the class names in a jar from its index, without making resources for its entries
+   */
+  private void addClassNames( JarFileDirectoryImpl jar, ClassPathFilter filter ) {
+    JarIndex index = jar.getIndex();
+    for( String dir : index.getDirectoryPaths() ) {
+      for( String fileName : index.getChildFiles( dir ) ) {
+        if( isClassFileName( fileName ) ) {
+          String strPath = dir.isEmpty() ? fileName : dir + '/' + fileName;
+          String strClassName = strPath.substring( 0, strPath.length() - CLASS_FILE_EXT.length() ).replace( '/', '.' );
+          if( isValidClassName( strClassName ) ) {
+            putClassName( new JarClassFile( jar, strPath ), strClassName, filter );
+          }
+        }
+      }
     }
   }
 
@@ -115,7 +145,7 @@ public class ClassPath implements IClassPath
     }
   }
 
-  private void putClassName( final IFile file, String strClassName, ClassPathFilter filter )
+  private void putClassName( final Object file, String strClassName, ClassPathFilter filter )
   {
     boolean bFiltered = filter != null && !filter.acceptClass( strClassName );
     if( bFiltered )
@@ -200,4 +230,18 @@ public class ClassPath implements IClassPath
   public String toString() {
     return _module.getName();
   }
+
+  private static class JarClassFile {
+    private final JarFileDirectoryImpl _jar;
+    private final String _strPath;
+
+    JarClassFile( JarFileDirectoryImpl jar, String strPath ) {
+      _jar = jar;
+      _strPath = strPath;
+    }
+
+    IFile resolve() {
+      return _jar.file( _strPath );
+    }
+  }
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.parser;
+
+import gw.lang.reflect.IType;
+import gw.lang.reflect.gs.IGosuObject;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The types of Java classes, keyed by the Class itself.  A lookup is a {@link ClassValue} read,
+ * which the JVM answers from a table hanging off the Class without locking or hashing, followed
+ * by a generation check, so it is safe to call from any thread.
+ * <p>
+ * A value in a Class's table lives as long as the Class, and String's lives as long as the JVM.
+ * So slots and entries are made of JDK classes only, an instance of one of Gosu's classes would
+ * keep Gosu's class loader alive, and entries hold their type weakly, so the index never keeps a
+ * class loader or an execution environment alive.  A refresh, or a change to a type loader stack,
+ * invalidates all entries at once by starting a new generation; entries pinned with {@link #pin}
+ * survive it.  Writes to the generation happen under the type system lock.
+ */
+class ClassTypeIndex
+{
+  // An entry is {WeakReference<IType> type, Integer generation, Boolean pinned, Boolean instance type}
+  private static final int TYPE = 0;
+  private static final int GENERATION = 1;
+  private static final int PINNED = 2;
+  private static final int INSTANCE_TYPE = 3;
+
+  private final ClassValue<AtomicReference<Object[]>> _slots = new ClassValue<AtomicReference<Object[]>>()
+  {
+    @Override
+    protected AtomicReference<Object[]> computeValue( Class<?> cls )
+    {
+      return new AtomicReference<Object[]>();
+    }
+  };
+  private volatile int _generation;
+
+  IType get( Class<?> cls )
+  {
+    Object[] entry = _slots.get( cls ).get();
+    if( entry == null || !isCurrent( entry ) )
+    {
+      return null;
+    }
+    return getType( entry );
+  }
+
+  /**
+   * Like {@link #get}, but only answers for classes whose instances have the class's type, i.e.
+   * neither Gosu objects nor types.  Lets a caller with an instance skip testing it for those
+   * interfaces, a failed test against an interface is a scan of the class's supertypes.
+   */
+  IType getInstanceType( Class<?> cls )
+  {
+    Object[] entry = _slots.get( cls ).get();
+    if( entry == null || entry[INSTANCE_TYPE] != Boolean.TRUE || !isCurrent( entry ) )
+    {
+      return null;
+    }
+    return getType( entry );
+  }
+
+  /**
+   * @return the current generation, read before resolving a type to {@link #put}
+   */
+  int getGeneration()
+  {
+    return _generation;
+  }
+
+  /**
+   * Caches the type resolved for the class during the given generation, a type resolved before
+   * the latest invalidation is dropped.
+   */
+  void put( Class<?> cls, IType type, int iGeneration )
+  {
+    if( iGeneration == _generation )
+    {
+      _slots.get( cls ).set( makeEntry( cls, type, iGeneration, false ) );
+    }
+  }
+
+  void pin( Class<?> cls, IType type )
+  {
+    _slots.get( cls ).set( makeEntry( cls, type, _generation, true ) );
+  }
+
+  void invalidate()
+  {
+    _generation++;
+  }
+
+  private boolean isCurrent( Object[] entry )
+  {
+    return entry[PINNED] == Boolean.TRUE || (Integer)entry[GENERATION] == _generation;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static IType getType( Object[] entry )
+  {
+    return ((WeakReference<IType>)entry[TYPE]).get();
+  }
+
+  private static Object[] makeEntry( Class<?> cls, IType type, int iGeneration, boolean bPinned )
+  {
+    boolean bInstanceType = !IGosuObject.class.isAssignableFrom( cls ) && !IType.class.isAssignableFrom( cls );
+    return new Object[] {new WeakReference<IType>( type ), iGeneration, bPinned, bInstanceType};
+  }
+}
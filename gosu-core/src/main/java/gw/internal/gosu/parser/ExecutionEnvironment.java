@@ -80,6 +80,7 @@ public class ExecutionEnvironment implements IExecutionEnvironment
   private IModule _rootModule;
   private String[] _discretePackages;
   private TypeSystemState _state = TypeSystemState.STOPPED;
+  private final FrequentUsedJavaTypeCache _frequentUsedJavaTypeCache = new FrequentUsedJavaTypeCache( this );
 
   public static ExecutionEnvironment instance()
   {
@@ -161,6 +162,11 @@ public class ExecutionEnvironment implements IExecutionEnvironment
     return _project;
   }
 
+  FrequentUsedJavaTypeCache getFrequentUsedJavaTypeCache()
+  {
+    return _frequentUsedJavaTypeCache;
+  }
+
   public List<? extends IModule> getModules() {
     return _modules;
   }
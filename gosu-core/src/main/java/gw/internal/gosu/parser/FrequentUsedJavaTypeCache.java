@@ -16,6 +16,7 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -24,29 +25,28 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.WeakHashMap;
 
+/**
+ * Per execution environment, maps the most used Java types by name, and by class the types of
+ * the most used Java classes and of any class resolved with {@link TypeLoaderAccess#get(Class)}
+ * outside the IDE.
+ */
 public class FrequentUsedJavaTypeCache {
-  private static final Map<IExecutionEnvironment, FrequentUsedJavaTypeCache> INSTANCES = new WeakHashMap<IExecutionEnvironment, FrequentUsedJavaTypeCache>();
-  private Map<Class<?>, IJavaType> _typesByClass = new WeakHashMap<Class<?>, IJavaType>();
-  private Map<String, IJavaType> _typesByName = new HashMap<String, IJavaType>();
-  private boolean _bInited;
+  private final ClassTypeIndex _typesByClass = new ClassTypeIndex();
+  private volatile Map<String, IJavaType> _typesByName = Collections.emptyMap();
+  private volatile boolean _bInited;
 
   private IExecutionEnvironment _execEnv;
 
   public static FrequentUsedJavaTypeCache instance( IExecutionEnvironment execEnv ) {
-    FrequentUsedJavaTypeCache cache = INSTANCES.get( execEnv );
-    if( cache == null ) {
-      INSTANCES.put( execEnv, cache = new FrequentUsedJavaTypeCache( execEnv ) );
-    }
-    return cache;
+    return ((ExecutionEnvironment)execEnv).getFrequentUsedJavaTypeCache();
   }
 
-  private FrequentUsedJavaTypeCache( IExecutionEnvironment execEnv ) {
+  FrequentUsedJavaTypeCache( IExecutionEnvironment execEnv ) {
     _execEnv = execEnv;
   }
 
-  public void init() {
+  public synchronized void init() {
     _bInited = true;
     Set<Class<?>> classes = new HashSet<Class<?>>();
     classes.add(Void.TYPE);
@@ -98,27 +98,60 @@ public class FrequentUsedJavaTypeCache {
     IModule root = _execEnv.getGlobalModule();
     TypeSystem.pushModule(root);
     try {
+      // The by-name map keeps the pinned types reachable, the class index only holds them weakly
+      Map<String, IJavaType> typesByName = new HashMap<String, IJavaType>();
       for (Class<?> c : classes) {
         IJavaType type = (IJavaType) TypeSystem.get(c);
-        _typesByClass.put(c, type);
-        _typesByName.put(c.getName(), type);
+        _typesByClass.pin(c, type);
+        typesByName.put(c.getName(), type);
       }
+      _typesByName = typesByName;
     } finally {
       TypeSystem.popModule(root);
     }
   }
-  
-  public final IJavaType getHighUsageType(Class<?> clazz) {
+
+  /**
+   * @return the type of the class if it is a high usage type or has been resolved since the last
+   *   refresh, otherwise null
+   */
+  public final IType getType(Class<?> clazz) {
     if( !_bInited ) {
       init();
     }
     return _typesByClass.get(clazz);
   }
 
+  /**
+   * @return the type of instances of the class, if it is known and the class is neither a Gosu
+   *   object nor a type, otherwise null
+   */
+  public final IType getInstanceType(Class<?> clazz) {
+    return _typesByClass.getInstanceType(clazz);
+  }
+
+  /**
+   * @return the generation to pass to {@link #putType}, read it before resolving the type
+   */
+  public final int getGeneration() {
+    return _typesByClass.getGeneration();
+  }
+
+  public final void putType(Class<?> clazz, IType type, int iGeneration) {
+    _typesByClass.put(clazz, type, iGeneration);
+  }
+
+  /**
+   * Drops the types cached by class, except the high usage ones
+   */
+  public void invalidate() {
+    _typesByClass.invalidate();
+  }
+
   public final IJavaType getHighUsageType(String clazz) {
     if( !_bInited ) {
       init();
     }
     return _typesByName.get(clazz);
-  }  
+  }
 }
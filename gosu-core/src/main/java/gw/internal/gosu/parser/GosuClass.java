@@ -10,6 +10,7 @@ import gw.fs.IFile;
 import gw.internal.gosu.coercer.FunctionToInterfaceClassGenerator;
 import gw.internal.gosu.compiler.GosuClassLoader;
 import gw.internal.gosu.compiler.SingleServingGosuClassLoader;
+import gw.internal.gosu.compiler.protocols.gosuclass.GosuClassNameIndex;
 import gw.internal.gosu.ir.TransformingCompiler;
 import gw.internal.gosu.parser.expressions.TypeVariableDefinition;
 import gw.internal.gosu.parser.expressions.TypeVariableDefinitionImpl;
@@ -42,6 +43,8 @@ import gw.lang.parser.expressions.IVarStatement;
 import gw.lang.parser.resources.Res;
 import gw.lang.parser.statements.IFunctionStatement;
 import gw.lang.parser.statements.IUsesStatement;
+import gw.lang.profile.GosuProfiler;
+import gw.lang.profile.Phase;
 import gw.lang.reflect.FunctionType;
 import gw.lang.reflect.IAttributedFeatureInfo;
 import gw.lang.reflect.IEnumValue;
@@ -166,6 +169,7 @@ public class GosuClass extends InnerClassCapableType implements IGosuClassIntern
       _typeLoader = classTypeLoader;
       _sourceFileHandle = sourceFile;
       _strFullName = (GosuStringUtil.isEmpty( _strNamespace ) ? "" : (_strNamespace + '.')) + _strRelativeName;
+      GosuClassNameIndex.typeCreated( _strFullName );
       _mapInnerClasses = Collections.emptyMap();
       _interfaces = EMPTY_TYPE_ARRAY;
       _defaultConstructorName = _strRelativeName + "()";
@@ -1536,7 +1540,15 @@ public class GosuClass extends InnerClassCapableType implements IGosuClassIntern
               IGosuClassInternal gosuClass = (IGosuClassInternal) getOrCreateTypeReference();
               GosuParser parser = makeParserForPhase();
               GosuClassParser classParser = new GosuClassParser( parser );
-              classParser.parseDefinitions( gosuClass );
+              GosuProfiler.PhaseTimer timer = GosuProfiler.startPhase( Phase.PARSE_DEFINITIONS, getName() );
+              try
+              {
+                classParser.parseDefinitions( gosuClass );
+              }
+              finally
+              {
+                GosuProfiler.endPhase( timer );
+              }
             }
 
             postAnalyze();
@@ -1676,7 +1688,15 @@ public class GosuClass extends InnerClassCapableType implements IGosuClassIntern
               IGosuClassInternal gosuClass = (IGosuClassInternal) getOrCreateTypeReference();
               GosuParser parser = makeParserForPhase();
               GosuClassParser classParser = new GosuClassParser( parser );
-              classParser.parseDeclarations(gosuClass);
+              GosuProfiler.PhaseTimer timer = GosuProfiler.startPhase( Phase.PARSE_DECLARATIONS, getName() );
+              try
+              {
+                classParser.parseDeclarations(gosuClass);
+              }
+              finally
+              {
+                GosuProfiler.endPhase( timer );
+              }
             }
             getParseInfo().maybeClearDebugInfo();
 
@@ -1831,7 +1851,15 @@ public class GosuClass extends InnerClassCapableType implements IGosuClassIntern
             IGosuClassInternal gosuClass = (IGosuClassInternal) getOrCreateTypeReference();
             GosuParser parser = makeParserForPhase();
             GosuClassParser classParser = new GosuClassParser( parser );
-            classParser.parseHeader( gosuClass, false, false, false );
+            GosuProfiler.PhaseTimer timer = GosuProfiler.startPhase( Phase.PARSE_HEADER, getName() );
+            try
+            {
+              classParser.parseHeader( gosuClass, false, false, false );
+            }
+            finally
+            {
+              GosuProfiler.endPhase( timer );
+            }
           }
         }
         finally
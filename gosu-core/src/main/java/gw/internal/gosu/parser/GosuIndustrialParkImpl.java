@@ -11,6 +11,7 @@ import gw.internal.gosu.coercer.FunctionToInterfaceClassGenerator;
 import gw.internal.gosu.ir.builders.SimpleCompiler;
 import gw.internal.gosu.ir.transform.util.IRTypeResolverAPIWrapper;
 import gw.internal.gosu.javadoc.JavaDocFactoryImpl;
+import gw.internal.gosu.json.JsonCodecFactory;
 import gw.internal.gosu.module.GlobalModule;
 import gw.internal.gosu.module.Module;
 import gw.internal.gosu.parser.expressions.Identifier;
@@ -62,6 +63,7 @@ import gw.lang.reflect.IPropertyAccessor;
 import gw.lang.reflect.IPropertyInfo;
 import gw.lang.reflect.IPropertyInfoFactory;
 import gw.lang.reflect.IScriptabilityModifier;
+import gw.lang.function.IBlock;
 import gw.lang.reflect.IType;
 import gw.lang.reflect.ITypeInfo;
 import gw.lang.reflect.ITypeInfoFactory;
@@ -73,6 +75,7 @@ import gw.lang.reflect.gs.IEnhancementIndex;
 import gw.lang.reflect.gs.IFileSystemGosuClassRepository;
 import gw.lang.reflect.gs.IGosuClass;
 import gw.lang.reflect.gs.IGosuEnhancement;
+import gw.lang.reflect.json.IJsonCodec;
 import gw.lang.reflect.gs.IGosuProgram;
 import gw.lang.reflect.gs.ISourceFileHandle;
 import gw.lang.reflect.gs.ITemplateType;
@@ -355,6 +358,16 @@ public class GosuIndustrialParkImpl extends BaseService implements IGosuShop
     return FunctionToInterfaceClassGenerator.getBlockToInterfaceConversionClass( typeToCoerceTo, enclosingType );
   }
 
+  @Override
+  public Object coerceBlockToInterface( IType typeToCoerceTo, IBlock block ) {
+    return FunctionToInterfaceClassGenerator.coerceBlockToInterface( typeToCoerceTo, block );
+  }
+
+  @Override
+  public IJsonCodec<?> getJsonCodec( IType structureType ) {
+    return JsonCodecFactory.getCodec( structureType );
+  }
+
   @Override
   public IRTypeResolver getIRTypeResolver() {
     return IRTypeResolverAPIWrapper.INSTANCE;
@@ -10113,6 +10113,7 @@ public final class GosuParser extends ParserBase implements IGosuParser
     // (so it can be legally referenced in the statement).
     Symbol indexIdentifier = new TypedSymbol( strIndexIdentifier, JavaTypes.pINT(), _symTable, null, SymbolType.FOREACH_VARIABLE );
     indexIdentifier.setFinal( true );
+    indexIdentifier.setValueIsReassigned( true ); // the loop increments it
     _symTable.putSymbol( indexIdentifier );
     forEachStmt.setIndexIdentifier( indexIdentifier );
 
@@ -11349,6 +11350,11 @@ public final class GosuParser extends ParserBase implements IGosuParser
         }
 
         ISymbol idSym = id.getSymbol();
+        if( idSym instanceof Symbol )
+        {
+          // Not effectively final, if a block captures it the block must share its value
+          ((Symbol)idSym).setValueIsReassigned( true );
+        }
         verify( as, idSym.isWritable() ||
                 (idSym.isFinal() && !idSym.isStatic() && !(idSym instanceof CapturedSymbol) &&
                         ((idSym.isLocal() && !((Symbol)idSym).isImplicitlyInitialized()) ||
@@ -10,4 +10,12 @@ import gw.internal.gosu.parser.ICompilableTypeInternal;
 public interface IBlockClassInternal extends IBlockClass, ICompilableTypeInternal
 {
   public void update();
+
+  /**
+   * @return true if the enclosing class was compiled with this block's body as a method of its
+   *   own, instances of the block are then lambdas and this class is never loaded
+   */
+  public boolean isCompiledToLambda();
+
+  public void setCompiledToLambda( boolean bCompiledToLambda );
 }
@@ -8,6 +8,9 @@ import gw.config.CommonServices;
 import gw.fs.IDirectory;
 import gw.fs.IFile;
 import gw.fs.IResource;
+import gw.internal.gosu.compiler.protocols.gosuclass.GosuClassNameIndex;
+import gw.lang.profile.GosuProfiler;
+import gw.lang.profile.Phase;
 import gw.lang.reflect.IDefaultTypeLoader;
 import gw.lang.reflect.IExtendedTypeLoader;
 import gw.lang.reflect.IMetaType;
@@ -30,11 +33,8 @@ import gw.lang.reflect.module.IClassPath;
 import gw.lang.reflect.module.IModule;
 import gw.util.GosuClassUtil;
 import gw.util.Pair;
-import gw.util.Predicate;
-import gw.util.cache.FqnCacheNode;
 import gw.util.cache.WeakFqnCache;
 
-import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -43,6 +43,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  */
@@ -53,16 +55,20 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
   private IModule _module;
 
   // Type loader data structures
+  // Copy-on-write so the stack can be read without the type system lock; it is only modified under the lock
   private List<ITypeLoader> _globalStack;
   private DefaultTypeLoader _defaultTypeLoader;
+  private volatile boolean _bHasExtendedTypeLoaders; // Besides the default type loader
   private Map<String, ITypeLoader> _loadersByPrefix;
 
-  // Type system caches
+  // Type system caches, read without the type system lock and written with it
   private WeakFqnCache<IType> _typesByName;
+  private NegativeLookupIndex _misses; // Names no type loader could resolve
+  private Set<String> _errorTypeNames; // Names of error types in _typesByName, only accessed under the lock
   private Map<String, IType> _namespaceTypesByName; // A case-Sensitive map of names to namespace types
 
   //## todo: remove this pos
-  private Map<String, IType> _typesByCaseInsensitiveName; // A case-Insensitive map of names to intrinsic types
+  private Map<String, IType> _typesByCaseInsensitiveName; // A case-Insensitive map of names to intrinsic types, read by getCachedType() without the lock
 
   private ITypeRefFactory _typeRefFactory;
 
@@ -72,6 +78,8 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
 
     initMaps();
     _globalStack.addAll(loaderStack);
+    updateHasExtendedTypeLoaders();
+    GosuClassNameIndex.invalidate();
     _typeRefFactory = module.getModuleTypeLoader().getTypeRefFactory();
 
     for (ITypeLoader typeLoader : loaderStack) {
@@ -85,11 +93,13 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
   }
 
   private void initMaps() {
-    _globalStack = new ArrayList<ITypeLoader>();
+    _globalStack = new CopyOnWriteArrayList<ITypeLoader>();
     _loadersByPrefix = new HashMap<String, ITypeLoader>();
     _typesByName = new WeakFqnCache<IType>();
-    _namespaceTypesByName = new HashMap<String, IType>();
-    _typesByCaseInsensitiveName = new HashMap<String, IType>();
+    _misses = new NegativeLookupIndex();
+    _errorTypeNames = new HashSet<String>();
+    _namespaceTypesByName = new ConcurrentHashMap<String, IType>();
+    _typesByCaseInsensitiveName = new ConcurrentHashMap<String, IType>();
   }
 
   public ModuleTypeLoader( IModule module, DefaultTypeLoader defaultTypeLoader)
@@ -105,6 +115,8 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
   {
     initMaps();
     _globalStack.add( _defaultTypeLoader );
+    updateHasExtendedTypeLoaders();
+    GosuClassNameIndex.invalidate();
     _typeRefFactory.clearCaches();
   }
 
@@ -143,6 +155,9 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
       {
         _globalStack.set( position, typeLoader );
       }
+      updateHasExtendedTypeLoaders();
+      GosuClassNameIndex.invalidate();
+      invalidateClassTypes();
       List<String> handledPrefixes = typeLoader.getHandledPrefixes();
       for( int i = 0; i < handledPrefixes.size(); i++ )
       {
@@ -164,7 +179,8 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
     TypeSystem.lock();
     try
     {
-      removeMissesAndErrorsFromMainCache();
+      _misses.invalidate();
+      removeErrorTypesFromMainCache();
       removeMissesAndErrors( _typesByCaseInsensitiveName.values() );
       removeMissesAndErrors( _namespaceTypesByName.values() );
     }
@@ -174,19 +190,15 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
     }
   }
 
-  private void removeMissesAndErrorsFromMainCache() {
-    _typesByName.visitNodeDepthFirst(new Predicate<FqnCacheNode>() {
-      public boolean evaluate(FqnCacheNode node) {
-        WeakReference<IType> ref = (WeakReference<IType>) node.getUserData();
-        if (ref != null) {
-          IType type = ref.get();
-          if (type == CACHE_MISS || type instanceof ErrorType) {
-            node.delete();
-          }
-        }
-        return true;
+  private void removeErrorTypesFromMainCache() {
+    for( String name : _errorTypeNames )
+    {
+      if( _typesByName.get( name ) instanceof ErrorType )
+      {
+        _typesByName.remove( name );
       }
-    });
+    }
+    _errorTypeNames.clear();
   }
 
   private void removeMissesAndErrors( Collection<IType> types ) {
@@ -205,8 +217,37 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
   private void clearCaches()
   {
     _typesByName.clear();
+    _misses.invalidate();
+    _errorTypeNames.clear();
     _namespaceTypesByName.clear();
     _typesByCaseInsensitiveName.clear();
+    invalidateClassTypes();
+  }
+
+  private void invalidateClassTypes()
+  {
+    FrequentUsedJavaTypeCache.instance( _module.getExecutionEnvironment() ).invalidate();
+  }
+
+  private void updateHasExtendedTypeLoaders()
+  {
+    boolean bHasExtendedTypeLoaders = false;
+    for( ITypeLoader loader : _globalStack )
+    {
+      if( loader instanceof IExtendedTypeLoader && !(loader instanceof DefaultTypeLoader) )
+      {
+        bHasExtendedTypeLoaders = true;
+      }
+    }
+    _bHasExtendedTypeLoaders = bHasExtendedTypeLoaders;
+  }
+
+  /**
+   * @return true if a type loader other than the default one may claim objects in {@link #getIntrinsicTypeFromObject}
+   */
+  public boolean hasExtendedTypeLoaders()
+  {
+    return _bHasExtendedTypeLoaders;
   }
 
   public void removeTypeLoader( Class<? extends ITypeLoader> loaderType )
@@ -218,6 +259,8 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
       if( typeLoader != null )
       {
         _globalStack.remove( typeLoader );
+        updateHasExtendedTypeLoaders();
+        GosuClassNameIndex.invalidate();
         // Removing a type loader must trigger a type system reset
         refreshed();
         List<String> handledPrefixes = typeLoader.getHandledPrefixes();
@@ -244,6 +287,7 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
         clearFromCaches(fullyQualifiedTypeName);
       }
       clearNamespaces(request); // Clear namespace types that might be affected.
+      invalidateClassTypes();
 
       DefaultTypeLoader defaultTypeLoader = getTypeLoader(DefaultTypeLoader.class);
       if (defaultTypeLoader != null) {
@@ -281,24 +325,17 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
   @Override
   public <T extends ITypeLoader> T getTypeLoader( Class<? extends T> loaderType )
   {
-    TypeSystem.lock();
-    try
+    // No need to lock, the stack is copy-on-write
+    for( ITypeLoader loader : _globalStack )
     {
-      for( ITypeLoader loader : _globalStack )
+      // Note, this MUST be equals(). It must be an exact match, not an assignable match.
+      if( loader.getClass().equals( loaderType ) )
       {
-        // Note, this MUST be equals(). It must be an exact match, not an assignable match.
-        if( loader.getClass().equals( loaderType ) )
-        {
-          //noinspection unchecked
-          return (T)loader;
-        }
+        //noinspection unchecked
+        return (T)loader;
       }
-      return null;
-    }
-    finally
-    {
-      TypeSystem.unlock();
     }
+    return null;
   }
 
   @Override
@@ -342,18 +379,8 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
   public IType getIntrinsicTypeFromObject( Object object )
   {
     IType type = null;
-    int iLoaders = _globalStack.size();
-    for( int i = 0; i < iLoaders; i++ ) //!! don't use iterator here; concurrency issue; we don't want to lock either
+    for( ITypeLoader loader : _globalStack ) // copy-on-write, safe to iterate without locking
     {
-      ITypeLoader loader;
-      try
-      {
-        loader = _globalStack.get( i );
-      }
-      catch( IndexOutOfBoundsException e )
-      {
-        break;
-      }
       if( loader instanceof IExtendedTypeLoader )
       {
         if(loader instanceof IGosuObject) {
@@ -401,7 +428,7 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
           foundType = findInCaseInsenstiveCache( fqnNoArrays );
           if( foundType != null )
           {
-            _typesByName.add( fqnNoArrays, foundType );
+            addToMainCache( fqnNoArrays, foundType );
           }
         }
         // If it's not found, then go ahead and try to load it from the type loader stacks
@@ -438,6 +465,10 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
     {
       foundType = _typeRefFactory.get(fqnNoArrays);
     }
+    if( foundType == null && _misses.contains( fqnNoArrays ) )
+    {
+      return CACHE_MISS;
+    }
     if( foundType instanceof ITypeRef && ((ITypeRef)foundType)._shouldReload() )
     {
       // The proxied type is stale, force it to reload
@@ -491,7 +522,8 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
 
   private IType loadTypeAndCacheResult(String fullyQualifiedName, boolean skipJava)
   {
-    Pair<IType, ITypeLoader> pair;
+    Pair<IType, ITypeLoader> pair = null;
+    GosuProfiler.PhaseTimer timer = GosuProfiler.startPhase( Phase.TYPE_LOAD, fullyQualifiedName );
     TypeSystem.pushModule( getModule() );
     try
     {
@@ -500,6 +532,7 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
     finally
     {
       TypeSystem.popModule( getModule() );
+      GosuProfiler.endPhase( timer, pair != null );
     }
 
     IType type;
@@ -554,6 +587,8 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
 
   private void clearFromCaches( String fullyQualifiedTypeName ) {
     _typesByName.remove(fullyQualifiedTypeName);
+    _misses.remove( fullyQualifiedTypeName );
+    _errorTypeNames.remove( fullyQualifiedTypeName );
     _typesByCaseInsensitiveName.remove( fullyQualifiedTypeName );
     if(fullyQualifiedTypeName.endsWith(IClassPath.PLACEHOLDER_FOR_PACKAGE)) {
       _namespaceTypesByName.remove(fullyQualifiedTypeName.substring(0, fullyQualifiedTypeName.length() - IClassPath.PLACEHOLDER_FOR_PACKAGE.length() - 1));
@@ -650,13 +685,19 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
     if( pair != null )
     {
       IType type = pair.getFirst();
+      if( type == CACHE_MISS )
+      {
+        _misses.add( name );
+        return type;
+      }
       // We have to make sure we aren't replacing an existing type so we obey the return from the put.
       IType oldType = _typesByName.get(name);
-      if( oldType != null && oldType != CACHE_MISS )
+      if( oldType != null )
       {
         return oldType;
       }
-      _typesByName.add( name, type );
+      _misses.remove( name );
+      addToMainCache( name, type );
       ITypeLoader typeLoader = pair.getSecond();
       if( typeLoader != null && !typeLoader.isCaseSensitive() )
       {
@@ -666,6 +707,15 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
     return pair != null ? pair.getFirst() : null;
   }
 
+  private void addToMainCache( String name, IType type )
+  {
+    _typesByName.add( name, type );
+    if( type instanceof ErrorType )
+    {
+      _errorTypeNames.add( name );
+    }
+  }
+
   private IType cacheNamespace(String name, IType type)
   {
     if( type != null )
@@ -698,7 +748,11 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
   public DefaultTypeLoader getDefaultTypeLoader() {
     return _defaultTypeLoader;
   }
-  
+
+  NegativeLookupIndex getNegativeLookupIndex() {
+    return _misses;
+  }
+
   public String toString() {
     return _module.toString();
   }
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.parser;
+
+import gw.util.concurrent.TinyLfuCacheMap;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The names a module's type loaders could not resolve.  Most lookups of names that don't exist
+ * come from resolving relative names against each used package, and they repeat every time the
+ * same relative name is parsed, so answering them here keeps them off the type loaders and the
+ * type system lock.
+ * <p>
+ * Type loaders may resolve names they can't list up front, so a name is only known to be missing
+ * once every loader has been probed for it.  The index is bounded, so a process looking up
+ * ever new generated names keeps the frequently repeated misses and forgets the rest; a
+ * forgotten name is probed again.
+ * <p>
+ * Anything that could make a missing type appear (pushing a type loader, clearing error types,
+ * a refresh) invalidates the whole index.  Each miss is stamped with the generation it was recorded
+ * in and invalidating just starts a new generation, so it costs the same however many misses are
+ * held; misses of older generations count as absent and are left for the bound to evict.  Reads
+ * are lock-free, writes happen under the type system lock.
+ */
+class NegativeLookupIndex
+{
+  private static final int MAX_MISSES = 10000;
+
+  private final TinyLfuCacheMap<String, Integer> _misses;
+  private final AtomicInteger _generation = new AtomicInteger();
+
+  NegativeLookupIndex()
+  {
+    this( MAX_MISSES );
+  }
+
+  NegativeLookupIndex( int iMaxMisses )
+  {
+    _misses = new TinyLfuCacheMap<String, Integer>( iMaxMisses );
+  }
+
+  boolean contains( String fqn )
+  {
+    Integer generation = _misses.get( fqn );
+    return generation != null && generation == _generation.get();
+  }
+
+  void add( String fqn )
+  {
+    _misses.put( fqn, _generation.get() );
+  }
+
+  void remove( String fqn )
+  {
+    _misses.remove( fqn );
+  }
+
+  void invalidate()
+  {
+    _generation.incrementAndGet();
+  }
+
+  /**
+   * @return The number of misses held, including invalidated ones not evicted yet
+   */
+  int size()
+  {
+    return _misses.size();
+  }
+}
@@ -1329,6 +1329,11 @@ public abstract class ParserBase implements IParserPart
         ICapturedSymbol capturedSymbol = sym.makeCapturedSymbol( sym.getName(),
                                                                  getSymbolTable(),
                                                                  anonClass == null ? new StandardScope() : getScope( anonClass ) );
+        if( capturedSymbol instanceof Symbol )
+        {
+          // An eval can assign any symbol it captures
+          ((Symbol)capturedSymbol).setValueIsReassigned( true );
+        }
         if( anonClass != null )
         {
           if( anonClass instanceof IBlockClassInternal )
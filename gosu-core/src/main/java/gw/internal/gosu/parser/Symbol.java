@@ -40,6 +40,7 @@ public class Symbol implements IFunctionSymbol
   protected IStackProvider _stackProvider;
   protected ISymbolTable _symbolTable;
   private MutableBoolean _valueIsBoxed;
+  protected MutableBoolean _valueIsReassigned;
   private ModifierInfo _modifiers;
 
   public Symbol( String strName, IType type, IStackProvider stackProvider )
@@ -62,6 +63,7 @@ public class Symbol implements IFunctionSymbol
     _iIndex = assignIndex( scope );
     _bGlobal = _stackProvider == null || !_stackProvider.hasIsolatedScope();
     _valueIsBoxed = new MutableBoolean();
+    _valueIsReassigned = new MutableBoolean();
   }
 
   public Symbol( Symbol copy )
@@ -74,6 +76,7 @@ public class Symbol implements IFunctionSymbol
     _symbolTable = copy._symbolTable;
     // We need to use a MutableBoolean here so that modifications are set on all copies.
     _valueIsBoxed = copy._valueIsBoxed;
+    _valueIsReassigned = copy._valueIsReassigned;
     _modifiers = copy._modifiers;
   }
 
@@ -532,9 +535,25 @@ public class Symbol implements IFunctionSymbol
   {
     _valueIsBoxed.setValue( b );
   }
+  /**
+   * A captured symbol uses a reference only if it is assigned after its declaration, otherwise
+   * its value is copied to the classes capturing it.
+   */
   public boolean isValueBoxed()
   {
-    return _valueIsBoxed.isTrue();
+    return _valueIsBoxed.isTrue() && _valueIsReassigned.isTrue();
+  }
+
+  /**
+   * Indicates that this symbol is assigned after its declaration, i.e., it isn't effectively final.
+   */
+  public void setValueIsReassigned( boolean b )
+  {
+    _valueIsReassigned.setValue( b );
+  }
+  public boolean isValueReassigned()
+  {
+    return _valueIsReassigned.isTrue();
   }
 
   protected void setName( String name )
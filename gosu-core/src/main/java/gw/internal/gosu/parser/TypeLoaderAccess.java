@@ -10,6 +10,7 @@ import gw.config.ExecutionMode;
 import gw.fs.IFile;
 import gw.fs.IResource;
 import gw.internal.gosu.compiler.SingleServingGosuClassLoader;
+import gw.internal.gosu.loader.GeneratedClassLoader;
 import gw.internal.gosu.module.DefaultSingleModule;
 import gw.internal.gosu.module.Module;
 import gw.lang.GosuShop;
@@ -49,6 +50,7 @@ import gw.lang.reflect.gs.IGenericTypeVariable;
 import gw.lang.reflect.gs.IGosuClass;
 import gw.lang.reflect.gs.IGosuClassLoader;
 import gw.lang.reflect.gs.IGosuEnhancement;
+import gw.lang.reflect.gs.IGosuObject;
 import gw.lang.reflect.java.IJavaClassInfo;
 import gw.lang.reflect.java.IJavaType;
 import gw.lang.reflect.java.JavaTypes;
@@ -350,6 +352,26 @@ public class TypeLoaderAccess extends BaseService implements ITypeSystem
 
   public IType getIntrinsicTypeFromObject( final Object object )
   {
+    if( object != null && !ExecutionMode.isIDE() )
+    {
+      ExecutionEnvironment execEnv = getExecutionEnv();
+      IModule globalModule = execEnv.getGlobalModule();
+      if( globalModule != null && !((ModuleTypeLoader)globalModule.getModuleTypeLoader()).hasExtendedTypeLoaders() )
+      {
+        // Only the default type loader answers, and unless the object is a Gosu object or a type
+        // its type is the type of its class
+        Class<?> cls = object.getClass();
+        IType type = FrequentUsedJavaTypeCache.instance( execEnv ).getInstanceType( cls );
+        if( type != null )
+        {
+          return type;
+        }
+        if( !(object instanceof IGosuObject) && !(object instanceof IType) )
+        {
+          return get( cls );
+        }
+      }
+    }
     return returnFirstNonNull( getIntrinsicTypeFromObject_Callable, object );
   }
 
@@ -843,11 +865,32 @@ public class TypeLoaderAccess extends BaseService implements ITypeSystem
    */
   public IType get(Class<?> javaClass) {
     assert javaClass != null;
-    IType type = FrequentUsedJavaTypeCache.instance( getExecutionEnv() ).getHighUsageType(javaClass);
+    FrequentUsedJavaTypeCache cache = FrequentUsedJavaTypeCache.instance( getExecutionEnv() );
+    IType type = cache.getType(javaClass);
     if (type != null) {
       return type;
     }
 
+    if (ExecutionMode.isIDE()) {
+      // The type depends on the current module
+      return getUncached(javaClass);
+    }
+    int iGeneration = cache.getGeneration();
+    type = getUncached(javaClass);
+    if (type != null) {
+      cache.putType(javaClass, type, iGeneration);
+    }
+    return type;
+  }
+
+  private IType getUncached(Class<?> javaClass) {
+    if (javaClass.getClassLoader() instanceof GeneratedClassLoader) {
+      // Generated classes are not found by name, their loader knows how they are typed
+      Class<?> typedAs = ((GeneratedClassLoader) javaClass.getClassLoader()).getTypedAs(javaClass);
+      return typedAs != javaClass ? get(typedAs) : JavaType.get(javaClass, DefaultTypeLoader.instance());
+    }
+
+    IType type;
     String fqn = computeFullyQualifiedName(javaClass);
 
     if (IType.class.isAssignableFrom(javaClass) && fqn.endsWith(ITypeRefFactory.SYSTEM_PROXY_SUFFIX)) {
@@ -986,6 +1029,15 @@ public class TypeLoaderAccess extends BaseService implements ITypeSystem
       return null;
     }
 
+    if (!skipJava && !TypeSystem.isLockedByCurrentThread()) {
+      // High usage types stay loaded across refreshes, resolve them without going through the module caches.
+      // Not under the lock though, a high usage type ref being reloaded resolves its own name through here.
+      IType type = FrequentUsedJavaTypeCache.instance(getExecutionEnv()).getHighUsageType(fullyQualifiedName);
+      if (type != null) {
+        return type;
+      }
+    }
+
     // look in the module stack
     IModule module = getCurrentModule();
     if (module == null) {
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.runtime;
+
+import gw.lang.parser.ICoercer;
+import gw.lang.parser.StandardCoercionManager;
+import gw.lang.parser.coercers.IdentityCoercer;
+import gw.lang.reflect.AbstractTypeSystemListener;
+import gw.lang.reflect.IMethodCallHandler;
+import gw.lang.reflect.IMethodInfo;
+import gw.lang.reflect.IPropertyAccessor;
+import gw.lang.reflect.IType;
+import gw.lang.reflect.RefreshRequest;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.json.JsonBindings;
+import gw.util.GosuExceptionUtil;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.lang.invoke.SwitchPoint;
+
+/**
+ * Bootstrap for invokedynamic call sites standing in for the reflective member access methods
+ * on {@link GosuRuntimeMethods} (getProperty, setProperty and invokeMethodInfo) and for its
+ * runtime coercion method (coerceValue).
+ * <p>
+ * Each call site is a polymorphic inline cache keyed on the receiver's class and the (per site)
+ * owner type and member name.  On a miss the member is resolved just as the runtime method would
+ * resolve it and a guard for the receiver's class is chained in front of the previous target.
+ * Members that must be dispatched on every call (Bindings, $getProperty etc.) link directly to the
+ * runtime method, except properties of parsed JSON objects.  These are guarded on the object's
+ * {@link JsonBindings#getSharedShape() shared shape} rather than its class, and link to the value's
+ * index in the shape.  Objects without a shared shape share one entry looking up the key.  Once a site
+ * sees more than {@link #MAX_DEPTH} receiver classes or shapes it is considered megamorphic and
+ * permanently links to the runtime method.  Likewise a coercion site links the
+ * coercer resolved for the value's class, or nothing at all if the value is returned as it is.
+ * <p>
+ * All cached targets are guarded by a SwitchPoint that is invalidated when the type system refreshes.
+ */
+public class DynamicDispatchBootstrap {
+  public static final String BOOTSTRAP = "bootstrap";
+
+  static final int MAX_DEPTH = 4;
+
+  private static final MethodHandle FALLBACK;
+  private static final MethodHandle PROPERTY_GUARD;
+  private static final MethodHandle JSON_PROPERTY_GUARD;
+  private static final MethodHandle METHOD_GUARD;
+  private static final MethodHandle COERCION_GUARD;
+  private static final MethodHandle GET_VALUE;
+  private static final MethodHandle SET_VALUE;
+  private static final MethodHandle HANDLE_CALL;
+  private static final MethodHandle COERCE_WITH;
+  private static final MethodHandle GET_JSON_VALUE;
+  static {
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      FALLBACK = lookup.findVirtual( InlineCacheCallSite.class, "fallback", MethodType.methodType( Object.class, Object[].class ) );
+      PROPERTY_GUARD = lookup.findStatic( DynamicDispatchBootstrap.class, "propertyGuard",
+                                          MethodType.methodType( boolean.class, Class.class, IType.class, String.class, Object.class, IType.class, String.class ) );
+      JSON_PROPERTY_GUARD = lookup.findStatic( DynamicDispatchBootstrap.class, "jsonPropertyGuard",
+                                               MethodType.methodType( boolean.class, Object.class, IType.class, String.class, Object.class, IType.class, String.class ) );
+      METHOD_GUARD = lookup.findStatic( DynamicDispatchBootstrap.class, "methodGuard",
+                                        MethodType.methodType( boolean.class, Class.class, IType.class, String.class, IType[].class, IType.class, String.class, IType[].class, Object.class ) );
+      COERCION_GUARD = lookup.findStatic( DynamicDispatchBootstrap.class, "coercionGuard",
+                                          MethodType.methodType( boolean.class, Class.class, IType.class, Object.class, IType.class ) );
+      COERCE_WITH = lookup.findStatic( DynamicDispatchBootstrap.class, "coerceWith",
+                                       MethodType.methodType( Object.class, ICoercer.class, Object.class, IType.class, ICoercer.class ) );
+      GET_JSON_VALUE = lookup.findStatic( DynamicDispatchBootstrap.class, "getJsonValue",
+                                          MethodType.methodType( Object.class, Object.class, int.class, Object.class, IType.class, String.class ) );
+      GET_VALUE = lookup.findVirtual( IPropertyAccessor.class, "getValue", MethodType.methodType( Object.class, Object.class ) );
+      SET_VALUE = lookup.findVirtual( IPropertyAccessor.class, "setValue", MethodType.methodType( void.class, Object.class, Object.class ) );
+      HANDLE_CALL = lookup.findVirtual( IMethodCallHandler.class, "handleCall", MethodType.methodType( Object.class, Object.class, Object[].class ) ).asFixedArity();
+    }
+    catch( Exception e ) {
+      throw GosuExceptionUtil.forceThrow( e );
+    }
+  }
+
+  private static volatile SwitchPoint SWITCH_POINT = new SwitchPoint();
+  @SuppressWarnings({"FieldCanBeLocal"})
+  private static final AbstractTypeSystemListener INVALIDATOR = new AbstractTypeSystemListener() {
+    @Override
+    public void refreshed() {
+      invalidateAll();
+    }
+
+    @Override
+    public void refreshedTypes( RefreshRequest request ) {
+      invalidateAll();
+    }
+  };
+  static {
+    TypeSystem.addTypeLoaderListenerAsWeakRef( INVALIDATOR );
+  }
+
+  @SuppressWarnings("UnusedDeclaration")
+  public static CallSite bootstrap( MethodHandles.Lookup caller, String name, MethodType type ) throws NoSuchMethodException, IllegalAccessException {
+    MethodHandle slowPath = MethodHandles.publicLookup().findStatic( GosuRuntimeMethods.class, name, type );
+    return new InlineCacheCallSite( Kind.valueOf( name ), slowPath );
+  }
+
+  /**
+   * Unlinks all cached targets, called when the type system refreshes.
+   */
+  public static void invalidateAll() {
+    SwitchPoint old = SWITCH_POINT;
+    SWITCH_POINT = new SwitchPoint();
+    SwitchPoint.invalidateAll( new SwitchPoint[] {old} );
+  }
+
+  @SuppressWarnings("UnusedDeclaration")
+  private static boolean propertyGuard( Class expectedClass, IType expectedType, String expectedName, Object root, IType type, String name ) {
+    return (root == null ? null : root.getClass()) == expectedClass && type == expectedType && name == expectedName;
+  }
+
+  @SuppressWarnings("UnusedDeclaration")
+  private static boolean jsonPropertyGuard( Object expectedShape, IType expectedType, String expectedName, Object root, IType type, String name ) {
+    return root instanceof JsonBindings && ((JsonBindings)root).getSharedShape() == expectedShape && type == expectedType && name == expectedName;
+  }
+
+  @SuppressWarnings("UnusedDeclaration")
+  private static boolean methodGuard( Class expectedClass, IType expectedType, String expectedName, IType[] expectedParamTypes,
+                                      IType type, String name, IType[] paramTypes, Object root ) {
+    if( (root == null ? null : root.getClass()) != expectedClass || type != expectedType || name != expectedName ) {
+      return false;
+    }
+    if( paramTypes == expectedParamTypes ) {
+      return true;
+    }
+    if( paramTypes == null || expectedParamTypes == null || paramTypes.length != expectedParamTypes.length ) {
+      return false;
+    }
+    for( int i = 0; i < paramTypes.length; i++ ) {
+      if( paramTypes[i] != expectedParamTypes[i] ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @SuppressWarnings("UnusedDeclaration")
+  private static boolean coercionGuard( Class expectedClass, IType expectedType, Object value, IType type ) {
+    return (value == null ? null : value.getClass()) == expectedClass && type == expectedType;
+  }
+
+  static Object coerceWith( ICoercer linkedCoercer, Object value, IType type, ICoercer coercer ) {
+    Object result = linkedCoercer.coerceValue( type, value );
+    // A null or NO_DICE result may be a value the coercer can't handle, let the runtime method sort it
+    // out, it throws ClassCastException if the value can't be coerced at all
+    return result == null || result == StandardCoercionManager.NO_DICE
+           ? GosuRuntimeMethods.coerceValue( value, type, coercer )
+           : result;
+  }
+
+  @SuppressWarnings("UnusedDeclaration")
+  private static Object getJsonValue( Object shape, int index, Object root, IType type, String name ) {
+    return ((JsonBindings)root).getAt( shape, index, name );
+  }
+
+  enum Kind {
+    getProperty( 0, 1, 2 ) {
+      @Override
+      MethodHandle link( Object[] args, MethodType type ) {
+        if( args[0] instanceof JsonBindings ) {
+          JsonBindings bindings = (JsonBindings)args[0];
+          Object shape = bindings.getSharedShape();
+          return MethodHandles.insertArguments( GET_JSON_VALUE, 0, shape, shape == null ? -1 : bindings.indexOf( (String)args[2] ) );
+        }
+        IPropertyAccessor accessor = GosuRuntimeMethods.findLinkablePropertyAccessor( args[0], (IType)args[1], (String)args[2], false );
+        return accessor == null
+               ? null
+               : MethodHandles.dropArguments( GET_VALUE.bindTo( accessor ), 1, IType.class, String.class );
+      }
+
+      @Override
+      MethodHandle guard( Object[] args, MethodType type ) {
+        if( args[0] instanceof JsonBindings ) {
+          return MethodHandles.insertArguments( JSON_PROPERTY_GUARD, 0, ((JsonBindings)args[0]).getSharedShape(), args[_iType], args[_iName] );
+        }
+        return super.guard( args, type );
+      }
+    },
+    setProperty( 0, 1, 2 ) {
+      @Override
+      MethodHandle link( Object[] args, MethodType type ) {
+        IPropertyAccessor accessor = GosuRuntimeMethods.findLinkablePropertyAccessor( args[0], (IType)args[1], (String)args[2], true );
+        return accessor == null
+               ? null
+               : MethodHandles.dropArguments( SET_VALUE.bindTo( accessor ), 1, IType.class, String.class );
+      }
+    },
+    invokeMethodInfo( 3, 0, 1 ) {
+      @Override
+      MethodHandle link( Object[] args, MethodType type ) {
+        IMethodInfo mi = GosuRuntimeMethods.findLinkableMethod( (IType)args[0], (String)args[1], (IType[])args[2], args[3] );
+        return mi == null
+               ? null
+               : MethodHandles.dropArguments( HANDLE_CALL.bindTo( mi.getCallHandler() ), 0, IType.class, String.class, IType[].class );
+      }
+
+      @Override
+      MethodHandle guard( Object[] args, MethodType type ) {
+        MethodHandle guard = MethodHandles.insertArguments( METHOD_GUARD, 0, receiverClass( args ), args[_iType], args[_iName], args[2] );
+        return MethodHandles.permuteArguments( guard, type.changeReturnType( boolean.class ), 0, 1, 2, 3 );
+      }
+    },
+    coerceValue( 0, 1, -1 ) {
+      @Override
+      MethodHandle link( Object[] args, MethodType type ) {
+        ICoercer coercer = GosuRuntimeMethods.findLinkableCoercer( args[0], (IType)args[1], (ICoercer)args[2] );
+        if( coercer == null ) {
+          return null;
+        }
+        return coercer == IdentityCoercer.instance()
+               ? MethodHandles.dropArguments( MethodHandles.identity( Object.class ), 1, IType.class, ICoercer.class )
+               : MethodHandles.insertArguments( COERCE_WITH, 0, coercer );
+      }
+
+      @Override
+      MethodHandle guard( Object[] args, MethodType type ) {
+        MethodHandle guard = MethodHandles.insertArguments( COERCION_GUARD, 0, receiverClass( args ), args[_iType] );
+        return MethodHandles.dropArguments( guard, 2, ICoercer.class );
+      }
+    };
+
+    final int _iReceiver;
+    final int _iType;
+    final int _iName;
+
+    Kind( int iReceiver, int iType, int iName ) {
+      _iReceiver = iReceiver;
+      _iType = iType;
+      _iName = iName;
+    }
+
+    /**
+     * @return A target equivalent to the runtime method for receivers of the same class as the one in args,
+     *   or null if the member must be resolved on every call
+     */
+    abstract MethodHandle link( Object[] args, MethodType type );
+
+    MethodHandle guard( Object[] args, MethodType type ) {
+      MethodHandle guard = MethodHandles.insertArguments( PROPERTY_GUARD, 0, receiverClass( args ), args[_iType], args[_iName] );
+      return MethodHandles.permuteArguments( guard, type.changeReturnType( boolean.class ), _iReceiver, _iType, _iName );
+    }
+
+    Class receiverClass( Object[] args ) {
+      Object root = args[_iReceiver];
+      return root == null ? null : root.getClass();
+    }
+  }
+
+  static class InlineCacheCallSite extends MutableCallSite {
+    private final Kind _kind;
+    private final MethodHandle _slowPath;
+    private final MethodHandle _fallback;
+    private MethodHandle _chain;
+    private SwitchPoint _switchPoint;
+    private int _iDepth;
+
+    InlineCacheCallSite( Kind kind, MethodHandle slowPath ) {
+      super( slowPath.type() );
+      _kind = kind;
+      _slowPath = slowPath;
+      _fallback = FALLBACK.bindTo( this ).asCollector( Object[].class, slowPath.type().parameterCount() ).asType( slowPath.type() );
+      _chain = _fallback;
+      setTarget( _fallback );
+    }
+
+    @SuppressWarnings("UnusedDeclaration")
+    Object fallback( Object[] args ) {
+      SwitchPoint switchPoint = SWITCH_POINT;
+      MethodHandle target = _kind.link( args, type() );
+      synchronized( this ) {
+        install( switchPoint, args, target == null ? _slowPath : target );
+      }
+      try {
+        return (target == null ? _slowPath : target).invokeWithArguments( args );
+      }
+      catch( Throwable t ) {
+        throw GosuExceptionUtil.forceThrow( t );
+      }
+    }
+
+    //## For tests only
+    synchronized int getDepth() {
+      return _iDepth;
+    }
+
+    private void install( SwitchPoint switchPoint, Object[] args, MethodHandle target ) {
+      if( switchPoint.hasBeenInvalidated() ) {
+        // The type system refreshed while linking, the target may already be stale
+        return;
+      }
+      if( _switchPoint != switchPoint ) {
+        _switchPoint = switchPoint;
+        _chain = _fallback;
+        _iDepth = 0;
+      }
+      if( _iDepth >= MAX_DEPTH ) {
+        // Megamorphic, stop caching
+        setTarget( _slowPath );
+        return;
+      }
+      _chain = MethodHandles.guardWithTest( _kind.guard( args, type() ), target, _chain );
+      _iDepth++;
+      setTarget( switchPoint.guardWithTest( _chain, _fallback ) );
+    }
+  }
+}
@@ -6,14 +6,21 @@ package gw.internal.gosu.runtime;
 
 import gw.config.CommonServices;
 import gw.internal.gosu.ir.transform.AbstractElementTransformer;
+import gw.internal.gosu.ir.transform.expression.TypeAsTransformer;
 import gw.internal.gosu.parser.IGosuClassInternal;
 import gw.internal.gosu.parser.TypeLord;
 import gw.lang.function.IBlock;
+import gw.lang.parser.GosuParserTypes;
+import gw.lang.parser.ICoercer;
+import gw.lang.parser.ICoercionManager;
 import gw.lang.parser.StandardCoercionManager;
+import gw.lang.parser.coercers.IdentityCoercer;
+import gw.lang.parser.coercers.RuntimeCoercer;
 import gw.lang.reflect.IConstructorInfo;
 import gw.lang.reflect.IExpando;
 import gw.lang.reflect.IMethodInfo;
 import gw.lang.reflect.IPlaceholder;
+import gw.lang.reflect.IPropertyAccessor;
 import gw.lang.reflect.IPropertyInfo;
 import gw.lang.reflect.IRelativeTypeInfo;
 import gw.lang.reflect.IType;
@@ -21,6 +28,7 @@ import gw.lang.reflect.ITypeInfo;
 import gw.lang.reflect.ReflectUtil;
 import gw.lang.reflect.TypeSystem;
 import gw.lang.reflect.gs.IGosuClass;
+import gw.lang.reflect.gs.IGosuObject;
 import gw.lang.reflect.java.IJavaType;
 import gw.lang.reflect.java.JavaTypes;
 import gw.util.GosuExceptionUtil;
@@ -70,16 +78,7 @@ public class GosuRuntimeMethods {
 
   private static Object invokePropertyGetter( String dispatchName, Object root, IType type, String propertyName )
   {
-    ITypeInfo typeInfo = type.getTypeInfo();
-    IMethodInfo method;
-    if( typeInfo instanceof IRelativeTypeInfo )
-    {
-      method = ((IRelativeTypeInfo) typeInfo).getMethod( type, dispatchName, JavaTypes.STRING() );
-    }
-    else
-    {
-      method = typeInfo.getMethod( dispatchName, JavaTypes.STRING() );
-    }
+    IMethodInfo method = findDispatchMethod( type, dispatchName, JavaTypes.STRING() );
     return method == null
            ? IPlaceholder.UNHANDLED
            : method.getCallHandler().handleCall( root, propertyName );
@@ -126,16 +125,7 @@ public class GosuRuntimeMethods {
 
   private static Object invokePropertySetter( String dispatchName, Object root, IType type, String propertyName, Object... args )
   {
-    ITypeInfo typeInfo = type.getTypeInfo();
-    IMethodInfo method;
-    if( typeInfo instanceof IRelativeTypeInfo )
-    {
-      method = ((IRelativeTypeInfo) typeInfo).getMethod( type, dispatchName, JavaTypes.STRING(), JavaTypes.OBJECT() );
-    }
-    else
-    {
-      method = typeInfo.getMethod( dispatchName, JavaTypes.STRING(), JavaTypes.OBJECT() );
-    }
+    IMethodInfo method = findDispatchMethod( type, dispatchName, JavaTypes.STRING(), JavaTypes.OBJECT() );
     return method == null
            ? IPlaceholder.UNHANDLED
            : method.getCallHandler().handleCall( root, propertyName, args );
@@ -343,20 +333,134 @@ public class GosuRuntimeMethods {
   }
 
   private static Object invokeMethodInvoker( String dispatchName, Object root, IType type, String methodName, Object... args )
+  {
+    IMethodInfo method = findDispatchMethod( type, dispatchName, JavaTypes.STRING(), JavaTypes.OBJECT().getArrayType() );
+    return method == null
+           ? IPlaceholder.UNHANDLED
+           : method.getCallHandler().handleCall( root, methodName, args );
+  }
+
+  private static IMethodInfo findDispatchMethod( IType type, String dispatchName, IType... paramTypes )
   {
     ITypeInfo typeInfo = type.getTypeInfo();
-    IMethodInfo method;
     if( typeInfo instanceof IRelativeTypeInfo )
     {
-      method = ((IRelativeTypeInfo)typeInfo).getMethod( type, dispatchName, JavaTypes.STRING(), JavaTypes.OBJECT().getArrayType() );
+      return ((IRelativeTypeInfo)typeInfo).getMethod( type, dispatchName, paramTypes );
     }
-    else
+    return typeInfo.getMethod( dispatchName, paramTypes );
+  }
+
+  /**
+   * Resolves the accessor getProperty()/setProperty() would use for the given receiver, or returns null if
+   * the property has to be resolved on every access (Bindings, $getProperty/$setProperty dispatch, a missing
+   * property, or a receiver with a parameterized runtime type).  Used to link dynamic call sites.
+   */
+  static IPropertyAccessor findLinkablePropertyAccessor( Object root, IType type, String propertyName, boolean bSetter )
+  {
+    if( root == null || root instanceof Bindings )
     {
-      method = typeInfo.getMethod( dispatchName, JavaTypes.STRING(), JavaTypes.OBJECT().getArrayType() );
+      return null;
     }
-    return method == null
-           ? IPlaceholder.UNHANDLED
-           : method.getCallHandler().handleCall( root, methodName, args );
+
+    IType runtimeType = TypeSystem.getFromObject( root );
+    if( runtimeType == null || runtimeType.isParameterizedType() || runtimeType instanceof IPlaceholder )
+    {
+      return null;
+    }
+    if( isDynamic( type ) )
+    {
+      type = runtimeType;
+    }
+
+    IMethodInfo dispatcher = bSetter
+                             ? findDispatchMethod( type, "$setProperty", JavaTypes.STRING(), JavaTypes.OBJECT() )
+                             : findDispatchMethod( type, "$getProperty", JavaTypes.STRING() );
+    if( dispatcher != null )
+    {
+      return null;
+    }
+
+    IPropertyInfo propertyInfo = getPropertyInfo( root, type, propertyName );
+    return propertyInfo == null ? null : propertyInfo.getAccessor();
+  }
+
+  /**
+   * Resolves the method invokeMethodInfo() would call for the given receiver, or returns null if the method
+   * has to be resolved on every call (expandos, Bindings, $invokeMethod dispatch, dynamic owner or
+   * parameter types).  Used to link dynamic call sites.
+   */
+  static IMethodInfo findLinkableMethod( IType type, String methodName, IType[] parameterTypes, Object root )
+  {
+    if( root instanceof IExpando || root instanceof Bindings || isDynamic( type ) )
+    {
+      return null;
+    }
+    if( parameterTypes != null )
+    {
+      for( IType paramType : parameterTypes )
+      {
+        if( paramType instanceof IPlaceholder && ((IPlaceholder)paramType).isPlaceholder() )
+        {
+          return null;
+        }
+      }
+    }
+
+    if( findDispatchMethod( type, "$invokeMethod", JavaTypes.STRING(), JavaTypes.OBJECT().getArrayType() ) != null )
+    {
+      return null;
+    }
+    ITypeInfo typeInfo = type.getTypeInfo();
+    if( typeInfo instanceof IRelativeTypeInfo )
+    {
+      return ((IRelativeTypeInfo)typeInfo).getMethod( type, methodName, parameterTypes );
+    }
+    return typeInfo.getMethod( methodName, parameterTypes );
+  }
+
+  public static Object coerceValue( Object value, IType type, ICoercer coercer )
+  {
+    return TypeAsTransformer.coerceValue( value, type, coercer );
+  }
+
+  /**
+   * Resolves the coercer coerceValue() would apply to values of the same class as the given value.
+   * Returns IdentityCoercer if such values are returned as they are, or null if the coercion must be
+   * resolved for each value.
+   */
+  static ICoercer findLinkableCoercer( Object value, IType type, ICoercer coercer )
+  {
+    if( value == null || coercer != RuntimeCoercer.instance() ||
+        value instanceof IGosuObject || value instanceof IType || value.getClass().isArray() ||
+        type == GosuParserTypes.NUMBER_TYPE() || type == GosuParserTypes.STRING_TYPE() || type == GosuParserTypes.DATETIME_TYPE() ||
+        type instanceof IPlaceholder )
+    {
+      return null;
+    }
+
+    // The coercion manager resolves coercers from the value's runtime type, it must follow from the class alone
+    IType runtimeType = TypeSystem.getFromObject( value );
+    if( runtimeType != TypeSystem.get( value.getClass() ) || runtimeType instanceof IPlaceholder )
+    {
+      return null;
+    }
+
+    ICoercionManager coercionManager = CommonServices.getCoercionManager();
+    Object result = coercionManager.convertValue( value, type );
+    if( result == value )
+    {
+      return type.isAssignableFrom( runtimeType ) ||
+             (type instanceof IJavaType && ((IJavaType)type).getBackingClass().isAssignableFrom( value.getClass() ))
+             ? IdentityCoercer.instance()
+             : null;
+    }
+    if( result == null || result == StandardCoercionManager.NO_DICE )
+    {
+      return null;
+    }
+    ICoercer linkedCoercer = coercionManager.findCoercer( type, runtimeType, true );
+    // RuntimeCoercer resolves per value anyway, nothing to gain from linking it
+    return linkedCoercer == RuntimeCoercer.instance() ? null : linkedCoercer;
   }
 
   public static Class lookUpClass( String className ) {
@@ -83,12 +83,10 @@ public class GosuCompiler extends AbstractCompiler {
 
     gosuc.initializeGosu(config.getSourceLocations(), classpath, config.getOutputLocation());
 
-    for(File file : config.getSourceFiles()) {
-      try {
-        gosuc.compile(file, driver);
-      } catch (Exception e) {
-        getLogger().error(e.getMessage());
-      }
+    try {
+      gosuc.compile(config.getSourceFiles(), driver, getIoThreadCount(), getIndexFile(config));
+    } catch (Exception e) {
+      getLogger().error(e.getMessage());
     }
 
     gosuc.unitializeGosu();
@@ -110,6 +108,32 @@ public class GosuCompiler extends AbstractCompiler {
     return new CompilerResult(success, errorMessages);
   }
 
+  /**
+   * Sources are still parsed and compiled one at a time, these threads only fingerprint sources and
+   * write outputs.
+   * @return The number of I/O threads, the gosuc.ioThreads system property or the number of cores
+   */
+  private int getIoThreadCount() {
+    return Integer.getInteger("gosuc.ioThreads", Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * The incremental compile index is kept next to the output directory, e.g. target/gosuc-classes.index
+   * for target/classes, so that it is not packaged and is removed by a clean.  Incremental
+   * compilation is opt-in, enabled by setting the gosuc.incremental system property to true: a
+   * source is recompiled when a type it references in its class files, inherits from or imports
+   * changes, but not when a type it only refers to by name (e.g. in a string passed to
+   * TypeSystem.getByFullName) changes.
+   * @return The incremental compile index file, or null for a full compile
+   */
+  private File getIndexFile(CompilerConfiguration config) {
+    if (!Boolean.getBoolean("gosuc.incremental")) {
+      return null;
+    }
+    File outputDir = new File(config.getOutputLocation()).getAbsoluteFile();
+    return new File(outputDir.getParentFile(), "gosuc-" + outputDir.getName() + ".index");
+  }
+
   /**
    * Get all JARs from the lib directory of the System's java.home property
    * @return List of absolute paths to all JRE libraries
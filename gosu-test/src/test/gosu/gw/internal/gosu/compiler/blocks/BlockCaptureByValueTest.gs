@@ -0,0 +1,125 @@
+package gw.internal.gosu.compiler.blocks
+
+uses gw.internal.gosu.compiler.CompilationStatistics
+uses gw.lang.reflect.gs.BytecodeOptions
+uses gw.test.TestClass
+uses java.lang.Runnable
+uses java.util.ArrayList
+
+class BlockCaptureByValueTest extends TestClass {
+
+  static function capturedFieldType( blk : Object, name : String ) : String {
+    return blk.Class.getDeclaredField( "val$" + name ).Type.Name
+  }
+
+  function testEffectivelyFinalLocalIsCapturedByValue() {
+    var n = 3
+    var blk = \ i : int -> i * n
+    assertEquals( 6, blk( 2 ) )
+    assertEquals( "int", capturedFieldType( blk, "n" ) )
+  }
+
+  function testEffectivelyFinalParameterIsCapturedByValue() {
+    var blk = multiplier( 4 )
+    assertEquals( 8, blk( 2 ) )
+    assertEquals( "int", capturedFieldType( blk, "n" ) )
+  }
+
+  static function multiplier( n : int ) : block(i:int):int {
+    return \ i -> i * n
+  }
+
+  function testLocalReassignedAfterCaptureIsBoxed() {
+    var n = 3
+    var blk = \ i : int -> i * n
+    n = 5
+    assertEquals( 10, blk( 2 ) )
+    assertEquals( "[I", capturedFieldType( blk, "n" ) )
+  }
+
+  function testLocalAssignedInBlockIsBoxed() {
+    var count = 0
+    var blk = \-> { count++ }
+    blk()
+    blk()
+    assertEquals( 2, count )
+    assertEquals( "[I", capturedFieldType( blk, "count" ) )
+  }
+
+  function testUninitializedLocalIsCapturedByValue() {
+    var s : String
+    var blk = \-> s
+    assertNull( blk() )
+    assertEquals( "java.lang.String", capturedFieldType( blk, "s" ) )
+  }
+
+  function testNestedBlocksCaptureByValue() {
+    var n = 3
+    var outer = \-> \ i : int -> i * n
+    var inner = outer()
+    assertEquals( 6, inner( 2 ) )
+    assertEquals( "int", capturedFieldType( outer, "n" ) )
+    assertEquals( "int", capturedFieldType( inner, "n" ) )
+  }
+
+  function testNestedBlockAssignmentBoxesAllCaptures() {
+    var n = 3
+    var outer = \-> \-> { n = 4 }
+    outer()()
+    assertEquals( 4, n )
+    assertEquals( "[I", capturedFieldType( outer, "n" ) )
+  }
+
+  function testAnonymousClassCapturesByValue() {
+    var s = "a"
+    var sb = new StringBuilder()
+    var r = new Runnable() {
+      override function run() {
+        sb.append( s )
+      }
+    }
+    r.run()
+    r.run()
+    assertEquals( "aa", sb.toString() )
+    assertEquals( "java.lang.String", capturedFieldType( r, "s" ) )
+  }
+
+  function testLoopVariableIsCapturedPerIteration() {
+    var blocks = new ArrayList<block():int>()
+    for( i in 0..2 ) {
+      blocks.add( \-> i )
+    }
+    assertEquals( {0, 1, 2}, blocks.map( \ b -> b() ) )
+    assertEquals( "int", capturedFieldType( blocks[0], "i" ) )
+  }
+
+  function testLoopIndexIsShared() {
+    var blocks = new ArrayList<block():int>()
+    for( s in {"a", "b", "c"} index i ) {
+      blocks.add( \-> i )
+    }
+    assertEquals( {2, 2, 2}, blocks.map( \ b -> b() ) )
+    assertEquals( "[I", capturedFieldType( blocks[0], "i" ) )
+  }
+
+  function testLocalCapturedByEvalIsBoxed() {
+    var n = 3
+    var blk = \-> n
+    eval( "n = 4" )
+    assertEquals( 4, n )
+    assertEquals( 4, blk() )
+    assertEquals( "[I", capturedFieldType( blk, "n" ) )
+  }
+
+  function testBoxesAvoidedAreCounted() {
+    BytecodeOptions.setCollectCompilationStatistics( true )
+    try {
+      var avoided = CompilationStatistics.instance().BoxesAvoided
+      assertEquals( 12, eval( "return (\\-> { var n = 3\nvar m = 1\nm = 2\nreturn (\\ i : int -> i * n * m)( 2 ) })()" ) )
+      assertEquals( avoided + 1, CompilationStatistics.instance().BoxesAvoided )
+    }
+    finally {
+      BytecodeOptions.setCollectCompilationStatistics( false )
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package gw.internal.gosu.compiler.blocks
+
+uses gw.test.TestClass
+uses java.io.IOException
+uses java.lang.Runnable
+uses java.util.Comparator
+uses java.util.concurrent.Callable
+uses java.util.function.Function
+uses java.util.function.IntBinaryOperator
+uses java.util.function.IntPredicate
+uses java.util.function.ToLongFunction
+
+class BlockInterfaceAdapterTest extends TestClass {
+
+  function testPrimitiveSignatures() {
+    var pred : IntPredicate = \ i -> i > 3
+    assertTrue( pred.test( 5 ) )
+    assertFalse( pred.test( 1 ) )
+
+    var op : IntBinaryOperator = \ a, b -> a * b
+    assertEquals( 42, op.applyAsInt( 6, 7 ) )
+
+    var len : ToLongFunction<String> = \ s -> s.length()
+    assertEquals( 4L, len.applyAsLong( "abcd" ) )
+  }
+
+  function testReferenceSignatures() {
+    var cmp = (\ a : String, b : String -> a.length() - b.length()) as Comparator<String>
+    assertTrue( cmp.compare( "aa", "b" ) > 0 )
+
+    var call : Callable<String> = \ -> "called"
+    assertEquals( "called", call.call() )
+  }
+
+  function testReturnTypeNarrowedByTypeArgument() {
+    var call = (\ -> String) as Callable<Class>
+    assertEquals( "java.lang.String", call.call().Name )
+  }
+
+  function testRuntimeCoercion() {
+    var obj : Object = \ x : Object -> x + "!"
+    var fn = obj as Function<Object, Object>
+    assertEquals( "1!", fn.apply( 1 ) )
+  }
+
+  function testAdapterIsSharedPerInterface() {
+    var count = 0
+    var r1 : Runnable = \ -> { count++ }
+    var r2 : Runnable = \ -> { count += 10 }
+    r1.run()
+    r2.run()
+    assertEquals( 11, count )
+    assertSame( r1.Class, r2.Class )
+    assertEquals( Runnable, typeof r1 )
+  }
+
+  function testNullBlock() {
+    var blk : block():String = null
+    assertNull( blk as Callable<String> )
+  }
+
+  function testCheckedExceptionPropagates() {
+    var call : Callable<String> = \ -> { throw new IOException( "boom" ) }
+    try {
+      call.call()
+      fail( "Expected IOException" )
+    }
+    catch( e : IOException ) {
+      assertEquals( "boom", e.Message )
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package gw.internal.gosu.compiler.blocks
+
+uses gw.lang.function.AbstractBlock
+uses gw.lang.function.IBlock
+uses gw.lang.reflect.gs.BytecodeOptions
+uses gw.test.TestClass
+
+class BlockLambdaTest extends TestClass {
+
+  var _lambdaBlocks : boolean
+
+  override function beforeTestMethod() {
+    super.beforeTestMethod()
+    _lambdaBlocks = BytecodeOptions.isLambdaBlocks()
+    BytecodeOptions.setLambdaBlocks( true )
+  }
+
+  override function afterTestMethod( possibleException : Throwable ) {
+    BytecodeOptions.setLambdaBlocks( _lambdaBlocks )
+    super.afterTestMethod( possibleException )
+  }
+
+  static function make() : block(a:int):int {
+    return \ a : int -> a*2
+  }
+
+  function testBlocksAreClassesByDefault() {
+    assertEquals( "\\ a : int -> a*2", make().toString() )
+    assertNotSame( make(), make() )
+    assertTrue( (make() as Object) typeis AbstractBlock )
+  }
+
+  function testBlockCapturingNothingIsALambda() {
+    var blk = LambdaBlocks.noCapture()
+    assertEquals( 4, blk( 2 ) )
+    assertFalse( (blk as Object) typeis AbstractBlock )
+    assertSame( blk, LambdaBlocks.noCapture() )
+  }
+
+  function testBlockCapturingIsAClass() {
+    assertEquals( 6, LambdaBlocks.capturesLocal( 3 )( 2 ) )
+    assertTrue( (LambdaBlocks.capturesLocal( 3 ) as Object) typeis AbstractBlock )
+    assertEquals( 6, new LambdaBlocks().capturesThis()( 2 ) )
+    assertTrue( (new LambdaBlocks().capturesThis() as Object) typeis AbstractBlock )
+  }
+
+  function testLambdaHasBlockType() {
+    var obj : Object = LambdaBlocks.noCapture()
+    assertEquals( typeof LambdaBlocks.capturesLocal( 3 ), typeof obj )
+    var blk = obj as IBlock
+    assertEquals( Integer, blk.FunctionType.ReturnType )
+    assertEquals( 4, blk.invokeWithArgs( {2} ) )
+  }
+
+  function testLambdaInArray() {
+    var blocks = { LambdaBlocks.noCapture(), LambdaBlocks.capturesLocal( 3 ) }.toTypedArray()
+    assertEquals( 4, blocks[0]( 2 ) )
+    assertEquals( 6, blocks[1]( 2 ) )
+  }
+}
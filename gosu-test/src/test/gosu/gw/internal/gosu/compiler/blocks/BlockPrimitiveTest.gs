@@ -0,0 +1,104 @@
+package gw.internal.gosu.compiler.blocks
+
+uses gw.lang.function.IDoubleDoubleToDoubleBlock
+uses gw.lang.function.IFunction1
+uses gw.lang.function.IIntToBooleanBlock
+uses gw.lang.function.IIntToIntBlock
+uses gw.lang.function.IIntToObjectBlock
+uses gw.lang.function.ILongToBooleanBlock
+uses gw.lang.function.IObjectToIntBlock
+uses gw.test.TestClass
+uses java.lang.Integer
+
+class BlockPrimitiveTest extends TestClass {
+
+  static function doubler() : block(i:int):int {
+    return \ i -> i * 2
+  }
+
+  static function multiplier( n : int ) : block(i:int):int {
+    return \ i -> i * n
+  }
+
+  function testLambdaImplementsSpecializedInterface() {
+    var obj : Object = doubler()
+    assertTrue( obj typeis IIntToIntBlock )
+    assertEquals( 42, (obj as IIntToIntBlock).invokePrimitive( 21 ) )
+    assertEquals( 42, (obj as IFunction1).invoke( 21 ) )
+    assertEquals( 42, doubler()( 21 ) )
+  }
+
+  function testBlockClassImplementsSpecializedInterface() {
+    var obj : Object = multiplier( 3 )
+    assertTrue( obj typeis IIntToIntBlock )
+    assertEquals( 21, (obj as IIntToIntBlock).invokePrimitive( 7 ) )
+    assertEquals( 21, (obj as IFunction1).invoke( 7 ) )
+    assertEquals( 21, multiplier( 3 )( 7 ) )
+  }
+
+  function testSignatures() {
+    var obj : Object = \ s : String -> s.length()
+    assertTrue( obj typeis IObjectToIntBlock )
+    assertEquals( 3, (obj as IObjectToIntBlock).invokePrimitive( "abc" ) )
+
+    obj = \ i : int -> "#" + i
+    assertTrue( obj typeis IIntToObjectBlock )
+    assertEquals( "#5", (obj as IFunction1).invoke( 5 ) )
+
+    obj = \ a : double, b : double -> a * b
+    assertTrue( obj typeis IDoubleDoubleToDoubleBlock )
+    assertEquals( 3.0, (obj as IDoubleDoubleToDoubleBlock).invokePrimitive( 1.5, 2.0 ), 0.0 )
+
+    obj = \ l : long -> l > 10
+    assertTrue( obj typeis ILongToBooleanBlock )
+    assertEquals( Boolean.TRUE, (obj as IFunction1).invoke( 11L ) )
+  }
+
+  function testBoxedSignatureIsNotSpecialized() {
+    var obj : Object = \ i : Integer -> i * 2
+    assertFalse( obj typeis IIntToIntBlock )
+    obj = \ s : String -> s.Empty
+    assertFalse( obj typeis IIntToBooleanBlock )
+  }
+
+  function testStatementBodies() {
+    var sign = \ i : int -> {
+      if( i < 0 ) {
+        return -1
+      }
+      return i == 0 ? 0 : 1
+    }
+    assertEquals( -1, sign( -5 ) )
+    assertEquals( 0, sign( 0 ) )
+    assertEquals( 1, sign( 5 ) )
+
+    var widen : block(i:int):long = \ i -> i
+    assertEquals( 7L, widen( 7 ) )
+  }
+
+  function testCapturedParameter() {
+    var adder = \ i : int -> {
+      var add = \ j : int -> i + j
+      i++
+      return add( 10 )
+    }
+    assertEquals( 12, adder( 1 ) )
+  }
+
+  function testPrimitiveArrayEnhancements() {
+    var ints : int[] = {1, 2, 3, 4}
+    assertEquals( {2, 4, 6, 8}, ints.map( \ i -> i * 2 ).toList() )
+    assertEquals( {2, 4}, ints.where( \ i -> i % 2 == 0 ).toList() )
+    assertEquals( 30, ints.sum( \ i -> i * i ) )
+
+    var longs : long[] = {1, 2, 3}
+    assertEquals( {3L, 6L, 9L}, longs.map( \ l -> l * 3 ).toList() )
+    assertEquals( {3L}, longs.where( \ l -> l > 2 ).toList() )
+    assertEquals( 6L, longs.sum( \ l -> l ) )
+
+    var doubles : double[] = {0.5, 1.5}
+    assertEquals( {1.0, 3.0}, doubles.map( \ d -> d * 2 ).toList() )
+    assertEquals( {1.5}, doubles.where( \ d -> d > 1 ).toList() )
+    assertEquals( 2.0, doubles.sum( \ d -> d ), 0.0 )
+  }
+}
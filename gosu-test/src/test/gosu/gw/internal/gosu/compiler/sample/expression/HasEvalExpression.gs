@@ -157,6 +157,33 @@ class HasEvalExpression
     return x
   }
 
+  function testRepeatedEvalFromSameSite() : String
+  {
+    var result = ""
+    for( i in 0..5 )
+    {
+      var x = i
+      result += eval( i % 2 == 0 ? "x * 2" : "x + _data.length" ) + ","
+      _data = _data + "a"
+    }
+    return result
+  }
+
+  function testEvalProgramClassName( padding : String ) : String
+  {
+    var x = padding.length()
+    return eval( "callerClassName() + x" + padding ) as String
+  }
+  function testEvalProgramWithBlockClassName( padding : String ) : String
+  {
+    var x = padding.length()
+    return eval( "callerClassName() + {x}.map( \\ i -> i ).first()" + padding ) as String
+  }
+  static function callerClassName() : String
+  {
+    return new java.lang.Throwable().StackTrace[1].ClassName
+  }
+
   function testTripleNestedEvalWithCapture() : int
   {
     var x = 1
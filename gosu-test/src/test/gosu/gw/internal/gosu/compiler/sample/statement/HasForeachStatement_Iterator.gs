@@ -207,6 +207,77 @@ class HasForeachStatement_Iterator
     return res
   }
 
+  static function hasForeachWithIntervalLiterals() : String
+  {
+    var n = 5
+    var res = ""
+    for( i in 0..n ) { res += i }
+    res += ","
+    for( i in 0..|n ) { res += i }
+    res += ","
+    for( i in 0|..n ) { res += i }
+    res += ","
+    for( i in n..0 ) { res += i }
+    res += ","
+    for( i in n..|0 ) { res += i }
+    res += ","
+    for( i in n|..0 ) { res += i }
+    res += ","
+    for( i in (0..n).step( 2 ) ) { res += i }
+    res += ","
+    for( i in (n..0).step( 2 ) ) { res += i }
+    res += ","
+    for( i in (0..|n).step( 3 ) ) { res += i }
+    res += ","
+    for( i in n..|n ) { res += i }
+    res += ","
+    for( i in 3..1 index j ) { res += "" + i + j }
+    return res
+  }
+
+  static function hasForeachWithIntervalVariables() : String
+  {
+    var res = ""
+    var iv = (5..0).step( 2 )
+    for( i in iv ) { res += i }
+    res += ","
+    var lv = (0 as long)..|(5 as long)
+    for( i in lv ) { res += i }
+    res += ","
+    var nullInterval : gw.lang.reflect.interval.IntegerInterval = null
+    for( i in nullInterval ) { res += i }
+    res += ","
+    var blocks = new java.util.ArrayList<block():int>()
+    for( i in 0..2 ) { blocks.add( \ -> i ) }
+    for( b in blocks ) { res += b() }
+    res += ","
+    for( i in 0..2 iterator it ) { res += i }
+    return res
+  }
+
+  static function hasForeachWithIntervalsAtBounds() : String
+  {
+    var res = ""
+    var count = 0
+    for( i in (Integer.MAX_VALUE - 2)..Integer.MAX_VALUE ) { count++ }
+    res += count + ","
+    count = 0
+    for( i in (Integer.MIN_VALUE + 1)..Integer.MIN_VALUE ) { count++ }
+    res += count + ","
+    count = 0
+    for( i in (Long.MAX_VALUE - 1)..Long.MAX_VALUE ) { count++ }
+    res += count + ","
+    count = 0
+    for( i in Long.MIN_VALUE..Long.MAX_VALUE ) {
+      count++
+      if( count == 3 ) {
+        break
+      }
+    }
+    res += count
+    return res
+  }
+
   static function testGenericIterator() : String {
     var res = ""
     for( value in new ForGenericIterator<String>().foo() ) {
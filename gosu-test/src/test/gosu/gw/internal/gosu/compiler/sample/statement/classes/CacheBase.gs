@@ -0,0 +1,9 @@
+package gw.internal.gosu.compiler.sample.statement.classes
+
+class CacheBase implements CacheMarker
+{
+  function name() : String
+  {
+    return "base"
+  }
+}
@@ -0,0 +1,8 @@
+package gw.internal.gosu.compiler.sample.statement.classes
+
+class CacheLeaf extends CacheMiddle
+{
+  static class Inner
+  {
+  }
+}
@@ -0,0 +1,5 @@
+package gw.internal.gosu.compiler.sample.statement.classes
+
+class CacheMiddle extends CacheBase
+{
+}
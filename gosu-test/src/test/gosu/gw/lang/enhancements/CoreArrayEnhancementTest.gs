@@ -160,6 +160,19 @@ class CoreArrayEnhancementTest extends TestClass {
     assertEquals( 6 as BigInteger, new BigInteger[]{1, 2, 3}.sum( \ i -> i as BigInteger ) )
   }
   
+  function testParallel() {
+    var strs = new String[]{"a", "bb", "ccc", "dddd"}
+    assertArrayEquals( new Integer[]{1, 2, 3, 4}, strs.parallelMap( \ s -> s.length() ) )
+    assertArrayEquals( new String[]{"ccc", "dddd"}, strs.parallelWhere( \ s -> s.length() > 2 ) )
+    assertEquals( "abbcccdddd", strs.parallelReduce( "", \ r, s -> r + s, \ r1, r2 -> r1 + r2 ) )
+    assertEquals( 10, strs.parallelSum( \ s -> s.length() ) )
+    assertEquals( 10.0, strs.parallelSum( \ s -> s.length() as double ), 0.01 )
+    assertEquals( 10 as BigDecimal, strs.parallelSum( \ s -> s.length() as BigDecimal ) )
+    var count = new java.util.concurrent.atomic.AtomicInteger()
+    strs.parallelEach( \ s -> { count.addAndGet( s.length() ) } )
+    assertEquals( 10, count.get() )
+  }
+
   function testArraysHaveAllMethodsAndPropertiesThatListsHave() {
     var iterableMethods = CoreIterableEnhancement.Type.TypeInfo.Methods.concat( 
                           CoreListEnhancement.Type.TypeInfo.Methods )
@@ -86,5 +86,42 @@ class CoreIterableEnhancementTest extends TestClass {
     assertTrue( hasThrown )
 
   }
-  
+
+  function testParallelMapAndWherePreserveOrder() {
+    var x = new ArrayList<Integer>()
+    for( i in 0..|10000 ) {
+      x.add( i )
+    }
+    assertEquals( x.map( \ e -> e * 2 ), x.parallelMap( \ e -> e * 2 ) )
+    assertEquals( x.where( \ e -> e % 3 == 0 ), x.parallelWhere( \ e -> e % 3 == 0 ) )
+
+    var set = new LinkedHashSet<Integer>( x )
+    assertEquals( x.map( \ e -> e + 1 ), set.parallelMap( \ e -> e + 1 ) )
+    assertEquals( {}, ({} as List<Integer>).parallelMap( \ e -> e ) )
+  }
+
+  function testParallelOnSmallCollectionRunsInCallersThread() {
+    var caller = Thread.currentThread()
+    assertEquals( {caller, caller}, {1, 2}.parallelMap( \ e -> Thread.currentThread() ) )
+  }
+
+  function testParallelEachAndReduce() {
+    var x = new ArrayList<Integer>()
+    for( i in 1..10000 ) {
+      x.add( i )
+    }
+    var count = new java.util.concurrent.atomic.AtomicInteger()
+    x.parallelEach( \ e -> { count.addAndGet( e ) } )
+    assertEquals( 50005000, count.get() )
+
+    assertEquals( 50005000, x.parallelSum( \ e -> e ) )
+    assertEquals( 50005000 as long, x.parallelSum( \ e -> e as long ) )
+    assertEquals( 50005000.0, x.parallelSum( \ e -> e as double ), 0.001 )
+    assertEquals( 0, ({} as List<Integer>).parallelSum( \ e -> e ) )
+    assertEquals( 5, {"a", "bb", "cc"}.parallelSum( \ e -> e.length() ) )
+    assertEquals( x.join( "," ), x.parallelReduce( "", \ s, e -> s.length() == 0 ? "" + e : s + "," + e,
+                                                   \ s1, s2 -> s1.length() == 0 ? s2 : s2.length() == 0 ? s1 : s1 + "," + s2 ) )
+    assertEquals( 7, ({} as List<Integer>).parallelReduce( 7, \ s, e -> s + e, \ s1, s2 -> s1 + s2 ) )
+  }
+
 }
\ No newline at end of file
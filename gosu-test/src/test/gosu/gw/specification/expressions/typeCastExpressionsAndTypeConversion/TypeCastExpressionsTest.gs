@@ -1,9 +1,64 @@
 package gw.specification.expressions.typeCastExpressionsAndTypeConversion
 
 uses gw.BaseVerifyErrantTest
+uses java.lang.*
+uses java.math.BigDecimal
 
 class TypeCastExpressionsTest extends BaseVerifyErrantTest {
   function testErrant_LogicalOperatorsTest() {
     processErrantType(Errant_TypeCastExpressionsTest)
   }
+
+  function testRuntimeCoercionSite() {
+    var values : List<Object> = {1, 2L, 3.5, (4 as byte), new BigDecimal( "5.25" ), (6 as short), 7.5f, 8}
+    var sum = BigDecimal.ZERO
+    var count = 0
+    for( i in 0..|2 ) {
+      for( v in values ) {
+        // one site, more value classes than the inline cache holds
+        sum += v as BigDecimal
+        count += v as Integer
+      }
+    }
+    assertEquals( 0, new BigDecimal( "74.5" ).compareTo( sum ) )
+    assertEquals( 72, count )
+  }
+
+  function testRuntimeCoercionSiteWithNull() {
+    var values : List<Object> = {1L, null, 2}
+    var result = new ArrayList<Integer>()
+    for( v in values ) {
+      result.add( v as Integer )
+    }
+    assertEquals( {1, null, 2}, result )
+  }
+
+  function testRuntimeCoercionSiteFailure() {
+    var values : List<Object> = {1, new Object()}
+    var sum = BigDecimal.ZERO
+    try {
+      for( v in values ) {
+        sum += v as BigDecimal
+      }
+      fail( "Expected ClassCastException" )
+    }
+    catch( e : ClassCastException ) {
+      assertEquals( BigDecimal.ONE, sum )
+    }
+  }
+
+  function testRuntimeCoercionSiteFailureAfterLinking() {
+    var values : List<Object> = {1, 2L, 3, new Object()}
+    var sum = 0L
+    try {
+      for( v in values ) {
+        // the site has linked Integer and Long by the time it sees the Object
+        sum += v as Long
+      }
+      fail( "Expected ClassCastException" )
+    }
+    catch( e : ClassCastException ) {
+      assertEquals( 6L, sum )
+    }
+  }
 }
@@ -17,6 +17,56 @@ class DynamicDispatchTest extends gw.BaseVerifyErrantTest {
     assertEquals( "Chicken", (eater as Dynamic).eat( deater ) )
   }
 
+  function testPolymorphicDynamicPropertySite() {
+    var receivers : List<Dynamic> = {new Named( "a" ), new OtherNamed( "b" ), new javax.script.SimpleBindings( {"Name" -> "c"} ),
+                                     new Named( "d" ), new ThirdNamed( "e" ), new FourthNamed( "f" ), new FifthNamed( "g" ), new OtherNamed( "h" )}
+    var names = ""
+    for( i in 0..|2 ) {
+      for( r in receivers ) {
+        // one call site, more receiver classes than the inline cache holds
+        names += r.Name
+      }
+    }
+    assertEquals( "abcdefghabcdefgh", names )
+  }
+
+  function testPolymorphicDynamicSetPropertySite() {
+    var receivers : List<Dynamic> = {new Named( "a" ), new OtherNamed( "b" ), new javax.script.SimpleBindings()}
+    for( r in receivers ) {
+      r.Name = "z"
+    }
+    for( r in receivers ) {
+      assertEquals( "z", r.Name )
+    }
+  }
+
+  function testPolymorphicDynamicMethodSite() {
+    var eater : Dynamic = new Eater()
+    var animals : List<Dynamic> = {new Chicken(), new Cow(), new Animal(), new Chicken()}
+    var eaten = ""
+    for( animal in animals ) {
+      eaten += eater.eat( animal ) + " "
+    }
+    assertEquals( "Chicken Cow Animal Chicken ", eaten )
+  }
+
+  static class Named {
+    var _name : String as Name
+    construct( name : String ) { _name = name }
+  }
+  static class OtherNamed extends Named {
+    construct( name : String ) { super( name ) }
+  }
+  static class ThirdNamed extends Named {
+    construct( name : String ) { super( name ) }
+  }
+  static class FourthNamed extends Named {
+    construct( name : String ) { super( name ) }
+  }
+  static class FifthNamed extends Named {
+    construct( name : String ) { super( name ) }
+  }
+
   static class Animal{}
   static class Chicken extends Animal {}
   static class Cow extends Animal {}
@@ -0,0 +1,175 @@
+package gw.specification.typeDynamic
+
+uses dynamic.Dynamic
+uses java.lang.*
+uses gw.lang.reflect.json.Json
+uses gw.lang.reflect.json.JsonBindings
+uses gw.lang.reflect.json.JsonReader
+uses gw.test.TestClass
+uses java.io.StringReader
+uses java.util.ArrayList
+uses java.util.HashMap
+uses java.util.List
+
+class JsonBindingsTest extends TestClass {
+  static final var RECORDS: String = "[{\"id\": 1, \"name\": \"a\"}, {\"id\": 2, \"name\": \"b\"}, {\"name\": \"c\", \"id\": 3}, {\"id\": 4, \"name\": \"d\", \"extra\": true}]"
+
+  function testHomogeneousObjectsShareShape() {
+    var records = Json.fromJson( RECORDS ).get( "value" ) as List<JsonBindings>
+    assertSame( records[0].Shape, records[1].Shape )
+    assertNotSame( records[0].Shape, records[2].Shape )
+    assertNotSame( records[0].Shape, records[3].Shape )
+    assertEquals( 0, records[0].indexOf( "id" ) )
+    assertEquals( 0, records[2].indexOf( "name" ) )
+    assertEquals( -1, records[0].indexOf( "extra" ) )
+  }
+
+  function testObjectsShareShapeAcrossParses() {
+    var first = Json.fromJson( RECORDS ).get( "value" ) as List<JsonBindings>
+    var second = Json.fromJson( RECORDS ).get( "value" ) as List<JsonBindings>
+    assertNotNull( first[0].SharedShape )
+    assertSame( first[0].SharedShape, second[1].SharedShape )
+    assertSame( first[2].Shape, second[2].Shape )
+    var read = new JsonReader( new StringReader( RECORDS ) ).elements().iterator().next() as JsonBindings
+    assertSame( first[0].Shape, read.Shape )
+  }
+
+  function testReaderObjectsShareShape() {
+    var shapes = new ArrayList<Object>()
+    for( record in new JsonReader( new StringReader( RECORDS ) ).elements() ) {
+      shapes.add( (record as JsonBindings).Shape )
+    }
+    assertSame( shapes[0], shapes[1] )
+    assertNotSame( shapes[1], shapes[2] )
+  }
+
+  function testWideObjectIsAMap() {
+    var json = new StringBuilder( "{" )
+    for( i in 0..|20000 ) {
+      json.append( i == 0 ? "" : ", " ).append( "\"k" ).append( i ).append( "\": " ).append( i )
+    }
+    json.append( "}" )
+    var bindings = Json.fromJson( json.toString() ) as JsonBindings
+    assertNull( bindings.Shape )
+    assertEquals( 20000, bindings.size() )
+    assertEquals( 0, bindings.get( "k0" ) )
+    assertEquals( 19999, bindings.get( "k19999" ) )
+    var keys = bindings.keySet().toList()
+    assertEquals( "k0", keys[0] )
+    assertEquals( "k64", keys[64] )
+    assertEquals( "k19999", keys[19999] )
+
+    var reader = new JsonReader( new StringReader( json.toString() ) )
+    var read = reader.readValue() as JsonBindings
+    assertEquals( 20000, read.size() )
+    assertEquals( 12345, read.get( "k12345" ) )
+  }
+
+  function testObjectsUpToShapeLimitShareShape() {
+    var json = new StringBuilder( "[" )
+    for( r in 0..|2 ) {
+      json.append( r == 0 ? "{" : ", {" )
+      for( i in 0..|64 ) {
+        json.append( i == 0 ? "" : ", " ).append( "\"k" ).append( i ).append( "\": " ).append( i )
+      }
+      json.append( "}" )
+    }
+    json.append( "]" )
+    var records = Json.fromJson( json.toString() ).get( "value" ) as List<JsonBindings>
+    assertNotNull( records[0].Shape )
+    assertSame( records[0].Shape, records[1].Shape )
+    assertEquals( 63, records[1].get( "k63" ) )
+  }
+
+  function testMapBehavior() {
+    var bindings = Json.fromJson( "{\"b\": 1, \"a\": [2], \"c\": null}" )
+    assertTrue( bindings typeis JsonBindings )
+    assertEquals( 3, bindings.size() )
+    assertEquals( {"b", "a", "c"}, bindings.keySet().toList() )
+    assertEquals( 1, bindings.get( "b" ) )
+    assertEquals( {2}, bindings.get( "a" ) )
+    assertTrue( bindings.containsKey( "c" ) )
+    assertFalse( bindings.containsKey( "d" ) )
+    assertNull( bindings.get( "d" ) )
+    assertEquals( new HashMap<String, Object>() {"b" -> 1, "a" -> {2}, "c" -> null}, bindings )
+  }
+
+  function testReplaceKeepsShape() {
+    var bindings = Json.fromJson( "{\"a\": 1, \"b\": 2}" ) as JsonBindings
+    var shape = bindings.Shape
+    assertEquals( 1, bindings.put( "a", 10 ) )
+    for( entry in bindings.entrySet() ) {
+      if( entry.Key == "b" ) {
+        entry.setValue( 20 )
+      }
+    }
+    assertSame( shape, bindings.Shape )
+    assertEquals( 10, bindings.get( "a" ) )
+    assertEquals( 20, bindings.get( "b" ) )
+  }
+
+  function testAddAndRemoveCopyToMap() {
+    var records = Json.fromJson( RECORDS ).get( "value" ) as List<JsonBindings>
+    var first = records[0]
+    first.put( "more", "x" )
+    assertNull( first.Shape )
+    assertEquals( {"id", "name", "more"}, first.keySet().toList() )
+    assertEquals( 1, first.get( "id" ) )
+
+    var second = records[1]
+    assertEquals( 2, second.remove( "id" ) )
+    assertNull( second.remove( "id" ) )
+    assertEquals( {"name"}, second.keySet().toList() )
+
+    assertEquals( {"id", "name"}, (Json.fromJson( RECORDS ).get( "value" ) as List<JsonBindings>)[0].keySet().toList() )
+
+    var third = records[2]
+    var iter = third.entrySet().iterator()
+    iter.next()
+    iter.remove()
+    assertEquals( "id", iter.next().Key )
+    assertFalse( iter.hasNext() )
+    assertEquals( {"id" -> 3}, third )
+
+    records[3].clear()
+    assertTrue( records[3].isEmpty() )
+  }
+
+  function testKeysAreChecked() {
+    var bindings = Json.fromJson( "{\"a\": 1}" )
+    try {
+      bindings.put( "", 1 )
+      fail( "Expected IllegalArgumentException" )
+    }
+    catch( e : IllegalArgumentException ) {
+      // expected
+    }
+    try {
+      bindings.get( null )
+      fail( "Expected NullPointerException" )
+    }
+    catch( e : NullPointerException ) {
+      // expected
+    }
+  }
+
+  function testDynamicPropertyAccessAcrossShapes() {
+    var doc : Dynamic = Json.fromJson( RECORDS )
+    var names = ""
+    var extras = 0
+    for( record in doc.value as List<Dynamic> ) {
+      names += record.name
+      if( record.extra != null ) {
+        extras++
+      }
+    }
+    assertEquals( "abcd", names )
+    assertEquals( 1, extras )
+
+    var record : Dynamic = doc.value[0]
+    record.name = "z"
+    record.added = "new"
+    assertEquals( "z", record.name )
+    assertEquals( "new", record.added )
+  }
+}
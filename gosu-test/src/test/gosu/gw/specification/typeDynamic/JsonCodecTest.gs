@@ -0,0 +1,158 @@
+package gw.specification.typeDynamic
+
+uses java.lang.*
+uses gw.lang.reflect.json.IJsonCodec
+uses gw.lang.reflect.json.Json
+uses gw.lang.reflect.json.JsonReader
+uses gw.test.TestClass
+uses java.io.StringReader
+uses java.io.StringWriter
+uses java.math.BigDecimal
+uses java.util.List
+uses javax.script.Bindings
+
+class JsonCodecTest extends TestClass {
+  static final var PERSON: String = "{\"name\": \"Scott\", \"age\": 42, \"active\": true, \"score\": 1.5, \"salary\": 1000.25, " +
+                                    "\"first-seen\": \"2014\", \"tags\": [\"a\", \"b\"], \"address\": {\"city\": \"Foster City\", \"zip\": 94404}, " +
+                                    "\"friends\": [{\"name\": \"Carson\", \"age\": 40, \"active\": false, \"friends\": []}], \"extra\": {\"x\": [1, {}]}, " +
+                                    "\"nullable\": null}"
+
+  structure Person {
+    property get name(): String
+    property set name( $value: String )
+    property get age(): int
+    property get active(): boolean
+    property get score(): Double
+    property get salary(): BigDecimal
+    @gw.lang.reflect.ActualName( "first-seen" )
+    property get firstSeen(): String
+    property get tags(): List<String>
+    property get address(): Address
+    property get friends(): List<Person>
+    property get nullable(): Object
+  }
+
+  structure Address {
+    property get city(): String
+    property get zip(): Integer
+  }
+
+  structure Document {
+    property get data(): Bindings
+  }
+
+  structure WithFunction {
+    property get name(): String
+    function greet(): String
+  }
+
+  function testRead() {
+    var codec : IJsonCodec<Person> = Json.getCodec( Person )
+    var person = codec.fromJson( PERSON )
+    assertEquals( "Scott", person.name )
+    assertEquals( 42, person.age )
+    assertTrue( person.active )
+    assertEquals( 1.5, person.score )
+    assertEquals( new BigDecimal( "1000.25" ), person.salary )
+    assertEquals( "2014", person.firstSeen )
+    assertEquals( {"a", "b"}, person.tags )
+    assertEquals( "Foster City", person.address.city )
+    assertEquals( 94404, person.address.zip )
+    assertEquals( 1, person.friends.size() )
+    assertEquals( "Carson", person.friends[0].name )
+    assertFalse( person.friends[0].active )
+    assertTrue( person.friends[0].friends.isEmpty() )
+    assertNull( person.friends[0].address )
+    assertNull( person.nullable )
+
+    person.name = "Scotty"
+    assertEquals( "Scotty", person.name )
+  }
+
+  function testRoundTrip() {
+    var codec : IJsonCodec<Person> = Json.getCodec( Person )
+    var json = codec.toJson( codec.fromJson( PERSON ) )
+    assertEquals( "{\"name\":\"Scott\",\"age\":42,\"active\":true,\"score\":1.5,\"salary\":1000.25,\"first-seen\":\"2014\"," +
+                  "\"tags\":[\"a\",\"b\"],\"address\":{\"city\":\"Foster City\",\"zip\":94404}," +
+                  "\"friends\":[{\"name\":\"Carson\",\"age\":40,\"active\":false,\"score\":null,\"salary\":null,\"first-seen\":null," +
+                  "\"tags\":null,\"address\":null,\"friends\":[],\"nullable\":null}],\"nullable\":null}", json )
+    assertEquals( json, codec.toJson( codec.fromJson( json ) ) )
+    assertEquals( json, codec.fromJson( PERSON ).toString() )
+  }
+
+  function testCodecIsCached() {
+    assertSame( Json.getCodec( Person ), Json.getCodec( Person ) )
+  }
+
+  function testNullAndMissingMembers() {
+    var codec : IJsonCodec<Person> = Json.getCodec( Person )
+    assertNull( codec.fromJson( "null" ) )
+    assertEquals( "null", codec.toJson( null ) )
+    var person = codec.fromJson( "{\"unknown\": [1, {\"a\": 2}], \"age\": 7}" )
+    assertEquals( 7, person.age )
+    assertNull( person.name )
+    assertFalse( person.active )
+  }
+
+  function testReadFromStream() {
+    var codec : IJsonCodec<Address> = Json.getCodec( Address )
+    var reader = new JsonReader( new StringReader( "[{\"city\": \"a\", \"zip\": 1}, {\"city\": \"b\", \"zip\": 2}]" ) )
+    var cities = ""
+    reader.next()
+    while( reader.hasNext() ) {
+      cities += codec.read( reader ).city
+    }
+    assertEquals( "ab", cities )
+  }
+
+  function testBindingsProperty() {
+    var codec : IJsonCodec<Document> = Json.getCodec( Document )
+    var doc = codec.fromJson( "{\"data\": {\"a\": [1, 2]}}" )
+    assertEquals( {1, 2}, doc.data.get( "a" ) )
+    assertEquals( "{\"data\":{\"a\":[1,2]}}", codec.toJson( doc ) )
+  }
+
+  function testWritesOtherImplementations() {
+    var codec : IJsonCodec<Address> = Json.getCodec( Address )
+    var out = new StringWriter()
+    codec.toJson( new AddressImpl(), out )
+    assertEquals( "{\"city\":\"Here\",\"zip\":1}", out.toString() )
+  }
+
+  function testUnsupportedTypes() {
+    try {
+      Json.getCodec( String )
+      fail( "Expected IllegalArgumentException" )
+    }
+    catch( e : IllegalArgumentException ) {
+      // expected
+    }
+    try {
+      Json.getCodec( WithFunction )
+      fail( "Expected IllegalArgumentException" )
+    }
+    catch( e : IllegalArgumentException ) {
+      // expected
+    }
+  }
+
+  function testWrongJsonType() {
+    var codec : IJsonCodec<Address> = Json.getCodec( Address )
+    try {
+      codec.fromJson( "{\"city\": {}}" )
+      fail( "Expected IllegalStateException" )
+    }
+    catch( e : IllegalStateException ) {
+      // expected
+    }
+  }
+
+  static class AddressImpl {
+    property get city(): String {
+      return "Here"
+    }
+    property get zip(): Integer {
+      return 1
+    }
+  }
+}
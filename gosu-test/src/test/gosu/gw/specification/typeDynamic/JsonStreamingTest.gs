@@ -0,0 +1,158 @@
+package gw.specification.typeDynamic
+
+uses dynamic.Dynamic
+uses java.lang.*
+uses gw.lang.reflect.json.Json
+uses gw.lang.reflect.json.JsonReader
+uses gw.lang.reflect.json.JsonReader.Event
+uses gw.lang.reflect.json.JsonWriter
+uses gw.test.TestClass
+uses java.io.Reader
+uses java.io.StringReader
+uses java.io.StringWriter
+uses java.math.BigDecimal
+uses java.math.BigInteger
+uses java.util.ArrayList
+uses javax.script.Bindings
+
+class JsonStreamingTest extends TestClass {
+
+  function testEvents() {
+    var reader = new JsonReader( new StringReader( "{\"a\": [1, 2.5, \"x\\ny\"], \"b\": {}, \"c\": true, \"d\": null}" ) )
+    var events = new ArrayList<Object>()
+    var event = reader.next()
+    while( event != Event.END_DOCUMENT ) {
+      events.add( event )
+      if( event == Event.NAME ) {
+        events.add( reader.Name )
+      }
+      else if( event == Event.VALUE ) {
+        events.add( reader.Value )
+      }
+      event = reader.next()
+    }
+    assertEquals( {Event.START_OBJECT,
+                     Event.NAME, "a", Event.START_ARRAY, Event.VALUE, 1, Event.VALUE, 2.5, Event.VALUE, "x\ny", Event.END_ARRAY,
+                     Event.NAME, "b", Event.START_OBJECT, Event.END_OBJECT,
+                     Event.NAME, "c", Event.VALUE, true,
+                     Event.NAME, "d", Event.VALUE, null,
+                   Event.END_OBJECT}, events )
+  }
+
+  function testElements() {
+    var reader = new JsonReader( new StringReader( "{\"count\": 3, \"quote\": [{\"symbol\": \"A\"}, {\"symbol\": \"B\"}, {\"symbol\": \"C\"}], \"after\": 1}" ) )
+    assertEquals( Event.START_OBJECT, reader.next() )
+    assertEquals( Event.NAME, reader.next() )
+    assertEquals( "count", reader.Name )
+    assertEquals( 3, reader.readValue() )
+
+    assertEquals( Event.NAME, reader.next() )
+    assertEquals( "quote", reader.Name )
+    var symbols = ""
+    for( quote in reader.elements() ) {
+      var q : Dynamic = quote
+      symbols += q.symbol
+    }
+    assertEquals( "ABC", symbols )
+
+    assertTrue( reader.hasNext() )
+    reader.skipValue()
+    assertFalse( reader.hasNext() )
+    assertEquals( Event.END_OBJECT, reader.next() )
+    assertEquals( Event.END_DOCUMENT, reader.next() )
+  }
+
+  function testElementsOfEmptyArray() {
+    var reader = new JsonReader( new StringReader( "[]" ) )
+    assertFalse( reader.elements().iterator().hasNext() )
+    assertEquals( Event.END_DOCUMENT, reader.next() )
+  }
+
+  function testSkipValue() {
+    var reader = new JsonReader( new StringReader( "{\"skip\": {\"a\": [1, [2, {}], 3]}, \"keep\": \"yes\"}" ) )
+    reader.next()
+    reader.skipValue()
+    assertEquals( Event.NAME, reader.next() )
+    assertEquals( "keep", reader.Name )
+    assertEquals( "yes", reader.readValue() )
+  }
+
+  function testReadValueMatchesFromJson() {
+    var json = "{\"a\": [1, {\"b\": [true, false, null]}], \"c\": 2147483648, \"d\": -1.5e3}"
+    var bindings = new JsonReader( new StringReader( json ) ).readValue() as Bindings
+    assertEquals( toJson( Json.fromJson( json ) ), toJson( bindings ) )
+    assertEquals( 2147483648L, bindings.get( "c" ) )
+  }
+
+  function testBigNumbers() {
+    var bindings = new JsonReader( new StringReader( "{\"i\": 1, \"d\": 1.25}" ), true ).readValue() as Bindings
+    assertEquals( BigInteger.ONE, bindings.get( "i" ) )
+    assertEquals( new BigDecimal( "1.25" ), bindings.get( "d" ) )
+  }
+
+  function testMalformed() {
+    var reader = new JsonReader( new StringReader( "{\"a\" 1}" ) )
+    reader.next()
+    try {
+      reader.next()
+      fail( "Expected an error" )
+    }
+    catch( e : RuntimeException ) {
+      assertTrue( e.Cause.Message, e.Cause.Message.contains( "expecting ':'" ) )
+    }
+  }
+
+  function testFromJsonReader() {
+    var sb = new StringBuilder( "[" )
+    for( i in 0..|5000 ) {
+      if( i > 0 ) {
+        sb.append( ',' )
+      }
+      sb.append( "{\"id\": " ).append( i ).append( ", \"name\": \"item" ).append( i ).append( "\"}" )
+    }
+    sb.append( "]" )
+    // larger than the tokenizer's buffer
+    var reader : Reader = new StringReader( sb.toString() )
+    var doc : Dynamic = Json.fromJson( reader )
+    assertEquals( 5000, doc.value.size() )
+    assertEquals( "item4999", doc.value[4999].name )
+  }
+
+  function testWriter() {
+    var out = new StringWriter()
+    var writer = new JsonWriter( out )
+    writer.beginObject()
+      .name( "s" ).value( "q\"uote\\ \t\u0001 \u2028" )
+      .name( "n" ).value( 42 )
+      .name( "list" ).beginArray().value( 1.5 ).value( null ).value( true ).endArray()
+      .name( "arr" ).value( new int[] {1, 2} )
+      .name( "empty" ).beginObject().endObject()
+      .endObject()
+    assertEquals( "{\"s\":\"q\\\"uote\\\\ \\t\\u0001 \\u2028\",\"n\":42,\"list\":[1.5,null,true],\"arr\":[1,2],\"empty\":{}}", out.toString() )
+  }
+
+  function testWriterRejectsMisuse() {
+    var writer = new JsonWriter( new StringWriter() )
+    writer.beginObject()
+    try {
+      writer.value( 1 )
+      fail( "Expected IllegalStateException" )
+    }
+    catch( e : IllegalStateException ) {
+      // expected
+    }
+  }
+
+  function testBindingsRoundTripThroughWriter() {
+    var json = "{\"name\": \"Gosu\", \"tags\": [\"a\", \"b\"], \"nested\": {\"x\": 1, \"y\": [{\"z\": null}]}}"
+    var bindings = Json.fromJson( json )
+    var written = toJson( bindings )
+    assertEquals( written, toJson( Json.fromJson( new StringReader( written ) ) ) )
+  }
+
+  private function toJson( bindings: Bindings ) : String {
+    var out = new StringWriter()
+    bindings.toJson( out )
+    return out.toString()
+  }
+}
@@ -0,0 +1,149 @@
+package gw.util
+
+uses gw.test.TestClass
+uses java.lang.Integer
+uses java.lang.IllegalArgumentException
+uses java.lang.Iterable
+uses java.util.ArrayList
+uses java.util.Iterator
+
+class LazyIterableTest extends TestClass {
+
+  function testWhereMapToList() {
+    var list = {1, 2, 3, 4, 5, 6}
+    assertEquals( {"4", "8", "12"}, list.lazy().where( \ i -> i % 2 == 0 ).map( \ i -> "" + (i * 2) ).toList() )
+    assertEquals( {1, 2, 3, 4, 5, 6}, list )
+  }
+
+  function testOperatorsAreDeferredUntilIterated() {
+    var calls = 0
+    var view = {1, 2, 3}.lazy().map( \ i -> {
+      calls++
+      return i
+    } )
+    assertEquals( 0, calls )
+    assertEquals( 3, view.Count )
+    assertEquals( 3, calls )
+  }
+
+  function testFirstWhereShortCircuits() {
+    var source = new CountingIterable( {1, 2, 3, 4, 5, 6, 7, 8, 9, 10} )
+    var found = source.lazy().where( \ i -> i > 2 ).map( \ i -> i * 10 ).firstWhere( \ i -> i > 30 )
+    assertEquals( 40, found )
+    assertEquals( 4, source.Pulled )
+  }
+
+  function testHasMatchAndAllMatchShortCircuit() {
+    var source = new CountingIterable( {1, 2, 3, 4, 5} )
+    assertTrue( source.lazy().map( \ i -> i * 2 ).hasMatch( \ i -> i == 4 ) )
+    assertEquals( 2, source.Pulled )
+
+    source = new CountingIterable( {1, 2, 3, 4, 5} )
+    assertFalse( source.lazy().map( \ i -> i * 2 ).allMatch( \ i -> i < 4 ) )
+    assertEquals( 2, source.Pulled )
+  }
+
+  function testTakeDoesNotIteratePastLastElement() {
+    var source = new CountingIterable( {1, 2, 3, 4, 5} )
+    assertEquals( {1, 2}, source.lazy().take( 2 ).toList() )
+    assertEquals( 2, source.Pulled )
+    assertEquals( {}, {1, 2}.lazy().take( 0 ).toList() )
+    assertEquals( {1, 2}, {1, 2}.lazy().take( 5 ).toList() )
+    var one = {1}.lazy()
+    try {
+      one.take( -1 )
+      fail( "Expected IllegalArgumentException" )
+    }
+    catch( e : IllegalArgumentException ) {
+      // expected
+    }
+  }
+
+  function testSkip() {
+    assertEquals( {3, 4}, {1, 2, 3, 4}.lazy().skip( 2 ).toList() )
+    assertEquals( {}, {1, 2}.lazy().skip( 5 ).toList() )
+    assertEquals( {2, 3}, {1, 2, 3, 4}.lazy().skip( 1 ).take( 2 ).toList() )
+  }
+
+  function testDistinct() {
+    assertEquals( {1, 2, 3}, {1, 1, 2, 1, 3, 2}.lazy().distinct().toList() )
+  }
+
+  function testFlatMap() {
+    var lists : List<List<Integer>> = {{1, 2}, {}, {3}, {4, 5}}
+    assertEquals( {1, 2, 3, 4, 5}, lists.lazy().flatMap( \ l -> l ).toList() )
+    assertEquals( {2, 4}, lists.lazy().flatMap( \ l -> l ).where( \ i -> i % 2 == 0 ).toList() )
+  }
+
+  function testFlatMapSkipsNullCollections() {
+    var strs : List<String> = {"a", null, "b"}
+    var mapper = \ s : String -> s == null ? null : {s, s}
+    assertEquals( strs.flatMap( mapper ), strs.lazy().flatMap( mapper ).toList() )
+    assertEquals( {"a", "a", "b", "b"}, strs.lazy().flatMap( mapper ).toList() )
+  }
+
+  function testWhereTypeIs() {
+    var objs : List<Object> = {1, "a", 2, "b"}
+    var strings : List<String> = objs.lazy().whereTypeIs( String ).toList()
+    assertEquals( {"a", "b"}, strings )
+  }
+
+  function testViewIsReiterable() {
+    var view = {1, 2, 3}.lazy().where( \ i -> i != 2 )
+    assertEquals( {1, 3}, view.toList() )
+    assertEquals( {1, 3}, view.toList() )
+  }
+
+  function testArray() {
+    var arr = new String[]{"a", "bb", "ccc"}
+    assertEquals( {2, 3}, arr.lazy().map( \ s -> s.length() ).where( \ l -> l > 1 ).toList() )
+  }
+
+  function testForLoopAndAsIterable() {
+    var view = {1, 2, 3, 4}.lazy().where( \ i -> i % 2 == 0 )
+    var result = new ArrayList<Integer>()
+    for( i in view ) {
+      result.add( i )
+    }
+    assertEquals( {2, 4}, result )
+    assertEquals( {4, 8}, view.asIterable().map( \ i -> i * 2 ) )
+  }
+
+  function testTerminalOperations() {
+    var view = {3, 1, 2, 3}.lazy()
+    assertEquals( 3, view.first() )
+    assertNull( view.take( 0 ).first() )
+    assertNull( view.firstWhere( \ i -> i > 5 ) )
+    assertEquals( 2, view.countWhere( \ i -> i == 3 ) )
+    assertEquals( {1, 2, 3}.toSet(), view.toSet() )
+    var sum = 0
+    view.each( \ i -> { sum += i } )
+    assertEquals( 9, sum )
+  }
+
+  static class CountingIterable implements Iterable<Integer> {
+    var _list : List<Integer>
+    var _pulled : int as Pulled
+
+    construct( list : List<Integer> ) {
+      _list = list
+    }
+
+    override function iterator() : Iterator<Integer> {
+      var iter = _list.iterator()
+      var counter = this
+      return new Iterator<Integer>() {
+        override function hasNext() : boolean {
+          return iter.hasNext()
+        }
+        override function next() : Integer {
+          counter.Pulled++
+          return iter.next()
+        }
+        override function remove() {
+          iter.remove()
+        }
+      }
+    }
+  }
+}
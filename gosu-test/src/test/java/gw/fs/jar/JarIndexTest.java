@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.fs.jar;
+
+import gw.fs.IDirectory;
+import gw.fs.IFile;
+import gw.test.TestClass;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+public class JarIndexTest extends TestClass {
+
+  private File _dir;
+
+  @Override
+  public void beforeTestMethod() {
+    super.beforeTestMethod();
+    try {
+      _dir = Files.createTempDirectory("gosu-jar-index").toFile();
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public void afterTestMethod(Throwable possibleException) {
+    JarIndex.setIndexDir(null);
+    delete(_dir);
+    super.afterTestMethod(possibleException);
+  }
+
+  public void testIndexByDirectory() throws Exception {
+    JarIndex index = JarIndex.get(makeJar("test.jar", "root.txt", "a/B.class", "a/b/C.txt", "d/"));
+    assertEquals(new HashSet<String>(Arrays.asList("", "a", "a/b", "d")), index.getDirectoryPaths());
+    assertEquals(Arrays.asList("a", "d"), Arrays.asList(index.getChildDirectories("")));
+    assertEquals(Arrays.asList("root.txt"), Arrays.asList(index.getChildFiles("")));
+    assertEquals(Arrays.asList("b"), Arrays.asList(index.getChildDirectories("a")));
+    assertEquals(Arrays.asList("B.class"), Arrays.asList(index.getChildFiles("a")));
+    assertEquals(0, index.getChildFiles("d").length);
+    assertEquals(0, index.getChildFiles("no/such").length);
+  }
+
+  public void testPersistentIndex() throws Exception {
+    File indexDir = new File(_dir, "index");
+    JarIndex.setIndexDir(indexDir);
+    File jar = makeJar("test.jar", "a/B.class", "a/b/C.txt");
+    JarIndex.get(jar);
+    File[] files = indexDir.listFiles();
+    assertEquals(1, files.length);
+
+    // As in a later run
+    JarIndex index = JarIndex.load(jar.getAbsoluteFile(), jar.length(), jar.lastModified());
+    assertEquals(new HashSet<String>(Arrays.asList("", "a", "a/b")), index.getDirectoryPaths());
+    assertEquals(Arrays.asList("C.txt"), Arrays.asList(index.getChildFiles("a/b")));
+    assertEquals(Arrays.asList("b"), Arrays.asList(index.getChildDirectories("a")));
+
+    // A corrupt index is rebuilt from the jar
+    Files.write(files[0].toPath(), new byte[] {1, 2, 3});
+    index = JarIndex.load(jar.getAbsoluteFile(), jar.length(), jar.lastModified());
+    assertEquals(Arrays.asList("B.class"), Arrays.asList(index.getChildFiles("a")));
+  }
+
+  public void testChangedJarIsReindexed() throws Exception {
+    JarIndex.setIndexDir(new File(_dir, "index"));
+    File jar = makeJar("test.jar", "a/B.class");
+    assertEquals(Arrays.asList("B.class"), Arrays.asList(JarIndex.get(jar).getChildFiles("a")));
+    makeJar("test.jar", "a/B.class", "a/Other.class");
+    jar.setLastModified(jar.lastModified() + 2000);
+    assertEquals(Arrays.asList("B.class", "Other.class"), Arrays.asList(JarIndex.get(jar).getChildFiles("a")));
+  }
+
+  public void testJarDirectoryFromIndex() throws Exception {
+    JarFileDirectoryImpl jar = new JarFileDirectoryImpl(makeJar("test.jar", "root.txt", "a/B.class", "a/b/C.txt"));
+    IFile file = jar.file("a/b/C.txt");
+    assertTrue(file.exists());
+    InputStream in = file.openInputStream();
+    try {
+      byte[] bytes = new byte[64];
+      assertEquals("a/b/C.txt", new String(bytes, 0, in.read(bytes), StandardCharsets.UTF_8));
+    } finally {
+      in.close();
+    }
+    assertFalse(jar.file("a/b/D.txt").exists());
+    assertEquals(2, jar.listDirs().get(0).listFiles().size() + jar.listDirs().get(0).listDirs().size());
+    IDirectory dir = jar.dir("a");
+    assertTrue(dir.exists());
+    assertEquals("B.class", dir.listFiles().get(0).getName());
+    assertFalse(jar.dir("no").exists());
+  }
+
+  private File makeJar(String name, String... entries) throws Exception {
+    File jar = new File(_dir, name);
+    JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+    try {
+      for (String entry : entries) {
+        out.putNextEntry(new JarEntry(entry));
+        if (!entry.endsWith("/")) {
+          out.write(entry.getBytes(StandardCharsets.UTF_8));
+        }
+        out.closeEntry();
+      }
+    } finally {
+      out.close();
+    }
+    return jar;
+  }
+
+  private static void delete(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.fs.physical;
+
+import gw.fs.ResourcePath;
+import gw.fs.physical.fast.FastPhysicalFileSystem;
+import gw.test.TestClass;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class WatchingCachingPhysicalFileSystemTest extends TestClass {
+
+  private File _dir;
+  private CountingFileSystem _delegate;
+  private WatchingCachingPhysicalFileSystem _fs;
+
+  @Override
+  public void beforeTestMethod() {
+    super.beforeTestMethod();
+    try {
+      _dir = Files.createTempDirectory("gosu-watching-fs").toFile();
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+    _delegate = new CountingFileSystem();
+    _fs = new WatchingCachingPhysicalFileSystem(_delegate);
+  }
+
+  @Override
+  public void afterTestMethod(Throwable possibleException) {
+    _fs.stopWatching();
+    delete(_dir);
+    super.afterTestMethod(possibleException);
+  }
+
+  public void testCachedReadsDontTouchFileSystem() throws Exception {
+    new File(_dir, "a.gs").createNewFile();
+    ResourcePath dir = ResourcePath.parse(_dir.getAbsolutePath());
+    assertEquals(1, _fs.listFiles(dir).size());
+    assertTrue(_fs.exists(dir.join("a.gs")));
+    int iCalls = _delegate._calls.get();
+    for (int i = 0; i < 10; i++) {
+      assertEquals("a.gs", _fs.listFiles(dir).get(0).name());
+      assertTrue(_fs.exists(dir.join("a.gs")));
+      assertFalse(_fs.exists(dir.join("b.gs")));
+    }
+    // Only the first lookup of b.gs
+    assertEquals(iCalls + 1, _delegate._calls.get());
+  }
+
+  public void testChangesInvalidate() throws Exception {
+    ResourcePath dir = ResourcePath.parse(_dir.getAbsolutePath());
+    assertTrue(_fs.listFiles(dir).isEmpty());
+    assertFalse(_fs.exists(dir.join("a.gs")));
+
+    File file = new File(_dir, "a.gs");
+    file.createNewFile();
+    assertEquals(1, waitForListing(dir, 1).size());
+    assertTrue(_fs.exists(dir.join("a.gs")));
+
+    file.delete();
+    assertTrue(waitForListing(dir, 0).isEmpty());
+    assertFalse(_fs.exists(dir.join("a.gs")));
+  }
+
+  public void testNewSubdirectoryIsWatched() throws Exception {
+    ResourcePath dir = ResourcePath.parse(_dir.getAbsolutePath());
+    new File(_dir, "sub").mkdir();
+    assertEquals(1, waitForListing(dir, 1).size());
+    ResourcePath sub = dir.join("sub");
+    assertTrue(_fs.listFiles(sub).isEmpty());
+    new File(_dir, "sub/b.gs").createNewFile();
+    assertEquals("b.gs", waitForListing(sub, 1).get(0).name());
+  }
+
+  public void testDeleteThroughFileSystemInvalidates() throws Exception {
+    new File(_dir, "a.gs").createNewFile();
+    ResourcePath dir = ResourcePath.parse(_dir.getAbsolutePath());
+    assertEquals(1, _fs.listFiles(dir).size());
+    assertTrue(_fs.delete(dir.join("a.gs")));
+    assertTrue(_fs.listFiles(dir).isEmpty());
+  }
+
+  public void testStopWatchingFallsBackToTimestamps() throws Exception {
+    _fs.stopWatching();
+    ResourcePath dir = ResourcePath.parse(_dir.getAbsolutePath());
+    assertTrue(_fs.listFiles(dir).isEmpty());
+    new File(_dir, "a.gs").createNewFile();
+    _dir.setLastModified(System.currentTimeMillis() + 60000);
+    assertEquals(1, _fs.listFiles(dir).size());
+  }
+
+  private List<? extends IFileMetadata> waitForListing(ResourcePath dir, int iSize) throws InterruptedException {
+    List<? extends IFileMetadata> files = _fs.listFiles(dir);
+    for (int i = 0; i < 200 && files.size() != iSize; i++) {
+      Thread.sleep(50);
+      files = _fs.listFiles(dir);
+    }
+    return files;
+  }
+
+  private static void delete(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+
+  private static class CountingFileSystem extends FastPhysicalFileSystem {
+    private final AtomicInteger _calls = new AtomicInteger();
+
+    @Override
+    public List<? extends IFileMetadata> listFiles(ResourcePath directoryPath) {
+      _calls.incrementAndGet();
+      return super.listFiles(directoryPath);
+    }
+
+    @Override
+    public IFileMetadata getFileMetadata(ResourcePath filePath) {
+      _calls.incrementAndGet();
+      return super.getFileMetadata(filePath);
+    }
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.compiler;
+
+import gw.internal.gosu.parser.IBlockClassInternal;
+import gw.internal.gosu.parser.ICompilableTypeInternal;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.gs.BytecodeOptions;
+import gw.lang.reflect.gs.ICompilableType;
+import gw.lang.reflect.gs.IGosuProgram;
+import gw.test.TestClass;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ */
+public class BytecodeCacheTest extends TestClass
+{
+  private static final String CLASS = "gw.internal.gosu.compiler.sample.statement.classes.GosuShape";
+  private static final String CACHE_LEAF = "gw.internal.gosu.compiler.sample.statement.classes.CacheLeaf";
+  private static final String LAMBDA_BLOCKS = "gw.internal.gosu.compiler.blocks.LambdaBlocks";
+
+  private File _dir;
+  private boolean _lambdaBlocks;
+
+  @Override
+  public void beforeTestMethod()
+  {
+    super.beforeTestMethod();
+    _lambdaBlocks = BytecodeOptions.isLambdaBlocks();
+    try
+    {
+      _dir = Files.createTempDirectory( "gosu-bytecode-cache" ).toFile();
+    }
+    catch( Exception e )
+    {
+      throw new RuntimeException( e );
+    }
+  }
+
+  @Override
+  public void afterTestMethod( Throwable possibleException )
+  {
+    BytecodeOptions.setBytecodeCacheDir( null );
+    BytecodeOptions.setLambdaBlocks( _lambdaBlocks );
+    delete( _dir );
+    super.afterTestMethod( possibleException );
+  }
+
+  public void testPutThenGet()
+  {
+    ICompilableType type = (ICompilableType)TypeSystem.getByFullName( CLASS );
+    BytecodeCache cache = new BytecodeCache( _dir );
+    assertNull( cache.get( type ) );
+
+    byte[] bytes = GosuClassLoader.instance().getBytes( type );
+    cache.put( type, bytes );
+    assertTrue( getEntry().isFile() );
+    assertTrue( Arrays.equals( bytes, cache.get( type ) ) );
+
+    // A fresh cache on the same directory, as after a restart
+    assertTrue( Arrays.equals( bytes, new BytecodeCache( _dir ).get( type ) ) );
+  }
+
+  public void testCorruptEntryIsAMiss() throws Exception
+  {
+    ICompilableType type = (ICompilableType)TypeSystem.getByFullName( CLASS );
+    BytecodeCache cache = new BytecodeCache( _dir );
+    cache.put( type, GosuClassLoader.instance().getBytes( type ) );
+    byte[] entry = Files.readAllBytes( getEntry().toPath() );
+    try( FileOutputStream out = new FileOutputStream( getEntry() ) )
+    {
+      out.write( entry, 0, entry.length / 2 );
+    }
+    assertNull( cache.get( type ) );
+  }
+
+  public void testClassLoaderUsesConfiguredCache()
+  {
+    ICompilableType type = (ICompilableType)TypeSystem.getByFullName( CLASS );
+    BytecodeOptions.setBytecodeCacheDir( _dir );
+    byte[] bytes = GosuClassLoader.instance().getBytes( type );
+    assertTrue( getEntry().isFile() );
+    assertTrue( Arrays.equals( bytes, GosuClassLoader.instance().getBytes( type ) ) );
+  }
+
+  public void testDependenciesIncludeSupertypeClosure()
+  {
+    String pkg = "gw/internal/gosu/compiler/sample/statement/classes/";
+    ICompilableType leaf = (ICompilableType)TypeSystem.getByFullName( CACHE_LEAF );
+    Set<String> deps = BytecodeCache.getDependencies( leaf, GosuClassLoader.instance().getBytes( leaf ) );
+    assertTrue( deps.toString(), deps.contains( pkg + "CacheMiddle" ) );
+    assertTrue( deps.toString(), deps.contains( pkg + "CacheBase" ) );
+    assertTrue( deps.toString(), deps.contains( pkg + "CacheMarker" ) );
+    assertFalse( deps.toString(), deps.contains( pkg + "CacheLeaf" ) );
+  }
+
+  public void testDependenciesIncludeEnclosingTypeSupertypes()
+  {
+    String pkg = "gw/internal/gosu/compiler/sample/statement/classes/";
+    ICompilableType inner = (ICompilableType)TypeSystem.getByFullName( CACHE_LEAF + ".Inner" );
+    Set<String> deps = BytecodeCache.getDependencies( inner, GosuClassLoader.instance().getBytes( inner ) );
+    assertTrue( deps.toString(), deps.contains( pkg + "CacheMiddle" ) );
+    assertTrue( deps.toString(), deps.contains( pkg + "CacheBase" ) );
+  }
+
+  public void testHitMarksLambdaBlocks()
+  {
+    BytecodeOptions.setLambdaBlocks( true );
+    ICompilableTypeInternal type = (ICompilableTypeInternal)TypeSystem.getByFullName( LAMBDA_BLOCKS );
+    BytecodeCache cache = new BytecodeCache( _dir );
+    cache.put( type, GosuClassLoader.instance().getBytes( type ) );
+    assertEquals( 1, countLambdaBlocks( type ) );
+
+    // As after a restart, where the class's blocks are not compiled
+    for( int i = 0; i < type.getBlockCount(); i++ )
+    {
+      ((IBlockClassInternal)type.getBlock( i )).setCompiledToLambda( false );
+    }
+    assertNotNull( cache.get( type ) );
+    assertEquals( 1, countLambdaBlocks( type ) );
+  }
+
+  private static int countLambdaBlocks( ICompilableTypeInternal type )
+  {
+    int iCount = 0;
+    for( int i = 0; i < type.getBlockCount(); i++ )
+    {
+      if( ((IBlockClassInternal)type.getBlock( i )).isCompiledToLambda() )
+      {
+        iCount++;
+      }
+    }
+    return iCount;
+  }
+
+  public void testProgramsAreNotCached() throws Exception
+  {
+    IGosuProgram program = (IGosuProgram)TypeSystem.getByFullName( "gw.internal.gosu.compiler.MyManagedProgram" );
+    BytecodeCache cache = new BytecodeCache( _dir );
+    cache.put( program, new byte[0] );
+    assertEquals( 0, _dir.list().length );
+  }
+
+  private File getEntry()
+  {
+    return new File( _dir, CLASS.replace( '.', File.separatorChar ) + ".gsbc" );
+  }
+
+  private static void delete( File file )
+  {
+    File[] children = file.listFiles();
+    if( children != null )
+    {
+      for( File child : children )
+      {
+        delete( child );
+      }
+    }
+    file.delete();
+  }
+}
@@ -5,6 +5,7 @@
 package gw.internal.gosu.compiler;
 
 import gw.lang.reflect.IType;
+import gw.lang.reflect.gs.BytecodeOptions;
 import gw.lang.reflect.gs.IGosuProgram;
 
 public class EvalExpressionTest extends ByteCodeTestBase
@@ -72,6 +73,51 @@ public class EvalExpressionTest extends ByteCodeTestBase
     assertEquals( 2, val );
   }
 
+  public void testRepeatedEvalFromSameSite() throws Exception
+  {
+    Object obj = newEvalClass();
+    invokeMethod( obj, "testCanAccessEnclosingField" );
+    String val = (String)invokeMethod( obj, "testRepeatedEvalFromSameSite" );
+    assertEquals( "0,5,4,9,8,13,", val );
+  }
+
+  public void testAnonymousEvalClasses() throws Exception
+  {
+    Object obj = newEvalClass();
+    String val = (String)invokeMethod( obj, "testEvalProgramClassName", " " );
+    assertTrue( val, val.contains( "__Program__eval_" ) && !val.contains( "/" ) && val.endsWith( "1" ) );
+
+    BytecodeOptions.setAnonymousEvalClasses( true );
+    try
+    {
+      // A different source, so a new program
+      val = (String)invokeMethod( obj, "testEvalProgramClassName", "  " );
+      assertTrue( val, val.contains( "__Program__eval_" ) && val.endsWith( "2" ) );
+      // Falls back to a single serving loader where the VM can't define hidden or anonymous classes
+      assertEquals( val, GosuClassLoader.canDefineAnonymousClasses(), val.contains( "/" ) );
+    }
+    finally
+    {
+      BytecodeOptions.setAnonymousEvalClasses( false );
+    }
+  }
+
+  public void testAnonymousEvalClassWithBlockFallsBack() throws Exception
+  {
+    Object obj = newEvalClass();
+    BytecodeOptions.setAnonymousEvalClasses( true );
+    try
+    {
+      // Its block refers to the program by name, so it can't be anonymous
+      String val = (String)invokeMethod( obj, "testEvalProgramWithBlockClassName", "   " );
+      assertTrue( val, val.contains( "__Program__eval_" ) && !val.contains( "/" ) && val.endsWith( "3" ) );
+    }
+    finally
+    {
+      BytecodeOptions.setAnonymousEvalClasses( false );
+    }
+  }
+
   public void testCanAccessEnclosingField() throws Exception
   {
     Object obj = newEvalClass();
@@ -180,6 +180,33 @@ public class ForeachStatementIteratorTest extends ByteCodeTestBase
     assertEquals( "012345", ret );
   }
 
+  public void testHasForeachWithIntervalLiterals() throws Exception
+  {
+    Object obj = newForeachClass_iterator();
+
+    Object val = invokeMethod( obj,  "hasForeachWithIntervalLiterals" );
+    String ret = (String)val;
+    assertEquals( "012345,01234,12345,543210,54321,43210,024,531,03,,302112", ret );
+  }
+
+  public void testHasForeachWithIntervalVariables() throws Exception
+  {
+    Object obj = newForeachClass_iterator();
+
+    Object val = invokeMethod( obj,  "hasForeachWithIntervalVariables" );
+    String ret = (String)val;
+    assertEquals( "531,01234,,012,012", ret );
+  }
+
+  public void testHasForeachWithIntervalsAtBounds() throws Exception
+  {
+    Object obj = newForeachClass_iterator();
+
+    Object val = invokeMethod( obj,  "hasForeachWithIntervalsAtBounds" );
+    String ret = (String)val;
+    assertEquals( "3,2,2,3", ret );
+  }
+
   public void testGenericIterator() throws Exception
   {
     Object obj = newForeachClass_iterator();
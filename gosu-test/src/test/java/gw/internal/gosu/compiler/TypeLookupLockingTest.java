@@ -0,0 +1,95 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.compiler;
+
+import gw.lang.reflect.IType;
+import gw.lang.reflect.TypeSystem;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Lookups of already loaded types must not wait for the type system lock, see
+ * TypeLookupBenchmark in gosu-benchmark for their throughput under contention.
+ */
+public class TypeLookupLockingTest extends ByteCodeTestBase
+{
+  private static final String[] TYPE_NAMES = {
+    "java.lang.String",
+    "java.util.ArrayList",
+    "java.math.BigDecimal",
+    "gw.lang.reflect.IType",
+    "gw.lang.enhancements.CoreIterableEnhancement",
+    "gw.internal.gosu.compiler.sample.statement.classes.GosuShape",
+  };
+
+  public void testLoadedTypeLookupsDoNotTakeTheLock() throws Exception
+  {
+    // Start from a refreshed type system, as any earlier test may have left it, and load the
+    // types through getByFullName() only
+    TypeSystem.refresh( false );
+    final IType[] types = new IType[TYPE_NAMES.length];
+    for( int i = 0; i < TYPE_NAMES.length; i++ )
+    {
+      types[i] = TypeSystem.getByFullName( TYPE_NAMES[i] );
+    }
+    final String string = "";
+
+    final CountDownLatch locked = new CountDownLatch( 1 );
+    final CountDownLatch release = new CountDownLatch( 1 );
+    ExecutorService executor = Executors.newFixedThreadPool( 2 );
+    try
+    {
+      Future<?> holder = executor.submit( () -> {
+        TypeSystem.lock();
+        try
+        {
+          locked.countDown();
+          release.await();
+        }
+        catch( InterruptedException e )
+        {
+          Thread.currentThread().interrupt();
+        }
+        finally
+        {
+          TypeSystem.unlock();
+        }
+      } );
+      assertTrue( locked.await( 10, TimeUnit.SECONDS ) );
+
+      Future<?> lookups = executor.submit( () -> {
+        for( int i = 0; i < TYPE_NAMES.length; i++ )
+        {
+          assertSame( types[i], TypeSystem.getByFullName( TYPE_NAMES[i] ) );
+          assertSame( types[i], TypeSystem.getByFullNameIfValid( TYPE_NAMES[i] ) );
+        }
+        assertSame( types[0], TypeSystem.getFromObject( string ) );
+      } );
+      try
+      {
+        lookups.get( 10, TimeUnit.SECONDS );
+      }
+      catch( TimeoutException e )
+      {
+        fail( "Lookups of loaded types waited for the type system lock" );
+      }
+      finally
+      {
+        release.countDown();
+      }
+      holder.get( 10, TimeUnit.SECONDS );
+    }
+    finally
+    {
+      release.countDown();
+      executor.shutdownNow();
+    }
+  }
+}
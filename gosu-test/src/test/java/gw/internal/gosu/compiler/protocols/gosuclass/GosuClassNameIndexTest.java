@@ -0,0 +1,114 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.compiler.protocols.gosuclass;
+
+import gw.fs.IDirectory;
+import gw.lang.reflect.IType;
+import gw.lang.reflect.RefreshKind;
+import gw.lang.reflect.TypeLoaderBase;
+import gw.lang.reflect.TypeSystem;
+import gw.test.TestClass;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+public class GosuClassNameIndexTest extends TestClass {
+
+  @Override
+  public void afterTestMethod( Throwable possibleException ) {
+    GosuClassNameIndex.reset();
+    super.afterTestMethod( possibleException );
+  }
+
+  public void testGosuTypesAreCandidates() {
+    assertTrue( GosuClassNameIndex.mightBeGosuType( "gw.internal.gosu.compiler.sample.expression.HasEvalExpression" ) );
+    assertTrue( GosuClassNameIndex.mightBeGosuType( "gw.internal.gosu.compiler.sample.expression.HasEvalExpression.InnerClass" ) );
+    assertTrue( GosuClassNameIndex.mightBeGosuType( "gw.internal.gosu.compiler.sample.expression.HasEvalExpression.block_0_" ) );
+  }
+
+  public void testJavaTypesAreRejected() {
+    long rejected = GosuClassNameIndex.getRejectedCount();
+    assertFalse( GosuClassNameIndex.mightBeGosuType( "junit.framework.TestCase" ) );
+    assertFalse( GosuClassNameIndex.mightBeGosuType( "gw.internal.gosu.compiler.protocols.gosuclass.GosuClassNameIndexTest" ) );
+    assertEquals( rejected + 2, GosuClassNameIndex.getRejectedCount() );
+  }
+
+  public void testDynamicAndCreatedTypesAreCandidates() {
+    assertTrue( GosuClassNameIndex.mightBeGosuType( "gw.internal.gosu.__Program__1" ) );
+    assertFalse( GosuClassNameIndex.mightBeGosuType( "gw.internal.gosu.NotYetMade" ) );
+    GosuClassNameIndex.typeCreated( "gw.internal.gosu.NotYetMade" );
+    assertTrue( GosuClassNameIndex.mightBeGosuType( "gw.internal.gosu.NotYetMade" ) );
+  }
+
+  public void testInvalidatedIndexIsRebuilt() {
+    GosuClassNameIndex.invalidate();
+    assertTrue( GosuClassNameIndex.mightBeGosuType( "gw.internal.gosu.compiler.sample.expression.HasEvalExpression" ) );
+    assertFalse( GosuClassNameIndex.mightBeGosuType( "junit.framework.TestCase" ) );
+  }
+
+  public void testCreatedTypesAreForgottenOnRefresh() {
+    GosuClassNameIndex.typeCreated( "gw.internal.gosu.MadeBeforeRefresh" );
+    assertTrue( GosuClassNameIndex.mightBeGosuType( "gw.internal.gosu.MadeBeforeRefresh" ) );
+    TypeSystem.refresh( true );
+    assertFalse( GosuClassNameIndex.mightBeGosuType( "gw.internal.gosu.MadeBeforeRefresh" ) );
+  }
+
+  public void testCustomTypeLoaderTypesAreCandidates() {
+    assertFalse( GosuClassNameIndex.mightBeGosuType( "gw.custom.Widget" ) );
+    assertFalse( GosuClassNameIndex.mightBeGosuType( "customprefix.Gadget" ) );
+    TypeSystem.pushTypeLoader( TypeSystem.getGlobalModule(), new CustomTypeLoader() );
+    try {
+      assertTrue( GosuClassNameIndex.mightBeGosuType( "gw.custom.Widget" ) );
+      assertTrue( GosuClassNameIndex.mightBeGosuType( "gw.custom.Widget.Inner" ) );
+      assertTrue( GosuClassNameIndex.mightBeGosuType( "customprefix.Gadget" ) );
+      assertFalse( GosuClassNameIndex.mightBeGosuType( "gw.custom.Gizmo" ) );
+    }
+    finally {
+      TypeSystem.removeTypeLoader( CustomTypeLoader.class );
+    }
+    assertFalse( GosuClassNameIndex.mightBeGosuType( "gw.custom.Widget" ) );
+  }
+
+  private static class CustomTypeLoader extends TypeLoaderBase {
+    CustomTypeLoader() {
+      super( TypeSystem.getGlobalModule() );
+    }
+
+    @Override
+    public IType getType( String fullyQualifiedName ) {
+      return null;
+    }
+
+    @Override
+    public Set<String> computeTypeNames() {
+      return Collections.singleton( "gw.custom.Widget" );
+    }
+
+    @Override
+    public Set<? extends CharSequence> getAllNamespaces() {
+      return Collections.emptySet();
+    }
+
+    @Override
+    public List<String> getHandledPrefixes() {
+      return Collections.singletonList( "customprefix" );
+    }
+
+    @Override
+    public boolean handlesNonPrefixLoads() {
+      return true;
+    }
+
+    @Override
+    public boolean hasNamespace( String namespace ) {
+      return false;
+    }
+
+    @Override
+    public void refreshedNamespace( String namespace, IDirectory dir, RefreshKind kind ) {
+    }
+  }
+}
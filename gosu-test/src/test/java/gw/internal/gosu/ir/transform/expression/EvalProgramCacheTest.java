@@ -0,0 +1,42 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.transform.expression;
+
+import gw.internal.gosu.compiler.ByteCodeTestBase;
+import gw.lang.reflect.ITypeRef;
+import gw.lang.reflect.TypeSystem;
+
+public class EvalProgramCacheTest extends ByteCodeTestBase
+{
+  private static final String CLASS = "gw.internal.gosu.compiler.sample.expression.HasEvalExpression";
+
+  public void testRepeatedEvalReusesProgram()
+  {
+    EvalExpressionTransformer.clearEvalExpressions();
+    Object result = invokeMethod( constructFromGosuClassloader( CLASS ), "testRepeatedEvalFromSameSite" );
+    // Two sources from one site
+    assertEquals( 2, EvalExpressionTransformer.getEvalProgramCacheSize() );
+    assertEquals( result, invokeMethod( constructFromGosuClassloader( CLASS ), "testRepeatedEvalFromSameSite" ) );
+    assertEquals( 2, EvalExpressionTransformer.getEvalProgramCacheSize() );
+  }
+
+  public void testCacheIsClearedWhenTypesAreRefreshed()
+  {
+    Object obj = constructFromGosuClassloader( CLASS );
+    invokeMethod( obj, "testRepeatedEvalFromSameSite" );
+    assertTrue( EvalExpressionTransformer.getEvalProgramCacheSize() > 0 );
+    TypeSystem.refresh( (ITypeRef)TypeSystem.getByFullName( CLASS ) );
+    assertEquals( 0, EvalExpressionTransformer.getEvalProgramCacheSize() );
+  }
+
+  public void testCacheIsClearedWhenTheTypeSystemIsRefreshed()
+  {
+    Object result = invokeMethod( constructFromGosuClassloader( CLASS ), "testRepeatedEvalFromSameSite" );
+    assertTrue( EvalExpressionTransformer.getEvalProgramCacheSize() > 0 );
+    TypeSystem.refresh( false );
+    assertEquals( 0, EvalExpressionTransformer.getEvalProgramCacheSize() );
+    assertEquals( result, invokeMethod( constructFromGosuClassloader( CLASS ), "testRepeatedEvalFromSameSite" ) );
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.parser;
+
+import gw.lang.reflect.IType;
+import gw.lang.reflect.TypeSystem;
+import gw.test.TestClass;
+
+import java.util.TreeMap;
+
+/**
+ */
+public class ClassTypeIndexTest extends TestClass
+{
+  public void testInvalidateDropsEntries()
+  {
+    ClassTypeIndex index = new ClassTypeIndex();
+    IType type = TypeSystem.get( TreeMap.class );
+    index.put( TreeMap.class, type, index.getGeneration() );
+    assertSame( type, index.get( TreeMap.class ) );
+
+    index.invalidate();
+    assertNull( index.get( TreeMap.class ) );
+  }
+
+  public void testTypeResolvedBeforeInvalidateIsNotCached()
+  {
+    ClassTypeIndex index = new ClassTypeIndex();
+    int iGeneration = index.getGeneration();
+    index.invalidate();
+    index.put( TreeMap.class, TypeSystem.get( TreeMap.class ), iGeneration );
+    assertNull( index.get( TreeMap.class ) );
+  }
+
+  public void testPinnedEntriesSurviveInvalidate()
+  {
+    ClassTypeIndex index = new ClassTypeIndex();
+    IType type = TypeSystem.get( String.class );
+    index.pin( String.class, type );
+    index.invalidate();
+    assertSame( type, index.get( String.class ) );
+  }
+
+  public void testInstanceTypeExcludesTypesAndGosuObjects()
+  {
+    ClassTypeIndex index = new ClassTypeIndex();
+    IType type = TypeSystem.get( JavaType.class );
+    index.put( JavaType.class, type, index.getGeneration() );
+    assertSame( type, index.get( JavaType.class ) );
+    assertNull( index.getInstanceType( JavaType.class ) );
+
+    index.put( TreeMap.class, TypeSystem.get( TreeMap.class ), index.getGeneration() );
+    assertSame( TypeSystem.get( TreeMap.class ), index.getInstanceType( TreeMap.class ) );
+  }
+
+  public void testRefreshInvalidatesTypesByClass()
+  {
+    FrequentUsedJavaTypeCache cache = FrequentUsedJavaTypeCache.instance( TypeSystem.getExecutionEnvironment() );
+    TypeSystem.get( TreeMap.class );
+    assertNotNull( cache.getType( TreeMap.class ) );
+
+    TypeSystem.refresh( false );
+    assertNull( cache.getType( TreeMap.class ) );
+    assertNotNull( cache.getType( String.class ) );
+    assertSame( TypeSystem.get( TreeMap.class ), TypeSystem.getFromObject( new TreeMap() ) );
+  }
+}
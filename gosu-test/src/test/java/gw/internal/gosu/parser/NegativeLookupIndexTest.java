@@ -0,0 +1,153 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.parser;
+
+import gw.fs.IDirectory;
+import gw.lang.reflect.IType;
+import gw.lang.reflect.RefreshKind;
+import gw.lang.reflect.TypeLoaderBase;
+import gw.lang.reflect.TypeSystem;
+import gw.test.TestClass;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ */
+public class NegativeLookupIndexTest extends TestClass
+{
+  private static final String MISSING = "gw.negative.Widget";
+
+  public void testAddedNameIsAMiss()
+  {
+    NegativeLookupIndex index = new NegativeLookupIndex();
+    assertFalse( index.contains( MISSING ) );
+    index.add( MISSING );
+    assertTrue( index.contains( MISSING ) );
+    assertEquals( 1, index.size() );
+
+    index.remove( MISSING );
+    assertFalse( index.contains( MISSING ) );
+  }
+
+  public void testInvalidateStartsNewGeneration()
+  {
+    NegativeLookupIndex index = new NegativeLookupIndex();
+    index.add( MISSING );
+    index.add( "gw.negative.Gadget" );
+    index.invalidate();
+    assertFalse( index.contains( MISSING ) );
+    assertFalse( index.contains( "gw.negative.Gadget" ) );
+    // Invalidated misses stay until evicted
+    assertEquals( 2, index.size() );
+
+    index.add( MISSING );
+    assertTrue( index.contains( MISSING ) );
+  }
+
+  public void testIndexIsBounded()
+  {
+    NegativeLookupIndex index = new NegativeLookupIndex( 100 );
+    for( int i = 0; i < 1000; i++ )
+    {
+      index.add( MISSING + i );
+    }
+    assertTrue( String.valueOf( index.size() ), index.size() <= 100 );
+  }
+
+  public void testFailedLookupIsRecorded()
+  {
+    assertNull( TypeSystem.getByFullNameIfValid( MISSING ) );
+    assertTrue( getIndex().contains( MISSING ) );
+  }
+
+  public void testAddingTypeLoaderInvalidatesMisses()
+  {
+    assertNull( TypeSystem.getByFullNameIfValid( MISSING ) );
+    assertTrue( getIndex().contains( MISSING ) );
+
+    RecordingTypeLoader loader = new RecordingTypeLoader();
+    loader.init();
+    TypeSystem.pushTypeLoader( TypeSystem.getGlobalModule(), loader );
+    try
+    {
+      assertFalse( getIndex().contains( MISSING ) );
+      assertNull( TypeSystem.getByFullNameIfValid( MISSING ) );
+      assertTrue( loader._requested.contains( MISSING ) );
+    }
+    finally
+    {
+      TypeSystem.removeTypeLoader( RecordingTypeLoader.class );
+    }
+  }
+
+  public void testRefreshStartsNewGeneration()
+  {
+    assertNull( TypeSystem.getByFullNameIfValid( MISSING ) );
+    assertTrue( getIndex().contains( MISSING ) );
+
+    TypeSystem.refresh( true );
+    assertFalse( getIndex().contains( MISSING ) );
+  }
+
+  private static NegativeLookupIndex getIndex()
+  {
+    return ((ModuleTypeLoader)TypeSystem.getGlobalModule().getModuleTypeLoader()).getNegativeLookupIndex();
+  }
+
+  private static class RecordingTypeLoader extends TypeLoaderBase
+  {
+    private final List<String> _requested = new ArrayList<String>();
+
+    RecordingTypeLoader()
+    {
+      super( TypeSystem.getGlobalModule() );
+    }
+
+    @Override
+    public IType getType( String fullyQualifiedName )
+    {
+      _requested.add( fullyQualifiedName );
+      return null;
+    }
+
+    @Override
+    public Set<String> computeTypeNames()
+    {
+      return Collections.emptySet();
+    }
+
+    @Override
+    public Set<? extends CharSequence> getAllNamespaces()
+    {
+      return Collections.emptySet();
+    }
+
+    @Override
+    public List<String> getHandledPrefixes()
+    {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public boolean handlesNonPrefixLoads()
+    {
+      return true;
+    }
+
+    @Override
+    public boolean hasNamespace( String namespace )
+    {
+      return false;
+    }
+
+    @Override
+    public void refreshedNamespace( String namespace, IDirectory dir, RefreshKind kind )
+    {
+    }
+  }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.runtime;
+
+import gw.lang.parser.coercers.RuntimeCoercer;
+import gw.lang.reflect.java.JavaTypes;
+import gw.test.TestClass;
+
+/**
+ */
+public class DynamicCoercionTest extends TestClass
+{
+  public void testLinkedCoercion()
+  {
+    assertEquals( 5L, DynamicDispatchBootstrap.coerceWith( RuntimeCoercer.instance(), 5, JavaTypes.LONG(), RuntimeCoercer.instance() ) );
+  }
+
+  public void testFailedLinkedCoercionThrowsClassCastException()
+  {
+    try
+    {
+      DynamicDispatchBootstrap.coerceWith( RuntimeCoercer.instance(), new Object(), JavaTypes.LONG(), RuntimeCoercer.instance() );
+      fail( "Expected ClassCastException" );
+    }
+    catch( ClassCastException e )
+    {
+      // expected
+    }
+  }
+}
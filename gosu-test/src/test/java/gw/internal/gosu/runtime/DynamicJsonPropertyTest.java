@@ -0,0 +1,62 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.runtime;
+
+import gw.lang.reflect.IType;
+import gw.lang.reflect.java.JavaTypes;
+import gw.lang.reflect.json.Json;
+import gw.lang.reflect.json.JsonBindings;
+import gw.test.TestClass;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ */
+public class DynamicJsonPropertyTest extends TestClass
+{
+  public void testSiteLinksOnceForDocumentsOfTheSameShape() throws Throwable
+  {
+    CallSite site = makeGetPropertySite();
+    MethodHandle getProperty = site.dynamicInvoker();
+    for( int i = 0; i < 10; i++ )
+    {
+      Object doc = Json.fromJson( "{\"id\": " + i + ", \"name\": \"n" + i + "\"}" );
+      assertEquals( "n" + i, getProperty.invoke( doc, (IType)JavaTypes.OBJECT(), "name" ) );
+    }
+    assertEquals( 1, ((DynamicDispatchBootstrap.InlineCacheCallSite)site).getDepth() );
+  }
+
+  public void testSiteRelinksForAnotherShape() throws Throwable
+  {
+    CallSite site = makeGetPropertySite();
+    MethodHandle getProperty = site.dynamicInvoker();
+    assertEquals( "a", getProperty.invoke( Json.fromJson( "{\"id\": 1, \"name\": \"a\"}" ), (IType)JavaTypes.OBJECT(), "name" ) );
+    assertEquals( "b", getProperty.invoke( Json.fromJson( "{\"name\": \"b\", \"id\": 2}" ), (IType)JavaTypes.OBJECT(), "name" ) );
+    assertEquals( "c", getProperty.invoke( Json.fromJson( "{\"id\": 3, \"name\": \"c\"}" ), (IType)JavaTypes.OBJECT(), "name" ) );
+    assertEquals( 2, ((DynamicDispatchBootstrap.InlineCacheCallSite)site).getDepth() );
+  }
+
+  public void testObjectWithoutSharedShapeIsLookedUpByKey() throws Throwable
+  {
+    CallSite site = makeGetPropertySite();
+    MethodHandle getProperty = site.dynamicInvoker();
+    JsonBindings doc = (JsonBindings)Json.fromJson( "{\"id\": 1, \"name\": \"a\"}" );
+    assertEquals( "a", getProperty.invoke( doc, (IType)JavaTypes.OBJECT(), "name" ) );
+    doc.put( "more", true );
+    assertNull( doc.getSharedShape() );
+    doc.put( "name", "z" );
+    assertEquals( "z", getProperty.invoke( doc, (IType)JavaTypes.OBJECT(), "name" ) );
+    assertEquals( 2, ((DynamicDispatchBootstrap.InlineCacheCallSite)site).getDepth() );
+  }
+
+  private static CallSite makeGetPropertySite() throws Exception
+  {
+    return DynamicDispatchBootstrap.bootstrap( MethodHandles.lookup(), "getProperty",
+                                               MethodType.methodType( Object.class, Object.class, IType.class, String.class ) );
+  }
+}
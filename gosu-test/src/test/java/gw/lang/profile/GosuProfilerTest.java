@@ -0,0 +1,89 @@
+/*
+ * Copyright 2014 Guidewire Software, Inc.
+ */
+
+package gw.lang.profile;
+
+import gw.lang.reflect.gs.BytecodeOptions;
+import gw.lang.reflect.gs.IGosuProgram;
+import gw.test.TestClass;
+
+/**
+ */
+public class GosuProfilerTest extends TestClass
+{
+  @Override
+  public void afterTestMethod( Throwable possibleException )
+  {
+    GosuProfiler.setEnabled( false );
+    BytecodeOptions.setProfileMethods( false );
+    GosuProfiler.reset();
+    super.afterTestMethod( possibleException );
+  }
+
+  public void testPhasesAreRecordedWhenEnabled() throws Exception
+  {
+    GosuProfiler.setEnabled( true );
+    GosuProfiler.reset();
+    IGosuProgram.Runner.runProgram( "return 1 + 1" );
+
+    TypeProfile program = findProgram( GosuProfiler.getSnapshot() );
+    assertNotNull( program );
+    assertTrue( program.getNanos( Phase.PARSE_DEFINITIONS ) > 0 );
+    assertTrue( program.getNanos( Phase.COMPILE ) > 0 );
+  }
+
+  public void testNothingIsRecordedWhenDisabled() throws Exception
+  {
+    GosuProfiler.setEnabled( false );
+    GosuProfiler.reset();
+    IGosuProgram.Runner.runProgram( "return 1 + 1" );
+    assertTrue( GosuProfiler.getSnapshot().getTypes().isEmpty() );
+  }
+
+  public void testMethodInvocationsAreCounted() throws Exception
+  {
+    BytecodeOptions.setProfileMethods( true );
+    Object ret = IGosuProgram.Runner.runProgram(
+      "function twice( i : int ) : int { return i * 2 }\n" +
+      "function fail( i : int ) : int { throw new java.lang.IllegalStateException() }\n" +
+      "var sum = 0\n" +
+      "for( i in 0..|3 ) {\n" +
+      "  sum += twice( i )\n" +
+      "  try { fail( i ) } catch( e : java.lang.IllegalStateException ) { sum++ }\n" +
+      "}\n" +
+      "return sum" );
+    assertEquals( 9, ret );
+
+    ProfilingSnapshot snapshot = GosuProfiler.getSnapshot();
+    assertEquals( 3, findMethod( snapshot, ".twice(" ).getInvocationCount() );
+    assertEquals( 3, findMethod( snapshot, ".fail(" ).getInvocationCount() );
+
+    GosuProfiler.reset();
+    assertNull( findMethod( GosuProfiler.getSnapshot(), ".twice(" ) );
+  }
+
+  private static TypeProfile findProgram( ProfilingSnapshot snapshot )
+  {
+    for( TypeProfile type : snapshot.getTypes() )
+    {
+      if( type.getName().startsWith( IGosuProgram.PACKAGE + '.' + IGosuProgram.NAME_PREFIX ) )
+      {
+        return type;
+      }
+    }
+    return null;
+  }
+
+  private static MethodProfile findMethod( ProfilingSnapshot snapshot, String name )
+  {
+    for( MethodProfile method : snapshot.getMethods() )
+    {
+      if( method.getName().startsWith( IGosuProgram.PACKAGE + '.' ) && method.getName().contains( name ) )
+      {
+        return method;
+      }
+    }
+    return null;
+  }
+}
@@ -13,8 +13,14 @@
 
 package gw.util.concurrent;
 
+import gw.lang.parser.TypeSystemAwareCache;
+import gw.lang.reflect.TypeSystem;
 import gw.test.TestClass;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Tests the {@link Cache} implementation.
  *
@@ -224,6 +230,291 @@ public class CacheTest extends TestClass {
     assertEquals(1, cache.getHits());
   }
 
+  public void testConcurrentMissesLoadOnce() throws Exception {
+    final AtomicInteger loads = new AtomicInteger();
+    final CountDownLatch loading = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final Cache<Integer,String> cache = new Cache<Integer,String>("testCache", 10, new Cache.MissHandler<Integer,String>() {
+     @Override
+     public String load(Integer key) {
+       loads.incrementAndGet();
+       loading.countDown();
+       try {
+         release.await();
+       } catch (InterruptedException e) {
+         throw new RuntimeException(e);
+       }
+       return LOAD[key];
+     }
+   });
+    final String[] results = new String[4];
+    Thread[] threads = new Thread[results.length];
+    for (int i = 0; i < threads.length; i++) {
+      final int iResult = i;
+      threads[i] = new Thread() {
+        public void run() {
+          results[iResult] = cache.get(ONE);
+        }
+      };
+      threads[i].start();
+      if (i == 0) {
+        loading.await();
+      }
+    }
+    release.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(1, loads.get());
+    for (String result : results) {
+      assertEquals(LOAD[1], result);
+    }
+    assertEquals(results.length, cache.getRequests());
+  }
+
+  public void testMissWhileHoldingTypeSystemLockDoesNotDeadlock() throws Exception {
+    final CountDownLatch loading = new CountDownLatch(1);
+    final CountDownLatch locked = new CountDownLatch(1);
+    final Cache<Integer,String> cache = new TypeSystemAwareCache<Integer,String>("testCache", 10, new Cache.MissHandler<Integer,String>() {
+     @Override
+     public String load(Integer key) {
+       loading.countDown();
+       await(locked);
+       // Like the type system's caches, the miss handler takes the type system lock
+       TypeSystem.lock();
+       try {
+         return LOAD[key];
+       } finally {
+         TypeSystem.unlock();
+       }
+     }
+   });
+    final String[] results = new String[2];
+    Thread loader = new Thread() {
+      public void run() {
+        results[0] = cache.get(ONE);
+      }
+    };
+    Thread locker = new Thread() {
+      public void run() {
+        await(loading);
+        TypeSystem.lock();
+        try {
+          locked.countDown();
+          results[1] = cache.get(ONE);
+        } finally {
+          TypeSystem.unlock();
+        }
+      }
+    };
+    loader.start();
+    locker.start();
+    loader.join(10000);
+    locker.join(10000);
+    assertFalse(loader.isAlive());
+    assertFalse(locker.isAlive());
+    assertEquals(LOAD[1], results[0]);
+    assertEquals(LOAD[1], results[1]);
+  }
+
+  public void testSlowConcurrentMissesLoadOnce() throws Exception {
+    final AtomicInteger loads = new AtomicInteger();
+    final CountDownLatch loading = new CountDownLatch(1);
+    final Cache<Integer,String> cache = new Cache<Integer,String>("testCache", 10, new Cache.MissHandler<Integer,String>() {
+     @Override
+     public String load(Integer key) {
+       loads.incrementAndGet();
+       loading.countDown();
+       try {
+         Thread.sleep(1000);
+       } catch (InterruptedException e) {
+         throw new RuntimeException(e);
+       }
+       return LOAD[key];
+     }
+   });
+    final String[] results = new String[2];
+    Thread loader = new Thread() {
+      public void run() {
+        results[0] = cache.get(ONE);
+      }
+    };
+    loader.start();
+    loading.await();
+    results[1] = cache.get(ONE);
+    loader.join();
+    assertEquals(1, loads.get());
+    assertEquals(LOAD[1], results[0]);
+    assertEquals(LOAD[1], results[1]);
+  }
+
+  public void testLoadNeedingItsOwnKeyDoesNotDeadlock() {
+    final AtomicInteger loads = new AtomicInteger();
+    final Cache<Integer,String>[] cache = new Cache[1];
+    cache[0] = new Cache<Integer,String>("testCache", 10, new Cache.MissHandler<Integer,String>() {
+     @Override
+     public String load(Integer key) {
+       if (loads.incrementAndGet() == 1) {
+         return LOAD[key] + cache[0].get(key);
+       }
+       return LOAD[key];
+     }
+   });
+    assertEquals(LOAD[1] + LOAD[1], cache[0].get(ONE));
+    assertEquals(2, loads.get());
+  }
+
+  public void testLoadsNeedingEachOthersKeysDoNotDeadlock() throws Exception {
+    final AtomicInteger loads = new AtomicInteger();
+    final CountDownLatch loading = new CountDownLatch(2);
+    final Cache<Integer,String>[] cache = new Cache[1];
+    cache[0] = new Cache<Integer,String>("testCache", 10, new Cache.MissHandler<Integer,String>() {
+     @Override
+     public String load(Integer key) {
+       if (loads.incrementAndGet() <= 2) {
+         // Both loads are in flight before either needs the other's key
+         loading.countDown();
+         await(loading);
+         return LOAD[key] + cache[0].get(key == 1 ? TWO : ONE);
+       }
+       return LOAD[key];
+     }
+   });
+    final String[] results = new String[2];
+    Thread one = new Thread() {
+      public void run() {
+        results[0] = cache[0].get(ONE);
+      }
+    };
+    Thread two = new Thread() {
+      public void run() {
+        results[1] = cache[0].get(TWO);
+      }
+    };
+    one.start();
+    two.start();
+    one.join(10000);
+    two.join(10000);
+    assertFalse(one.isAlive());
+    assertFalse(two.isAlive());
+    // One of the threads loads the other's key itself rather than wait for it
+    assertEquals(3, loads.get());
+    assertTrue(results[0], results[0].equals(LOAD[1] + LOAD[2]) || results[0].equals(LOAD[1] + LOAD[2] + LOAD[1]));
+    assertTrue(results[1], results[1].equals(LOAD[2] + LOAD[1]) || results[1].equals(LOAD[2] + LOAD[1] + LOAD[2]));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  public void testLoadFailureIsNotCached() {
+    final AtomicInteger loads = new AtomicInteger();
+    Cache<Integer,String> cache = new Cache<Integer,String>("testCache", 10, new Cache.MissHandler<Integer,String>() {
+     @Override
+     public String load(Integer key) {
+       if (loads.incrementAndGet() == 1) {
+         throw new IllegalStateException();
+       }
+       return LOAD[key];
+     }
+   });
+    try {
+      cache.get(ONE);
+      fail();
+    } catch (IllegalStateException e) {
+      // expected
+    }
+    assertEquals(LOAD[1], cache.get(ONE));
+    assertEquals(LOAD[1], cache.get(ONE));
+    assertEquals(2, loads.get());
+  }
+
+  public void testFrequentlyUsedEntriesSurviveScan() {
+    final AtomicInteger loads = new AtomicInteger();
+    Cache<Integer,Integer> cache = new Cache<Integer,Integer>("testCache", 100, new Cache.MissHandler<Integer,Integer>() {
+     @Override
+     public Integer load(Integer key) {
+       loads.incrementAndGet();
+       return key;
+     }
+   });
+    for (int i = 0; i < 5; i++) {
+      for (int key = 0; key < 50; key++) {
+        cache.get(key);
+      }
+    }
+    // A scan of keys used once should not flush the hot ones
+    for (int key = 1000; key < 2000; key++) {
+      cache.get(key);
+    }
+    assertTrue(cache.getUtilizedSize() <= 100);
+    loads.set(0);
+    for (int key = 0; key < 50; key++) {
+      cache.get(key);
+    }
+    assertEquals(0, loads.get());
+  }
+
+  public void testWeightedSize() {
+    Cache<Integer,String> cache = new Cache<Integer,String>("testCache", 10, new Cache.Weigher<Integer,String>() {
+      @Override
+      public int weigh(Integer key, String value) {
+        return value.length();
+      }
+    }, 0, TimeUnit.SECONDS, new Cache.MissHandler<Integer,String>() {
+     @Override
+     public String load(Integer key) {
+       return LOAD[key];
+     }
+   });
+    cache.get(ZERO);
+    cache.get(ONE);
+    assertEquals(2, cache.getUtilizedSize());
+    cache.get(TWO);
+    cache.get(THREE);
+    cache.get(FOUR);
+    // Zero, One, Two, Three, Four weigh 20, at most 10 fit
+    assertTrue(cache.getUtilizedSize() <= 2);
+  }
+
+  public void testExpireAfterWrite() throws Exception {
+    final AtomicInteger loads = new AtomicInteger();
+    Cache<Integer,String> cache = new Cache<Integer,String>("testCache", 10, null, 50, TimeUnit.MILLISECONDS, new Cache.MissHandler<Integer,String>() {
+     @Override
+     public String load(Integer key) {
+       loads.incrementAndGet();
+       return LOAD[key];
+     }
+   });
+    assertEquals(LOAD[1], cache.get(ONE));
+    assertEquals(LOAD[1], cache.get(ONE));
+    assertEquals(1, loads.get());
+    Thread.sleep(100);
+    assertEquals(LOAD[1], cache.get(ONE));
+    assertEquals(2, loads.get());
+    assertEquals(2, cache.getMisses());
+  }
+
+  public void testClear() {
+    Cache<Integer,String> cache = new Cache<Integer,String>("testCache", 10, new Cache.MissHandler<Integer,String>() {
+     @Override
+     public String load(Integer key) {
+       return LOAD[key];
+     }
+   });
+    cache.get(ONE);
+    cache.get(ONE);
+    cache.clear();
+    assertEquals(0, cache.getUtilizedSize());
+    assertEquals(0, cache.getRequests());
+    cache.get(ONE);
+    assertEquals(1, cache.getMisses());
+  }
+
   private void assertHit(int[] counts, Cache cache) {
     assertEquals(counts[0] + 1, cache.getRequests());
     assertEquals(counts[1], cache.getMisses());
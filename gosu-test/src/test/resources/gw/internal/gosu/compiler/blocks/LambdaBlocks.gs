@@ -0,0 +1,22 @@
+package gw.internal.gosu.compiler.blocks
+
+/**
+ * Blocks for BlockLambdaTest, which enables lambda blocks before this class is first loaded.  It is a
+ * resource so that it is compiled at runtime rather than with the test sources.
+ */
+class LambdaBlocks {
+
+  static function noCapture() : block(i:Integer):Integer {
+    return \ i -> i * 2
+  }
+
+  static function capturesLocal( n : Integer ) : block(i:Integer):Integer {
+    return \ i -> i * n
+  }
+
+  var _factor = 3
+
+  function capturesThis() : block(i:Integer):Integer {
+    return \ i -> i * _factor
+  }
+}